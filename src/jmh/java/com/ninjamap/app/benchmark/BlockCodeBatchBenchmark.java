@@ -0,0 +1,82 @@
+package com.ninjamap.app.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.service.impl.BlockCodeBatchService;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+/**
+ * Batch block code evaluation against one-point-at-a-time calls through the
+ * cached single-point path. Scores are microseconds per batch; points/sec is
+ * {@code batchSize / score * 1e6}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockCodeBatchBenchmark {
+
+    @Param({ "1", "100", "10000", "100000" })
+    public int batchSize;
+
+    private ForkJoinPool pool;
+    private BlockCodeDecoder decoder;
+    private BlockCodeBatchService batchService;
+    private double[] latLon;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        decoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+        batchService = new BlockCodeBatchService(decoder, pool, 100_000, 1024);
+
+        Random random = new Random(42);
+        latLon = new double[batchSize * 2];
+        for (int i = 0; i < batchSize; i++) {
+            latLon[i * 2] = SyntheticLgaFixture.MIN_LAT
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+            latLon[i * 2 + 1] = SyntheticLgaFixture.MIN_LON
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BlockCodeBatchService.BatchResult batch() {
+        return batchService.evaluate(latLon);
+    }
+
+    @Benchmark
+    public String[] singlePointCalls() {
+        decoder.clearCaches();
+        String[] codes = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            codes[i] = decoder.generateUniqueCodeForBlock(new Coordinates(latLon[i * 2], latLon[i * 2 + 1]));
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ninjamap.app.benchmark;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.BlockCodeHashGenerator;
+import com.ninjamap.app.utils.geo.BlockCodeParser;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+/**
+ * Geohash and block code encoding/decoding, without any LGA lookup: the
+ * string API of {@link BlockCodeHashGenerator} against the bit-level
+ * {@link GeohashCodec}, plus block code formatting and parsing. Each
+ * invocation handles the next of 4096 precomputed points or codes, so scores
+ * are nanoseconds per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockCodeCodecBenchmark {
+
+    private static final int POINTS = 1 << 12;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] geohashBits;
+    private String[] geohashes;
+    private String[] blockCodes;
+    private char[][] blockCodeChars;
+    private LGA lga;
+    private BlockCodeDecoder decoder;
+    private final double[] bounds = new double[4];
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        decoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+        lga = decoder.getSpatialIndex().getLgas().get(0);
+
+        Random random = new Random(42);
+        latitudes = new double[POINTS];
+        longitudes = new double[POINTS];
+        geohashBits = new long[POINTS];
+        geohashes = new String[POINTS];
+        blockCodes = new String[POINTS];
+        blockCodeChars = new char[POINTS][];
+        for (int i = 0; i < POINTS; i++) {
+            latitudes[i] = SyntheticLgaFixture.MIN_LAT
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+            longitudes[i] = SyntheticLgaFixture.MIN_LON
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+            geohashBits[i] = GeohashCodec.encodeBits(latitudes[i], longitudes[i]);
+            geohashes[i] = GeohashCodec.encode(latitudes[i], longitudes[i], GeohashCodec.MAX_ENCODE_LENGTH);
+            blockCodes[i] = decoder.generateBlockCode(latitudes[i], longitudes[i]);
+            blockCodeChars[i] = blockCodes[i].toCharArray();
+        }
+    }
+
+    private int next() {
+        return cursor++ & (POINTS - 1);
+    }
+
+    @Benchmark
+    public String encodeString() {
+        int i = next();
+        return BlockCodeHashGenerator.encode(latitudes[i], longitudes[i], GeohashCodec.MAX_ENCODE_LENGTH);
+    }
+
+    @Benchmark
+    public long encodeBits() {
+        int i = next();
+        return GeohashCodec.encodeBits(latitudes[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public Map<String, Double> decodeToMap() {
+        return BlockCodeHashGenerator.decode(geohashes[next()]);
+    }
+
+    @Benchmark
+    public double[] decodeBits() {
+        GeohashCodec.decodeBits(geohashBits[next()], GeohashCodec.MAX_ENCODE_LENGTH, bounds);
+        return bounds;
+    }
+
+    @Benchmark
+    public String formatBlockCode() {
+        return BlockCodeDecoder.formatBlockCode(lga, geohashBits[next()]);
+    }
+
+    @Benchmark
+    public int parseBlockCode() {
+        char[] code = blockCodeChars[next()];
+        return BlockCodeParser.parse(code, 0, code.length, bounds);
+    }
+
+    @Benchmark
+    public Coordinates decodeBlockCode() {
+        return decoder.decodeBlockCode(blockCodes[next()]);
+    }
+}
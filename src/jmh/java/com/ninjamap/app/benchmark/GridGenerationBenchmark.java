@@ -0,0 +1,125 @@
+package com.ninjamap.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ninjamap.app.payload.response.GridCell;
+import com.ninjamap.app.service.impl.GridGenerator;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+/**
+ * Parallel grid generation: the previous ConcurrentHashMap merge (String key
+ * per cell, common pool, unordered) vs per-row arrays merged in row order on
+ * a dedicated pool. Both build cells with {@link GridGenerator#generateRow},
+ * so only the fan-out and merge strategy differ. The same generation on a
+ * single-thread pool gives the serial baseline, and the block code variants
+ * add the per-cell LGA lookup and encoding, computed per cell or taken from
+ * the lattice tile cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GridGenerationBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int cells;
+
+    private ForkJoinPool pool;
+    private ForkJoinPool serialPool;
+    private GridGenerator generator;
+    private GridGenerator serialGenerator;
+    private BlockCodeDecoder decoder;
+    private GridTileCache tileCache;
+    private double[] corners;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        generator = new GridGenerator(pool);
+        serialPool = new ForkJoinPool(1);
+        serialGenerator = new GridGenerator(serialPool);
+        decoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+        tileCache = new GridTileCache(new GridLattice(9.0), decoder, 512);
+
+        // Axis-aligned square holding roughly the requested number of 3 m cells
+        double side = Math.sqrt(cells) * 3.0;
+        double minLat = 6.5;
+        double minLon = 3.3;
+        double maxLat = minLat + side / 111320.0;
+        double maxLon = minLon + side / (111320.0 * Math.cos(Math.toRadians((minLat + maxLat) / 2)));
+        corners = new double[] { minLat, minLon, maxLat, minLon, maxLat, maxLon, minLat, maxLon };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        serialPool.shutdown();
+    }
+
+    @Benchmark
+    public List<GridCell> concurrentHashMap() {
+        GridLayout layout = layout();
+        ConcurrentHashMap<String, GridCell> cellMap = new ConcurrentHashMap<>();
+        IntStream.range(0, layout.getRows()).parallel().forEach(row -> {
+            for (GridCell cell : generator.generateRow(row, layout)) {
+                cellMap.put(row + "_" + cell.getColIndex(), cell);
+            }
+        });
+        return new ArrayList<>(cellMap.values());
+    }
+
+    @Benchmark
+    public List<GridCell> rowArrays() {
+        return generator.generateGrid(corners[0], corners[1], corners[2], corners[3],
+                corners[4], corners[5], corners[6], corners[7]);
+    }
+
+    @Benchmark
+    public List<GridCell> rowArraysSerial() {
+        return serialGenerator.generateGrid(corners[0], corners[1], corners[2], corners[3],
+                corners[4], corners[5], corners[6], corners[7]);
+    }
+
+    @Benchmark
+    public List<GridCellWithCode> withBlockCodes() {
+        return generator.generateGridWithBlockCodes(corners[0], corners[1], corners[2], corners[3],
+                corners[4], corners[5], corners[6], corners[7], decoder);
+    }
+
+    @Benchmark
+    public List<GridCellWithCode> alignedWithBlockCodes() {
+        return generator.generateAlignedGridWithBlockCodes(corners[0], corners[1], corners[2], corners[3],
+                corners[4], corners[5], corners[6], corners[7], tileCache);
+    }
+
+    private GridLayout layout() {
+        return GridLayout.of(corners[0], corners[1], corners[2], corners[3],
+                corners[4], corners[5], corners[6], corners[7]);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ninjamap.app.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninjamap.app.service.impl.GridGenerator;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridBinaryFormat;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+/**
+ * Writing a generated grid with block codes the three ways the API can: one
+ * buffered JSON document, NDJSON streamed cell by cell, and the binary grid
+ * format. The cells are generated once per trial, so only serialisation is
+ * measured; output goes to a stream that counts and drops the bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GridSerializationBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int cells;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GridLayout layout;
+    private List<GridCellWithCode> cellsWithCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Axis-aligned square holding roughly the requested number of 3 m cells
+        double side = Math.sqrt(cells) * 3.0;
+        double minLat = 6.5;
+        double minLon = 3.3;
+        double maxLat = minLat + side / 111320.0;
+        double maxLon = minLon + side / (111320.0 * Math.cos(Math.toRadians((minLat + maxLat) / 2)));
+
+        GridLattice lattice = new GridLattice(9.0);
+        GridTileCache tileCache = new GridTileCache(lattice, new BlockCodeDecoder(SyntheticLgaFixture.nigeria()), 512);
+        cellsWithCodes = new GridGenerator(ForkJoinPool.commonPool()).generateAlignedGridWithBlockCodes(
+                minLat, minLon, maxLat, minLon, maxLat, maxLon, minLat, maxLon, tileCache);
+        layout = GridLayout.aligned(minLat, minLon, maxLat, minLon, maxLat, maxLon, minLat, maxLon, lattice);
+    }
+
+    @Benchmark
+    public long jsonDocument() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, Map.of(
+            "totalCells", cellsWithCodes.size(),
+            "cellsWithCodes", cellsWithCodes,
+            "gridSizeMeters", 3.0
+        ));
+        return out.count;
+    }
+
+    @Benchmark
+    public long ndjsonStream() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (GridCellWithCode cell : cellsWithCodes) {
+                generator.writeObject(cell);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long binary() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        GridBinaryFormat.Writer writer = new GridBinaryFormat.Writer(out);
+        writer.writeHeader(layout.getMinLat(), layout.getMinLon(), layout.getLatDelta(), layout.getLonDelta(),
+                layout.getRows(), layout.getCols(), true);
+        for (GridCellWithCode cell : cellsWithCodes) {
+            writer.writeCell(cell.getGridCell().getRowIndex(), cell.getGridCell().getColIndex(), cell.getBlockCode());
+        }
+        writer.finish();
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
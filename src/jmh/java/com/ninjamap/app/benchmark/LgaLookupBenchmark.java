@@ -0,0 +1,172 @@
+package com.ninjamap.app.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+/**
+ * Point-to-LGA lookup: linear scan over every polygon vs the STRtree index,
+ * a single point-in-polygon test, and the cached block code path with a cold
+ * cache (every point new) and a warm one (a working set that stays cached).
+ * Each invocation resolves the next of 2^20 (~1M) random points inside
+ * Nigeria's bounding box, so results are reported per lookup.
+ * <p>
+ * The batch benchmarks test {@value #BATCH} points per invocation and are
+ * also reported per point: point by point against the batch kernel (SIMD
+ * when run with {@code -Pbenchmarks,vector}, whose JVM options the forks
+ * inherit), and the batch LGA lookup
+ * against the per-point one with exact polygon tests only. Compare the two
+ * builds over both forks: with fewer iterations the error of a single fork
+ * is larger than the gap between them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class LgaLookupBenchmark {
+
+    private static final int POINTS = 1 << 20;
+
+    /** Distinct points of the warm-cache benchmark, well below the default cache sizes. */
+    private static final int WARM_POINTS = 1 << 10;
+
+    /** Points per invocation of the batch benchmarks. */
+    private static final int BATCH = 1 << 10;
+
+    private BlockCodeDecoder decoder;
+    private LgaSpatialIndex exactIndex;
+    private final double[] batchLatitudes = new double[BATCH];
+    private final double[] batchLongitudes = new double[BATCH];
+    private final boolean[] inside = new boolean[BATCH];
+    private final int[] lgaIndexes = new int[BATCH];
+    private double[] latitudes;
+    private double[] longitudes;
+    private LGA lga;
+    private double[] polygonLatitudes;
+    private double[] polygonLongitudes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        decoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+        Random random = new Random(42);
+        latitudes = new double[POINTS];
+        longitudes = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            latitudes[i] = SyntheticLgaFixture.MIN_LAT
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+            longitudes[i] = SyntheticLgaFixture.MIN_LON
+                    + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+        }
+        // The centre LGA, whose edges are all jagged
+        lga = decoder.findLGA((SyntheticLgaFixture.MIN_LAT + SyntheticLgaFixture.MAX_LAT) / 2,
+                (SyntheticLgaFixture.MIN_LON + SyntheticLgaFixture.MAX_LON) / 2);
+        // Points in its bounding box, so the test gets past the box check
+        PackedPolygon boundary = lga.getPackedBoundary();
+        polygonLatitudes = new double[POINTS];
+        polygonLongitudes = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            polygonLatitudes[i] = boundary.getMinLat() + random.nextDouble() * (boundary.getMaxLat() - boundary.getMinLat());
+            polygonLongitudes[i] = boundary.getMinLon() + random.nextDouble() * (boundary.getMaxLon() - boundary.getMinLon());
+        }
+        // No raster, so every lookup ends in polygon tests
+        exactIndex = new LgaSpatialIndex(decoder.getSpatialIndex().getLgas());
+    }
+
+    /**
+     * Copies the next batch of points, from the polygon's bounding box or Nigeria's
+     */
+    private void nextBatch(double[] fromLatitudes, double[] fromLongitudes) {
+        int start = cursor & (POINTS - 1);
+        cursor += BATCH;
+        System.arraycopy(fromLatitudes, start, batchLatitudes, 0, BATCH);
+        System.arraycopy(fromLongitudes, start, batchLongitudes, 0, BATCH);
+    }
+
+    @Benchmark
+    public LGA linearScan() {
+        int i = cursor++ & (POINTS - 1);
+        return decoder.findLGALinear(latitudes[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public LGA spatialIndex() {
+        int i = cursor++ & (POINTS - 1);
+        return decoder.findLGA(latitudes[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public boolean pointInPolygon() {
+        int i = cursor++ & (POINTS - 1);
+        return lga.isPointInside(polygonLatitudes[i], polygonLongitudes[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean[] pointInPolygonScalar() {
+        nextBatch(polygonLatitudes, polygonLongitudes);
+        PackedPolygon boundary = lga.getPackedBoundary();
+        for (int i = 0; i < BATCH; i++) {
+            inside[i] = boundary.contains(batchLatitudes[i], batchLongitudes[i]);
+        }
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean[] pointInPolygonBatch() {
+        nextBatch(polygonLatitudes, polygonLongitudes);
+        lga.getPackedBoundary().containsAll(batchLatitudes, batchLongitudes, BATCH, inside);
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] exactLookupPerPoint() {
+        nextBatch(latitudes, longitudes);
+        for (int i = 0; i < BATCH; i++) {
+            lgaIndexes[i] = exactIndex.findIndex(batchLatitudes[i], batchLongitudes[i]);
+        }
+        return lgaIndexes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] exactLookupBatch() {
+        nextBatch(latitudes, longitudes);
+        exactIndex.findIndexes(batchLatitudes, batchLongitudes, BATCH, lgaIndexes);
+        return lgaIndexes;
+    }
+
+    @Benchmark
+    public String blockCodeColdCache() {
+        int i = cursor++ & (POINTS - 1);
+        return decoder.generateUniqueCodeForBlock(new Coordinates(latitudes[i], longitudes[i]));
+    }
+
+    @Benchmark
+    public String blockCodeWarmCache() {
+        int i = cursor++ & (WARM_POINTS - 1);
+        return decoder.generateUniqueCodeForBlock(new Coordinates(latitudes[i], longitudes[i]));
+    }
+}
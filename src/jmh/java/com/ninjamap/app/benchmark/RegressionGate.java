@@ -0,0 +1,200 @@
+package com.ninjamap.app.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Runs benchmarks and compares their scores with a recorded baseline, so
+ * changes to the grid and block-code engine can be gated on numbers.
+ * <p>
+ * Arguments of its own come first, everything else is passed to JMH as on
+ * its command line (benchmark regexps, {@code -f}, {@code -wi}, ...):
+ * <pre>
+ * --baseline &lt;file&gt;     baseline to check against or record (default benchmarks/baseline.txt)
+ * --tolerance &lt;fraction&gt; allowed slowdown before a score fails (default 0.20)
+ * --record               write the scores of this run as the new baseline instead of checking
+ * </pre>
+ * The baseline has one {@code <benchmark> <score> <unit>} line per
+ * benchmark and parameter combination, e.g.
+ * {@code GridGenerationBenchmark.rowArrays(cells=10000) 1.234 ms/op}, and
+ * {@code #} comments. Time-per-operation scores fail when they grow past the
+ * tolerance, throughput scores when they drop below it. Benchmarks without a
+ * baseline entry are reported and pass. The process exits with 1 on a
+ * regression and 2 on bad arguments or a missing baseline.
+ * <p>
+ * Baselines are only comparable on the machine and JVM they were recorded
+ * on, so record one where the gate runs.
+ */
+public final class RegressionGate {
+
+    private static final String DEFAULT_BASELINE = "benchmarks/baseline.txt";
+    private static final double DEFAULT_TOLERANCE = 0.20;
+
+    private RegressionGate() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        Path baseline = Paths.get(DEFAULT_BASELINE);
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean record = false;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline" -> baseline = Paths.get(value(args, ++i, "--baseline"));
+                case "--tolerance" -> tolerance = Double.parseDouble(value(args, ++i, "--tolerance"));
+                case "--record" -> record = true;
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+        if (!record && !Files.isRegularFile(baseline)) {
+            System.err.println("No baseline at " + baseline + ", record one first with --record");
+            System.exit(2);
+        }
+
+        CommandLineOptions options;
+        try {
+            options = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        } catch (CommandLineOptionException e) {
+            System.err.println("Invalid JMH arguments: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        Map<String, Score> scores = scores(new Runner(options).run());
+
+        if (record) {
+            write(baseline, scores);
+            System.out.println("Recorded " + scores.size() + " baseline scores in " + baseline);
+            return;
+        }
+        int regressions = check(read(baseline), scores, tolerance);
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) regressed by more than "
+                    + Math.round(tolerance * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baseline);
+    }
+
+    /**
+     * Compares every score with its baseline and prints one line per benchmark
+     *
+     * @return the number of regressions
+     */
+    static int check(Map<String, Score> baseline, Map<String, Score> scores, double tolerance) {
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : scores.entrySet()) {
+            Score current = entry.getValue();
+            Score expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.printf("NEW     %s %.4f %s%n", entry.getKey(), current.value(), current.unit());
+                continue;
+            }
+            if (!expected.unit().equals(current.unit())) {
+                System.out.printf("FAIL    %s unit changed from %s to %s%n", entry.getKey(), expected.unit(), current.unit());
+                regressions++;
+                continue;
+            }
+            // Throughput is higher-is-better, every other mode reports time per operation
+            double change = current.value() / expected.value() - 1;
+            boolean regressed = current.higherIsBetter() ? change < -tolerance : change > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-7s %s %.4f %s (baseline %.4f, %+.1f%%)%n", regressed ? "FAIL" : "OK",
+                    entry.getKey(), current.value(), current.unit(), expected.value(), change * 100);
+        }
+        return regressions;
+    }
+
+    private static Map<String, Score> scores(Collection<RunResult> results) {
+        Map<String, Score> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            scores.put(key(params), new Score(result.getPrimaryResult().getScore(),
+                    result.getPrimaryResult().getScoreUnit(), params.getMode() == Mode.Throughput));
+        }
+        return scores;
+    }
+
+    /**
+     * {@code Class.method(param=value,...)}, without the package
+     */
+    private static String key(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        StringBuilder key = new StringBuilder(name);
+        if (!params.getParamsKeys().isEmpty()) {
+            key.append('(');
+            for (String param : params.getParamsKeys()) {
+                if (key.charAt(key.length() - 1) != '(') {
+                    key.append(',');
+                }
+                key.append(param).append('=').append(params.getParam(param));
+            }
+            key.append(')');
+        }
+        return key.toString();
+    }
+
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 3) {
+                throw new IOException("Malformed baseline line in " + file + ": " + line);
+            }
+            scores.put(fields[0], new Score(Double.parseDouble(fields[1]), fields[2], fields[2].startsWith("ops/")));
+        }
+        return scores;
+    }
+
+    private static void write(Path file, Map<String, Score> scores) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Recorded by " + RegressionGate.class.getSimpleName() + " on "
+                    + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + ", "
+                    + Runtime.getRuntime().availableProcessors() + " CPUs\n");
+            for (Map.Entry<String, Score> entry : scores.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue().value() + " " + entry.getValue().unit() + "\n");
+            }
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            System.err.println(option + " needs a value");
+            System.exit(2);
+        }
+        return args[index];
+    }
+
+    /**
+     * @param higherIsBetter true for throughput scores (units like {@code ops/ms})
+     */
+    record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.ninjamap.app.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ninjamap.app.utils.geo.GridLattice;
+
+/**
+ * Executors used by the grid API.
+ */
+@Configuration
+public class GridConfig {
+
+    /**
+     * Bounded pool for parallel grid generation, kept separate from the common
+     * pool so large grids cannot starve other parallel streams.
+     * 
+     * @param parallelism number of worker threads, 0 for the number of available processors
+     * @return ForkJoinPool for grid work
+     */
+    @Bean(destroyMethod = "shutdown")
+    ForkJoinPool gridForkJoinPool(@Value("${grid.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("grid-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Single background thread for LGA data reloads, so reloads run one at a
+     * time and never on a request thread.
+     * 
+     * @return ExecutorService for LGA reloads
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ExecutorService lgaReloadExecutor() {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "lga-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Global lattice used for aligned grids and the tile cache.
+     * 
+     * @param referenceLatitude latitude at which lattice cells are exactly 3 m wide
+     * @return GridLattice shared by all aligned requests
+     */
+    @Bean
+    GridLattice gridLattice(@Value("${grid.lattice.reference-latitude:9.0}") double referenceLatitude) {
+        return new GridLattice(referenceLatitude);
+    }
+}
@@ -1,25 +1,69 @@
 package com.ninjamap.app.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import com.ninjamap.app.payload.response.GridCell;
 import com.ninjamap.app.payload.response.GridPolyline;
 import com.ninjamap.app.service.MemoryMonitoringService;
+import com.ninjamap.app.service.impl.BlockCodeBatchService;
+import com.ninjamap.app.service.impl.BlockCodeDecodeService;
+import com.ninjamap.app.service.impl.GridAdmissionService;
+import com.ninjamap.app.service.impl.GridDensityService;
 import com.ninjamap.app.service.impl.GridGenerator;
 import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridNeighbourhoodService;
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.service.impl.GridVectorTileService;
+import com.ninjamap.app.service.impl.GridWarmupService;
 import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.CellResolution;
+import com.ninjamap.app.utils.geo.GeoJsonPolygons;
+import com.ninjamap.app.utils.geo.GridBinaryFormat;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.MvtEncoder;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
 
 /**
  * REST API Controller for Grid Generation
@@ -38,6 +82,70 @@ public class GridController {
     @Autowired
     private MemoryMonitoringService memoryMonitoringService;
     
+    @Autowired
+    private GridTileCache gridTileCache;
+    
+    @Autowired
+    private GridVectorTileService gridVectorTileService;
+    
+    @Autowired
+    private BlockCodeBatchService blockCodeBatchService;
+    
+    @Autowired
+    private BlockCodeDecodeService blockCodeDecodeService;
+    
+    @Autowired
+    private GridAdmissionService gridAdmissionService;
+    
+    @Autowired
+    private GridNeighbourhoodService gridNeighbourhoodService;
+    
+    @Autowired
+    private GridDensityService gridDensityService;
+    
+    @Autowired
+    private GridWarmupService gridWarmupService;
+    
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${grid.area.max-lat-range:0.1}")
+    private double maxLatRange;
+    
+    @Value("${grid.area.max-lon-range:0.1}")
+    private double maxLonRange;
+    
+    @Value("${grid.area.stream.max-lat-range:0.5}")
+    private double maxStreamLatRange;
+    
+    @Value("${grid.area.stream.max-lon-range:0.5}")
+    private double maxStreamLonRange;
+    
+    @Value("${grid.area.max-geometry-vertices:100000}")
+    private int maxGeometryVertices;
+    
+    @Value("${grid.tiles.max-age-seconds:604800}")
+    private long tileMaxAgeSeconds;
+    
+    @Value("${grid.resolution.min-cell-pixels:4}")
+    private double minCellPixels;
+    
+    @Value("${grid.resolution.target-cells:20000}")
+    private long targetCells;
+    
+    private static final byte VIEWPORT_TOKEN_VERSION = 2;
+    
+    private static final int VIEWPORT_TOKEN_LENGTH = 1 + 8 * Double.BYTES + Integer.BYTES;
+    
+    /** Cell level of an NDJSON grid stream, whose lines carry cells only */
+    private static final String RESOLUTION_HEADER = "X-Grid-Resolution";
+    
+    /** Whether the density of an NDJSON grid stream hit grid.density.max-points */
+    private static final String DENSITY_TRUNCATED_HEADER = "X-Grid-Density-Truncated";
+    
     /**
      * Generate 3x3 meter grid cells
      * 
@@ -54,16 +162,32 @@ public class GridController {
      *   "rightBottomLat": 6.5244,
      *   "rightBottomLon": 3.3802
      * }
+     * 
+     * Any area can be sent instead of the corners as a GeoJSON Polygon or
+     * MultiPolygon (holes allowed), e.g.
+     * { "geometry": { "type": "Polygon", "coordinates": [[[3.3792, 6.5244], [3.3802, 6.5244], [3.3797, 6.5254], [3.3792, 6.5244]]] } }
      */
     @PostMapping("/generate")
     public ResponseEntity<?> generateGrid(@RequestBody GridRequest request) {
+        if (request == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Request body cannot be null"));
+        }
+        
+        ScanlinePolygon boundary;
         try {
-            List<GridCell> gridCells = gridGenerator.generateGrid(
-                request.getLeftBottomLat(), request.getLeftBottomLon(),
-                request.getLeftTopLat(), request.getLeftTopLon(),
-                request.getRightTopLat(), request.getRightTopLon(),
-                request.getRightBottomLat(), request.getRightBottomLon()
-            );
+            boundary = boundaryOf(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid geometry: " + e.getMessage()));
+        }
+        
+        long cells = estimateCells(boundary, false, false);
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells).body(rejectionBody(cells));
+        }
+        
+        try (permit) {
+            List<GridCell> gridCells = gridGenerator.generateGrid(boundary);
             
             Map<String, Object> response = new HashMap<>();
             response.put("totalCells", gridCells.size());
@@ -84,13 +208,25 @@ public class GridController {
      */
     @PostMapping("/polylines")
     public ResponseEntity<?> generateGridPolylines(@RequestBody GridRequest request) {
+        if (request == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Request body cannot be null"));
+        }
+        
+        ScanlinePolygon boundary;
         try {
-            List<GridPolyline> polylines = gridGenerator.generateGridPolylines(
-                request.getLeftBottomLat(), request.getLeftBottomLon(),
-                request.getLeftTopLat(), request.getLeftTopLon(),
-                request.getRightTopLat(), request.getRightTopLon(),
-                request.getRightBottomLat(), request.getRightBottomLon()
-            );
+            boundary = boundaryOf(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid geometry: " + e.getMessage()));
+        }
+        
+        long cells = estimateCells(boundary, false, false);
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells).body(rejectionBody(cells));
+        }
+        
+        try (permit) {
+            List<GridPolyline> polylines = gridGenerator.generateGridPolylines(boundary);
             
             Map<String, Object> response = new HashMap<>();
             response.put("totalCells", polylines.size());
@@ -108,6 +244,17 @@ public class GridController {
      * Generate grid with block codes - OPTIMIZED FOR PERFORMANCE & MEMORY
      * 
      * POST /api/grid/polylines-with-codes
+     * 
+     * With "aligned": true in the body, cells snap to the global lattice and carry a
+     * stable latticeCellId; their block codes are served from the tile cache.
+     * <p>
+     * With "resolution" (3m, 30m, 300m, 3km or auto) or the map "zoom", cells are
+     * aligned cells of that level of {@link CellResolution}, coarse enough that the
+     * response stays around grid.resolution.target-cells; the area limits grow with
+     * the cell size.
+     * <p>
+     * With "density": true every cell carries reportCount and businessCount, binned
+     * from one bounded query per source over the grid's bounding box.
      */
     @PostMapping("/polylines-with-codes")
     public ResponseEntity<?> generateGridWithBlockCodes(@RequestBody GridRequest request) {
@@ -116,47 +263,61 @@ public class GridController {
             return ResponseEntity.badRequest().body(Map.of("error", "Request body cannot be null"));
         }
         
+        ScanlinePolygon boundary;
+        try {
+            boundary = boundaryOf(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid geometry: " + e.getMessage()));
+        }
+        
+        CellResolution resolution;
+        try {
+            resolution = resolutionOf(request, boundary);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid resolution: " + e.getMessage()));
+        }
+        int factor = resolution != null ? resolution.getFactor() : 1;
+        
         // Validate coordinate bounds to prevent excessive grid generation
-        if (!isValidCoordinateRange(request)) {
+        if (!isValidCoordinateRange(boundary, maxLatRange * factor, maxLonRange * factor)) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid coordinate range. Area too large or coordinates out of bounds"));
         }
         
+        long cells = estimateCells(boundary, request.isAligned(), resolution, false);
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells).body(rejectionBody(cells));
+        }
+        
         long startTime = System.currentTimeMillis();
         
-        try {
-            // Force garbage collection before processing large grids (optional, for memory-constrained environments)
-            if (isLargeGridRequest(request)) {
-                System.gc();
+        try (permit) {
+            GridDensityService.DensityOverlay overlay = request.isDensity()
+                ? gridDensityService.overlay(layoutOf(boundary, request.isAligned(), resolution))
+                : null;
+            List<GridCellWithCode> cellsWithCodes = resolution != null
+                ? gridGenerator.generateAlignedGridWithBlockCodes(boundary, gridTileCache, resolution)
+                : request.isAligned()
+                ? gridGenerator.generateAlignedGridWithBlockCodes(boundary, gridTileCache)
+                : gridGenerator.generateGridWithBlockCodes(boundary, blockCodeDecoder);
+            if (overlay != null) {
+                cellsWithCodes.replaceAll(overlay::annotate);
             }
+            CellResolution level = resolution != null ? resolution : CellResolution.METERS_3;
             
-            List<GridCellWithCode> cellsWithCodes = gridGenerator.generateGridWithBlockCodes(
-                request.getLeftBottomLat(), request.getLeftBottomLon(),
-                request.getLeftTopLat(), request.getLeftTopLon(),
-                request.getRightTopLat(), request.getRightTopLon(),
-                request.getRightBottomLat(), request.getRightBottomLon(),
-                blockCodeDecoder
-            );
-            
-            // Use Map.of for immutable, memory-efficient response (prevents accidental modifications)
-            Map<String, Object> response = Map.of(
+            Map<String, Object> response = new HashMap<>(Map.of(
                 "totalCells", cellsWithCodes.size(),
                 "cellsWithCodes", cellsWithCodes,
-                "gridSizeMeters", 3.0,
+                "gridSizeMeters", level.getSizeMeters(),
+                "resolution", level.getLabel(),
                 "processingTimeMs", System.currentTimeMillis() - startTime
-            );
-            
-            // Clear any thread-local variables that might cause memory leaks
-            clearThreadLocals();
+            ));
+            if (overlay != null) {
+                response.put("densityTruncated", overlay.isTruncated());
+            }
             
             return ResponseEntity.ok(response);
             
-        } catch (OutOfMemoryError e) {
-            // Handle OOM specifically
-            System.gc(); // Force cleanup
-            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
-                    .body(Map.of("error", "Grid area too large. Please reduce the area size.", 
-                               "suggestion", "Try smaller coordinate ranges"));
-                               
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Invalid input: " + e.getMessage()));
@@ -167,72 +328,499 @@ public class GridController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Internal server error occurred", 
                                "timestamp", System.currentTimeMillis()));
-        } finally {
-            // Ensure cleanup happens regardless of success/failure
-            clearThreadLocals();
         }
     }
     
     /**
-     * Validate coordinate range to prevent excessive processing
+     * Stream grid cells with block codes as NDJSON - one GridCellWithCode per line
+     * 
+     * POST /api/grid/polylines-with-codes
+     * Accept: application/x-ndjson
+     * 
+     * Cells are written row by row while they are generated, so memory use does not
+     * grow with the area and the larger streaming area limit applies.
      */
-    private boolean isValidCoordinateRange(GridRequest request) {
-        // Check if coordinates are within valid Earth bounds
-        if (request.getLeftBottomLat() < -90 || request.getLeftBottomLat() > 90 ||
-            request.getLeftTopLat() < -90 || request.getLeftTopLat() > 90 ||
-            request.getRightTopLat() < -90 || request.getRightTopLat() > 90 ||
-            request.getRightBottomLat() < -90 || request.getRightBottomLat() > 90) {
-            return false;
+    @PostMapping(value = "/polylines-with-codes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamGridWithBlockCodes(@RequestBody GridRequest request, WebRequest webRequest) {
+        return streamGridWithBlockCodesResponse(request, webRequest);
+    }
+    
+    /**
+     * Same as {@link #streamGridWithBlockCodes} for clients that cannot set the Accept header
+     * 
+     * POST /api/grid/polylines-with-codes?stream=true
+     */
+    @PostMapping(value = "/polylines-with-codes", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamGridWithBlockCodesByParam(@RequestBody GridRequest request, WebRequest webRequest) {
+        return streamGridWithBlockCodesResponse(request, webRequest);
+    }
+    
+    /**
+     * Stream grid cells with block codes in the compact binary format
+     * 
+     * POST /api/grid/polylines-with-codes
+     * Accept: application/vnd.ninjamap.grid+binary
+     * 
+     * Sends the grid origin and cell size once, then per cell only the row/col
+     * indices and the geohash bits (see {@link GridBinaryFormat}). The format
+     * holds full 3 m block codes, so coarser resolutions are rejected.
+     */
+    @PostMapping(value = "/polylines-with-codes", produces = GridBinaryFormat.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamGridWithBlockCodesBinary(@RequestBody GridRequest request, WebRequest webRequest) {
+        return streamGridBinaryResponse(request, blockCodeDecoder, webRequest);
+    }
+    
+    /**
+     * Stream grid polylines in the compact binary format, without block codes
+     * 
+     * POST /api/grid/polylines
+     * Accept: application/vnd.ninjamap.grid+binary
+     */
+    @PostMapping(value = "/polylines", produces = GridBinaryFormat.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamGridPolylinesBinary(@RequestBody GridRequest request, WebRequest webRequest) {
+        return streamGridBinaryResponse(request, null, webRequest);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> streamGridBinaryResponse(GridRequest request, BlockCodeDecoder decoder,
+                                                                    WebRequest webRequest) {
+        if (request == null) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Request body cannot be null")));
         }
         
-        if (request.getLeftBottomLon() < -180 || request.getLeftBottomLon() > 180 ||
-            request.getLeftTopLon() < -180 || request.getLeftTopLon() > 180 ||
-            request.getRightTopLon() < -180 || request.getRightTopLon() > 180 ||
-            request.getRightBottomLon() < -180 || request.getRightBottomLon() > 180) {
-            return false;
+        ScanlinePolygon boundary;
+        try {
+            boundary = boundaryOf(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Invalid geometry: " + e.getMessage())));
         }
         
-        // Calculate approximate area to prevent excessive grid generation
-        double latRange = Math.abs(Math.max(request.getLeftTopLat(), request.getRightTopLat()) - 
-                                  Math.min(request.getLeftBottomLat(), request.getRightBottomLat()));
-        double lonRange = Math.abs(Math.max(request.getRightTopLon(), request.getRightBottomLon()) - 
-                                  Math.min(request.getLeftBottomLon(), request.getLeftTopLon()));
+        if (request.getZoom() != null || (request.getResolution() != null
+                && !CellResolution.METERS_3.getLabel().equalsIgnoreCase(request.getResolution().trim()))) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Binary grids carry 3m cells only, use JSON or NDJSON for coarser resolutions")));
+        }
+        
+        if (request.isDensity()) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Binary grids carry no density, use JSON or NDJSON")));
+        }
+        
+        if (!isValidCoordinateRange(boundary, maxStreamLatRange, maxStreamLonRange)) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Invalid coordinate range. Area too large or coordinates out of bounds")));
+        }
+        
+        boolean aligned = (request.isAligned() || request.getResolution() != null) && decoder != null;
+        long cells = estimateCells(boundary, aligned, true);
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, rejectionBody(cells)));
+        }
+        
+        releaseOnCompletion(webRequest, permit);
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                GridBinaryFormat.Writer writer = new GridBinaryFormat.Writer(out);
+                streamCells(boundary, aligned, null, decoder, new GridGenerator.GridCellSink() {
+                        @Override
+                        public void begin(GridGenerator.GridLayout layout) throws IOException {
+                            writer.writeHeader(layout.getMinLat(), layout.getMinLon(),
+                                    layout.getLatDelta(), layout.getLonDelta(),
+                                    layout.getRows(), layout.getCols(), decoder != null);
+                        }
+                    
+                        @Override
+                        public void accept(GridCellWithCode cell) throws IOException {
+                            writer.writeCell(cell.getGridCell().getRowIndex(), cell.getGridCell().getColIndex(), cell.getBlockCode());
+                        }
+                    
+                        @Override
+                        public void endRow(int row) throws IOException {
+                            writer.flush();
+                        }
+                    });
+                writer.finish();
+            }
+        };
         
-        // Prevent grids larger than 0.1 degrees (approximately 11km x 11km)
-        // This prevents memory issues with extremely large grids
-        return latRange <= 0.1 && lonRange <= 0.1;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(GridBinaryFormat.MEDIA_TYPE))
+                .body(body);
     }
     
-    /**
-     * Check if this is a large grid request that might need memory management
-     */
-    private boolean isLargeGridRequest(GridRequest request) {
-        double latRange = Math.abs(Math.max(request.getLeftTopLat(), request.getRightTopLat()) - 
-                                  Math.min(request.getLeftBottomLat(), request.getRightBottomLat()));
-        double lonRange = Math.abs(Math.max(request.getRightTopLon(), request.getRightBottomLon()) - 
-                                  Math.min(request.getLeftBottomLon(), request.getLeftTopLon()));
+    private ResponseEntity<StreamingResponseBody> streamGridWithBlockCodesResponse(GridRequest request, WebRequest webRequest) {
+        // Validation has to happen before the body starts, the status cannot change afterwards
+        if (request == null) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Request body cannot be null")));
+        }
+        
+        ScanlinePolygon boundary;
+        try {
+            boundary = boundaryOf(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Invalid geometry: " + e.getMessage())));
+        }
+        
+        CellResolution resolution;
+        try {
+            resolution = resolutionOf(request, boundary);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Invalid resolution: " + e.getMessage())));
+        }
+        int factor = resolution != null ? resolution.getFactor() : 1;
+        
+        if (!isValidCoordinateRange(boundary, maxStreamLatRange * factor, maxStreamLonRange * factor)) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, Map.of("error", "Invalid coordinate range. Area too large or coordinates out of bounds")));
+        }
+        
+        long cells = estimateCells(boundary, request.isAligned(), resolution, true);
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJson(out, rejectionBody(cells)));
+        }
+        
+        // Loaded before the body starts so that truncation can go into a header
+        GridDensityService.DensityOverlay overlay;
+        try {
+            overlay = request.isDensity()
+                ? gridDensityService.overlay(layoutOf(boundary, request.isAligned(), resolution))
+                : null;
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        
+        releaseOnCompletion(webRequest, permit);
+        StreamingResponseBody body = out -> {
+            // Flushing is done once per row instead of after every value
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            
+            try (permit; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null); // lines are separated by '\n' only
+                
+                streamCells(boundary, request.isAligned(), resolution, blockCodeDecoder, new GridGenerator.GridCellSink() {
+                        @Override
+                        public void accept(GridCellWithCode cell) throws IOException {
+                            writer.writeValue(generator, overlay != null ? overlay.annotate(cell) : cell);
+                            generator.writeRaw('\n');
+                        }
+                        
+                        @Override
+                        public void endRow(int row) throws IOException {
+                            generator.flush();
+                        }
+                    });
+            }
+        };
         
-        // Consider it large if area > 0.01 degrees (approximately 1km x 1km)
-        return (latRange * lonRange) > 0.01;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(RESOLUTION_HEADER, (resolution != null ? resolution : CellResolution.METERS_3).getLabel())
+                .header(DENSITY_TRUNCATED_HEADER, String.valueOf(overlay != null && overlay.isTruncated()))
+                .body(body);
     }
     
     /**
-     * Clear thread-local variables to prevent memory leaks
+     * Cells entering and leaving the view when the map pans
+     * 
+     * POST /api/grid/viewport-diff
+     * 
+     * Request Body, each viewport as for /polylines-with-codes (corners or geometry):
+     * { "previous": { ...viewport... }, "current": { ...viewport... } }
+     * or with the token of the previous response instead of the previous viewport:
+     * { "previousToken": "...", "current": { ...viewport... } }
+     * 
+     * Cells are lattice-aligned. Only the cells of the current viewport that the
+     * previous one did not have are returned in full; the cells that left are given
+     * as [firstCellId, lastCellId] ranges of latticeCellIds. The viewportToken of the
+     * response stands for the current (four-corner) viewport in the next request.
      */
-    private void clearThreadLocals() {
+    @PostMapping("/viewport-diff")
+    public ResponseEntity<?> viewportDiff(@RequestBody ViewportDiffRequest request) {
+        if (request == null || request.getCurrent() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "The current viewport is required"));
+        }
+        
+        ScanlinePolygon previous;
+        ScanlinePolygon current;
         try {
-            // Clear any thread-local variables that might be holding references
-            Thread currentThread = Thread.currentThread();
-            java.lang.reflect.Field threadLocalsField = Thread.class.getDeclaredField("threadLocals");
-            threadLocalsField.setAccessible(true);
-            threadLocalsField.set(currentThread, null);
+            GridRequest previousViewport = request.getPrevious() != null
+                ? request.getPrevious()
+                : fromViewportToken(request.getPreviousToken());
+            previous = boundaryOf(previousViewport);
+            current = boundaryOf(request.getCurrent());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid viewport: " + e.getMessage()));
+        }
+        
+        if (!isValidCoordinateRange(previous, maxLatRange, maxLonRange)
+                || !isValidCoordinateRange(current, maxLatRange, maxLonRange)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid coordinate range. Area too large or coordinates out of bounds"));
+        }
+        
+        long startTime = System.currentTimeMillis();
+        GridGenerator.ViewportDiff diff = gridGenerator.diffAlignedViewports(previous, current, gridTileCache.getLattice());
+        
+        // Only the entering cells are built, so only they are priced
+        long cells = diff.getEnteringCells();
+        GridAdmissionService.Permit permit = acquireCells(cells);
+        if (permit == null) {
+            return rejection(cells).body(rejectionBody(cells));
+        }
+        
+        try (permit) {
+            List<GridCellWithCode> entering = gridGenerator.enteringCells(diff, gridTileCache);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("enteringCells", entering.size());
+            response.put("cellsWithCodes", entering);
+            response.put("leavingCells", diff.getLeavingCells());
+            response.put("leavingRanges", diff.getLeavingRanges());
+            response.put("gridSizeMeters", 3.0);
+            response.put("processingTimeMs", System.currentTimeMillis() - startTime);
+            String token = viewportToken(request.getCurrent());
+            if (token != null) {
+                response.put("viewportToken", token);
+            }
             
-            java.lang.reflect.Field inheritableThreadLocalsField = Thread.class.getDeclaredField("inheritableThreadLocals");
-            inheritableThreadLocalsField.setAccessible(true);
-            inheritableThreadLocalsField.set(currentThread, null);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            // Ignore reflection errors - this is just a safety measure
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Opaque token of a four-corner viewport: a version byte, the eight
+     * corner values and a CRC32 of both, base64url. Geometry viewports get none.
+     */
+    private static String viewportToken(GridRequest viewport) {
+        if (viewport.getGeometry() != null && !viewport.getGeometry().isNull()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(VIEWPORT_TOKEN_LENGTH)
+            .put(VIEWPORT_TOKEN_VERSION)
+            .putDouble(viewport.getLeftBottomLat()).putDouble(viewport.getLeftBottomLon())
+            .putDouble(viewport.getLeftTopLat()).putDouble(viewport.getLeftTopLon())
+            .putDouble(viewport.getRightTopLat()).putDouble(viewport.getRightTopLon())
+            .putDouble(viewport.getRightBottomLat()).putDouble(viewport.getRightBottomLon());
+        buffer.putInt(viewportTokenChecksum(buffer.array()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+    
+    // CRC32 of the version byte and corner values, so that damaged or edited tokens are rejected
+    private static int viewportTokenChecksum(byte[] token) {
+        CRC32 crc = new CRC32();
+        crc.update(token, 0, VIEWPORT_TOKEN_LENGTH - Integer.BYTES);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the token is missing or was not made by {@link #viewportToken}
+     */
+    private static GridRequest fromViewportToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Either the previous viewport or its token is required");
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(token.trim());
+        if (bytes.length != VIEWPORT_TOKEN_LENGTH || bytes[0] != VIEWPORT_TOKEN_VERSION
+                || ByteBuffer.wrap(bytes).getInt(VIEWPORT_TOKEN_LENGTH - Integer.BYTES) != viewportTokenChecksum(bytes)) {
+            throw new IllegalArgumentException("Unrecognised viewport token");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 8 * Double.BYTES);
+        GridRequest viewport = new GridRequest();
+        viewport.setLeftBottomLat(buffer.getDouble());
+        viewport.setLeftBottomLon(buffer.getDouble());
+        viewport.setLeftTopLat(buffer.getDouble());
+        viewport.setLeftTopLon(buffer.getDouble());
+        viewport.setRightTopLat(buffer.getDouble());
+        viewport.setRightTopLon(buffer.getDouble());
+        viewport.setRightBottomLat(buffer.getDouble());
+        viewport.setRightBottomLon(buffer.getDouble());
+        return viewport;
+    }
+    
+    /**
+     * Stream cells on the request's own grid, or on the global lattice when
+     * {@code aligned} is set and block codes are requested, or on the lattice
+     * of a resolution level when one is given
+     */
+    private void streamCells(ScanlinePolygon boundary, boolean aligned, CellResolution resolution,
+                             BlockCodeDecoder decoder, GridGenerator.GridCellSink sink) throws IOException {
+        if (resolution != null) {
+            gridGenerator.streamAlignedGridWithBlockCodes(boundary, gridTileCache, resolution, sink);
+        } else if (aligned && decoder != null) {
+            gridGenerator.streamAlignedGridWithBlockCodes(boundary, gridTileCache, sink);
+        } else {
+            gridGenerator.streamGridWithBlockCodes(boundary, decoder, sink);
+        }
+    }
+    
+    private void writeJson(OutputStream out, Object value) throws IOException {
+        objectMapper.writeValue(out, value);
+    }
+    
+    /**
+     * The area of a grid request: its GeoJSON {@code geometry} when present,
+     * otherwise the polygon of the four corner fields
+     * 
+     * @throws IllegalArgumentException if the geometry is not a valid (multi)polygon
+     */
+    private ScanlinePolygon boundaryOf(GridRequest request) {
+        if (request.getGeometry() != null && !request.getGeometry().isNull()) {
+            return GeoJsonPolygons.parse(request.getGeometry(), maxGeometryVertices);
+        }
+        return ScanlinePolygon.quad(
+            request.getLeftBottomLat(), request.getLeftBottomLon(),
+            request.getLeftTopLat(), request.getLeftTopLon(),
+            request.getRightTopLat(), request.getRightTopLon(),
+            request.getRightBottomLat(), request.getRightBottomLon());
+    }
+    
+    /**
+     * Validate coordinate range to prevent excessive processing
+     */
+    private boolean isValidCoordinateRange(ScanlinePolygon boundary, double maxLatSpan, double maxLonSpan) {
+        // Check if coordinates are within valid Earth bounds (NaN fails every comparison)
+        if (!(boundary.getMinLat() >= -90 && boundary.getMaxLat() <= 90)
+                || !(boundary.getMinLon() >= -180 && boundary.getMaxLon() <= 180)) {
+            return false;
         }
+        
+        // Buffered responses default to 0.1 degrees (approximately 11km x 11km) to
+        // prevent memory issues; streamed responses get a larger, separate limit
+        return boundary.getMaxLat() - boundary.getMinLat() <= maxLatSpan
+                && boundary.getMaxLon() - boundary.getMinLon() <= maxLonSpan;
+    }
+    
+    /**
+     * Cells the request keeps in memory: the whole grid when buffered, one row when streamed
+     */
+    private long estimateCells(ScanlinePolygon boundary, boolean aligned, boolean streamed) {
+        return estimateCells(boundary, aligned, null, streamed);
+    }
+    
+    private long estimateCells(ScanlinePolygon boundary, boolean aligned, CellResolution resolution, boolean streamed) {
+        return GridAdmissionService.estimateCells(layoutOf(boundary, aligned, resolution), streamed);
+    }
+    
+    /**
+     * The layout {@link #streamCells} generates for these arguments
+     */
+    private GridGenerator.GridLayout layoutOf(ScanlinePolygon boundary, boolean aligned, CellResolution resolution) {
+        return resolution != null
+            ? GridGenerator.GridLayout.aligned(boundary, gridTileCache.getLattice(resolution))
+            : aligned
+            ? GridGenerator.GridLayout.aligned(boundary, gridTileCache.getLattice())
+            : GridGenerator.GridLayout.of(boundary);
+    }
+    
+    /**
+     * Cell level of a request: its explicit "resolution", or for "auto" and a map
+     * "zoom" the finest level visible at that zoom (3m for auto), made coarser
+     * until the aligned grid has at most grid.resolution.target-cells
+     * 
+     * @return the level, or null when the request names neither
+     * @throws IllegalArgumentException for an unknown resolution or zoom out of range
+     */
+    private CellResolution resolutionOf(GridRequest request, ScanlinePolygon boundary) {
+        String label = request.getResolution();
+        if (label != null && !"auto".equalsIgnoreCase(label.trim())) {
+            return CellResolution.parse(label);
+        }
+        if (label == null && request.getZoom() == null) {
+            return null;
+        }
+        
+        CellResolution resolution = request.getZoom() == null
+            ? CellResolution.METERS_3
+            : CellResolution.forZoom(request.getZoom(),
+                    (boundary.getMinLat() + boundary.getMaxLat()) / 2, minCellPixels);
+        while (resolution.coarser() != null && alignedCells(boundary, resolution) > targetCells) {
+            resolution = resolution.coarser();
+        }
+        return resolution;
+    }
+    
+    /**
+     * Cells of the aligned bounding box at a level, without building the layout
+     */
+    private long alignedCells(ScanlinePolygon boundary, CellResolution resolution) {
+        GridLattice lattice = gridTileCache.getLattice(resolution);
+        long rows = (long) lattice.row(boundary.getMaxLat()) - lattice.row(boundary.getMinLat()) + 1;
+        long cols = (long) lattice.col(boundary.getMaxLon()) - lattice.col(boundary.getMinLon()) + 1;
+        return rows * cols;
+    }
+    
+    /**
+     * Reserve the cells from the shared grid budget before generating anything
+     * 
+     * @return the reservation, or null if the request was not admitted
+     */
+    private GridAdmissionService.Permit acquireCells(long cells) {
+        try {
+            return gridAdmissionService.tryAcquire(cells);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    /**
+     * Release a streamed response's cells when its async request ends, however it ends.
+     * The body closes the permit as well, but a body still queued on the task executor
+     * is cancelled on timeout, error or disconnect without ever running.
+     */
+    private static void releaseOnCompletion(WebRequest webRequest, GridAdmissionService.Permit permit) {
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(permit,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        permit.close();
+                    }
+                });
+    }
+    
+    /**
+     * 413 for requests larger than the whole budget, 503 with Retry-After while it is exhausted
+     */
+    private ResponseEntity.BodyBuilder rejection(long cells) {
+        if (!gridAdmissionService.fits(cells)) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(gridAdmissionService.getRetryAfterSeconds()));
+    }
+    
+    private Map<String, Object> rejectionBody(long cells) {
+        if (!gridAdmissionService.fits(cells)) {
+            return Map.of("error", "Grid area too large. Please reduce the area size.",
+                          "suggestion", "Try smaller coordinate ranges or request a stream (Accept: application/x-ndjson)",
+                          "estimatedCells", cells,
+                          "maxCells", gridAdmissionService.getMaxInFlightCells());
+        }
+        return Map.of("error", "Grid service busy, please retry later",
+                      "estimatedCells", cells);
     }
     
     /**
@@ -281,6 +869,156 @@ public class GridController {
         }
     }
     
+    /**
+     * Generate block codes for many coordinates in one request
+     * 
+     * POST /api/grid/block-codes:batch
+     * Content-Type: application/json
+     * 
+     * Request Body, packed or as pairs (up to grid.batch.max-points):
+     * [6.5249, 3.3797, 6.6018, 3.3515]  or  [[6.5249, 3.3797], [6.6018, 3.3515]]
+     * 
+     * Response, in input order; an invalid point only fails its own entry:
+     * {"count": 2, "failed": 0, "results": [{"blockCode": "..."}, {"error": "..."}]}
+     */
+    @PostMapping(value = "/block-codes:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchBlockCodes(InputStream body) {
+        try {
+            return batchBlockCodesResponse(blockCodeBatchService.readJson(body, objectMapper.getFactory()));
+        } catch (IllegalArgumentException | IOException e) {
+            return batchError(e);
+        }
+    }
+    
+    /**
+     * Same as {@link #batchBlockCodes} with a binary body of big-endian double
+     * pairs (latitude, longitude), 16 bytes per point
+     * 
+     * POST /api/grid/block-codes:batch
+     * Content-Type: application/octet-stream
+     */
+    @PostMapping(value = "/block-codes:batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchBlockCodesBinary(InputStream body) {
+        try {
+            return batchBlockCodesResponse(blockCodeBatchService.readBinary(body));
+        } catch (IllegalArgumentException | IOException e) {
+            return batchError(e);
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> batchBlockCodesResponse(double[] latLon) {
+        long startTime = System.currentTimeMillis();
+        BlockCodeBatchService.BatchResult result = blockCodeBatchService.evaluate(latLon);
+        long processingTimeMs = System.currentTimeMillis() - startTime;
+        
+        // Written with the streaming generator: no per-point Map or DTO for large batches
+        StreamingResponseBody responseBody = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartObject();
+                generator.writeNumberField("count", result.size());
+                generator.writeNumberField("failed", result.getFailed());
+                generator.writeNumberField("processingTimeMs", processingTimeMs);
+                generator.writeArrayFieldStart("results");
+                for (int i = 0; i < result.size(); i++) {
+                    generator.writeStartObject();
+                    if (result.getBlockCode(i) != null) {
+                        generator.writeStringField("blockCode", result.getBlockCode(i));
+                    } else {
+                        generator.writeStringField("error", result.getError(i));
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseBody);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> batchError(Exception e) {
+        String message = e instanceof IllegalArgumentException
+                ? e.getMessage()
+                : "Malformed request body: " + e.getMessage();
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeJson(out, Map.of("error", message)));
+    }
+    
+    /**
+     * Decode many block codes, streaming in and out
+     * 
+     * POST /api/grid/block-codes:decode
+     * Content-Type: text/plain (one code per line)
+     * Accept: application/x-ndjson
+     * 
+     * Response, one line per code in input order; a malformed code only fails its own line:
+     * {"blockCode": "LA001-S14-MHGS-XMQ", "coordinates": {...}, "bounds": {...}, "lga": {...}}
+     * {"blockCode": "bad", "error": "Invalid block code format"}
+     * 
+     * "lga" comes from the code prefix (null if no loaded LGA has that prefix)
+     * and is absent for codes without a prefix.
+     */
+    @PostMapping(value = "/block-codes:decode", consumes = MediaType.TEXT_PLAIN_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> decodeBlockCodes(InputStream body) {
+        return decodeBlockCodesResponse(generator -> blockCodeDecodeService.decodeLines(
+                new InputStreamReader(body, StandardCharsets.UTF_8), generator));
+    }
+    
+    /**
+     * Same as {@link #decodeBlockCodes} with a JSON array of code strings
+     * 
+     * POST /api/grid/block-codes:decode
+     * Content-Type: application/json
+     * 
+     * Request Body:
+     * ["LA001-S14-MHGS-XMQ", "S14-MHGS-XMQ"]
+     */
+    @PostMapping(value = "/block-codes:decode", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> decodeBlockCodesJson(InputStream body) {
+        return decodeBlockCodesResponse(generator -> blockCodeDecodeService.decodeJson(
+                body, objectMapper.getFactory(), generator));
+    }
+    
+    @FunctionalInterface
+    private interface DecodeStream {
+        long decode(JsonGenerator generator) throws IOException;
+    }
+    
+    private ResponseEntity<StreamingResponseBody> decodeBlockCodesResponse(DecodeStream decodeStream) {
+        // The request body is read while the response is written, so a body
+        // error can only be reported as a final error line
+        StreamingResponseBody responseBody = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null); // lines are separated by '\n' only
+                try {
+                    decodeStream.decode(generator);
+                } catch (IllegalArgumentException e) {
+                    writeErrorLine(generator, e.getMessage());
+                } catch (JsonProcessingException e) {
+                    writeErrorLine(generator, "Malformed request body: " + e.getOriginalMessage());
+                }
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(responseBody);
+    }
+    
+    private void writeErrorLine(JsonGenerator generator, String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
     /**
      * Decode block code to coordinates
      * 
@@ -324,6 +1062,162 @@ public class GridController {
         }
     }
     
+    /**
+     * The 8 lattice cells around a block code or position, clockwise from north-west
+     * 
+     * GET /api/grid/cells/neighbours?blockCode=LA001-S14-MHGS-XMQ
+     * GET /api/grid/cells/neighbours?latitude=6.5249&longitude=3.3797
+     * 
+     * Cells come back like aligned cells of /polylines-with-codes, with their
+     * latticeCellId and block code.
+     */
+    @GetMapping("/cells/neighbours")
+    public ResponseEntity<?> getNeighbours(@RequestParam(required = false) String blockCode,
+                                           @RequestParam(required = false) Double latitude,
+                                           @RequestParam(required = false) Double longitude) {
+        long startTime = System.currentTimeMillis();
+        try {
+            long origin = locateCell(blockCode, latitude, longitude);
+            return cellsResponse(origin, gridNeighbourhoodService.neighbours(origin), startTime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * All lattice cells within k rows and columns of a block code or position,
+     * nearest rings first
+     * 
+     * GET /api/grid/cells/k-ring?blockCode=LA001-S14-MHGS-XMQ&k=2
+     */
+    @GetMapping("/cells/k-ring")
+    public ResponseEntity<?> getKRing(@RequestParam(required = false) String blockCode,
+                                      @RequestParam(required = false) Double latitude,
+                                      @RequestParam(required = false) Double longitude,
+                                      @RequestParam(defaultValue = "1") int k) {
+        long startTime = System.currentTimeMillis();
+        try {
+            long origin = locateCell(blockCode, latitude, longitude);
+            return cellsResponse(origin, gridNeighbourhoodService.kRing(origin, k), startTime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Lattice cells whose centre lies within a radius of a block code or position
+     * 
+     * GET /api/grid/cells/within-radius?latitude=6.5249&longitude=3.3797&radiusMeters=50
+     */
+    @GetMapping("/cells/within-radius")
+    public ResponseEntity<?> getCellsWithinRadius(@RequestParam(required = false) String blockCode,
+                                                  @RequestParam(required = false) Double latitude,
+                                                  @RequestParam(required = false) Double longitude,
+                                                  @RequestParam double radiusMeters) {
+        long startTime = System.currentTimeMillis();
+        try {
+            double[] center = position(blockCode, latitude, longitude);
+            List<GridCellWithCode> cells = gridNeighbourhoodService.withinRadius(center[0], center[1], radiusMeters);
+            return cellsResponse(gridNeighbourhoodService.locate(center[0], center[1]), cells, startTime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Lattice cells a straight segment passes through, from its start to its end
+     * 
+     * GET /api/grid/cells/along-line?fromBlockCode=...&toBlockCode=...
+     * GET /api/grid/cells/along-line?fromLatitude=6.5244&fromLongitude=3.3792&toLatitude=6.5254&toLongitude=3.3802
+     */
+    @GetMapping("/cells/along-line")
+    public ResponseEntity<?> getCellsAlongLine(@RequestParam(required = false) String fromBlockCode,
+                                               @RequestParam(required = false) Double fromLatitude,
+                                               @RequestParam(required = false) Double fromLongitude,
+                                               @RequestParam(required = false) String toBlockCode,
+                                               @RequestParam(required = false) Double toLatitude,
+                                               @RequestParam(required = false) Double toLongitude) {
+        long startTime = System.currentTimeMillis();
+        try {
+            double[] from = position(fromBlockCode, fromLatitude, fromLongitude);
+            double[] to = position(toBlockCode, toLatitude, toLongitude);
+            List<GridCellWithCode> cells = gridNeighbourhoodService.alongLine(from[0], from[1], to[0], to[1]);
+            return cellsResponse(gridNeighbourhoodService.locate(from[0], from[1]), cells, startTime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * A block code's position, or the given coordinates when no code is sent
+     * 
+     * @throws IllegalArgumentException if neither is given or the code is malformed
+     */
+    private double[] position(String blockCode, Double latitude, Double longitude) {
+        if (blockCode != null && !blockCode.isBlank()) {
+            return gridNeighbourhoodService.position(blockCode);
+        }
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Either a block code or a latitude and longitude are required");
+        }
+        return new double[] { latitude, longitude };
+    }
+    
+    private long locateCell(String blockCode, Double latitude, Double longitude) {
+        double[] position = position(blockCode, latitude, longitude);
+        return gridNeighbourhoodService.locate(position[0], position[1]);
+    }
+    
+    private ResponseEntity<?> cellsResponse(long originCellId, List<GridCellWithCode> cells, long startTime) {
+        return ResponseEntity.ok(Map.of(
+            "originCellId", originCellId,
+            "totalCells", cells.size(),
+            "cellsWithCodes", cells,
+            "gridSizeMeters", 3.0,
+            "processingTimeMs", System.currentTimeMillis() - startTime
+        ));
+    }
+    
+    /**
+     * Vector tile (MVT) of the global 3 m lattice
+     * 
+     * GET /api/grid/tiles/{z}/{x}/{y}.mvt
+     * 
+     * From grid.tiles.min-cell-zoom on, the "cells" layer has one polygon per cell with
+     * its block code as the "code" attribute; lower zooms get the aggregated "lga" layer.
+     * Tiles carry a strong ETag and are publicly cacheable.
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}.mvt")
+    public ResponseEntity<?> getVectorTile(@PathVariable int z, @PathVariable int x, @PathVariable int y,
+                                           WebRequest webRequest) {
+        if (!GridVectorTileService.isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid tile coordinates. Zoom must be between 0 and "
+                            + GridVectorTileService.MAX_ZOOM + " and x/y within 0..2^z-1"));
+        }
+        
+        String etag = gridVectorTileService.etag(z, x, y);
+        CacheControl cacheControl = CacheControl.maxAge(tileMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        
+        try {
+            byte[] tile = gridVectorTileService.getTile(z, x, y);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(MvtEncoder.MEDIA_TYPE))
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .body(tile);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Get memory and cache statistics
      * 
@@ -341,9 +1235,13 @@ public class GridController {
                     "heapCommitted", stats.getHeapCommitted(),
                     "nonHeapUsed", stats.getNonHeapUsed(),
                     "usagePercentage", String.format("%.2f%%", stats.getHeapUsagePercentage() * 100),
-                    "formattedUsage", stats.getFormattedHeapUsage()
+                    "formattedUsage", stats.getFormattedHeapUsage(),
+                    "cachePressureLevel", stats.getCachePressureLevel()
                 ),
                 "cacheStats", stats.getCacheStats(),
+                "decoderCacheStats", blockCodeDecoder.getCacheMetrics(),
+                "tileCacheStats", gridTileCache.getStats(),
+                "gridBudget", gridAdmissionService.getStats(),
                 "timestamp", System.currentTimeMillis()
             );
             
@@ -355,6 +1253,24 @@ public class GridController {
     }
     
     
+    /**
+     * Readiness for load balancer probes: 503 until the grid warm-up has
+     * finished and the application accepts traffic, 200 afterwards
+     * 
+     * GET /api/grid/readiness
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<?> getReadiness() {
+        ReadinessState readiness = applicationAvailability.getReadinessState();
+        Map<String, Object> response = Map.of(
+            "readiness", readiness,
+            "warmup", gridWarmupService.getReport()
+        );
+        return ResponseEntity.status(readiness == ReadinessState.ACCEPTING_TRAFFIC
+                ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+    
+    
     /**
      * Request DTO for grid generation
      */
@@ -367,6 +1283,16 @@ public class GridController {
         private double rightTopLon;
         private double rightBottomLat;
         private double rightBottomLon;
+        // Snap cells to the global lattice (stable cell IDs, cached block codes)
+        private boolean aligned;
+        // GeoJSON Polygon, MultiPolygon or Feature; replaces the four corners when set
+        private JsonNode geometry;
+        // Map zoom level, picks the cell resolution (see CellResolution.forZoom)
+        private Integer zoom;
+        // 3m, 30m, 300m, 3km or auto; aligned cells of that level
+        private String resolution;
+        // Add report and business counts to every cell
+        private boolean density;
         
         // Getters and Setters
         public double getLeftBottomLat() { return leftBottomLat; }
@@ -392,6 +1318,41 @@ public class GridController {
         
         public double getRightBottomLon() { return rightBottomLon; }
         public void setRightBottomLon(double rightBottomLon) { this.rightBottomLon = rightBottomLon; }
+        
+        public boolean isAligned() { return aligned; }
+        public void setAligned(boolean aligned) { this.aligned = aligned; }
+        
+        public JsonNode getGeometry() { return geometry; }
+        public void setGeometry(JsonNode geometry) { this.geometry = geometry; }
+        
+        public Integer getZoom() { return zoom; }
+        public void setZoom(Integer zoom) { this.zoom = zoom; }
+        
+        public String getResolution() { return resolution; }
+        public void setResolution(String resolution) { this.resolution = resolution; }
+        
+        public boolean isDensity() { return density; }
+        public void setDensity(boolean density) { this.density = density; }
+    }
+    
+    /**
+     * Request DTO for viewport diffs
+     */
+    public static class ViewportDiffRequest {
+        private GridRequest previous;
+        // viewportToken of the previous response, used when previous is not set
+        private String previousToken;
+        private GridRequest current;
+        
+        // Getters and Setters
+        public GridRequest getPrevious() { return previous; }
+        public void setPrevious(GridRequest previous) { this.previous = previous; }
+        
+        public String getPreviousToken() { return previousToken; }
+        public void setPreviousToken(String previousToken) { this.previousToken = previousToken; }
+        
+        public GridRequest getCurrent() { return current; }
+        public void setCurrent(GridRequest current) { this.current = current; }
     }
     
     /**
@@ -0,0 +1,81 @@
+package com.ninjamap.app.controller;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ninjamap.app.service.impl.LgaReloadService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Admin API for replacing the LGA boundary data without a restart
+ */
+@RestController
+@RequestMapping("/api/lga-data")
+@RequiredArgsConstructor
+public class LgaDataController {
+
+    private final LgaReloadService lgaReloadService;
+
+    // ========================= STATUS =========================
+    @PreAuthorize("hasAuthority('SYSTEM_ADMINISTRATION.SYSTEM_SETTINGS')")
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(lgaReloadService.getStatus());
+    }
+
+    // ========================= RELOAD FROM FILE =========================
+    /**
+     * Reloads from a file in the configured LGA data directory
+     * ({@code grid.lga-data.directory}), the path being relative to it, or
+     * from the configured source when no path is given. Responds once the
+     * new data is live.
+     */
+    @PreAuthorize("hasAuthority('SYSTEM_ADMINISTRATION.SYSTEM_SETTINGS')")
+    @PostMapping("/reload")
+    public CompletableFuture<ResponseEntity<?>> reload(@RequestParam(required = false) String path) {
+        CompletableFuture<Map<String, Object>> reload = path == null || path.isBlank()
+                ? lgaReloadService.reload()
+                : lgaReloadService.reload(path.trim());
+        return respond(reload);
+    }
+
+    // ========================= RELOAD FROM UPLOAD =========================
+    /**
+     * Reloads from an uploaded binary dataset or LGA JSON file
+     */
+    @PreAuthorize("hasAuthority('SYSTEM_ADMINISTRATION.SYSTEM_SETTINGS')")
+    @PostMapping("/upload")
+    public CompletableFuture<ResponseEntity<?>> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "Uploaded LGA file is empty")));
+        }
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+        return respond(lgaReloadService.reload(file.getBytes(), name));
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> respond(CompletableFuture<Map<String, Object>> reload) {
+        return reload.<ResponseEntity<?>>thenApply(ResponseEntity::ok).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof IllegalArgumentException) {
+                return ResponseEntity.badRequest().body(Map.of("error", cause.getMessage()));
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "LGA reload failed: " + cause));
+        });
+    }
+}
@@ -2,9 +2,15 @@ package com.ninjamap.app.model;
 
 import java.util.List;
 
+import com.ninjamap.app.utils.geo.PackedPolygon;
+
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @NoArgsConstructor          
@@ -17,37 +23,60 @@ public class LGA {
     private String lgaName;
     private String lgaCode;
 
+    // Single outer ring of [longitude, latitude] pairs, as parsed by Gson
+    @ToString.Exclude
     private List<List<Double>> boundary;
 
+    // Optional GeoJSON MultiPolygon coordinates (outer rings + holes); takes precedence over boundary
+    @ToString.Exclude
+    private List<List<List<List<Double>>>> polygons;
+
     private ZoneName zoneName;
     private ZoneCode zoneCode;
 
+    // Runtime representation: flat primitive arrays + bounding box (never serialised)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient PackedPolygon packedBoundary;
+
     /**
-     * Ray-casting algorithm
+     * Ray-casting algorithm over the packed boundary, with a bounding box early reject
      */
     public boolean isPointInside(double latitude, double longitude) {
-        if (boundary == null || boundary.size() < 3) {
-            return false;
-        }
-
-        boolean inside = false;
-        int j = boundary.size() - 1;
-
-        for (int i = 0; i < boundary.size(); i++) {
-            double xi = boundary.get(i).get(0); // longitude
-            double yi = boundary.get(i).get(1); // latitude
-            double xj = boundary.get(j).get(0);
-            double yj = boundary.get(j).get(1);
-
-            boolean intersect =
-                ((yi > latitude) != (yj > latitude)) &&
-                (longitude < (xj - xi) * (latitude - yi) / (yj - yi) + xi);
+        return getPackedBoundary().contains(latitude, longitude);
+    }
 
-            if (intersect) inside = !inside;
-            j = i;
+    /**
+     * Returns the packed boundary, packing the Gson lists on first use
+     */
+    public PackedPolygon getPackedBoundary() {
+        PackedPolygon packed = packedBoundary;
+        if (packed == null) {
+            packed = polygons != null ? PackedPolygon.fromMultiPolygon(polygons) : PackedPolygon.fromRing(boundary);
+            packedBoundary = packed;
         }
+        return packed;
+    }
+
+    /**
+     * Uses an already packed boundary (e.g. mapped from the binary dataset)
+     * instead of Gson lists
+     */
+    public void setPackedBoundary(PackedPolygon packed) {
+        packedBoundary = packed;
+        boundary = null;
+        polygons = null;
+    }
 
-        return inside;
+    /**
+     * Packs the boundary into flat arrays and drops the boxed Gson lists.
+     * Called once at load time, before the LGA is shared between threads.
+     */
+    public void compact() {
+        getPackedBoundary();
+        boundary = null;
+        polygons = null;
     }
 }
 
@@ -10,6 +10,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -20,7 +21,9 @@ import lombok.experimental.SuperBuilder;
 import org.locationtech.jts.geom.Point;
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+	@Index(name = "idx_reports_lat_lon", columnList = "latitude, longitude")
+})
 @Getter
 @Setter
 @NoArgsConstructor
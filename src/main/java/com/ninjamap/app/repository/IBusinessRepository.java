@@ -3,7 +3,10 @@ package com.ninjamap.app.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ninjamap.app.model.Business;
@@ -16,4 +19,13 @@ public interface IBusinessRepository extends JpaRepository<Business, String> {
 	Optional<Business> findByPhoneNumber(String phoneNumber);
 
 	List<Business> findByIsActiveTrueAndIsDeletedFalse();
+
+	/**
+	 * Positions of active businesses inside a bounding box, as {@code [latitude, longitude]}
+	 * rows; the pageable bounds how many are read
+	 */
+	@Query("SELECT b.latitude, b.longitude FROM Business b WHERE b.latitude BETWEEN :minLat AND :maxLat "
+			+ "AND b.longitude BETWEEN :minLon AND :maxLon AND b.isActive = true AND b.isDeleted = false")
+	List<Object[]> findActivePositionsWithin(@Param("minLat") double minLat, @Param("minLon") double minLon,
+			@Param("maxLat") double maxLat, @Param("maxLon") double maxLon, Pageable pageable);
 }
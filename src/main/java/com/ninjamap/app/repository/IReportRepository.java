@@ -1,6 +1,7 @@
 package com.ninjamap.app.repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -69,6 +70,16 @@ public interface IReportRepository extends JpaRepository<Report, String> {
 	@Query("SELECT r FROM Report r WHERE r.status NOT IN ('REJECTED', 'ARCHIVED')")
 	Page<Report> findActiveReports(Pageable pageable);
 
+	/**
+	 * Positions of active reports inside a bounding box, as {@code [latitude, longitude]}
+	 * rows; the pageable bounds how many are read
+	 */
+	@Query("SELECT r.latitude, r.longitude FROM Report r WHERE r.latitude BETWEEN :minLat AND :maxLat "
+			+ "AND r.longitude BETWEEN :minLon AND :maxLon "
+			+ "AND r.status NOT IN ('REJECTED', 'ARCHIVED') AND r.isDeleted = false")
+	List<Object[]> findActivePositionsWithin(@Param("minLat") double minLat, @Param("minLon") double minLon,
+			@Param("maxLat") double maxLat, @Param("maxLon") double maxLon, Pageable pageable);
+
 	/**
 	 * Find reports by comment containing search term
 	 */
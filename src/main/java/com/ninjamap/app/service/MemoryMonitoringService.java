@@ -2,123 +2,230 @@ package com.ninjamap.app.service;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.service.impl.GridVectorTileService;
 import com.ninjamap.app.utils.BlockCodeDecoder;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service to monitor memory usage and prevent memory leaks
+ * Service to monitor memory usage and adapt cache sizes to it.
+ * <p>
+ * The JVM reports memory pressure itself: a collection usage threshold is set
+ * on every old-generation pool, so a notification arrives whenever the heap
+ * still holds more than the warning fraction <em>after</em> a collection. Each
+ * notification halves the capacity of the decoder, lattice tile and vector
+ * tile caches (down to 1/8), and the critical fraction shrinks them to 1/8 at
+ * once. The periodic check doubles the capacity again step by step once the
+ * post-collection usage has fallen below the recovery fraction. Caches are
+ * never emptied and garbage collection is never requested; shrinking evicts
+ * the least recently used entries and the collector reclaims them on its own
+ * schedule.
  */
 @Service
 @Slf4j
 public class MemoryMonitoringService {
 
-    @Autowired
-    private BlockCodeDecoder blockCodeDecoder;
-    
+    /** Caches are shrunk to at most 1/2^3 of their configured size. */
+    public static final int MAX_PRESSURE_LEVEL = 3;
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final GridTileCache gridTileCache;
+    private final GridVectorTileService gridVectorTileService;
+
     private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
-    
-    // Memory threshold percentages
-    private static final double WARNING_THRESHOLD = 0.80; // 80%
-    private static final double CRITICAL_THRESHOLD = 0.90; // 90%
-    
+    private final List<MemoryPoolMXBean> monitoredPools = new ArrayList<>();
+    private final NotificationListener listener = this::handleNotification;
+
+    private final double warningThreshold;
+    private final double criticalThreshold;
+    private final double recoveryThreshold;
+    private final boolean enabled;
+
+    private int pressureLevel;
+    private boolean listening;
+
+    public MemoryMonitoringService(BlockCodeDecoder blockCodeDecoder, GridTileCache gridTileCache,
+                                   GridVectorTileService gridVectorTileService,
+                                   @Value("${grid.memory.warning-threshold:0.80}") double warningThreshold,
+                                   @Value("${grid.memory.critical-threshold:0.90}") double criticalThreshold,
+                                   @Value("${grid.memory.recovery-threshold:0.60}") double recoveryThreshold,
+                                   @Value("${grid.memory.monitoring.enabled:true}") boolean enabled) {
+        if (!(recoveryThreshold < warningThreshold && warningThreshold <= criticalThreshold && criticalThreshold < 1)) {
+            throw new IllegalArgumentException(
+                    "Memory thresholds must satisfy recovery < warning <= critical < 1");
+        }
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.gridTileCache = gridTileCache;
+        this.gridVectorTileService = gridVectorTileService;
+        this.warningThreshold = warningThreshold;
+        this.criticalThreshold = criticalThreshold;
+        this.recoveryThreshold = recoveryThreshold;
+        this.enabled = enabled;
+    }
+
     /**
-     * Monitor memory usage every 5 minutes
+     * Arms the collection usage thresholds and subscribes to their notifications
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes
-    public void monitorMemoryUsage() {
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Memory monitoring disabled");
+            return;
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // Only pools with a usage threshold are tenured; young pools are near empty after every collection
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * warningThreshold));
+                monitoredPools.add(pool);
+            }
+        }
+        if (monitoredPools.isEmpty()) {
+            log.warn("No heap pool supports collection usage thresholds; relying on periodic checks only");
+            return;
+        }
+        ((NotificationEmitter) memoryBean).addNotificationListener(listener, null, null);
+        listening = true;
+        log.info("Memory monitoring armed on {} at {}% after collection",
+                monitoredPools.stream().map(MemoryPoolMXBean::getName).toList(),
+                Math.round(warningThreshold * 100));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!listening) {
+            return;
+        }
         try {
+            ((NotificationEmitter) memoryBean).removeNotificationListener(listener);
+        } catch (ListenerNotFoundException e) {
+            log.debug("Memory listener was already removed");
+        }
+        listening = false;
+    }
+
+    /**
+     * Grows the caches back once memory is no longer under pressure. Only reads
+     * the usage recorded by the last collection, so it never triggers one.
+     */
+    @Scheduled(fixedRateString = "${grid.memory.monitoring.interval:300000}")
+    public void monitorMemoryUsage() {
+        if (!enabled) {
+            return;
+        }
+        double usage = collectionUsageFraction();
+        if (usage < 0) {
+            // No pool reports post-collection usage; fall back to current heap usage
             MemoryUsage heapUsage = memoryBean.getHeapMemoryUsage();
-            long usedMemory = heapUsage.getUsed();
-            long maxMemory = heapUsage.getMax();
-            
-            if (maxMemory > 0) {
-                double usagePercentage = (double) usedMemory / maxMemory;
-                
-                if (usagePercentage > CRITICAL_THRESHOLD) {
-                    log.error("CRITICAL: Memory usage at {:.1f}% ({} MB / {} MB)", 
-                             usagePercentage * 100, 
-                             usedMemory / (1024 * 1024), 
-                             maxMemory / (1024 * 1024));
-                    
-                    // Emergency cleanup
-                    performEmergencyCleanup();
-                    
-                } else if (usagePercentage > WARNING_THRESHOLD) {
-                    log.warn("WARNING: Memory usage at {:.1f}% ({} MB / {} MB)", 
-                            usagePercentage * 100, 
-                            usedMemory / (1024 * 1024), 
-                            maxMemory / (1024 * 1024));
-                    
-                    // Preventive cleanup
-                    performPreventiveCleanup();
-                    
-                } else {
-                    log.debug("Memory usage normal: {:.1f}% ({} MB / {} MB)", 
-                             usagePercentage * 100, 
-                             usedMemory / (1024 * 1024), 
-                             maxMemory / (1024 * 1024));
-                }
+            usage = heapUsage.getMax() > 0 ? (double) heapUsage.getUsed() / heapUsage.getMax() : 0;
+            if (usage >= warningThreshold) {
+                onPressure(usage);
+                return;
             }
-            
-        } catch (Exception e) {
-            log.error("Error monitoring memory usage", e);
+        }
+        if (usage < recoveryThreshold) {
+            onRelief(usage);
+        } else {
+            log.debug("Memory usage after last collection at {}%, cache level {}",
+                    Math.round(usage * 100), getPressureLevel());
         }
     }
-    
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            return;
+        }
+        MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+        MemoryUsage usage = info.getUsage();
+        if (usage.getMax() > 0) {
+            onPressure((double) usage.getUsed() / usage.getMax());
+        }
+    }
+
     /**
-     * Perform emergency cleanup when memory is critically high
+     * One step smaller per report, straight to the smallest size above the
+     * critical fraction
      */
-    private void performEmergencyCleanup() {
-        log.info("Performing emergency memory cleanup...");
-        
-        try {
-            // Clear all caches
-            blockCodeDecoder.clearCaches();
-            
-            // Force garbage collection
-            System.gc();
-            Thread.sleep(100); // Give GC time to work
-            System.gc();
-            
-            log.info("Emergency cleanup completed");
-            
-        } catch (Exception e) {
-            log.error("Error during emergency cleanup", e);
+    synchronized void onPressure(double usage) {
+        int level = usage >= criticalThreshold ? MAX_PRESSURE_LEVEL : Math.min(pressureLevel + 1, MAX_PRESSURE_LEVEL);
+        if (level == pressureLevel) {
+            return;
+        }
+        pressureLevel = level;
+        applyPressureLevel(level);
+        if (usage >= criticalThreshold) {
+            log.error("CRITICAL: Memory usage after collection at {}%: caches shrunk to 1/{} of their size",
+                    Math.round(usage * 100), 1 << level);
+        } else {
+            log.warn("WARNING: Memory usage after collection at {}%: caches shrunk to 1/{} of their size",
+                    Math.round(usage * 100), 1 << level);
         }
     }
-    
+
     /**
-     * Perform preventive cleanup when memory usage is high
+     * One step larger per check while usage stays below the recovery fraction
      */
-    private void performPreventiveCleanup() {
-        log.info("Performing preventive memory cleanup...");
-        
-        try {
-            // Get cache stats before cleanup
-            var statsBefore = blockCodeDecoder.getCacheStats();
-            
-            // Clear caches if they're getting large
-            if (statsBefore.get("lgaCacheSize") > 5000 || 
-                statsBefore.get("blockCodeCacheSize") > 25000) {
-                blockCodeDecoder.clearCaches();
-                log.info("Cleared caches - LGA: {}, BlockCode: {}", 
-                        statsBefore.get("lgaCacheSize"), 
-                        statsBefore.get("blockCodeCacheSize"));
+    synchronized void onRelief(double usage) {
+        if (pressureLevel == 0) {
+            return;
+        }
+        int level = pressureLevel - 1;
+        pressureLevel = level;
+        applyPressureLevel(level);
+        log.info("Memory usage after collection at {}%: caches grown to 1/{} of their size",
+                Math.round(usage * 100), 1 << level);
+    }
+
+    public synchronized int getPressureLevel() {
+        return pressureLevel;
+    }
+
+    private void applyPressureLevel(int level) {
+        blockCodeDecoder.setCacheCapacityShift(level);
+        gridTileCache.setCapacityShift(level);
+        gridVectorTileService.setCapacityShift(level);
+    }
+
+    /**
+     * Highest live-data fraction of the monitored pools, or -1 if none is
+     * known yet. A pool's post-collection usage is only refreshed by an
+     * old-generation collection, so its current usage, which can only be
+     * higher than the live data, caps the estimate in between.
+     */
+    private double collectionUsageFraction() {
+        double highest = -1;
+        for (MemoryPoolMXBean pool : monitoredPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0) {
+                long live = Math.min(usage.getUsed(), pool.getUsage().getUsed());
+                highest = Math.max(highest, (double) live / usage.getMax());
             }
-            
-            // Suggest garbage collection
-            System.gc();
-            
-        } catch (Exception e) {
-            log.error("Error during preventive cleanup", e);
         }
+        return highest;
     }
     
     /**
@@ -133,7 +240,8 @@ public class MemoryMonitoringService {
             heapUsage.getMax(),
             heapUsage.getCommitted(),
             nonHeapUsage.getUsed(),
-            blockCodeDecoder.getCacheStats()
+            blockCodeDecoder.getCacheStats(),
+            getPressureLevel()
         );
     }
     
@@ -145,15 +253,17 @@ public class MemoryMonitoringService {
         private final long heapMax;
         private final long heapCommitted;
         private final long nonHeapUsed;
-        private final java.util.Map<String, Integer> cacheStats;
+        private final Map<String, Integer> cacheStats;
+        private final int cachePressureLevel;
         
         public MemoryStats(long heapUsed, long heapMax, long heapCommitted, 
-                          long nonHeapUsed, java.util.Map<String, Integer> cacheStats) {
+                          long nonHeapUsed, Map<String, Integer> cacheStats, int cachePressureLevel) {
             this.heapUsed = heapUsed;
             this.heapMax = heapMax;
             this.heapCommitted = heapCommitted;
             this.nonHeapUsed = nonHeapUsed;
             this.cacheStats = cacheStats;
+            this.cachePressureLevel = cachePressureLevel;
         }
         
         public double getHeapUsagePercentage() {
@@ -163,8 +273,8 @@ public class MemoryMonitoringService {
         public String getFormattedHeapUsage() {
             return String.format("%.1f%% (%d MB / %d MB)", 
                                getHeapUsagePercentage() * 100,
-                               heapUsed / (1024 * 1024),
-                               heapMax / (1024 * 1024));
+                               heapUsed / MEGABYTE,
+                               heapMax / MEGABYTE);
         }
         
         // Getters
@@ -172,6 +282,8 @@ public class MemoryMonitoringService {
         public long getHeapMax() { return heapMax; }
         public long getHeapCommitted() { return heapCommitted; }
         public long getNonHeapUsed() { return nonHeapUsed; }
-        public java.util.Map<String, Integer> getCacheStats() { return cacheStats; }
+        public Map<String, Integer> getCacheStats() { return cacheStats; }
+        /** Caches run at 1/2^level of their configured size */
+        public int getCachePressureLevel() { return cachePressureLevel; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package com.ninjamap.app.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+
+/**
+ * Evaluates block codes for many points at once.
+ * <p>
+ * Points are read straight into an interleaved {@code [lat, lon, ...]} array
+ * (from a packed JSON array or a binary stream of doubles), split into chunks
+ * evaluated in parallel on the grid pool, and the results come back in input
+ * order. A point that cannot be evaluated only fails its own slot.
+ */
+@Service
+public class BlockCodeBatchService {
+
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final ForkJoinPool gridPool;
+    private final int maxPoints;
+    private final int chunkSize;
+
+    public BlockCodeBatchService(BlockCodeDecoder blockCodeDecoder,
+                                 @Qualifier("gridForkJoinPool") ForkJoinPool gridPool,
+                                 @Value("${grid.batch.max-points:100000}") int maxPoints,
+                                 @Value("${grid.batch.chunk-size:1024}") int chunkSize) {
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.gridPool = gridPool;
+        this.maxPoints = maxPoints;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    /**
+     * Block codes or per-point errors, index-aligned with the input points.
+     */
+    public static final class BatchResult {
+        private final String[] blockCodes;
+        private final String[] errors;
+        private final int failed;
+
+        BatchResult(String[] blockCodes, String[] errors) {
+            this.blockCodes = blockCodes;
+            this.errors = errors;
+            int count = 0;
+            for (String error : errors) {
+                if (error != null) {
+                    count++;
+                }
+            }
+            this.failed = count;
+        }
+
+        public int size() {
+            return blockCodes.length;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Block code of point {@code i}, or null if it failed.
+         */
+        public String getBlockCode(int i) {
+            return blockCodes[i];
+        }
+
+        /**
+         * Error of point {@code i}, or null if it succeeded.
+         */
+        public String getError(int i) {
+            return errors[i];
+        }
+    }
+
+    /**
+     * Evaluates interleaved latitude/longitude pairs.
+     */
+    public BatchResult evaluate(double[] latLon) {
+        int points = latLon.length / 2;
+        String[] blockCodes = new String[points];
+        String[] errors = new String[points];
+        if (points <= chunkSize) {
+            evaluateRange(latLon, blockCodes, errors, 0, points);
+        } else {
+            gridPool.invoke(new ChunkTask(latLon, blockCodes, errors, 0, points));
+        }
+        return new BatchResult(blockCodes, errors);
+    }
+
+    private void evaluateRange(double[] latLon, String[] blockCodes, String[] errors, int from, int to) {
+        // Valid points of the chunk go through one batch LGA lookup, by geohash
+        // cell like the single-point codes
+        int[] points = new int[to - from];
+        long[] geohashBits = new long[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            double latitude = latLon[i * 2];
+            double longitude = latLon[i * 2 + 1];
+            if (!(latitude >= -90 && latitude <= 90)) {
+                errors[i] = "Invalid latitude. Must be between -90 and 90";
+            } else if (!(longitude >= -180 && longitude <= 180)) {
+                errors[i] = "Invalid longitude. Must be between -180 and 180";
+            } else {
+                points[count] = i;
+                geohashBits[count] = GeohashCodec.encodeBits(latitude, longitude);
+                count++;
+            }
+        }
+
+        LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+        int[] lgaIndexes = new int[count];
+        try {
+            spatialIndex.findCellIndexes(geohashBits, count, lgaIndexes);
+        } catch (RuntimeException e) {
+            for (int k = 0; k < count; k++) {
+                errors[points[k]] = "Unable to generate block code: " + e.getMessage();
+            }
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            LGA lga = lgaIndexes[k] < 0 ? null : spatialIndex.getLgas().get(lgaIndexes[k]);
+            blockCodes[points[k]] = BlockCodeDecoder.formatBlockCode(lga, geohashBits[k]);
+        }
+    }
+
+    /**
+     * Splits the point range in halves down to chunk size
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] latLon;
+        private final String[] blockCodes;
+        private final String[] errors;
+        private final int from;
+        private final int to;
+
+        ChunkTask(double[] latLon, String[] blockCodes, String[] errors, int from, int to) {
+            this.latLon = latLon;
+            this.blockCodes = blockCodes;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                evaluateRange(latLon, blockCodes, errors, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(latLon, blockCodes, errors, from, middle),
+                      new ChunkTask(latLon, blockCodes, errors, middle, to));
+        }
+    }
+
+    /**
+     * Reads a JSON array of points, either packed ({@code [lat, lon, lat, lon, ...]})
+     * or as pairs ({@code [[lat, lon], ...]}). A null element yields NaN, which
+     * then fails only that point.
+     *
+     * @throws IllegalArgumentException if the body is malformed or has more than the maximum number of points
+     */
+    public double[] readJson(InputStream body, JsonFactory jsonFactory) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of coordinates");
+            }
+            double[] values = new double[64];
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unexpected end of input");
+                }
+                if (token == JsonToken.START_ARRAY) {
+                    if (count % 2 != 0) {
+                        throw new IllegalArgumentException("Cannot mix packed values and [lat, lon] pairs");
+                    }
+                    values = ensureCapacity(values, count + 2);
+                    values[count++] = readNumber(parser, parser.nextToken());
+                    values[count++] = readNumber(parser, parser.nextToken());
+                    if (parser.nextToken() != JsonToken.END_ARRAY) {
+                        throw new IllegalArgumentException("Coordinate pairs must have exactly two values");
+                    }
+                } else {
+                    values = ensureCapacity(values, count + 1);
+                    values[count++] = readNumber(parser, token);
+                }
+            }
+            if (count % 2 != 0) {
+                throw new IllegalArgumentException("Packed coordinates must have an even number of values");
+            }
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Reads big-endian IEEE 754 double pairs (latitude, longitude) until the end of the stream.
+     *
+     * @throws IllegalArgumentException if the body is not a whole number of 16-byte pairs or has too many points
+     */
+    public double[] readBinary(InputStream body) throws IOException {
+        byte[] pair = new byte[2 * Double.BYTES];
+        ByteBuffer pairBuffer = ByteBuffer.wrap(pair);
+        double[] values = new double[64];
+        int count = 0;
+        while (true) {
+            int read = body.readNBytes(pair, 0, pair.length);
+            if (read == 0) {
+                break;
+            }
+            if (read < pair.length) {
+                throw new IllegalArgumentException("Binary body must contain whole latitude/longitude pairs");
+            }
+            values = ensureCapacity(values, count + 2);
+            values[count++] = pairBuffer.getDouble(0);
+            values[count++] = pairBuffer.getDouble(Double.BYTES);
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private double readNumber(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return Double.NaN;
+        }
+        throw new IllegalArgumentException("Coordinates must be numbers");
+    }
+
+    private double[] ensureCapacity(double[] values, int required) {
+        if (required > (long) maxPoints * 2) {
+            throw new IllegalArgumentException("Too many coordinates. Maximum batch size is " + maxPoints);
+        }
+        return required <= values.length ? values : Arrays.copyOf(values, Math.max(required, values.length * 2));
+    }
+}
@@ -0,0 +1,233 @@
+package com.ninjamap.app.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.BlockCodeParser;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+
+/**
+ * Decodes streams of block codes back into cells.
+ * <p>
+ * Codes are read one at a time (lines of text, or the strings of a JSON array)
+ * and written as one NDJSON record each, in input order, so memory stays flat
+ * however long the stream is. Parsing works on the reader's character buffer
+ * via {@link BlockCodeParser}; the LGA comes from the code prefix, so no
+ * polygon is ever tested. A malformed code only fails its own record.
+ */
+@Service
+public class BlockCodeDecodeService {
+
+    static final String INVALID_CODE = "Invalid block code format";
+
+    // Records written between flushes, so clients see results while the upload is still running
+    private static final int FLUSH_INTERVAL = 1024;
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final BlockCodeDecoder blockCodeDecoder;
+
+    public BlockCodeDecodeService(BlockCodeDecoder blockCodeDecoder) {
+        this.blockCodeDecoder = blockCodeDecoder;
+    }
+
+    /**
+     * Decodes one code per line; blank lines are skipped and surrounding
+     * whitespace (including {@code \r}) is ignored.
+     *
+     * @return the number of records written
+     */
+    public long decodeLines(Reader in, JsonGenerator out) throws IOException {
+        RecordWriter writer = new RecordWriter(out);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int start = 0;
+        int end = 0;
+        boolean discarding = false;
+        while (true) {
+            int newline = indexOf(buffer, '\n', start, end);
+            if (newline >= 0) {
+                if (!discarding) {
+                    writer.writeTrimmed(buffer, start, newline);
+                }
+                discarding = false;
+                start = newline + 1;
+                continue;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end == buffer.length) {
+                // No code is this long: report the line once and skip to its end
+                if (!discarding) {
+                    writer.writeError(INVALID_CODE);
+                    discarding = true;
+                }
+                end = 0;
+            }
+            int read = in.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                if (!discarding) {
+                    writer.writeTrimmed(buffer, 0, end);
+                }
+                break;
+            }
+            end += read;
+        }
+        out.flush();
+        return writer.records;
+    }
+
+    /**
+     * Decodes a JSON array of block code strings. Non-string elements fail
+     * their own record.
+     *
+     * @return the number of records written
+     * @throws IllegalArgumentException if the body is not a JSON array
+     */
+    public long decodeJson(InputStream in, JsonFactory jsonFactory, JsonGenerator out) throws IOException {
+        RecordWriter writer = new RecordWriter(out);
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of block codes");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unexpected end of input");
+                }
+                if (token == JsonToken.VALUE_STRING) {
+                    writer.writeTrimmed(parser.getTextCharacters(), parser.getTextOffset(),
+                            parser.getTextOffset() + parser.getTextLength());
+                } else {
+                    parser.skipChildren();
+                    writer.writeError("Block codes must be strings");
+                }
+            }
+        }
+        out.flush();
+        return writer.records;
+    }
+
+    private static int indexOf(char[] buffer, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Per-stream state: reusable bounds and the LGA of the previous prefix,
+     * since imported codes tend to come grouped by area.
+     */
+    private final class RecordWriter {
+        private final JsonGenerator out;
+        private final double[] bounds = new double[4];
+        private char[] lastPrefix = new char[0];
+        private LGA lastLga;
+        private long records;
+
+        RecordWriter(JsonGenerator out) {
+            this.out = out;
+        }
+
+        void writeTrimmed(char[] chars, int from, int to) throws IOException {
+            while (from < to && chars[from] <= ' ') {
+                from++;
+            }
+            while (to > from && chars[to - 1] <= ' ') {
+                to--;
+            }
+            if (from < to) {
+                write(chars, from, to - from);
+            }
+        }
+
+        void write(char[] chars, int offset, int length) throws IOException {
+            int prefixLength = BlockCodeParser.parse(chars, offset, length, bounds);
+            out.writeStartObject();
+            out.writeFieldName("blockCode");
+            out.writeString(chars, offset, Math.min(length, BlockCodeParser.MAX_LENGTH));
+            if (prefixLength == BlockCodeParser.INVALID) {
+                out.writeStringField("error", INVALID_CODE);
+            } else {
+                out.writeObjectFieldStart("coordinates");
+                out.writeNumberField("latitude", (bounds[GeohashCodec.LAT_MIN] + bounds[GeohashCodec.LAT_MAX]) / 2);
+                out.writeNumberField("longitude", (bounds[GeohashCodec.LON_MIN] + bounds[GeohashCodec.LON_MAX]) / 2);
+                out.writeEndObject();
+                out.writeObjectFieldStart("bounds");
+                out.writeNumberField("latitudeMin", bounds[GeohashCodec.LAT_MIN]);
+                out.writeNumberField("latitudeMax", bounds[GeohashCodec.LAT_MAX]);
+                out.writeNumberField("longitudeMin", bounds[GeohashCodec.LON_MIN]);
+                out.writeNumberField("longitudeMax", bounds[GeohashCodec.LON_MAX]);
+                out.writeEndObject();
+                if (prefixLength > 0) {
+                    writeLga(lga(chars, offset, prefixLength));
+                }
+            }
+            out.writeEndObject();
+            endRecord();
+        }
+
+        void writeError(String error) throws IOException {
+            out.writeStartObject();
+            out.writeStringField("error", error);
+            out.writeEndObject();
+            endRecord();
+        }
+
+        private void writeLga(LGA lga) throws IOException {
+            if (lga == null) {
+                // Well-formed prefix that no loaded LGA produces
+                out.writeNullField("lga");
+                return;
+            }
+            out.writeObjectFieldStart("lga");
+            out.writeStringField("stateCode", lga.getStateCode());
+            out.writeStringField("lgaCode", lga.getLgaCode());
+            out.writeStringField("lgaName", lga.getLgaName());
+            out.writeStringField("stateName", lga.getStateName());
+            out.writeEndObject();
+        }
+
+        private LGA lga(char[] chars, int offset, int length) {
+            if (!samePrefix(chars, offset, length)) {
+                lastPrefix = new char[length];
+                System.arraycopy(chars, offset, lastPrefix, 0, length);
+                lastLga = blockCodeDecoder.findLGAByPrefix(new String(lastPrefix));
+            }
+            return lastLga;
+        }
+
+        private boolean samePrefix(char[] chars, int offset, int length) {
+            if (length != lastPrefix.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[offset + i] != lastPrefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void endRecord() throws IOException {
+            out.writeRaw('\n');
+            if (++records % FLUSH_INTERVAL == 0) {
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for grid generation.
+ * <p>
+ * Every grid request is priced in cells before any cell is generated: a
+ * buffered response holds all cells of its layout until it is written, a
+ * streamed one only the row being written. The price is taken from a global
+ * budget of in-flight cells, a fair weighted semaphore, so concurrent large
+ * requests queue for a short while and are then turned away instead of
+ * exhausting the heap together. A request priced above the whole budget can
+ * never run and is rejected straight away.
+ * <p>
+ * Unless configured, the budget is derived from the maximum heap size and an
+ * estimate of the bytes a buffered cell costs until the response is written.
+ */
+@Service
+@Slf4j
+public class GridAdmissionService {
+
+    private final int maxInFlightCells;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final Semaphore budget;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public GridAdmissionService(@Value("${grid.admission.max-in-flight-cells:0}") long maxInFlightCells,
+                                @Value("${grid.admission.heap-fraction:0.5}") double heapFraction,
+                                @Value("${grid.admission.bytes-per-cell:400}") long bytesPerCell,
+                                @Value("${grid.admission.max-wait-ms:2000}") long maxWaitMillis,
+                                @Value("${grid.admission.retry-after-seconds:5}") long retryAfterSeconds) {
+        long cells = maxInFlightCells > 0
+                ? maxInFlightCells
+                : (long) (Runtime.getRuntime().maxMemory() * heapFraction / Math.max(1, bytesPerCell));
+        this.maxInFlightCells = (int) Math.max(1, Math.min(cells, Integer.MAX_VALUE));
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.budget = new Semaphore(this.maxInFlightCells, true);
+        log.info("Grid admission budget: {} cells in flight", this.maxInFlightCells);
+    }
+
+    /**
+     * Cells a request keeps in memory while it runs: all cells of the layout's
+     * bounding box when buffered, one row when streamed. Cells outside the
+     * request polygon are skipped during generation, so this is an upper bound.
+     */
+    public static long estimateCells(GridLayout layout, boolean streamed) {
+        return streamed ? layout.getCols() : (long) layout.getRows() * layout.getCols();
+    }
+
+    /**
+     * Whether a request of this many cells can ever be admitted
+     */
+    public boolean fits(long cells) {
+        return cells <= maxInFlightCells;
+    }
+
+    /**
+     * Reserves {@code cells} from the budget, waiting up to the configured
+     * time for other requests to finish.
+     *
+     * @return the reservation to close once the cells are released, or null if
+     *         the budget stayed exhausted (or the request can never fit)
+     */
+    public Permit tryAcquire(long cells) throws InterruptedException {
+        if (!fits(cells)) {
+            rejected.increment();
+            return null;
+        }
+        int permits = (int) Math.max(0, cells);
+        if (!budget.tryAcquire(permits, maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            rejected.increment();
+            return null;
+        }
+        admitted.increment();
+        return new Permit(permits);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getMaxInFlightCells() {
+        return maxInFlightCells;
+    }
+
+    public int getInFlightCells() {
+        return maxInFlightCells - budget.availablePermits();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "maxInFlightCells", maxInFlightCells,
+            "inFlightCells", getInFlightCells(),
+            "queuedRequests", budget.getQueueLength(),
+            "admittedRequests", admitted.sum(),
+            "rejectedRequests", rejected.sum()
+        );
+    }
+
+    /**
+     * Cells reserved by one request; closing it more than once has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+        private final int cells;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int cells) {
+            this.cells = cells;
+        }
+
+        public int getCells() {
+            return cells;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                budget.release(cells);
+            }
+        }
+    }
+}
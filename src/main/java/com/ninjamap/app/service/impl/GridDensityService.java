@@ -0,0 +1,132 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.ninjamap.app.repository.IBusinessRepository;
+import com.ninjamap.app.repository.IReportRepository;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+import com.ninjamap.app.utils.geo.GridLattice;
+
+/**
+ * Report and business density per grid cell.
+ * <p>
+ * For a grid layout the positions of active reports and businesses inside its
+ * bounding box are read with one bounded query each and binned by the
+ * layout's row/column arithmetic, the same the cells are built with. The
+ * bins are kept as sorted cell keys, so annotating a cell is two binary
+ * searches and no per-cell map is allocated however large the grid is.
+ */
+@Service
+public class GridDensityService {
+
+    private final IReportRepository reportRepository;
+    private final IBusinessRepository businessRepository;
+    private final int maxPoints;
+
+    public GridDensityService(IReportRepository reportRepository, IBusinessRepository businessRepository,
+                              @Value("${grid.density.max-points:50000}") int maxPoints) {
+        this.reportRepository = reportRepository;
+        this.businessRepository = businessRepository;
+        this.maxPoints = Math.max(1, maxPoints);
+    }
+
+    /**
+     * Loads and bins the reports and businesses inside the layout's bounding box
+     */
+    public DensityOverlay overlay(GridLayout layout) {
+        double maxLat = layout.getMinLat() + layout.getRows() * layout.getLatDelta();
+        double maxLon = layout.getMinLon() + layout.getCols() * layout.getLonDelta();
+        PageRequest limit = PageRequest.of(0, maxPoints);
+
+        List<Object[]> reports = reportRepository.findActivePositionsWithin(
+                layout.getMinLat(), layout.getMinLon(), maxLat, maxLon, limit);
+        List<Object[]> businesses = businessRepository.findActivePositionsWithin(
+                layout.getMinLat(), layout.getMinLon(), maxLat, maxLon, limit);
+        return DensityOverlay.bin(layout, reports, businesses, maxPoints);
+    }
+
+    /**
+     * Binned positions of one grid layout
+     */
+    public static final class DensityOverlay {
+        // Layout-local cell keys (GridLattice.cellId of local row/column), sorted
+        private final long[] reportCells;
+        private final long[] businessCells;
+        private final boolean truncated;
+
+        private DensityOverlay(long[] reportCells, long[] businessCells, boolean truncated) {
+            this.reportCells = reportCells;
+            this.businessCells = businessCells;
+            this.truncated = truncated;
+        }
+
+        /**
+         * @param reports    {@code [latitude, longitude]} rows
+         * @param businesses {@code [latitude, longitude]} rows
+         * @param maxPoints  the query limit; reaching it marks the overlay truncated
+         */
+        static DensityOverlay bin(GridLayout layout, List<Object[]> reports, List<Object[]> businesses,
+                                  int maxPoints) {
+            return new DensityOverlay(cellKeys(layout, reports), cellKeys(layout, businesses),
+                    reports.size() >= maxPoints || businesses.size() >= maxPoints);
+        }
+
+        /**
+         * The cell with its report and business counts, from its layout row/column
+         */
+        public GridCellWithCode annotate(GridCellWithCode cell) {
+            long key = GridLattice.cellId(cell.getGridCell().getRowIndex(), cell.getGridCell().getColIndex());
+            return cell.withDensity(count(reportCells, key), count(businessCells, key));
+        }
+
+        /**
+         * Whether the query limit cut off positions, so counts are lower bounds
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        private static long[] cellKeys(GridLayout layout, List<Object[]> positions) {
+            long[] keys = new long[positions.size()];
+            int count = 0;
+            for (Object[] position : positions) {
+                if (position[0] == null || position[1] == null) {
+                    continue;
+                }
+                // Same row/column a cell is built from: minLat + row * latDelta
+                int row = (int) Math.floor((((Number) position[0]).doubleValue() - layout.getMinLat()) / layout.getLatDelta());
+                int col = (int) Math.floor((((Number) position[1]).doubleValue() - layout.getMinLon()) / layout.getLonDelta());
+                if (row >= 0 && row < layout.getRows() && col >= 0 && col < layout.getCols()) {
+                    keys[count++] = GridLattice.cellId(row, col);
+                }
+            }
+            keys = Arrays.copyOf(keys, count);
+            Arrays.sort(keys);
+            return keys;
+        }
+
+        private static int count(long[] keys, long key) {
+            return lowerBound(keys, key + 1) - lowerBound(keys, key);
+        }
+
+        private static int lowerBound(long[] keys, long key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
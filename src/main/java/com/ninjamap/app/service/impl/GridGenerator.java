@@ -1,23 +1,31 @@
 package com.ninjamap.app.service.impl;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.ninjamap.app.model.Coordinates;
 import com.ninjamap.app.payload.response.GridCell;
 import com.ninjamap.app.payload.response.GridPolyline;
 import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.CellResolution;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
 
 /**
  * Optimized Grid Generator for creating 3x3 meter grid cells
  * Features:
  * - Accurate Haversine-based distance calculations
- * - Efficient polygon intersection testing
- * - Parallel processing support for large grids
+ * - Scanline polygon filling: per row, the boundary crossings give the covered
+ *   column spans directly, for four corners or any (multi)polygon with holes
+ * - Parallel processing support for large grids on a dedicated pool, output in row-major order
  * - Memory-optimized data structures
  */
 @Service
@@ -32,6 +40,13 @@ public class GridGenerator {
     // Threshold for parallel processing (number of cells)
     private static final int PARALLEL_THRESHOLD = 1000;
     
+    // Dedicated pool so large grids cannot starve the common pool
+    private final ForkJoinPool gridPool;
+    
+    public GridGenerator(@Qualifier("gridForkJoinPool") ForkJoinPool gridPool) {
+        this.gridPool = gridPool;
+    }
+    
     /**
      * Generates a 3x3 meter grid within the specified boundary
      * 
@@ -51,60 +66,49 @@ public class GridGenerator {
             double rightTopLat, double rightTopLon,
             double rightBottomLat, double rightBottomLon) {
         
-        // Calculate the bounding box
-        double minLat = Math.min(Math.min(leftBottomLat, leftTopLat), 
-                                 Math.min(rightTopLat, rightBottomLat));
-        double maxLat = Math.max(Math.max(leftBottomLat, leftTopLat), 
-                                 Math.max(rightTopLat, rightBottomLat));
-        double minLon = Math.min(Math.min(leftBottomLon, leftTopLon), 
-                                 Math.min(rightTopLon, rightBottomLon));
-        double maxLon = Math.max(Math.max(leftBottomLon, leftTopLon), 
-                                 Math.max(rightTopLon, rightBottomLon));
-        
-        // Calculate center point for accurate degree conversion
-        double centerLat = (minLat + maxLat) / 2;
-        
-        // Convert 3 meters to degrees at the center point
-        double latDelta = metersToLatitudeDegrees(GRID_SIZE_METERS);
-        double lonDelta = metersToLongitudeDegrees(GRID_SIZE_METERS, centerLat);
-        
-        // Calculate number of rows and columns
-        int rows = (int) Math.ceil((maxLat - minLat) / latDelta);
-        int cols = (int) Math.ceil((maxLon - minLon) / lonDelta);
-        
-        // Precompute boundary vertices for efficiency
-        double[] boundaryLats = {leftBottomLat, leftTopLat, rightTopLat, rightBottomLat};
-        double[] boundaryLons = {leftBottomLon, leftTopLon, rightTopLon, rightBottomLon};
-        
-        List<GridCell> gridCells = new ArrayList<>();
+        return generateGrid(ScanlinePolygon.quad(
+            leftBottomLat, leftBottomLon,
+            leftTopLat, leftTopLon,
+            rightTopLat, rightTopLon,
+            rightBottomLat, rightBottomLon
+        ));
+    }
+    
+    /**
+     * Generates a 3x3 meter grid inside an arbitrary boundary, e.g. a GeoJSON
+     * polygon or multipolygon with holes
+     */
+    public List<GridCell> generateGrid(ScanlinePolygon boundary) {
+        GridLayout layout = GridLayout.of(boundary);
+        int rows = layout.getRows();
+        int cols = layout.getCols();
         
         // Use parallel processing for large grids
         int totalCells = rows * cols;
         if (totalCells > PARALLEL_THRESHOLD) {
-            ConcurrentHashMap<String, GridCell> cellMap = new ConcurrentHashMap<>();
-            
-            IntStream.range(0, rows).parallel().forEach(row -> {
-                for (int col = 0; col < cols; col++) {
-                    GridCell cell = createGridCell(row, col, minLat, minLon, 
-                                                   latDelta, lonDelta, 
-                                                   boundaryLats, boundaryLons);
-                    if (cell != null) {
-                        cellMap.put(row + "_" + col, cell);
-                    }
-                }
-            });
+            // Each task fills its own row slots, merged afterwards in row order
+            GridCell[][] rowCells = new GridCell[rows][];
+            gridPool.invoke(new RowRangeTask(layout, rowCells, 0, rows));
             
-            gridCells.addAll(cellMap.values());
-        } else {
-            // Sequential processing for smaller grids
-            for (int row = 0; row < rows; row++) {
-                for (int col = 0; col < cols; col++) {
-                    GridCell cell = createGridCell(row, col, minLat, minLon, 
-                                                   latDelta, lonDelta, 
-                                                   boundaryLats, boundaryLons);
-                    if (cell != null) {
-                        gridCells.add(cell);
-                    }
+            int count = 0;
+            for (GridCell[] cells : rowCells) {
+                count += cells.length;
+            }
+            List<GridCell> gridCells = new ArrayList<>(count);
+            for (GridCell[] cells : rowCells) {
+                gridCells.addAll(Arrays.asList(cells));
+            }
+            return gridCells;
+        }
+        
+        // Sequential processing for smaller grids
+        List<GridCell> gridCells = new ArrayList<>();
+        ScanlinePolygon.Crossings crossings = new ScanlinePolygon.Crossings();
+        for (int row = 0; row < rows; row++) {
+            int[] spans = layout.columnSpans(row, crossings);
+            for (int span = 0; span < spans.length; span += 2) {
+                for (int col = spans[span]; col < spans[span + 1]; col++) {
+                    gridCells.add(createGridCell(row, col, layout));
                 }
             }
         }
@@ -113,25 +117,69 @@ public class GridGenerator {
     }
     
     /**
-     * Create a single grid cell with boundary checking
+     * Generate the cells of a single row inside the boundary, in column order
      */
-    private GridCell createGridCell(int row, int col, double minLat, double minLon,
-                                    double latDelta, double lonDelta,
-                                    double[] boundaryLats, double[] boundaryLons) {
-        double cellMinLat = minLat + (row * latDelta);
-        double cellMaxLat = cellMinLat + latDelta;
-        double cellMinLon = minLon + (col * lonDelta);
-        double cellMaxLon = cellMinLon + lonDelta;
-        
-        // Calculate center first (most important for boundary check)
-        double centerLat = (cellMinLat + cellMaxLat) / 2;
-        double centerLon = (cellMinLon + cellMaxLon) / 2;
+    public GridCell[] generateRow(int row, GridLayout layout) {
+        int[] spans = layout.columnSpans(row, new ScanlinePolygon.Crossings());
+        int count = 0;
+        for (int span = 0; span < spans.length; span += 2) {
+            count += spans[span + 1] - spans[span];
+        }
+        GridCell[] cells = new GridCell[count];
+        int index = 0;
+        for (int span = 0; span < spans.length; span += 2) {
+            for (int col = spans[span]; col < spans[span + 1]; col++) {
+                cells[index++] = createGridCell(row, col, layout);
+            }
+        }
+        return cells;
+    }
+    
+    /**
+     * Splits a row range in halves until it is small enough to generate directly
+     */
+    private final class RowRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final transient GridLayout layout;
+        private final GridCell[][] rowCells;
+        private final int fromRow;
+        private final int toRow;
         
-        // Check if cell center is within the boundary polygon
-        if (!isPointInPolygon(centerLat, centerLon, boundaryLats, boundaryLons)) {
-            return null;
+        RowRangeTask(GridLayout layout, GridCell[][] rowCells, int fromRow, int toRow) {
+            this.layout = layout;
+            this.rowCells = rowCells;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
         }
         
+        @Override
+        protected void compute() {
+            if ((long) (toRow - fromRow) * layout.getCols() <= PARALLEL_THRESHOLD || toRow - fromRow == 1) {
+                for (int row = fromRow; row < toRow; row++) {
+                    rowCells[row] = generateRow(row, layout);
+                }
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new RowRangeTask(layout, rowCells, fromRow, middle),
+                      new RowRangeTask(layout, rowCells, middle, toRow));
+        }
+    }
+    
+    /**
+     * Create a single grid cell; the caller has established that its centre
+     * is inside the boundary
+     */
+    private GridCell createGridCell(int row, int col, GridLayout layout) {
+        double cellMinLat = layout.getMinLat() + (row * layout.getLatDelta());
+        double cellMaxLat = cellMinLat + layout.getLatDelta();
+        double cellMinLon = layout.getMinLon() + (col * layout.getLonDelta());
+        double cellMaxLon = cellMinLon + layout.getLonDelta();
+        
+        double centerLat = (cellMinLat + cellMaxLat) / 2;
+        double centerLon = (cellMinLon + cellMaxLon) / 2;
+        
         // Create cell corners
         Coordinates bottomLeft = new Coordinates(cellMinLat, cellMinLon);
         Coordinates bottomRight = new Coordinates(cellMinLat, cellMaxLon);
@@ -152,12 +200,19 @@ public class GridGenerator {
             double rightTopLat, double rightTopLon,
             double rightBottomLat, double rightBottomLon) {
         
-        List<GridCell> cells = generateGrid(
+        return generateGridPolylines(ScanlinePolygon.quad(
             leftBottomLat, leftBottomLon,
             leftTopLat, leftTopLon,
             rightTopLat, rightTopLon,
             rightBottomLat, rightBottomLon
-        );
+        ));
+    }
+    
+    /**
+     * Polyline variant of {@link #generateGrid(ScanlinePolygon)}
+     */
+    public List<GridPolyline> generateGridPolylines(ScanlinePolygon boundary) {
+        List<GridCell> cells = generateGrid(boundary);
         
         List<GridPolyline> polylines = new ArrayList<>(cells.size());
         
@@ -193,12 +248,20 @@ public class GridGenerator {
             double rightBottomLat, double rightBottomLon,
             BlockCodeDecoder blockCodeDecoder) {
         
-        List<GridCell> cells = generateGrid(
+        return generateGridWithBlockCodes(ScanlinePolygon.quad(
             leftBottomLat, leftBottomLon,
             leftTopLat, leftTopLon,
             rightTopLat, rightTopLon,
             rightBottomLat, rightBottomLon
-        );
+        ), blockCodeDecoder);
+    }
+    
+    /**
+     * Block code variant of {@link #generateGrid(ScanlinePolygon)}
+     */
+    public List<GridCellWithCode> generateGridWithBlockCodes(ScanlinePolygon boundary,
+                                                             BlockCodeDecoder blockCodeDecoder) {
+        List<GridCell> cells = generateGrid(boundary);
         
         List<GridCellWithCode> cellsWithCodes = new ArrayList<>(cells.size());
         
@@ -211,48 +274,275 @@ public class GridGenerator {
     }
     
     /**
-     * Convert meters to latitude degrees
-     * 1 degree of latitude ≈ 111,320 meters (constant at all latitudes)
+     * Streaming variant of {@link #generateGridWithBlockCodes}: cells are
+     * computed row by row and handed to the sink as soon as they exist, so
+     * nothing is accumulated and memory stays flat whatever the area size.
+     * Cells arrive in row-major order and {@link GridCellSink#endRow(int)}
+     * is called after every row (e.g. to flush the response). Without a
+     * decoder the cells carry no block code.
      */
-    private double metersToLatitudeDegrees(double meters) {
-        return meters / 111320.0;
+    public void streamGridWithBlockCodes(
+            double leftBottomLat, double leftBottomLon,
+            double leftTopLat, double leftTopLon,
+            double rightTopLat, double rightTopLon,
+            double rightBottomLat, double rightBottomLon,
+            BlockCodeDecoder blockCodeDecoder,
+            GridCellSink sink) throws IOException {
+        
+        streamGridWithBlockCodes(ScanlinePolygon.quad(
+            leftBottomLat, leftBottomLon,
+            leftTopLat, leftTopLon,
+            rightTopLat, rightTopLon,
+            rightBottomLat, rightBottomLon
+        ), blockCodeDecoder, sink);
     }
     
     /**
-     * Convert meters to longitude degrees at a given latitude
-     * Longitude degree distance varies with latitude due to Earth's curvature
+     * Streaming variant of {@link #generateGridWithBlockCodes(ScanlinePolygon, BlockCodeDecoder)}
      */
-    private double metersToLongitudeDegrees(double meters, double latitude) {
-        double latRad = Math.toRadians(latitude);
-        return meters / (111320.0 * Math.cos(latRad));
+    public void streamGridWithBlockCodes(ScanlinePolygon boundary, BlockCodeDecoder blockCodeDecoder,
+                                         GridCellSink sink) throws IOException {
+        streamCells(GridLayout.of(boundary), blockCodeDecoder, null, CellResolution.METERS_3, sink);
     }
     
     /**
-     * Optimized point-in-polygon test using ray casting algorithm
-     * Uses precomputed vertex arrays for better performance
+     * Generate a grid snapped to the global lattice of the tile cache.
+     * Cells carry their stable lattice cell ID and the block codes come from
+     * cached tiles, so overlapping requests return identical cells.
      */
-    private boolean isPointInPolygon(double lat, double lon,
-                                    double[] latitudes, double[] longitudes) {
-        boolean inside = false;
-        int n = latitudes.length;
-        int j = n - 1;
-        
-        for (int i = 0; i < n; i++) {
-            double xi = longitudes[i];
-            double yi = latitudes[i];
-            double xj = longitudes[j];
-            double yj = latitudes[j];
-            
-            // Ray casting algorithm
-            if (((yi > lat) != (yj > lat)) &&
-                (lon < (xj - xi) * (lat - yi) / (yj - yi) + xi)) {
-                inside = !inside;
+    public List<GridCellWithCode> generateAlignedGridWithBlockCodes(
+            double leftBottomLat, double leftBottomLon,
+            double leftTopLat, double leftTopLon,
+            double rightTopLat, double rightTopLon,
+            double rightBottomLat, double rightBottomLon,
+            GridTileCache tileCache) {
+        
+        return generateAlignedGridWithBlockCodes(ScanlinePolygon.quad(
+            leftBottomLat, leftBottomLon,
+            leftTopLat, leftTopLon,
+            rightTopLat, rightTopLon,
+            rightBottomLat, rightBottomLon
+        ), tileCache);
+    }
+    
+    /**
+     * Lattice-aligned variant of {@link #generateGridWithBlockCodes(ScanlinePolygon, BlockCodeDecoder)}
+     */
+    public List<GridCellWithCode> generateAlignedGridWithBlockCodes(ScanlinePolygon boundary,
+                                                                    GridTileCache tileCache) {
+        return generateAlignedGridWithBlockCodes(boundary, tileCache, CellResolution.METERS_3);
+    }
+    
+    /**
+     * Lattice-aligned grid at a resolution level: cells are the level's blocks
+     * of 3 m cells whose centre is inside the boundary, with the level's block
+     * codes and their row/column on the level's lattice as cell ID.
+     */
+    public List<GridCellWithCode> generateAlignedGridWithBlockCodes(ScanlinePolygon boundary,
+                                                                    GridTileCache tileCache,
+                                                                    CellResolution resolution) {
+        GridLayout layout = GridLayout.aligned(boundary, tileCache.getLattice(resolution));
+        
+        List<GridCellWithCode> cellsWithCodes = new ArrayList<>();
+        try {
+            streamCells(layout, null, tileCache, resolution, cellsWithCodes::add);
+        } catch (IOException e) {
+            // The list sink never throws
+            throw new IllegalStateException(e);
+        }
+        return cellsWithCodes;
+    }
+    
+    /**
+     * Streaming variant of {@link #generateAlignedGridWithBlockCodes}
+     */
+    public void streamAlignedGridWithBlockCodes(
+            double leftBottomLat, double leftBottomLon,
+            double leftTopLat, double leftTopLon,
+            double rightTopLat, double rightTopLon,
+            double rightBottomLat, double rightBottomLon,
+            GridTileCache tileCache,
+            GridCellSink sink) throws IOException {
+        
+        streamAlignedGridWithBlockCodes(ScanlinePolygon.quad(
+            leftBottomLat, leftBottomLon,
+            leftTopLat, leftTopLon,
+            rightTopLat, rightTopLon,
+            rightBottomLat, rightBottomLon
+        ), tileCache, sink);
+    }
+    
+    /**
+     * Streaming variant of {@link #generateAlignedGridWithBlockCodes(ScanlinePolygon, GridTileCache)}
+     */
+    public void streamAlignedGridWithBlockCodes(ScanlinePolygon boundary, GridTileCache tileCache,
+                                                GridCellSink sink) throws IOException {
+        streamAlignedGridWithBlockCodes(boundary, tileCache, CellResolution.METERS_3, sink);
+    }
+    
+    /**
+     * Streaming variant of {@link #generateAlignedGridWithBlockCodes(ScanlinePolygon, GridTileCache, CellResolution)}
+     */
+    public void streamAlignedGridWithBlockCodes(ScanlinePolygon boundary, GridTileCache tileCache,
+                                                CellResolution resolution, GridCellSink sink) throws IOException {
+        streamCells(GridLayout.aligned(boundary, tileCache.getLattice(resolution)), null, tileCache, resolution, sink);
+    }
+    
+    /**
+     * Difference between two lattice-aligned viewports, from row/column spans
+     * alone: the cells of {@code current} missing from {@code previous}, and
+     * the cells of {@code previous} no longer in {@code current} as cell ID
+     * ranges. Each side uses its own viewport's spans, so applying the diff to
+     * the previous response gives exactly the full response for {@code current}.
+     * No cell is built until {@link #enteringCells} is called.
+     */
+    public ViewportDiff diffAlignedViewports(ScanlinePolygon previous, ScanlinePolygon current,
+                                             GridLattice lattice) {
+        GridLayout from = GridLayout.aligned(previous, lattice);
+        GridLayout to = GridLayout.aligned(current, lattice);
+        ScanlinePolygon.Crossings crossings = new ScanlinePolygon.Crossings();
+        
+        int[] entering = new int[48];
+        int enteringLength = 0;
+        long enteringCells = 0;
+        for (int row = to.getOriginRow(); row < to.getOriginRow() + to.getRows(); row++) {
+            int[] spans = subtractSpans(globalSpans(to, row, crossings), globalSpans(from, row, crossings));
+            for (int span = 0; span < spans.length; span += 2) {
+                if (enteringLength + 3 > entering.length) {
+                    entering = Arrays.copyOf(entering, entering.length * 2);
+                }
+                entering[enteringLength++] = row;
+                entering[enteringLength++] = spans[span];
+                entering[enteringLength++] = spans[span + 1];
+                enteringCells += spans[span + 1] - spans[span];
+            }
+        }
+        
+        long[] leaving = new long[32];
+        int leavingLength = 0;
+        long leavingCells = 0;
+        for (int row = from.getOriginRow(); row < from.getOriginRow() + from.getRows(); row++) {
+            int[] spans = subtractSpans(globalSpans(from, row, crossings), globalSpans(to, row, crossings));
+            for (int span = 0; span < spans.length; span += 2) {
+                if (leavingLength + 2 > leaving.length) {
+                    leaving = Arrays.copyOf(leaving, leaving.length * 2);
+                }
+                // Columns of one row are consecutive cell IDs
+                leaving[leavingLength++] = GridLattice.cellId(row, spans[span]);
+                leaving[leavingLength++] = GridLattice.cellId(row, spans[span + 1] - 1);
+                leavingCells += spans[span + 1] - spans[span];
             }
-            
-            j = i;
         }
         
-        return inside;
+        return new ViewportDiff(to, Arrays.copyOf(entering, enteringLength), enteringCells,
+                                Arrays.copyOf(leaving, leavingLength), leavingCells);
+    }
+    
+    /**
+     * The cells entering the view, in row-major order and exactly as the full
+     * aligned grid of the current viewport has them
+     */
+    public List<GridCellWithCode> enteringCells(ViewportDiff diff, GridTileCache tileCache) {
+        GridLayout layout = diff.getLayout();
+        List<GridCellWithCode> cells = new ArrayList<>((int) Math.min(diff.getEnteringCells(), Integer.MAX_VALUE));
+        int[] entering = diff.entering;
+        for (int i = 0; i < entering.length; i += 3) {
+            int globalRow = entering[i];
+            for (int globalCol = entering[i + 1]; globalCol < entering[i + 2]; globalCol++) {
+                GridCell cell = createGridCell(globalRow - layout.getOriginRow(), globalCol - layout.getOriginCol(), layout);
+                cells.add(new GridCellWithCode(cell, tileCache.blockCode(globalRow, globalCol),
+                                               GridLattice.cellId(globalRow, globalCol)));
+            }
+        }
+        return cells;
+    }
+    
+    /**
+     * Column spans of a global row in global columns, none when the layout does not have the row
+     */
+    private static int[] globalSpans(GridLayout layout, int globalRow, ScanlinePolygon.Crossings crossings) {
+        int row = globalRow - layout.getOriginRow();
+        if (row < 0 || row >= layout.getRows()) {
+            return GridLayout.NO_SPANS;
+        }
+        int[] spans = layout.columnSpans(row, crossings);
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] += layout.getOriginCol();
+        }
+        return spans;
+    }
+    
+    /**
+     * Spans of {@code a} not covered by {@code b}; both sorted, disjoint {@code [from, to)} pairs
+     */
+    static int[] subtractSpans(int[] a, int[] b) {
+        // Every span of b can split at most one span of a in two
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            int start = a[i];
+            int end = a[i + 1];
+            while (j < b.length && b[j + 1] <= start) {
+                j += 2;
+            }
+            for (int k = j; k < b.length && b[k] < end; k += 2) {
+                if (b[k] > start) {
+                    result[count++] = start;
+                    result[count++] = b[k];
+                }
+                start = Math.max(start, b[k + 1]);
+            }
+            if (start < end) {
+                result[count++] = start;
+                result[count++] = end;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    private void streamCells(GridLayout layout, BlockCodeDecoder blockCodeDecoder, GridTileCache tileCache,
+                             CellResolution resolution, GridCellSink sink) throws IOException {
+        sink.begin(layout);
+        
+        ScanlinePolygon.Crossings crossings = new ScanlinePolygon.Crossings();
+        for (int row = 0; row < layout.getRows(); row++) {
+            int[] spans = layout.columnSpans(row, crossings);
+            for (int span = 0; span < spans.length; span += 2) {
+                for (int col = spans[span]; col < spans[span + 1]; col++) {
+                    GridCell cell = createGridCell(row, col, layout);
+                    if (tileCache != null) {
+                        int globalRow = layout.getOriginRow() + row;
+                        int globalCol = layout.getOriginCol() + col;
+                        sink.accept(new GridCellWithCode(cell, tileCache.blockCode(resolution, globalRow, globalCol),
+                                                         GridLattice.cellId(globalRow, globalCol)));
+                    } else {
+                        String blockCode = blockCodeDecoder != null
+                            ? blockCodeDecoder.generateUniqueCodeForBlock(cell.getCenter())
+                            : null;
+                        sink.accept(new GridCellWithCode(cell, blockCode));
+                    }
+                }
+            }
+            sink.endRow(row);
+        }
+    }
+    
+    /**
+     * Convert meters to latitude degrees
+     * 1 degree of latitude ≈ 111,320 meters (constant at all latitudes)
+     */
+    private static double metersToLatitudeDegrees(double meters) {
+        return meters / 111320.0;
+    }
+    
+    /**
+     * Convert meters to longitude degrees at a given latitude
+     * Longitude degree distance varies with latitude due to Earth's curvature
+     */
+    private static double metersToLongitudeDegrees(double meters, double latitude) {
+        double latRad = Math.toRadians(latitude);
+        return meters / (111320.0 * Math.cos(latRad));
     }
     
     /**
@@ -272,16 +562,265 @@ public class GridGenerator {
         return EARTH_RADIUS * c;
     }
     
+    /**
+     * Receives cells from {@link #streamGridWithBlockCodes}
+     */
+    @FunctionalInterface
+    public interface GridCellSink {
+        
+        /**
+         * Called once before the first cell with the lattice being generated
+         */
+        default void begin(GridLayout layout) throws IOException {
+        }
+        
+        void accept(GridCellWithCode cell) throws IOException;
+        
+        /**
+         * Called once every cell of {@code row} has been emitted
+         */
+        default void endRow(int row) throws IOException {
+        }
+    }
+    
+    /**
+     * Lattice of a single request: bounding box origin, cell size in degrees
+     * (longitude size taken at the box's centre latitude), dimensions and the
+     * boundary polygon cells are clipped against. An aligned layout instead
+     * starts on a {@link GridLattice} cell and uses its fixed cell size; the
+     * origin row/col then map local indices to global lattice indices.
+     * A cell belongs to the grid when its centre is inside the boundary.
+     */
+    public static final class GridLayout {
+        private static final int[] NO_SPANS = new int[0];
+        
+        private final double minLat;
+        private final double minLon;
+        private final double latDelta;
+        private final double lonDelta;
+        private final int rows;
+        private final int cols;
+        private final ScanlinePolygon boundary;
+        private final boolean aligned;
+        private final int originRow;
+        private final int originCol;
+        
+        private GridLayout(double minLat, double minLon, double latDelta, double lonDelta,
+                           int rows, int cols, ScanlinePolygon boundary,
+                           boolean aligned, int originRow, int originCol) {
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.latDelta = latDelta;
+            this.lonDelta = lonDelta;
+            this.rows = rows;
+            this.cols = cols;
+            this.boundary = boundary;
+            this.aligned = aligned;
+            this.originRow = originRow;
+            this.originCol = originCol;
+        }
+        
+        public static GridLayout of(
+                double leftBottomLat, double leftBottomLon,
+                double leftTopLat, double leftTopLon,
+                double rightTopLat, double rightTopLon,
+                double rightBottomLat, double rightBottomLon) {
+            
+            return of(ScanlinePolygon.quad(
+                leftBottomLat, leftBottomLon,
+                leftTopLat, leftTopLon,
+                rightTopLat, rightTopLon,
+                rightBottomLat, rightBottomLon));
+        }
+        
+        public static GridLayout of(ScanlinePolygon boundary) {
+            // Calculate the bounding box
+            double minLat = boundary.getMinLat();
+            double maxLat = boundary.getMaxLat();
+            double minLon = boundary.getMinLon();
+            double maxLon = boundary.getMaxLon();
+            
+            // Calculate center point for accurate degree conversion
+            double centerLat = (minLat + maxLat) / 2;
+            
+            // Convert 3 meters to degrees at the center point
+            double latDelta = metersToLatitudeDegrees(GRID_SIZE_METERS);
+            double lonDelta = metersToLongitudeDegrees(GRID_SIZE_METERS, centerLat);
+            
+            // Calculate number of rows and columns
+            int rows = (int) Math.ceil((maxLat - minLat) / latDelta);
+            int cols = (int) Math.ceil((maxLon - minLon) / lonDelta);
+            
+            return new GridLayout(minLat, minLon, latDelta, lonDelta, rows, cols, boundary, false, 0, 0);
+        }
+        
+        public static GridLayout aligned(
+                double leftBottomLat, double leftBottomLon,
+                double leftTopLat, double leftTopLon,
+                double rightTopLat, double rightTopLon,
+                double rightBottomLat, double rightBottomLon,
+                GridLattice lattice) {
+            
+            return aligned(ScanlinePolygon.quad(
+                leftBottomLat, leftBottomLon,
+                leftTopLat, leftTopLon,
+                rightTopLat, rightTopLon,
+                rightBottomLat, rightBottomLon), lattice);
+        }
+        
+        public static GridLayout aligned(ScanlinePolygon boundary, GridLattice lattice) {
+            // Every lattice cell touching the bounding box
+            int firstRow = lattice.row(boundary.getMinLat());
+            int firstCol = lattice.col(boundary.getMinLon());
+            int rows = lattice.row(boundary.getMaxLat()) - firstRow + 1;
+            int cols = lattice.col(boundary.getMaxLon()) - firstCol + 1;
+            
+            return new GridLayout(lattice.minLat(firstRow), lattice.minLon(firstCol),
+                                  lattice.getLatDelta(), lattice.getLonDelta(), rows, cols,
+                                  boundary, true, firstRow, firstCol);
+        }
+        
+        public double getMinLat() { return minLat; }
+        public double getMinLon() { return minLon; }
+        public double getLatDelta() { return latDelta; }
+        public double getLonDelta() { return lonDelta; }
+        public int getRows() { return rows; }
+        public int getCols() { return cols; }
+        public boolean isAligned() { return aligned; }
+        public int getOriginRow() { return originRow; }
+        public int getOriginCol() { return originCol; }
+        public ScanlinePolygon getBoundary() { return boundary; }
+        
+        /**
+         * Columns of {@code row} whose cell centre is inside the boundary, as
+         * {@code [from, to)} pairs in ascending order. Centres are computed
+         * exactly like the cells' own, so the spans agree with a per-cell test.
+         * 
+         * @param crossings scratch space for the row's boundary crossings
+         */
+        public int[] columnSpans(int row, ScanlinePolygon.Crossings crossings) {
+            double cellMinLat = minLat + (row * latDelta);
+            double cellMaxLat = cellMinLat + latDelta;
+            boundary.crossings((cellMinLat + cellMaxLat) / 2, crossings);
+            if (crossings.count() == 0) {
+                return NO_SPANS;
+            }
+            
+            int[] spans = new int[crossings.count()];
+            int count = 0;
+            for (int k = 0; k < crossings.count(); k += 2) {
+                int from = firstColumnAtOrAfter(crossings.get(k));
+                int to = firstColumnAtOrAfter(crossings.get(k + 1));
+                if (from >= to) {
+                    continue;
+                }
+                // Touching spans (a vertex on the scanline) are merged
+                if (count > 0 && spans[count - 1] >= from) {
+                    spans[count - 1] = Math.max(spans[count - 1], to);
+                } else {
+                    spans[count++] = from;
+                    spans[count++] = to;
+                }
+            }
+            return count == spans.length ? spans : Arrays.copyOf(spans, count);
+        }
+        
+        private double centerLon(int col) {
+            double cellMinLon = minLon + (col * lonDelta);
+            double cellMaxLon = cellMinLon + lonDelta;
+            return (cellMinLon + cellMaxLon) / 2;
+        }
+        
+        /**
+         * Smallest column in [0, cols] whose centre is not west of {@code lon}
+         */
+        private int firstColumnAtOrAfter(double lon) {
+            double estimate = Math.ceil((lon - minLon) / lonDelta - 0.5);
+            int col = (int) Math.max(0, Math.min(estimate, cols));
+            // The estimate can be one off through rounding; centres grow with the column
+            while (col > 0 && centerLon(col - 1) >= lon) {
+                col--;
+            }
+            while (col < cols && centerLon(col) < lon) {
+                col++;
+            }
+            return col;
+        }
+    }
+    
+    /**
+     * Result of {@link #diffAlignedViewports}: spans of the cells entering the
+     * view and cell ID ranges of those leaving it
+     */
+    public static final class ViewportDiff {
+        private final GridLayout layout;
+        // Global row, first column and end column (exclusive) per span
+        private final int[] entering;
+        private final long enteringCells;
+        // First and last cell ID (inclusive) per range
+        private final long[] leaving;
+        private final long leavingCells;
+        
+        private ViewportDiff(GridLayout layout, int[] entering, long enteringCells,
+                             long[] leaving, long leavingCells) {
+            this.layout = layout;
+            this.entering = entering;
+            this.enteringCells = enteringCells;
+            this.leaving = leaving;
+            this.leavingCells = leavingCells;
+        }
+        
+        /**
+         * Aligned layout of the current viewport
+         */
+        public GridLayout getLayout() { return layout; }
+        public long getEnteringCells() { return enteringCells; }
+        public long getLeavingCells() { return leavingCells; }
+        
+        /**
+         * {@code [firstCellId, lastCellId]} pairs, one per row and span, in row-major order
+         */
+        public List<long[]> getLeavingRanges() {
+            List<long[]> ranges = new ArrayList<>(leaving.length / 2);
+            for (int i = 0; i < leaving.length; i += 2) {
+                ranges.add(new long[] { leaving[i], leaving[i + 1] });
+            }
+            return ranges;
+        }
+    }
+    
     /**
      * Inner class to hold grid cell with its block code
      */
     public static class GridCellWithCode {
         private final GridCell gridCell;
         private final String blockCode;
+        private final Long latticeCellId;
+        private final Integer reportCount;
+        private final Integer businessCount;
         
         public GridCellWithCode(GridCell gridCell, String blockCode) {
+            this(gridCell, blockCode, null);
+        }
+        
+        public GridCellWithCode(GridCell gridCell, String blockCode, Long latticeCellId) {
+            this(gridCell, blockCode, latticeCellId, null, null);
+        }
+        
+        private GridCellWithCode(GridCell gridCell, String blockCode, Long latticeCellId,
+                                 Integer reportCount, Integer businessCount) {
             this.gridCell = gridCell;
             this.blockCode = blockCode;
+            this.latticeCellId = latticeCellId;
+            this.reportCount = reportCount;
+            this.businessCount = businessCount;
+        }
+        
+        /**
+         * The same cell carrying report and business counts
+         */
+        public GridCellWithCode withDensity(int reportCount, int businessCount) {
+            return new GridCellWithCode(gridCell, blockCode, latticeCellId, reportCount, businessCount);
         }
         
         public GridCell getGridCell() {
@@ -295,5 +834,29 @@ public class GridGenerator {
         public Coordinates getCenter() {
             return gridCell.getCenter();
         }
+        
+        /**
+         * Stable global cell ID ({@link GridLattice#cellId}), only set for aligned grids
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Long getLatticeCellId() {
+            return latticeCellId;
+        }
+        
+        /**
+         * Active reports located in the cell, only set for density overlays
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Integer getReportCount() {
+            return reportCount;
+        }
+        
+        /**
+         * Active businesses located in the cell, only set for density overlays
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Integer getBusinessCount() {
+            return businessCount;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.payload.response.GridCell;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.utils.geo.BlockCodeParser;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.GridLattice;
+
+/**
+ * Cell neighbourhoods on the global {@link GridLattice}.
+ * <p>
+ * A block code or position is resolved to its lattice cell, and the cells
+ * around it are enumerated from row/column arithmetic alone: neighbours and
+ * k-rings by offsets, radius queries row by row from the circle's extent, and
+ * lines by walking the cell boundaries they cross. No polygon is tested, and
+ * block codes come from the {@link GridTileCache}, so the cells are the same
+ * ones (same IDs and codes) an aligned grid returns.
+ */
+@Service
+public class GridNeighbourhoodService {
+
+    /** 1 degree of latitude is about 111,320 meters, as for the lattice. */
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    private final GridTileCache tileCache;
+    private final GridLattice lattice;
+    private final int maxCells;
+
+    public GridNeighbourhoodService(GridTileCache tileCache,
+                                    @Value("${grid.neighbourhood.max-cells:10000}") int maxCells) {
+        this.tileCache = tileCache;
+        this.lattice = tileCache.getLattice();
+        this.maxCells = Math.max(1, maxCells);
+    }
+
+    public int getMaxCells() {
+        return maxCells;
+    }
+
+    /**
+     * Centre of the geohash cell of a block code as {@code [lat, lon]}
+     *
+     * @throws IllegalArgumentException if the code is malformed
+     */
+    public double[] position(String blockCode) {
+        String code = blockCode == null ? "" : blockCode.trim();
+        double[] bounds = new double[4];
+        if (BlockCodeParser.parse(code.toCharArray(), 0, code.length(), bounds) == BlockCodeParser.INVALID) {
+            throw new IllegalArgumentException("Invalid block code: " + code);
+        }
+        return new double[] {
+            (bounds[GeohashCodec.LAT_MIN] + bounds[GeohashCodec.LAT_MAX]) / 2,
+            (bounds[GeohashCodec.LON_MIN] + bounds[GeohashCodec.LON_MAX]) / 2
+        };
+    }
+
+    /**
+     * Lattice cell of a block code. Codes of lattice cells resolve back to
+     * their own cell, since a geohash cell is far smaller than a lattice cell.
+     *
+     * @throws IllegalArgumentException if the code is malformed
+     */
+    public long locate(String blockCode) {
+        double[] position = position(blockCode);
+        return locate(position[0], position[1]);
+    }
+
+    /**
+     * Lattice cell containing a position
+     *
+     * @throws IllegalArgumentException if the position is out of range
+     */
+    public long locate(double latitude, double longitude) {
+        requirePosition(latitude, longitude);
+        return GridLattice.cellId(lattice.row(latitude), lattice.col(longitude));
+    }
+
+    /**
+     * The 8-connected neighbours of a cell, clockwise from north-west
+     */
+    public List<GridCellWithCode> neighbours(long cellId) {
+        return ring(cellId, 1);
+    }
+
+    /**
+     * Cells exactly {@code k} rows or columns away from a cell (Chebyshev
+     * distance k), clockwise from the north-west corner. Ring 0 is the cell itself.
+     *
+     * @throws IllegalArgumentException if k is negative or the ring has more than the maximum cells
+     */
+    public List<GridCellWithCode> ring(long cellId, int k) {
+        requireDistance(k);
+        requireCells(k == 0 ? 1 : 8L * k, "ring");
+        List<GridCellWithCode> cells = new ArrayList<>(k == 0 ? 1 : 8 * k);
+        addRing(cells, GridLattice.rowOf(cellId), GridLattice.colOf(cellId), k);
+        return cells;
+    }
+
+    /**
+     * All cells within {@code k} rows and columns of a cell, ring by ring
+     * starting with the cell itself, so the result is sorted by distance
+     *
+     * @throws IllegalArgumentException if k is negative or the disk has more than the maximum cells
+     */
+    public List<GridCellWithCode> kRing(long cellId, int k) {
+        requireDistance(k);
+        long side = 2L * k + 1;
+        requireCells(side * side, "k-ring");
+        List<GridCellWithCode> cells = new ArrayList<>((int) (side * side));
+        int row = GridLattice.rowOf(cellId);
+        int col = GridLattice.colOf(cellId);
+        for (int ring = 0; ring <= k; ring++) {
+            addRing(cells, row, col, ring);
+        }
+        return cells;
+    }
+
+    /**
+     * Cells whose centre is within {@code radiusMeters} of a position, row by
+     * row from south to north. Distances are measured on the local plane
+     * tangent at the position, like the lattice's own cell size.
+     *
+     * @throws IllegalArgumentException if the position or radius is invalid or
+     *         the circle covers more than the maximum cells
+     */
+    public List<GridCellWithCode> withinRadius(double latitude, double longitude, double radiusMeters) {
+        requirePosition(latitude, longitude);
+        if (!(radiusMeters >= 0) || Double.isInfinite(radiusMeters)) {
+            throw new IllegalArgumentException("Radius must be a non-negative number of meters");
+        }
+        double metersPerLonDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        double latExtent = radiusMeters / METERS_PER_DEGREE;
+        double lonExtent = radiusMeters / metersPerLonDegree;
+
+        // Column span of each row first, so the size is known before any cell is built
+        int firstRow = lattice.row(latitude - latExtent);
+        int lastRow = lattice.row(latitude + latExtent);
+        if (lastRow - firstRow + 1 > maxCells || 2 * lonExtent / lattice.getLonDelta() > maxCells) {
+            throw new IllegalArgumentException("The radius covers more than the maximum of " + maxCells + " cells");
+        }
+        int[] spans = new int[(lastRow - firstRow + 1) * 2];
+        long total = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            double north = (lattice.centerLat(row) - latitude) * METERS_PER_DEGREE;
+            double halfWidth = Math.sqrt(Math.max(0, radiusMeters * radiusMeters - north * north)) / metersPerLonDegree;
+            int from = lattice.col(longitude - halfWidth);
+            int to = lattice.col(longitude + halfWidth);
+            // The end cells hold the circle's edge but their centres may lie outside, or rounding put them one off
+            while (from <= to && !isWithin(row, from, latitude, longitude, radiusMeters, metersPerLonDegree)) {
+                from++;
+            }
+            while (to >= from && !isWithin(row, to, latitude, longitude, radiusMeters, metersPerLonDegree)) {
+                to--;
+            }
+            while (from <= to && isWithin(row, from - 1, latitude, longitude, radiusMeters, metersPerLonDegree)) {
+                from--;
+            }
+            while (from <= to && isWithin(row, to + 1, latitude, longitude, radiusMeters, metersPerLonDegree)) {
+                to++;
+            }
+            spans[(row - firstRow) * 2] = from;
+            spans[(row - firstRow) * 2 + 1] = to;
+            total += (long) to - from + 1;
+        }
+        requireCells(total, "radius");
+
+        List<GridCellWithCode> cells = new ArrayList<>((int) total);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = spans[(row - firstRow) * 2]; col <= spans[(row - firstRow) * 2 + 1]; col++) {
+                addCell(cells, row, col);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Cells a straight segment passes through, in order from its start to its
+     * end. Consecutive cells share an edge, or only a corner where the segment
+     * runs exactly through it.
+     *
+     * @throws IllegalArgumentException if a position is invalid or the segment
+     *         crosses more than the maximum cells
+     */
+    public List<GridCellWithCode> alongLine(double fromLatitude, double fromLongitude,
+                                            double toLatitude, double toLongitude) {
+        requirePosition(fromLatitude, fromLongitude);
+        requirePosition(toLatitude, toLongitude);
+        int row = lattice.row(fromLatitude);
+        int col = lattice.col(fromLongitude);
+        int endRow = lattice.row(toLatitude);
+        int endCol = lattice.col(toLongitude);
+        requireCells((long) Math.abs(endRow - row) + Math.abs(endCol - col) + 1, "line");
+
+        // Segment in lattice units; t runs from 0 to 1 along it
+        double y = (fromLatitude - GridLattice.ORIGIN_LAT) / lattice.getLatDelta();
+        double x = (fromLongitude - GridLattice.ORIGIN_LON) / lattice.getLonDelta();
+        double dy = (toLatitude - GridLattice.ORIGIN_LAT) / lattice.getLatDelta() - y;
+        double dx = (toLongitude - GridLattice.ORIGIN_LON) / lattice.getLonDelta() - x;
+        int stepRow = Integer.signum(endRow - row);
+        int stepCol = Integer.signum(endCol - col);
+        // t at which the segment crosses the next row / column boundary, and between boundaries
+        double nextRowT = stepRow == 0 ? Double.POSITIVE_INFINITY : ((stepRow > 0 ? row + 1 : row) - y) / dy;
+        double nextColT = stepCol == 0 ? Double.POSITIVE_INFINITY : ((stepCol > 0 ? col + 1 : col) - x) / dx;
+        double rowT = stepRow == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double colT = stepCol == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+
+        List<GridCellWithCode> cells = new ArrayList<>();
+        addCell(cells, row, col);
+        while (row != endRow || col != endCol) {
+            // Rounding may disagree with the end cell, which always wins, so the walk ends there
+            boolean moveRow = row != endRow && (col == endCol || nextRowT <= nextColT);
+            boolean moveCol = col != endCol && (row == endRow || nextColT <= nextRowT);
+            if (moveRow) {
+                row += stepRow;
+                nextRowT += rowT;
+            }
+            if (moveCol) {
+                col += stepCol;
+                nextColT += colT;
+            }
+            addCell(cells, row, col);
+        }
+        return cells;
+    }
+
+    private boolean isWithin(int row, int col, double latitude, double longitude,
+                             double radiusMeters, double metersPerLonDegree) {
+        double north = (lattice.centerLat(row) - latitude) * METERS_PER_DEGREE;
+        double east = (lattice.centerLon(col) - longitude) * metersPerLonDegree;
+        return north * north + east * east <= radiusMeters * radiusMeters;
+    }
+
+    private void addRing(List<GridCellWithCode> cells, int row, int col, int k) {
+        if (k == 0) {
+            addCell(cells, row, col);
+            return;
+        }
+        // Top edge west to east, then the east side down, bottom edge back west and the west side up
+        for (int c = col - k; c <= col + k; c++) {
+            addCell(cells, row + k, c);
+        }
+        for (int r = row + k - 1; r >= row - k; r--) {
+            addCell(cells, r, col + k);
+        }
+        for (int c = col + k - 1; c >= col - k; c--) {
+            addCell(cells, row - k, c);
+        }
+        for (int r = row - k + 1; r < row + k; r++) {
+            addCell(cells, r, col - k);
+        }
+    }
+
+    /**
+     * Appends the cell unless it lies outside the lattice (beyond a pole or the antimeridian)
+     */
+    private void addCell(List<GridCellWithCode> cells, int row, int col) {
+        double minLat = lattice.minLat(row);
+        double minLon = lattice.minLon(col);
+        if (row < 0 || col < 0 || minLat >= 90 || minLon >= 180) {
+            return;
+        }
+        double maxLat = minLat + lattice.getLatDelta();
+        double maxLon = minLon + lattice.getLonDelta();
+        GridCell cell = new GridCell(row, col,
+            new Coordinates(minLat, minLon),
+            new Coordinates(minLat, maxLon),
+            new Coordinates(maxLat, maxLon),
+            new Coordinates(maxLat, minLon),
+            new Coordinates(lattice.centerLat(row), lattice.centerLon(col)));
+        cells.add(new GridCellWithCode(cell, tileCache.blockCode(row, col), GridLattice.cellId(row, col)));
+    }
+
+    private static void requireDistance(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Distance must not be negative");
+        }
+    }
+
+    private void requireCells(long cells, String what) {
+        if (cells > maxCells) {
+            throw new IllegalArgumentException("The " + what + " covers " + cells
+                    + " cells, more than the maximum of " + maxCells);
+        }
+    }
+
+    private static void requirePosition(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Invalid latitude. Must be between -90 and 90");
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid longitude. Must be between -180 and 180");
+        }
+    }
+}
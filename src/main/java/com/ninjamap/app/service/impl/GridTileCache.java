@@ -0,0 +1,193 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.CellResolution;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.HotCellIndex;
+import com.ninjamap.app.utils.geo.LatticeTile;
+import com.ninjamap.app.utils.geo.LgaChanges;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+
+/**
+ * Bounded cache of {@link LatticeTile}s for lattice-aligned grids.
+ * Block codes of a tile are computed once for all of its cells, so panning over
+ * already visited areas only formats codes instead of repeating the LGA lookup
+ * and geohash encoding per cell. Tiles are weighted by their size in memory.
+ * Cells of the coarser {@link CellResolution}s are few per request and are
+ * not cached. Cells in the decoder's {@link HotCellIndex} are read from it
+ * without going through a tile. Tiles record the LGA data generation they
+ * were computed from and are only used with the same generation.
+ */
+@Service
+public class GridTileCache {
+
+    private static final double KEY_MARGIN = 1 / HotCellIndex.LGA_KEY_SCALE;
+
+    private final GridLattice lattice;
+    private final Map<CellResolution, GridLattice> lattices = new EnumMap<>(CellResolution.class);
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final Cache<Long, LatticeTile> tiles;
+    // In kilobytes, the weigher's unit
+    private final long maxWeight;
+
+    public GridTileCache(GridLattice lattice, BlockCodeDecoder blockCodeDecoder,
+                         @Value("${grid.lattice.tile-cache.max-megabytes:128}") long maxMegabytes) {
+        this.lattice = lattice;
+        for (CellResolution resolution : CellResolution.values()) {
+            lattices.put(resolution, lattice.atResolution(resolution));
+        }
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.maxWeight = maxMegabytes * 1024;
+        this.tiles = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long key, LatticeTile tile) -> (int) (tile.sizeInBytes() / 1024))
+                .recordStats()
+                .build();
+    }
+
+    public GridLattice getLattice() {
+        return lattice;
+    }
+
+    public GridLattice getLattice(CellResolution resolution) {
+        return lattices.get(resolution);
+    }
+
+    /**
+     * Returns the tile holding the given global cell, computing it on a miss.
+     */
+    public LatticeTile getTile(int row, int col) {
+        return getTile(blockCodeDecoder.getSnapshot(), row, col);
+    }
+
+    /**
+     * Returns the tile holding the given global cell computed from the
+     * snapshot's LGA data. A cached tile of an older generation is replaced;
+     * one of a newer generation stays cached and the tile is computed for
+     * this call only.
+     */
+    public LatticeTile getTile(LgaSnapshot snapshot, int row, int col) {
+        long key = GridLattice.tileKey(row, col);
+        LatticeTile tile = tiles.get(key, k -> compute(snapshot, k));
+        if (tile.getGeneration() == snapshot.getGeneration()) {
+            return tile;
+        }
+        LatticeTile fresh = compute(snapshot, key);
+        tiles.asMap().merge(key, fresh,
+                (cached, computed) -> cached.getGeneration() >= computed.getGeneration() ? cached : computed);
+        return fresh;
+    }
+
+    private LatticeTile compute(LgaSnapshot snapshot, long key) {
+        return LatticeTile.compute(lattice, snapshot, GridLattice.rowOf(key), GridLattice.colOf(key));
+    }
+
+    /**
+     * Block code of the cell at the given global row/column.
+     */
+    public String blockCode(int row, int col) {
+        return blockCode(blockCodeDecoder.getSnapshot(), row, col);
+    }
+
+    /**
+     * Block code of the cell at the given global row/column from the
+     * snapshot's LGA data, for callers that encode many cells from one
+     * generation.
+     */
+    public String blockCode(LgaSnapshot snapshot, int row, int col) {
+        HotCellIndex hotCells = snapshot.getHotCells();
+        if (hotCells != null) {
+            long hotCell = hotCells.get(row, col);
+            if (hotCell != HotCellIndex.MISS) {
+                return BlockCodeDecoder.formatBlockCode(snapshot.lgaAt(HotCellIndex.lgaIndex(hotCell)),
+                        HotCellIndex.geohashBits(hotCell));
+            }
+        }
+        LatticeTile tile = getTile(snapshot, row, col);
+        return BlockCodeDecoder.formatBlockCode(snapshot.lgaAt(tile.lgaIndex(row, col)), tile.geohashBits(row, col));
+    }
+
+    /**
+     * Block code of the cell at the given row/column of a resolution level:
+     * the block code of the cell centre, truncated to the level's length.
+     */
+    public String blockCode(CellResolution resolution, int row, int col) {
+        if (resolution == CellResolution.METERS_3) {
+            return blockCode(row, col);
+        }
+        GridLattice coarse = lattices.get(resolution);
+        double lat = coarse.centerLat(row);
+        double lon = coarse.centerLon(col);
+        long geohashBits = GeohashCodec.encodeBits(lat, lon);
+        return BlockCodeDecoder.formatBlockCode(blockCodeDecoder.findLGAOfCell(geohashBits), geohashBits,
+                resolution.getGeohashLength());
+    }
+
+    /**
+     * Moves cached tiles to a newly published snapshot: tiles of the previous
+     * generation that lie away from every changed LGA are kept, with their LGA
+     * indexes remapped, and all others are dropped.
+     *
+     * @return the number of tiles dropped
+     */
+    public int onReload(LgaSnapshot snapshot) {
+        LgaChanges changes = snapshot.getChanges();
+        int[] dropped = new int[1];
+        for (Long key : List.copyOf(tiles.asMap().keySet())) {
+            tiles.asMap().computeIfPresent(key, (k, tile) -> {
+                if (tile.getGeneration() >= snapshot.getGeneration()) {
+                    return tile;
+                }
+                int firstRow = tile.getTileRow() << GridLattice.TILE_SHIFT;
+                int firstCol = tile.getTileCol() << GridLattice.TILE_SHIFT;
+                // LGAs are looked up at the LGA keys of the cells, up to a key away from the tile
+                if (changes == null || tile.getGeneration() != snapshot.getGeneration() - 1
+                        || changes.affects(lattice.minLat(firstRow) - KEY_MARGIN, lattice.minLon(firstCol) - KEY_MARGIN,
+                                lattice.minLat(firstRow + GridLattice.TILE_SIZE) + KEY_MARGIN,
+                                lattice.minLon(firstCol + GridLattice.TILE_SIZE) + KEY_MARGIN)) {
+                    dropped[0]++;
+                    return null;
+                }
+                return tile.nextGeneration(changes);
+            });
+        }
+        return dropped[0];
+    }
+
+    public void clear() {
+        tiles.invalidateAll();
+    }
+
+    /**
+     * Lowers the weight bound to 1/2^shift of the configured size; Caffeine
+     * evicts down to the new bound right away. 0 restores the configured size.
+     */
+    public void setCapacityShift(int shift) {
+        tiles.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxWeight >> shift));
+    }
+
+    /**
+     * Get cache statistics for monitoring
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = tiles.stats();
+        return Map.of(
+            "tiles", tiles.estimatedSize(),
+            "maxKilobytes", tiles.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(maxWeight),
+            "hitCount", stats.hitCount(),
+            "missCount", stats.missCount(),
+            "hitRate", stats.hitRate()
+        );
+    }
+}
@@ -0,0 +1,305 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+import com.ninjamap.app.utils.geo.MvtEncoder;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders Web Mercator vector tiles (MVT) of the global 3 m lattice.
+ * <p>
+ * From {@code grid.tiles.min-cell-zoom} on, the {@value #CELLS_LAYER} layer
+ * holds one polygon per lattice cell with its block code, keyed by the stable
+ * lattice cell ID. Below that zoom, cells would be sub-pixel, so the tile holds
+ * the coarser {@value #LGA_LAYER} layer instead: LGA areas clipped to the tile
+ * and simplified to pixel precision, carrying the block code prefix. A tile only
+ * depends on its coordinates, the lattice and the LGA data, which is what the
+ * ETag is derived from.
+ */
+@Service
+@Slf4j
+public class GridVectorTileService {
+
+    public static final String CELLS_LAYER = "cells";
+    public static final String LGA_LAYER = "lga";
+
+    public static final int MAX_ZOOM = 24;
+
+    // Bumped whenever the tile content or encoding changes
+    private static final int TILE_FORMAT_VERSION = 1;
+
+    private static final int EXTENT = MvtEncoder.DEFAULT_EXTENT;
+
+    // Geometry drawn past the tile edge so renderers do not show seams
+    private static final int BUFFER = 64;
+
+    private final GridTileCache tileCache;
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final int minCellZoom;
+    private final Cache<Long, EncodedTile> encodedTiles;
+    // In bytes
+    private final long maxWeight;
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    public GridVectorTileService(GridTileCache tileCache, BlockCodeDecoder blockCodeDecoder,
+                                 @Value("${grid.tiles.min-cell-zoom:18}") int minCellZoom,
+                                 @Value("${grid.tiles.cache.max-megabytes:64}") long maxMegabytes) {
+        this.tileCache = tileCache;
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.minCellZoom = minCellZoom;
+        this.maxWeight = maxMegabytes * 1024 * 1024;
+        this.encodedTiles = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long key, EncodedTile tile) -> tile.bytes().length + 64)
+                .build();
+    }
+
+    public int getMinCellZoom() {
+        return minCellZoom;
+    }
+
+    /**
+     * Whether z/x/y addresses an existing tile.
+     */
+    public static boolean isValidTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        long n = 1L << z;
+        return x >= 0 && x < n && y >= 0 && y < n;
+    }
+
+    /**
+     * Strong ETag of a tile; changes with the lattice, the LGA data or the tile format.
+     */
+    public String etag(int z, int x, int y) {
+        long hash = blockCodeDecoder.getSpatialIndex().getFingerprint();
+        hash = hash * 31 + Double.doubleToLongBits(tileCache.getLattice().getReferenceLatitude());
+        hash = hash * 31 + TILE_FORMAT_VERSION;
+        hash = hash * 31 + minCellZoom;
+        hash = hash * 31 + tileKey(z, x, y);
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Encoded tile, served from the in-process cache when possible. A tile is
+     * rendered from one {@link LgaSnapshot} and only served for the same
+     * generation of LGA data.
+     */
+    public byte[] getTile(int z, int x, int y) {
+        if (!isValidTile(z, x, y)) {
+            throw new IllegalArgumentException("Invalid tile " + z + "/" + x + "/" + y);
+        }
+        LgaSnapshot snapshot = blockCodeDecoder.getSnapshot();
+        long key = tileKey(z, x, y);
+        EncodedTile tile = encodedTiles.get(key, k -> renderTile(snapshot, z, x, y));
+        if (tile.generation() != snapshot.getGeneration()) {
+            tile = renderTile(snapshot, z, x, y);
+            encodedTiles.asMap().merge(key, tile,
+                    (cached, rendered) -> cached.generation() >= rendered.generation() ? cached : rendered);
+        }
+        return tile.bytes();
+    }
+
+    /**
+     * Drops encoded tiles, e.g. after the LGA data changed.
+     */
+    public void clear() {
+        encodedTiles.invalidateAll();
+    }
+
+    /**
+     * Lowers the weight bound of the encoded tile cache to 1/2^shift of the
+     * configured size; 0 restores it.
+     */
+    public void setCapacityShift(int shift) {
+        encodedTiles.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxWeight >> shift));
+    }
+
+    private EncodedTile renderTile(LgaSnapshot snapshot, int z, int x, int y) {
+        TileProjection projection = new TileProjection(z, x, y);
+        MvtEncoder encoder = new MvtEncoder();
+        if (z >= minCellZoom) {
+            addCells(encoder.layer(CELLS_LAYER, EXTENT), projection, snapshot);
+        } else {
+            addLgas(encoder.layer(LGA_LAYER, EXTENT), projection, snapshot);
+        }
+        return new EncodedTile(snapshot.getGeneration(), encoder.encode());
+    }
+
+    private void addCells(MvtEncoder.Layer layer, TileProjection projection, LgaSnapshot snapshot) {
+        GridLattice lattice = tileCache.getLattice();
+        int firstRow = lattice.row(projection.south);
+        int lastRow = lattice.row(projection.north);
+        int firstCol = lattice.col(projection.west);
+        int lastCol = lattice.col(projection.east);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            double bottom = projection.y(lattice.minLat(row));
+            double top = projection.y(lattice.minLat(row + 1));
+            for (int col = firstCol; col <= lastCol; col++) {
+                double left = projection.x(lattice.minLon(col));
+                double right = projection.x(lattice.minLon(col + 1));
+                Polygon cell = geometryFactory.createPolygon(new Coordinate[] {
+                    new Coordinate(left, bottom),
+                    new Coordinate(right, bottom),
+                    new Coordinate(right, top),
+                    new Coordinate(left, top),
+                    new Coordinate(left, bottom)
+                });
+                layer.addPolygonFeature(GridLattice.cellId(row, col), cell,
+                        Map.of("code", tileCache.blockCode(snapshot, row, col)));
+            }
+        }
+    }
+
+    private void addLgas(MvtEncoder.Layer layer, TileProjection projection, LgaSnapshot snapshot) {
+        LgaSpatialIndex index = snapshot.getSpatialIndex();
+        Envelope clip = new Envelope(-BUFFER, EXTENT + BUFFER, -BUFFER, EXTENT + BUFFER);
+        Geometry clipBox = geometryFactory.toGeometry(clip);
+
+        List<Integer> candidates = index.findIntersecting(
+                projection.south, projection.north, projection.west, projection.east);
+        for (int candidate : candidates) {
+            LGA lga = index.getLgas().get(candidate);
+            Geometry area = toPixelGeometry(lga.getPackedBoundary(), projection);
+            if (area == null) {
+                continue;
+            }
+            try {
+                // Simplify to pixel precision first, then cut away everything outside the buffer
+                Geometry simplified = DouglasPeuckerSimplifier.simplify(area, 1.0);
+                Geometry clipped = clip.contains(simplified.getEnvelopeInternal())
+                        ? simplified
+                        : simplified.intersection(clipBox);
+                if (clipped.isEmpty() || clipped.getDimension() < 2) {
+                    continue;
+                }
+
+                Map<String, Object> attributes = new LinkedHashMap<>();
+                attributes.put("prefix", String.valueOf(lga.getStateCode()) + lga.getLgaCode());
+                attributes.put("stateCode", lga.getStateCode());
+                attributes.put("lgaCode", lga.getLgaCode());
+                attributes.put("lgaName", lga.getLgaName());
+                attributes.put("stateName", lga.getStateName());
+                layer.addPolygonFeature((long) lga.getId(), polygonalPart(clipped), attributes);
+            } catch (TopologyException e) {
+                log.warn("Skipping LGA {} in tile: {}", lga.getLgaCode(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Projects the packed rings into tile pixels. Rings combine with the same
+     * even-odd rule the containment test uses, so holes and islands survive.
+     */
+    private Geometry toPixelGeometry(PackedPolygon polygon, TileProjection projection) {
+        if (polygon.isEmpty()) {
+            return null;
+        }
+        double[] coords = polygon.getCoords();
+        int[] ringStarts = polygon.getRingStarts();
+        Geometry result = null;
+        for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+            int start = ringStarts[ring];
+            int end = ringStarts[ring + 1];
+            Coordinate[] ringCoordinates = new Coordinate[end - start + 1];
+            for (int i = start; i < end; i++) {
+                ringCoordinates[i - start] = new Coordinate(projection.x(coords[i * 2]), projection.y(coords[i * 2 + 1]));
+            }
+            ringCoordinates[end - start] = ringCoordinates[0];
+            if (ringCoordinates.length < 4) {
+                continue;
+            }
+            Geometry ringPolygon = geometryFactory.createPolygon(ringCoordinates).buffer(0);
+            result = result == null ? ringPolygon : result.symDifference(ringPolygon);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps only the polygons of a clipping result, which may also contain lines and points.
+     */
+    private Geometry polygonalPart(Geometry geometry) {
+        if (geometry instanceof Polygon || "MultiPolygon".equals(geometry.getGeometryType())) {
+            return geometry;
+        }
+        List<Polygon> polygons = new ArrayList<>();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon) {
+                polygons.add(polygon);
+            }
+        }
+        return geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+    }
+
+    private static long tileKey(int z, int x, int y) {
+        return ((long) z << 58) | ((long) x << 29) | y;
+    }
+
+    /**
+     * Web Mercator projection into the pixel space of one tile.
+     */
+    private static final class TileProjection {
+        private final double scale;
+        private final double originX;
+        private final double originY;
+        private final double west;
+        private final double east;
+        private final double north;
+        private final double south;
+
+        TileProjection(int z, int x, int y) {
+            double n = Math.pow(2, z);
+            this.scale = n * EXTENT;
+            this.originX = x * (double) EXTENT;
+            this.originY = y * (double) EXTENT;
+            this.west = x / n * 360.0 - 180.0;
+            this.east = (x + 1) / n * 360.0 - 180.0;
+            this.north = latitude(y / n);
+            this.south = latitude((y + 1) / n);
+        }
+
+        double x(double longitude) {
+            return (longitude + 180.0) / 360.0 * scale - originX;
+        }
+
+        double y(double latitude) {
+            double clamped = Math.max(-85.05112878, Math.min(85.05112878, latitude));
+            double sin = Math.sin(Math.toRadians(clamped));
+            return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * scale - originY;
+        }
+
+        private static double latitude(double fraction) {
+            return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * fraction))));
+        }
+    }
+
+    /**
+     * Encoded tile and the generation of the LGA data it was rendered from
+     */
+    private record EncodedTile(long generation, byte[] bytes) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.ninjamap.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms the grid engine before the application takes traffic.
+ * <p>
+ * Replays a synthetic workload over the configured hot areas: one lookup in
+ * every LGA, then aligned grids through the tile cache, unaligned grids
+ * through the {@link BlockCodeDecoder} caches and encode/decode round trips
+ * for random viewports and points in each area. Repeating it for a few
+ * rounds gets the hot paths JIT-compiled as well.
+ * <p>
+ * Runs synchronously as the last {@link ApplicationRunner}. Spring Boot only
+ * moves the readiness state to {@link ReadinessState#ACCEPTING_TRAFFIC} after
+ * all runners have returned, so the instance reports "not ready" until the
+ * warm-up is done (or its time budget is spent). A failing warm-up is logged
+ * and never stops the application from starting.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Slf4j
+public class GridWarmupService implements ApplicationRunner {
+
+    private final GridGenerator gridGenerator;
+    private final GridTileCache gridTileCache;
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final List<double[]> areas;
+    private final int rounds;
+    private final double viewportDegrees;
+    private final int viewportsPerArea;
+    private final int pointsPerArea;
+    private final long maxDurationMs;
+
+    private volatile Map<String, Object> report = Map.of("state", "PENDING");
+
+    /**
+     * @param areas            {@code minLat,minLon,maxLat,maxLon} boxes separated by {@code ;}
+     * @param rounds           times the workload is replayed
+     * @param viewportDegrees  side of the square viewports grids are generated for
+     * @param viewportsPerArea viewports placed at random in each area per round
+     * @param pointsPerArea    random points encoded and decoded per area and round
+     * @param maxDurationMs    time budget, after which the warm-up stops early
+     */
+    public GridWarmupService(GridGenerator gridGenerator, GridTileCache gridTileCache,
+                             BlockCodeDecoder blockCodeDecoder, ApplicationEventPublisher eventPublisher,
+                             @Value("${grid.warmup.enabled:true}") boolean enabled,
+                             @Value("${grid.warmup.areas:}") String areas,
+                             @Value("${grid.warmup.rounds:3}") int rounds,
+                             @Value("${grid.warmup.viewport-degrees:0.003}") double viewportDegrees,
+                             @Value("${grid.warmup.viewports-per-area:10}") int viewportsPerArea,
+                             @Value("${grid.warmup.points-per-area:20000}") int pointsPerArea,
+                             @Value("${grid.warmup.max-duration-ms:60000}") long maxDurationMs) {
+        if (rounds < 1 || viewportsPerArea < 0 || pointsPerArea < 0 || maxDurationMs <= 0) {
+            throw new IllegalArgumentException("grid.warmup.rounds and max-duration-ms must be positive,"
+                    + " viewports-per-area and points-per-area not negative");
+        }
+        if (!(viewportDegrees > 0 && viewportDegrees <= 0.1)) {
+            throw new IllegalArgumentException("grid.warmup.viewport-degrees must be in (0, 0.1]");
+        }
+        this.gridGenerator = gridGenerator;
+        this.gridTileCache = gridTileCache;
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.areas = parseAreas(areas);
+        this.rounds = rounds;
+        this.viewportDegrees = viewportDegrees;
+        this.viewportsPerArea = viewportsPerArea;
+        this.pointsPerArea = pointsPerArea;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            report = Map.of("state", "DISABLED");
+            log.info("Grid warm-up disabled");
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            report = warmUp();
+            log.info("Grid warm-up finished: {}", report);
+        } catch (RuntimeException e) {
+            report = Map.of("state", "FAILED", "error", String.valueOf(e.getMessage()));
+            log.warn("Grid warm-up failed, starting cold", e);
+        }
+    }
+
+    /**
+     * Outcome of the warm-up: state, duration, work done and cache fill
+     */
+    public Map<String, Object> getReport() {
+        return report;
+    }
+
+    Map<String, Object> warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMs * 1_000_000;
+        LgaSnapshot snapshot = blockCodeDecoder.getSnapshot();
+
+        // Test the centre of every boundary against the polygon itself: the box check passes and
+        // the ray cast reads every vertex, so mapped pages and compacted polygons are resident.
+        // Lookups through the decoder would mostly be answered by the raster without reading them.
+        int lgas = 0;
+        long boundaryPoints = 0;
+        int centresInside = 0;
+        for (LGA lga : snapshot.getLgas()) {
+            PackedPolygon boundary = lga.getPackedBoundary();
+            if (!boundary.isEmpty()) {
+                if (boundary.contains((boundary.getMinLat() + boundary.getMaxLat()) / 2,
+                        (boundary.getMinLon() + boundary.getMaxLon()) / 2)) {
+                    centresInside++;
+                }
+                boundaryPoints += boundary.getPointCount();
+                lgas++;
+            }
+        }
+
+        long cells = 0;
+        long points = 0;
+        int completedRounds = 0;
+        boolean timedOut = false;
+        replay:
+        for (int round = 0; round < rounds; round++) {
+            // Same viewports and points every round: the first fills the caches, the others replay hits
+            Random random = new Random(42);
+            for (double[] area : areas) {
+                for (int i = 0; i < viewportsPerArea; i++) {
+                    if (System.nanoTime() > deadline) {
+                        timedOut = true;
+                        break replay;
+                    }
+                    double lat = area[0] + random.nextDouble() * Math.max(0, area[2] - area[0] - viewportDegrees);
+                    double lon = area[1] + random.nextDouble() * Math.max(0, area[3] - area[1] - viewportDegrees);
+                    double maxLat = Math.min(lat + viewportDegrees, area[2]);
+                    double maxLon = Math.min(lon + viewportDegrees, area[3]);
+                    ScanlinePolygon viewport = ScanlinePolygon.quad(lat, lon, maxLat, lon, maxLat, maxLon,
+                            lat, maxLon);
+                    cells += gridGenerator.generateAlignedGridWithBlockCodes(viewport, gridTileCache).size();
+                    cells += gridGenerator.generateGridWithBlockCodes(viewport, blockCodeDecoder).size();
+                }
+                for (int i = 0; i < pointsPerArea; i++) {
+                    Coordinates point = new Coordinates(area[0] + random.nextDouble() * (area[2] - area[0]),
+                            area[1] + random.nextDouble() * (area[3] - area[1]));
+                    String code = blockCodeDecoder.generateUniqueCodeForBlock(point);
+                    if (code != null) {
+                        blockCodeDecoder.decodeBlockCode(code);
+                    }
+                    points++;
+                }
+            }
+            completedRounds++;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", timedOut ? "TIMED_OUT" : "COMPLETED");
+        result.put("durationMs", (System.nanoTime() - start) / 1_000_000);
+        result.put("rounds", completedRounds);
+        result.put("areas", areas.size());
+        result.put("lgasTouched", lgas);
+        result.put("boundaryPointsRead", boundaryPoints);
+        result.put("boundaryCentresInside", centresInside);
+        result.put("cells", cells);
+        result.put("points", points);
+        result.put("lgaCacheFill", fill(blockCodeDecoder.getCacheMetrics().get("lga")));
+        result.put("blockCodeCacheFill", fill(blockCodeDecoder.getCacheMetrics().get("blockCode")));
+        result.put("tileCache", gridTileCache.getStats());
+        return result;
+    }
+
+    // Share of a LongKeyedCache's current capacity in use
+    private static double fill(Object stats) {
+        Map<?, ?> values = (Map<?, ?>) stats;
+        int capacity = ((Number) values.get("capacity")).intValue();
+        return capacity == 0 ? 0 : ((Number) values.get("size")).doubleValue() / capacity;
+    }
+
+    static List<double[]> parseAreas(String value) {
+        List<double[]> areas = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return areas;
+        }
+        for (String area : value.split(";")) {
+            if (area.isBlank()) {
+                continue;
+            }
+            String[] bounds = area.split(",");
+            if (bounds.length != 4) {
+                throw new IllegalArgumentException("Warm-up area '" + area.trim()
+                        + "' must be minLat,minLon,maxLat,maxLon");
+            }
+            double[] box = new double[4];
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(bounds[i].trim());
+            }
+            if (!(box[0] < box[2] && box[1] < box[3])) {
+                throw new IllegalArgumentException("Warm-up area '" + area.trim() + "' is empty");
+            }
+            areas.add(box);
+        }
+        return areas;
+    }
+}
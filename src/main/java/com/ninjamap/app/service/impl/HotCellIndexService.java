@@ -0,0 +1,121 @@
+package com.ninjamap.app.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.HotCellIndex;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the {@link HotCellIndex} of the configured hot bounding boxes into the
+ * {@link BlockCodeDecoder} at startup.
+ * <p>
+ * The table file is mapped as is when it was built for the current lattice,
+ * LGA data and boxes, and rebuilt otherwise, so a restart only pays for the
+ * mapping. Failing to read or write the file is logged and leaves the
+ * decoder on its heap caches. After an LGA reload the table no longer matches
+ * and {@link #load()} is called again to rebuild it.
+ */
+@Service
+@Slf4j
+public class HotCellIndexService {
+
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final GridLattice lattice;
+    private final String path;
+    private final List<int[]> boxes;
+
+    /**
+     * @param boxes    {@code minLat,minLon,maxLat,maxLon} boxes separated by {@code ;}
+     * @param maxCells most lattice cells the boxes may cover together
+     */
+    public HotCellIndexService(BlockCodeDecoder blockCodeDecoder, GridLattice lattice,
+                               @Value("${grid.hot-cells.path:}") String path,
+                               @Value("${grid.hot-cells.boxes:}") String boxes,
+                               @Value("${grid.hot-cells.max-cells:2000000}") long maxCells) {
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.lattice = lattice;
+        this.path = path == null ? "" : path.trim();
+        this.boxes = parseBoxes(lattice, boxes);
+        long cells = HotCellIndex.cellCount(this.boxes);
+        if (cells > maxCells) {
+            throw new IllegalArgumentException("Hot cell boxes cover " + cells
+                    + " cells, more than grid.hot-cells.max-cells=" + maxCells);
+        }
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        if (path.isEmpty() || boxes.isEmpty()) {
+            log.info("Hot cell index disabled");
+            return;
+        }
+        Path file = Path.of(path);
+        LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+        try {
+            HotCellIndex index = null;
+            if (Files.isReadable(file)) {
+                index = mapExisting(file, spatialIndex);
+            }
+            if (index == null) {
+                long start = System.nanoTime();
+                index = HotCellIndex.build(file, lattice, spatialIndex, boxes);
+                log.info("Built hot cell index {} with {} cells in {} ms", file, index.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } else {
+                log.info("Mapped hot cell index {} with {} cells", file, index.size());
+            }
+            if (!blockCodeDecoder.setHotCellIndex(index)) {
+                log.info("LGA data was reloaded while building hot cell index {}, not using it", file);
+            }
+        } catch (IOException e) {
+            log.warn("Hot cell index {} unavailable, using heap caches only: {}", file, e.getMessage());
+        }
+    }
+
+    // The existing table if it matches the current lattice, LGA data and boxes
+    private HotCellIndex mapExisting(Path file, LgaSpatialIndex spatialIndex) {
+        try {
+            HotCellIndex index = HotCellIndex.map(file);
+            if (index.matches(lattice, spatialIndex, boxes)) {
+                return index;
+            }
+            log.info("Hot cell index {} is out of date, rebuilding", file);
+        } catch (IOException e) {
+            log.warn("Rebuilding unreadable hot cell index {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+
+    static List<int[]> parseBoxes(GridLattice lattice, String value) {
+        List<int[]> boxes = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return boxes;
+        }
+        for (String box : value.split(";")) {
+            if (box.isBlank()) {
+                continue;
+            }
+            String[] bounds = box.split(",");
+            if (bounds.length != 4) {
+                throw new IllegalArgumentException("Hot cell box '" + box.trim()
+                        + "' must be minLat,minLon,maxLat,maxLon");
+            }
+            boxes.add(HotCellIndex.box(lattice, Double.parseDouble(bounds[0].trim()),
+                    Double.parseDouble(bounds[1].trim()), Double.parseDouble(bounds[2].trim()),
+                    Double.parseDouble(bounds[3].trim())));
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ninjamap.app.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import com.google.gson.JsonParseException;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.LgaDataset;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replaces the LGA boundary data while the application keeps serving.
+ * <p>
+ * New data is read and indexed on a single background thread, published by
+ * {@link BlockCodeDecoder#reload} as one new {@link LgaSnapshot}, and then
+ * the derived caches are brought in line: lattice tiles outside the changed
+ * LGAs are carried over, encoded vector tiles are dropped and the hot cell
+ * table is rebuilt. Requests keep reading the previous snapshot until the
+ * swap and are never blocked by a reload.
+ */
+@Service
+@Slf4j
+public class LgaReloadService {
+
+    private static final String JSON_RESOURCE = "nigeria_lga.json";
+
+    private final BlockCodeDecoder blockCodeDecoder;
+    private final GridTileCache gridTileCache;
+    private final GridVectorTileService gridVectorTileService;
+    private final HotCellIndexService hotCellIndexService;
+    private final ExecutorService executor;
+    private final String binaryDatasetPath;
+    private final Path dataDirectory;
+
+    private volatile Map<String, Object> lastReload;
+
+    public LgaReloadService(BlockCodeDecoder blockCodeDecoder, GridTileCache gridTileCache,
+                            GridVectorTileService gridVectorTileService, HotCellIndexService hotCellIndexService,
+                            @Qualifier("lgaReloadExecutor") ExecutorService executor,
+                            @Value("${grid.lga-data.binary-path:}") String binaryDatasetPath,
+                            @Value("${grid.lga-data.directory:}") String dataDirectory) {
+        this.blockCodeDecoder = blockCodeDecoder;
+        this.gridTileCache = gridTileCache;
+        this.gridVectorTileService = gridVectorTileService;
+        this.hotCellIndexService = hotCellIndexService;
+        this.executor = executor;
+        this.binaryDatasetPath = binaryDatasetPath == null ? "" : binaryDatasetPath.trim();
+        this.dataDirectory = dataDirectory == null || dataDirectory.isBlank() ? null
+                : Path.of(dataDirectory.trim()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Reloads the configured source: the binary dataset if
+     * {@code grid.lga-data.binary-path} is set, the bundled JSON otherwise.
+     */
+    public CompletableFuture<Map<String, Object>> reload() {
+        if (!binaryDatasetPath.isEmpty()) {
+            Path file = Path.of(binaryDatasetPath);
+            return submit(file.toString(), () -> load(file, file.toString()));
+        }
+        return submit("classpath:" + JSON_RESOURCE, () -> {
+            try (Reader reader = new InputStreamReader(new ClassPathResource(JSON_RESOURCE).getInputStream(),
+                    StandardCharsets.UTF_8)) {
+                return parseJson(reader);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read " + JSON_RESOURCE + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reloads from a binary dataset (mapped, see {@link LgaDataset}) or LGA
+     * JSON file in {@code grid.lga-data.directory}, told apart by the
+     * dataset's magic number. Names are resolved against the directory and
+     * may not lead out of it; errors name the file as given, not the path
+     * on the server.
+     */
+    public CompletableFuture<Map<String, Object>> reload(String name) {
+        return submit(name, () -> load(resolveDataFile(name), name));
+    }
+
+    // The file a name refers to inside the data directory
+    private Path resolveDataFile(String name) {
+        if (dataDirectory == null) {
+            throw new IllegalArgumentException("Reloading from a named file is disabled, grid.lga-data.directory is not set");
+        }
+        Path file;
+        try {
+            file = dataDirectory.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid LGA data file path");
+        }
+        if (!file.startsWith(dataDirectory)) {
+            throw new IllegalArgumentException("LGA data file paths must stay inside the data directory");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("LGA data file '" + name + "' not found");
+        }
+        try {
+            // Symbolic links may not lead out either
+            if (!file.toRealPath().startsWith(dataDirectory.toRealPath())) {
+                throw new IllegalArgumentException("LGA data file paths must stay inside the data directory");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("LGA data file '" + name + "' not found");
+        }
+        return file;
+    }
+
+    private List<LGA> load(Path file, String name) {
+        if (!Files.isReadable(file)) {
+            throw new IllegalArgumentException("LGA data file '" + name + "' not found");
+        }
+        try {
+            byte[] head;
+            try (InputStream in = Files.newInputStream(file)) {
+                head = in.readNBytes(4);
+            }
+            if (LgaDataset.isDataset(head)) {
+                return LgaDataset.map(file);
+            }
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return parseJson(reader);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read LGA data file {}: {}", file, e.getMessage());
+            throw new IllegalArgumentException("Cannot read LGA data file '" + name + "'", e);
+        }
+    }
+
+    /**
+     * Reloads from uploaded content in either format
+     */
+    public CompletableFuture<Map<String, Object>> reload(byte[] content, String name) {
+        return submit(name, () -> {
+            if (LgaDataset.isDataset(content)) {
+                try {
+                    return LgaDataset.read(content);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+            }
+            return parseJson(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Current generation of the LGA data and the outcome of the last reload
+     */
+    public Map<String, Object> getStatus() {
+        LgaSnapshot snapshot = blockCodeDecoder.getSnapshot();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("generation", snapshot.getGeneration());
+        status.put("lgaCount", snapshot.getLgas().size());
+        status.put("fingerprint", Long.toHexString(snapshot.getSpatialIndex().getFingerprint()));
+        if (lastReload != null) {
+            status.put("lastReload", lastReload);
+        }
+        return status;
+    }
+
+    private CompletableFuture<Map<String, Object>> submit(String source, Supplier<List<LGA>> loader) {
+        return CompletableFuture.supplyAsync(() -> apply(source, loader.get()), executor);
+    }
+
+    private Map<String, Object> apply(String source, List<LGA> lgas) {
+        if (lgas.isEmpty()) {
+            throw new IllegalArgumentException("No LGAs in " + source);
+        }
+        long start = System.nanoTime();
+        LgaSnapshot snapshot = blockCodeDecoder.reload(lgas);
+        long swapped = System.nanoTime();
+        int tilesDropped = gridTileCache.onReload(snapshot);
+        gridVectorTileService.clear();
+        hotCellIndexService.load();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", source);
+        result.put("generation", snapshot.getGeneration());
+        result.put("lgaCount", lgas.size());
+        result.put("changedLgas", snapshot.getChanges().getChangedCount());
+        result.put("tilesDropped", tilesDropped);
+        result.put("swapMs", (swapped - start) / 1_000_000);
+        result.put("durationMs", (System.nanoTime() - start) / 1_000_000);
+        lastReload = result;
+        log.info("Reloaded {} LGAs from {} as generation {}: {}, {} lattice tiles dropped, {} ms", lgas.size(),
+                source, snapshot.getGeneration(), snapshot.getChanges(), tilesDropped, result.get("durationMs"));
+        return result;
+    }
+
+    private static List<LGA> parseJson(Reader reader) {
+        try {
+            return BlockCodeDecoder.parseLGAs(reader);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid LGA JSON: " + e.getMessage(), e);
+        }
+    }
+}
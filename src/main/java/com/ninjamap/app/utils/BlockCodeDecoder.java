@@ -1,15 +1,19 @@
 package com.ninjamap.app.utils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
@@ -18,42 +22,103 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.ninjamap.app.model.Coordinates;
 import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.HotCellIndex;
+import com.ninjamap.app.utils.geo.LgaChanges;
+import com.ninjamap.app.utils.geo.LgaDataset;
+import com.ninjamap.app.utils.geo.LgaRaster;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+import com.ninjamap.app.utils.geo.LongKeyedCache;
 
 @Service
 public class BlockCodeDecoder {
 
-	private List<LGA> lgas = new ArrayList<>();
+	// LGA list, spatial index, prefix table and caches of the current generation,
+	// replaced as a whole on reload so readers never block
+	private volatile LgaSnapshot snapshot;
 	
-	// Cache for LGA lookups to avoid repeated point-in-polygon calculations
-	private final Map<String, LGA> lgaCache = new ConcurrentHashMap<>();
-	private final Map<String, String> blockCodeCache = new ConcurrentHashMap<>();
+	// Serializes writers (reload, cache resizing, hot cell table); readers never take it
+	private final Object writeLock = new Object();
 	
-	// Cache size limits to prevent memory leaks - configurable via properties
-	@Value("${grid.cache.lga.max-size:10000}")
-	private int maxLgaCacheSize;
+	// Cell size of the point-to-LGA lookup raster (~220 m), 0 = exact lookups only
+	private static final double DEFAULT_RASTER_CELL_DEGREES = 0.002;
 	
-	@Value("${grid.cache.block-code.max-size:50000}")
-	private int maxBlockCodeCacheSize;
+	// Stands in for "no LGA here" in the LGA cache, which cannot hold nulls
+	private static final LGA NO_LGA = new LGA();
+	
+	// LGA lookups are cached per 0.0001 degree (~11 m) of latitude and longitude,
+	// shared with the key table of the hot cell index
+	private static final double LGA_KEY_SCALE = HotCellIndex.LGA_KEY_SCALE;
+	
+	// Caches keyed by packed primitive longs, bounded with LRU eviction;
+	// sizes are configurable via grid.cache.* properties
+	private int lgaCacheSize = 10000;
+	private int blockCodeCacheSize = 50000;
+	private int capacityShift;
+	private double rasterCellDegrees = DEFAULT_RASTER_CELL_DEGREES;
 
 	// Constructor to load LGAs from JSON resource
 	public BlockCodeDecoder() {
-		loadLGAsFromJSON();
+		this("");
+	}
+
+	/**
+	 * Loads the LGAs from the compiled binary dataset when a path is configured
+	 * (memory-mapped, see {@link LgaDataset}), falling back to the JSON resource
+	 * if it is missing or unreadable
+	 */
+	@Autowired
+	public BlockCodeDecoder(@Value("${grid.lga-data.binary-path:}") String binaryDatasetPath) {
+		List<LGA> lgas = null;
+		if (binaryDatasetPath != null && !binaryDatasetPath.isBlank()) {
+			lgas = loadLGAsFromBinary(Path.of(binaryDatasetPath));
+		}
+		initialize(lgas != null ? lgas : loadLGAsFromJSON());
+	}
+
+	// Constructor for an already loaded LGA list (tests and benchmarks)
+	public BlockCodeDecoder(List<LGA> lgas) {
+		initialize(lgas);
+	}
+
+	private void initialize(List<LGA> lgas) {
+		snapshot = new LgaSnapshot(1, buildIndex(lgas, rasterCellDegrees), newCache(lgaCacheSize),
+				newCache(blockCodeCacheSize), null, null);
+	}
+
+	// Pack every boundary into flat arrays (dropping the boxed Gson lists) and build the index
+	private static LgaSpatialIndex buildIndex(List<LGA> lgas, double rasterCellDegrees) {
+		lgas.forEach(LGA::compact);
+		LgaSpatialIndex index = new LgaSpatialIndex(lgas);
+		index.rasterize(rasterCellDegrees);
+		return index;
+	}
+
+	// Map LGAs from the compiled binary dataset; null if it cannot be used
+	private List<LGA> loadLGAsFromBinary(Path path) {
+		if (!Files.isReadable(path)) {
+			System.err.println("LGA dataset " + path + " not found, loading JSON instead");
+			return null;
+		}
+		try {
+			return LgaDataset.map(path);
+		} catch (IOException ex) {
+			System.err.println("Error loading LGA dataset " + path + ", loading JSON instead: " + ex.getMessage());
+			return null;
+		}
 	}
 
 	// Load LGAs from JSON resource
-	private void loadLGAsFromJSON() {
-		Type itemType = new TypeToken<List<LGA>>() {
-		}.getType();
-		lgas = parseJSONFromResource("nigeria_lga.json", itemType);
+	private List<LGA> loadLGAsFromJSON() {
+		return parseJSONFromResource("nigeria_lga.json");
 	}
 
 	// This method parses JSON from a resource file and returns a list of LGAs
-	private <T> List<LGA> parseJSONFromResource(String resourcePath, Type type) {
-		Gson gson = new Gson();
-		try {
-			InputStream inputStream = new ClassPathResource(resourcePath).getInputStream();
-			Reader reader = new InputStreamReader(inputStream);
-			return gson.fromJson(reader, type);
+	private List<LGA> parseJSONFromResource(String resourcePath) {
+		try (Reader reader = new InputStreamReader(new ClassPathResource(resourcePath).getInputStream(),
+				StandardCharsets.UTF_8)) {
+			return parseLGAs(reader);
 		} catch (IOException ex) {
 			// Log error instead of printing stack trace
 			System.err.println("Error loading LGA data from " + resourcePath + ": " + ex.getMessage());
@@ -61,10 +126,37 @@ public class BlockCodeDecoder {
 		return new ArrayList<>();
 	}
 
+	/**
+	 * Parses the LGA JSON format (a list of LGA objects with Gson boundaries)
+	 */
+	public static List<LGA> parseLGAs(Reader reader) {
+		Type itemType = new TypeToken<List<LGA>>() {
+		}.getType();
+		List<LGA> parsed = new Gson().fromJson(reader, itemType);
+		return parsed != null ? parsed : new ArrayList<>();
+	}
+
 	// Finds the Local Government Area (LGA) containing the given coordinates
 	public LGA findLGA(Coordinates coordinates) {
-		for (LGA lga : lgas) {
-			if (lga.isPointInside(coordinates.getLatitude(), coordinates.getLongitude())) {
+		return findLGA(coordinates.getLatitude(), coordinates.getLongitude());
+	}
+	
+	/**
+	 * Finds the LGA containing the point through the spatial index: a raster
+	 * read for most points, and an exact polygon test (only for LGAs whose
+	 * bounding box contains the point) near boundaries.
+	 */
+	public LGA findLGA(double latitude, double longitude) {
+		return snapshot.getSpatialIndex().find(latitude, longitude);
+	}
+	
+	/**
+	 * Linear scan over every LGA in file order - kept as the reference
+	 * implementation for tests and benchmarks
+	 */
+	public LGA findLGALinear(double latitude, double longitude) {
+		for (LGA lga : snapshot.getLgas()) {
+			if (lga.isPointInside(latitude, longitude)) {
 				return lga;
 			}
 		}
@@ -75,23 +167,27 @@ public class BlockCodeDecoder {
 	 * Optimized LGA finder with caching and spatial indexing
 	 */
 	public LGA findLGAOptimized(Coordinates coordinates) {
-		// Create cache key with reduced precision to increase cache hits
-		String cacheKey = String.format("%.4f,%.4f", coordinates.getLatitude(), coordinates.getLongitude());
+		return findLGACached(snapshot, HotCellIndex.lgaKey(coordinates.getLatitude()),
+				HotCellIndex.lgaKey(coordinates.getLongitude()));
+	}
+	
+	/**
+	 * LGA of a reduced precision key, looked up at the key's own latitude and
+	 * longitude so the answer does not depend on which point filled the entry
+	 */
+	private static LGA findLGACached(LgaSnapshot current, int keyLat, int keyLon) {
+		long cacheKey = ((long) keyLat << 32) | (keyLon & 0xFFFFFFFFL);
 		
-		// Check cache first
-		LGA cachedLGA = lgaCache.get(cacheKey);
+		LongKeyedCache<LGA> cache = current.getLgaCache();
+		LGA cachedLGA = cache.get(cacheKey);
 		if (cachedLGA != null) {
-			return cachedLGA;
-		}
-		
-		// Find LGA using original method
-		LGA foundLGA = findLGA(coordinates);
-		
-		// Cache the result (including null results to avoid repeated expensive lookups)
-		if (lgaCache.size() < maxLgaCacheSize) {
-			lgaCache.put(cacheKey, foundLGA);
+			return cachedLGA == NO_LGA ? null : cachedLGA;
 		}
 		
+		// Cache the result, including "no LGA" to avoid repeated expensive lookups
+		LGA foundLGA = current.getSpatialIndex().find(HotCellIndex.lgaKeyDegrees(keyLat),
+				HotCellIndex.lgaKeyDegrees(keyLon));
+		cache.put(cacheKey, foundLGA != null ? foundLGA : NO_LGA);
 		return foundLGA;
 	}
 
@@ -107,6 +203,27 @@ public class BlockCodeDecoder {
 		return generateUniqueCodeForBlockOptimized(coordinates);
 	}
 	
+	/**
+	 * Block code of a point without going through the caches: the same code as
+	 * {@link #generateUniqueCodeForBlock}, with the LGA looked up at the LGA key
+	 * of the geohash cell centre directly. Thread-safe.
+	 */
+	public String generateBlockCode(double latitude, double longitude) {
+		long geohashBits = GeohashCodec.encodeBits(latitude, longitude);
+		long keys = HotCellIndex.lgaKeysOf(geohashBits);
+		return formatBlockCode(snapshot.getSpatialIndex().find(HotCellIndex.lgaKeyDegrees((int) (keys >> 32)),
+				HotCellIndex.lgaKeyDegrees((int) keys)), geohashBits);
+	}
+	
+	/**
+	 * LGA of a geohash cell as every block code has it: the LGA at the key of
+	 * the cell centre, through the LGA cache
+	 */
+	public LGA findLGAOfCell(long geohashBits) {
+		long keys = HotCellIndex.lgaKeysOf(geohashBits);
+		return findLGACached(snapshot, (int) (keys >> 32), (int) keys);
+	}
+	
 	/**
 	 * Original implementation - kept for fallback purposes
 	 */
@@ -129,56 +246,40 @@ public class BlockCodeDecoder {
 	}
 	
 	/**
-	 * OPTIMIZED version with caching and reduced string operations
+	 * OPTIMIZED version with caching and reduced string operations. The LGA
+	 * is that of the geohash cell centre's ~11 m LGA key, so a code depends
+	 * on its geohash bits alone, whether it comes from the hot cell index,
+	 * the code cache or a fresh lookup.
 	 */
 	public String generateUniqueCodeForBlockOptimized(Coordinates coordinates) {
-		// Create cache key with reduced precision
-		String cacheKey = String.format("%.5f,%.5f", coordinates.getLatitude(), coordinates.getLongitude());
+		// Encode straight into bits: the 50 geohash bits are the cache key, so
+		// two points share an entry only when they share the geohash cell
+		long geohashBits = GeohashCodec.encodeBits(coordinates.getLatitude(), coordinates.getLongitude());
+		LgaSnapshot current = snapshot;
 		
-		// Check cache first
-		String cachedCode = blockCodeCache.get(cacheKey);
-		if (cachedCode != null) {
-			return cachedCode;
-		}
-		
-		// Generate geohash once
-		String geohash = BlockCodeHashGenerator.encode(coordinates.getLatitude(), coordinates.getLongitude(), 10);
-		
-		// Use StringBuilder for efficient string building
-		StringBuilder codeBuilder = new StringBuilder(20);
-		
-		// Remove special characters and convert to uppercase in one pass
-		for (char c : geohash.toCharArray()) {
-			if (Character.isLetterOrDigit(c)) {
-				codeBuilder.append(Character.toUpperCase(c));
+		// Hot areas read the LGA of the key from the mapped table and keep their
+		// codes out of the heap cache
+		HotCellIndex hotCells = current.getHotCells();
+		if (hotCells != null) {
+			long keys = HotCellIndex.lgaKeysOf(geohashBits);
+			int lgaIndex = hotCells.lgaIndexOfKey((int) (keys >> 32), (int) keys);
+			if (lgaIndex != HotCellIndex.KEY_MISS) {
+				return formatBlockCode(current.lgaAt(lgaIndex), geohashBits);
 			}
 		}
 		
-		String cleanCode = codeBuilder.toString();
-		
-		// Find LGA with optimized method
-		LGA lga = findLGAOptimized(coordinates);
-		
-		String finalCode;
-		if (lga != null) {
-			finalCode = lga.getStateCode() + lga.getLgaCode() + "-" + 
-					   cleanCode.substring(0, 3) + "-" + 
-					   cleanCode.substring(3, 7) + "-" + 
-					   cleanCode.substring(7, 10);
-		} else {
-			finalCode = cleanCode.substring(0, 3) + "-" + 
-					   cleanCode.substring(3, 7) + "-" + 
-					   cleanCode.substring(7, 10);
-		}
-		
-		// Cache the result if cache isn't full
-		if (blockCodeCache.size() < maxBlockCodeCacheSize) {
-			blockCodeCache.put(cacheKey, finalCode);
+		LongKeyedCache<String> cache = current.getBlockCodeCache();
+		String cachedCode = cache.get(geohashBits);
+		if (cachedCode != null) {
+			return cachedCode;
 		}
 		
+		long keys = HotCellIndex.lgaKeysOf(geohashBits);
+		String finalCode = formatBlockCode(findLGACached(current, (int) (keys >> 32), (int) keys), geohashBits);
+		cache.put(geohashBits, finalCode);
 		return finalCode;
 	}
-
+	
 	/**
 	 * Decodes a block code and retrieves the coordinates it represents.
 	 * 
@@ -195,30 +296,288 @@ public class BlockCodeDecoder {
 		} else {
 			return null;
 		}
-		Map<String, Double> decodedCoordinates = BlockCodeHashGenerator.decode(geohash.toLowerCase());
-		if (decodedCoordinates != null) {
-			return new Coordinates((decodedCoordinates.get("latitudeMin") + decodedCoordinates.get("latitudeMax")) / 2,
-					(decodedCoordinates.get("longitudeMin") + decodedCoordinates.get("longitudeMax")) / 2);
+		double[] bounds = new double[4];
+		if (GeohashCodec.decode(geohash, bounds)) {
+			return new Coordinates((bounds[GeohashCodec.LAT_MIN] + bounds[GeohashCodec.LAT_MAX]) / 2,
+					(bounds[GeohashCodec.LON_MIN] + bounds[GeohashCodec.LON_MAX]) / 2);
 		} else {
 			return null; // Handle invalid coordinate case
 		}
 	}
 	
+	/**
+	 * Formats a block code ({@code [stateCode+lgaCode-]XXX-XXXX-XXX}) from the
+	 * 50 geohash bits of a cell centre, writing characters into a single buffer.
+	 * 
+	 * @param lga         The LGA containing the cell, or null
+	 * @param geohashBits Bits from {@link GeohashCodec#encodeBits(double, double)}
+	 * @return The formatted block code
+	 */
+	public static String formatBlockCode(LGA lga, long geohashBits) {
+		return formatBlockCode(lga, geohashBits, GeohashCodec.MAX_ENCODE_LENGTH);
+	}
+	
+	/**
+	 * Formats a block code from the first {@code length} geohash characters,
+	 * for the coarser cells of {@link com.ninjamap.app.utils.geo.CellResolution}
+	 * ({@code XXX-XXXX-XX}, {@code XXX-XXXX}, {@code XXX-XXX}).
+	 * 
+	 * @param lga         The LGA containing the cell, or null
+	 * @param geohashBits Bits from {@link GeohashCodec#encodeBits(double, double)}
+	 * @param length      Number of geohash characters, 1 to {@link GeohashCodec#MAX_ENCODE_LENGTH}
+	 * @return The formatted block code
+	 */
+	public static String formatBlockCode(LGA lga, long geohashBits, int length) {
+		if (length < 1 || length > GeohashCodec.MAX_ENCODE_LENGTH) {
+			throw new IllegalArgumentException("Geohash length must be between 1 and " + GeohashCodec.MAX_ENCODE_LENGTH);
+		}
+		String stateCode = lga != null ? lga.getStateCode() : null;
+		String lgaCode = lga != null ? lga.getLgaCode() : null;
+		int prefixLength = lga != null ? length(stateCode) + length(lgaCode) + 1 : 0;
+		
+		int dashes = length > 7 ? 2 : length > 3 ? 1 : 0;
+		char[] chars = new char[prefixLength + length + dashes];
+		int pos = 0;
+		if (lga != null) {
+			pos = copy(stateCode, chars, pos);
+			pos = copy(lgaCode, chars, pos);
+			chars[pos++] = '-';
+		}
+		
+		// XXX-XXXX-XXX: dashes after the 3rd and 7th geohash characters
+		for (int i = 0; i < length; i++) {
+			if (i == 3 || i == 7) {
+				chars[pos++] = '-';
+			}
+			chars[pos++] = GeohashCodec.charAt(geohashBits, i, true);
+		}
+		return new String(chars);
+	}
+	
+	private static int length(String value) {
+		return value == null ? 4 : value.length(); // String concatenation renders null as "null"
+	}
+	
+	private static int copy(String value, char[] dst, int pos) {
+		String text = value == null ? "null" : value;
+		text.getChars(0, text.length(), dst, pos);
+		return pos + text.length();
+	}
+	
+	/**
+	 * LGA a block code prefix was generated from
+	 * 
+	 * @param prefix The part of a block code before the geohash ({@code stateCode+lgaCode})
+	 * @return The LGA, or null if no loaded LGA produces this prefix
+	 */
+	public LGA findLGAByPrefix(String prefix) {
+		return snapshot.findByPrefix(prefix);
+	}
+	
+	/**
+	 * Spatial index over the loaded LGAs, in source order
+	 */
+	public LgaSpatialIndex getSpatialIndex() {
+		return snapshot.getSpatialIndex();
+	}
+	
+	/**
+	 * The current generation of LGA data. Callers that combine several
+	 * lookups (an LGA index with the LGA list, say) take one snapshot and use
+	 * it throughout, so a concurrent reload cannot mix generations.
+	 */
+	public LgaSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * Replaces the LGA data with a new generation. The spatial index is built
+	 * on the calling thread while readers keep using the current snapshot; the
+	 * new snapshot is then published with one volatile write. Its caches are
+	 * seeded with the current entries outside the changed LGAs, and with those
+	 * inside whose LGA assignment is unchanged. The hot cell table is dropped,
+	 * its LGA indexes refer to the old data.
+	 * 
+	 * @param lgas The new LGAs in source order
+	 * @return The published snapshot, with {@link LgaSnapshot#getChanges()} against the previous one
+	 */
+	public LgaSnapshot reload(List<LGA> lgas) {
+		LgaSpatialIndex index = buildIndex(new ArrayList<>(lgas), rasterCellDegrees);
+		synchronized (writeLock) {
+			LgaRaster raster = index.getRaster();
+			if ((raster != null ? raster.getCellDegrees() : 0) != rasterCellDegrees) {
+				index.rasterize(rasterCellDegrees);
+			}
+			LgaSnapshot base = snapshot;
+			LgaChanges changes = LgaChanges.between(base.getLgas(), index.getLgas());
+			LongKeyedCache<LGA> lgaCache = newCache(lgaCacheSize);
+			LongKeyedCache<String> blockCodeCache = newCache(blockCodeCacheSize);
+			carryOverLgas(base, index, changes, lgaCache);
+			carryOverBlockCodes(base, index, changes, blockCodeCache);
+			LgaSnapshot next = new LgaSnapshot(base.getGeneration() + 1, index, lgaCache, blockCodeCache, null, changes);
+			snapshot = next;
+			return next;
+		}
+	}
+	
+	// Entries keep their LGA (as the new object) where it cannot have changed, and
+	// are looked up again at the key's cell centre near changed LGAs
+	private static void carryOverLgas(LgaSnapshot base, LgaSpatialIndex index, LgaChanges changes,
+			LongKeyedCache<LGA> target) {
+		Map<LGA, Integer> oldIndexes = new IdentityHashMap<>();
+		for (int i = 0; i < base.getLgas().size(); i++) {
+			oldIndexes.put(base.getLgas().get(i), i);
+		}
+		double margin = 1 / LGA_KEY_SCALE;
+		base.getLgaCache().forEach((key, lga) -> {
+			double latitude = HotCellIndex.lgaKeyDegrees((int) (key >> 32));
+			double longitude = HotCellIndex.lgaKeyDegrees((int) key);
+			LGA current;
+			if (!changes.affects(latitude - margin, longitude - margin, latitude + margin, longitude + margin)) {
+				int newIndex = lga == NO_LGA ? -1 : changes.remap(oldIndexes.getOrDefault(lga, -1));
+				current = lga == NO_LGA ? NO_LGA : newIndex < 0 ? null : index.getLgas().get(newIndex);
+			} else {
+				LGA found = index.find(latitude, longitude);
+				current = found == null ? NO_LGA : found;
+				if (lga != NO_LGA && (found == null || !prefixOf(lga).equals(prefixOf(found)))) {
+					current = null;
+				}
+			}
+			if (current != null) {
+				target.put(key, current);
+			}
+		});
+	}
+	
+	// Codes are kept unless they are near a changed LGA and come out differently now
+	private static void carryOverBlockCodes(LgaSnapshot base, LgaSpatialIndex index, LgaChanges changes,
+			LongKeyedCache<String> target) {
+		// The LGA of a cached code was looked up at the LGA key of the cell centre, within half a key away
+		double margin = 1 / LGA_KEY_SCALE;
+		double[] bounds = new double[4];
+		base.getBlockCodeCache().forEach((geohashBits, code) -> {
+			GeohashCodec.decodeBits(geohashBits, GeohashCodec.MAX_ENCODE_LENGTH, bounds);
+			if (changes.affects(bounds[GeohashCodec.LAT_MIN] - margin, bounds[GeohashCodec.LON_MIN] - margin,
+					bounds[GeohashCodec.LAT_MAX] + margin, bounds[GeohashCodec.LON_MAX] + margin)) {
+				long keys = HotCellIndex.lgaKeysOf(geohashBits);
+				LGA lga = index.find(HotCellIndex.lgaKeyDegrees((int) (keys >> 32)),
+						HotCellIndex.lgaKeyDegrees((int) keys));
+				if (!code.equals(formatBlockCode(lga, geohashBits))) {
+					return;
+				}
+			}
+			target.put(geohashBits, code);
+		});
+	}
+	
+	private static String prefixOf(LGA lga) {
+		return lga.getStateCode() + lga.getLgaCode();
+	}
+	
+	/**
+	 * Off-heap table of hot lattice cells, or null if none is loaded
+	 */
+	public HotCellIndex getHotCellIndex() {
+		return snapshot.getHotCells();
+	}
+	
+	/**
+	 * Installs a table built from the current LGA data, null removes it
+	 * 
+	 * @return false, leaving the snapshot as it is, if the table was built from other LGA data
+	 */
+	public boolean setHotCellIndex(HotCellIndex hotCellIndex) {
+		synchronized (writeLock) {
+			LgaSnapshot current = snapshot;
+			if (hotCellIndex != null && hotCellIndex.getLgaFingerprint() != current.getSpatialIndex().getFingerprint()) {
+				return false;
+			}
+			snapshot = current.withHotCells(hotCellIndex);
+			return true;
+		}
+	}
+	
+	@Value("${grid.lga-raster.cell-degrees:0.002}")
+	public void setRasterCellDegrees(double cellDegrees) {
+		synchronized (writeLock) {
+			rasterCellDegrees = cellDegrees;
+			// Built with the default; only rebuild for a different size
+			LgaSpatialIndex index = snapshot.getSpatialIndex();
+			LgaRaster raster = index.getRaster();
+			double current = raster != null ? raster.getCellDegrees() : 0;
+			if (cellDegrees != current) {
+				index.rasterize(cellDegrees);
+			}
+		}
+	}
+	
+	@Value("${grid.cache.lga.max-size:10000}")
+	public void setMaxLgaCacheSize(int maxSize) {
+		synchronized (writeLock) {
+			lgaCacheSize = maxSize;
+			snapshot = snapshot.withCaches(newCache(maxSize), snapshot.getBlockCodeCache());
+		}
+	}
+	
+	@Value("${grid.cache.block-code.max-size:50000}")
+	public void setMaxBlockCodeCacheSize(int maxSize) {
+		synchronized (writeLock) {
+			blockCodeCacheSize = maxSize;
+			snapshot = snapshot.withCaches(snapshot.getLgaCache(), newCache(maxSize));
+		}
+	}
+	
+	private <V> LongKeyedCache<V> newCache(int maxSize) {
+		LongKeyedCache<V> cache = new LongKeyedCache<>(maxSize);
+		cache.setCapacityShift(capacityShift);
+		return cache;
+	}
+	
+	/**
+	 * Shrink both caches to 1/2^shift of their configured size, keeping the
+	 * most recently used entries; 0 restores the configured size
+	 */
+	public void setCacheCapacityShift(int shift) {
+		synchronized (writeLock) {
+			capacityShift = shift;
+			snapshot.getLgaCache().setCapacityShift(shift);
+			snapshot.getBlockCodeCache().setCapacityShift(shift);
+		}
+	}
+	
 	/**
 	 * Clear caches to prevent memory leaks - call this periodically or when memory is low
 	 */
 	public void clearCaches() {
-		lgaCache.clear();
-		blockCodeCache.clear();
+		LgaSnapshot current = snapshot;
+		current.getLgaCache().clear();
+		current.getBlockCodeCache().clear();
 	}
 	
 	/**
 	 * Get cache statistics for monitoring
 	 */
 	public Map<String, Integer> getCacheStats() {
+		LgaSnapshot current = snapshot;
 		return Map.of(
-			"lgaCacheSize", lgaCache.size(),
-			"blockCodeCacheSize", blockCodeCache.size()
+			"lgaCacheSize", current.getLgaCache().size(),
+			"blockCodeCacheSize", current.getBlockCodeCache().size()
 		);
 	}
+	
+	/**
+	 * Size, capacity, hit/miss/eviction counts and hit rate of each cache,
+	 * and the generation of the LGA data they belong to
+	 */
+	public Map<String, Object> getCacheMetrics() {
+		LgaSnapshot current = snapshot;
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("generation", current.getGeneration());
+		metrics.put("lga", current.getLgaCache().getStats());
+		metrics.put("blockCode", current.getBlockCodeCache().getStats());
+		if (current.getHotCells() != null) {
+			metrics.put("hotCells", current.getHotCells().getStats());
+		}
+		return metrics;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.ninjamap.app.utils.geo;
+
+/**
+ * Validating block code parser working directly on {@code char[]}.
+ * <p>
+ * A block code is an optional alphanumeric prefix ({@code stateCode+lgaCode})
+ * followed by a dash and the 10 geohash characters as {@code XXX-XXXX-XXX}.
+ * Parsing checks every character against the layout and the geohash alphabet
+ * (case-insensitive) in a single pass, with no regex and no intermediate
+ * strings.
+ */
+public final class BlockCodeParser {
+
+    /** Length of the geohash part including its two dashes. */
+    public static final int SUFFIX_LENGTH = 12;
+
+    /** Longest code accepted, prefix included. */
+    public static final int MAX_LENGTH = 64;
+
+    /** Returned by {@link #parse} for malformed codes. */
+    public static final int INVALID = -1;
+
+    private BlockCodeParser() {
+    }
+
+    /**
+     * Parses {@code length} characters of {@code chars} starting at {@code offset}.
+     * On success the cell bounds are written to {@code bounds}
+     * ({@link GeohashCodec#LAT_MIN} ... {@link GeohashCodec#LON_MAX}).
+     *
+     * @return the prefix length (0 when the code has no prefix), or {@link #INVALID}
+     */
+    public static int parse(char[] chars, int offset, int length, double[] bounds) {
+        if (length < SUFFIX_LENGTH || length > MAX_LENGTH) {
+            return INVALID;
+        }
+        int prefixLength = 0;
+        if (length > SUFFIX_LENGTH) {
+            prefixLength = length - SUFFIX_LENGTH - 1;
+            if (prefixLength == 0 || chars[offset + prefixLength] != '-') {
+                return INVALID;
+            }
+            for (int i = offset; i < offset + prefixLength; i++) {
+                if (!isAlphanumeric(chars[i])) {
+                    return INVALID;
+                }
+            }
+        }
+
+        long bits = 0L;
+        int start = offset + length - SUFFIX_LENGTH;
+        for (int i = 0; i < SUFFIX_LENGTH; i++) {
+            char c = chars[start + i];
+            if (i == 3 || i == 8) {
+                if (c != '-') {
+                    return INVALID;
+                }
+                continue;
+            }
+            int value = GeohashCodec.valueOf(c);
+            if (value < 0) {
+                return INVALID;
+            }
+            bits = (bits << 5) | value;
+        }
+        GeohashCodec.decodeBits(bits, GeohashCodec.MAX_ENCODE_LENGTH, bounds);
+        return prefixLength;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
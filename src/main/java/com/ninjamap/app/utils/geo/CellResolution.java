@@ -0,0 +1,109 @@
+package com.ninjamap.app.utils.geo;
+
+/**
+ * Levels of the hierarchical cell scheme on the {@link GridLattice}.
+ * <p>
+ * A cell of a coarser level is a block of {@code factor x factor} 3 m cells
+ * of the global lattice, so every level shares the lattice origin and each
+ * 3 m cell has exactly one parent per level: its row and column divided by
+ * the factor. Block codes of coarser cells are the geohash of the cell centre
+ * at the shortest precision whose geohash cells are smaller than the lattice
+ * cell, so a code always decodes back into its own cell:
+ * <pre>
+ * level   factor   geohash   code
+ * 3m      1        10        XXX-XXXX-XXX
+ * 30m     10       9         XXX-XXXX-XX
+ * 300m    100      7         XXX-XXXX
+ * 3km     1000     6         XXX-XXX
+ * </pre>
+ */
+public enum CellResolution {
+
+    METERS_3("3m", 1, 10),
+    METERS_30("30m", 10, 9),
+    METERS_300("300m", 100, 7),
+    KILOMETERS_3("3km", 1000, 6);
+
+    /** Web Mercator ground resolution at the equator and zoom 0, meters per 256 px tile pixel. */
+    private static final double EQUATOR_METERS_PER_PIXEL = 156543.03392;
+
+    private static final int MAX_ZOOM = 30;
+
+    private final String label;
+    private final int factor;
+    private final int geohashLength;
+
+    CellResolution(String label, int factor, int geohashLength) {
+        this.label = label;
+        this.factor = factor;
+        this.geohashLength = geohashLength;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Edge length in 3 m cells
+     */
+    public int getFactor() {
+        return factor;
+    }
+
+    public int getGeohashLength() {
+        return geohashLength;
+    }
+
+    public double getSizeMeters() {
+        return GridLattice.CELL_SIZE_METERS * factor;
+    }
+
+    /**
+     * The next coarser level, or null for the coarsest
+     */
+    public CellResolution coarser() {
+        return ordinal() + 1 < values().length ? values()[ordinal() + 1] : null;
+    }
+
+    /**
+     * Cell of this level holding a 3 m lattice cell
+     */
+    public long parentOf(long cellId) {
+        return GridLattice.cellId(Math.floorDiv(GridLattice.rowOf(cellId), factor),
+                                  Math.floorDiv(GridLattice.colOf(cellId), factor));
+    }
+
+    /**
+     * @param label one of {@code 3m}, {@code 30m}, {@code 300m}, {@code 3km} (case-insensitive)
+     * @throws IllegalArgumentException for any other value
+     */
+    public static CellResolution parse(String label) {
+        String value = label == null ? "" : label.trim();
+        for (CellResolution resolution : values()) {
+            if (resolution.label.equalsIgnoreCase(value)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resolution '" + value + "', expected 3m, 30m, 300m or 3km");
+    }
+
+    /**
+     * Finest level whose cells are at least {@code minCellPixels} wide on a
+     * Web Mercator map at the given zoom and latitude, the coarsest level if
+     * none is
+     *
+     * @throws IllegalArgumentException if the zoom is outside 0..30
+     */
+    public static CellResolution forZoom(int zoom, double latitude, double minCellPixels) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM);
+        }
+        double metersPerPixel = EQUATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(latitude)) / (1L << zoom);
+        for (CellResolution resolution : values()) {
+            if (resolution.getSizeMeters() >= minCellPixels * metersPerPixel) {
+                return resolution;
+            }
+        }
+        return KILOMETERS_3;
+    }
+}
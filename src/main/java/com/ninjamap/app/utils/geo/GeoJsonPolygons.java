@@ -0,0 +1,111 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Reads GeoJSON (RFC 7946) areas into a {@link ScanlinePolygon}.
+ * <p>
+ * Accepts a {@code Polygon} or {@code MultiPolygon} geometry, or a
+ * {@code Feature} wrapping one. Positions are {@code [lon, lat]}; rings may
+ * be closed or not, and their orientation does not matter since the polygon
+ * uses the even-odd rule.
+ */
+public final class GeoJsonPolygons {
+
+    private GeoJsonPolygons() {
+    }
+
+    /**
+     * @param maxVertices upper bound on the total number of positions
+     * @throws IllegalArgumentException if the JSON is not a valid polygon area or has too many vertices
+     */
+    public static ScanlinePolygon parse(JsonNode geoJson, int maxVertices) {
+        if (geoJson == null || !geoJson.isObject()) {
+            throw new IllegalArgumentException("Geometry must be a GeoJSON object");
+        }
+        String type = geoJson.path("type").asText();
+        if ("Feature".equals(type)) {
+            return parse(geoJson.get("geometry"), maxVertices);
+        }
+
+        Builder builder = new Builder(maxVertices);
+        JsonNode coordinates = geoJson.get("coordinates");
+        switch (type) {
+            case "Polygon" -> builder.addPolygon(coordinates);
+            case "MultiPolygon" -> {
+                requireArray(coordinates, "MultiPolygon coordinates");
+                for (JsonNode polygon : coordinates) {
+                    builder.addPolygon(polygon);
+                }
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unsupported geometry type '" + type + "', expected Polygon or MultiPolygon");
+        }
+        return builder.build();
+    }
+
+    private static void requireArray(JsonNode node, String what) {
+        if (node == null || !node.isArray() || node.isEmpty()) {
+            throw new IllegalArgumentException(what + " must be a non-empty array");
+        }
+    }
+
+    private static final class Builder {
+        private final int maxVertices;
+        private double[] coords = new double[64];
+        private int[] ringStarts = new int[] { 0 };
+        private int points;
+
+        Builder(int maxVertices) {
+            this.maxVertices = maxVertices;
+        }
+
+        void addPolygon(JsonNode rings) {
+            requireArray(rings, "Polygon coordinates");
+            for (JsonNode ring : rings) {
+                addRing(ring);
+            }
+        }
+
+        void addRing(JsonNode ring) {
+            requireArray(ring, "Polygon ring");
+            int start = points;
+            for (JsonNode position : ring) {
+                if (!position.isArray() || position.size() < 2
+                        || !position.get(0).isNumber() || !position.get(1).isNumber()) {
+                    throw new IllegalArgumentException("Positions must be [longitude, latitude] numbers");
+                }
+                double lon = position.get(0).asDouble();
+                double lat = position.get(1).asDouble();
+                if (!(lon >= -180 && lon <= 180 && lat >= -90 && lat <= 90)) {
+                    throw new IllegalArgumentException("Position out of range: [" + lon + ", " + lat + "]");
+                }
+                if (points == maxVertices) {
+                    throw new IllegalArgumentException("Geometry has more than " + maxVertices + " vertices");
+                }
+                if (coords.length < (points + 1) * 2) {
+                    coords = Arrays.copyOf(coords, coords.length * 2);
+                }
+                coords[points * 2] = lon;
+                coords[points * 2 + 1] = lat;
+                points++;
+            }
+            // The closing position repeats the first one and adds nothing
+            if (points - start > 1 && coords[start * 2] == coords[(points - 1) * 2]
+                    && coords[start * 2 + 1] == coords[(points - 1) * 2 + 1]) {
+                points--;
+            }
+            if (points - start < 3) {
+                throw new IllegalArgumentException("Polygon rings need at least 3 distinct positions");
+            }
+            ringStarts = Arrays.copyOf(ringStarts, ringStarts.length + 1);
+            ringStarts[ringStarts.length - 1] = points;
+        }
+
+        ScanlinePolygon build() {
+            return ScanlinePolygon.of(coords, ringStarts);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free geohash codec.
+ * <p>
+ * Bits are interleaved straight into a {@code long} (longitude first, most
+ * significant bit first) instead of going through binary {@code String}s, and
+ * decoding writes into a caller-supplied {@code double[]} or a {@link Bounds}
+ * record. The bisection arithmetic is identical to the Android implementation
+ * mirrored by {@link com.ninjamap.app.utils.BlockCodeHashGenerator}, so the
+ * output is character-for-character the same.
+ */
+public final class GeohashCodec {
+
+    /** Number of bisection steps per axis used by the Android encoder. */
+    public static final int BITS_PER_AXIS = 25;
+
+    /** Total interleaved bits produced by {@link #encodeBits(double, double)}. */
+    public static final int TOTAL_BITS = BITS_PER_AXIS * 2;
+
+    /** Longest hash {@link #encode(double, double, int)} can produce (50 bits / 5). */
+    public static final int MAX_ENCODE_LENGTH = TOTAL_BITS / 5;
+
+    /** Indexes into the {@code double[]} filled by the decode methods. */
+    public static final int LAT_MIN = 0;
+    public static final int LAT_MAX = 1;
+    public static final int LON_MIN = 2;
+    public static final int LON_MAX = 3;
+
+    private static final char[] BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final char[] BASE_32_UPPER = "0123456789BCDEFGHJKMNPQRSTUVWXYZ".toCharArray();
+
+    // ASCII -> 5 bit value, -1 for characters outside the alphabet (both cases accepted)
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < BASE_32.length; i++) {
+            DECODE_TABLE[BASE_32[i]] = (byte) i;
+            DECODE_TABLE[BASE_32_UPPER[i]] = (byte) i;
+        }
+    }
+
+    private GeohashCodec() {
+    }
+
+    /**
+     * Decoded cell of a geohash.
+     */
+    public record Bounds(double latitudeMin, double latitudeMax, double longitudeMin, double longitudeMax) {
+
+        public double latitude() {
+            return (latitudeMin + latitudeMax) / 2;
+        }
+
+        public double longitude() {
+            return (longitudeMin + longitudeMax) / 2;
+        }
+    }
+
+    /**
+     * Encodes a coordinate into the 50 interleaved geohash bits.
+     * Bit 49 is the first longitude bit, bit 48 the first latitude bit, and so on.
+     */
+    public static long encodeBits(double latitude, double longitude) {
+        long bits = 0L;
+        double latMin = -90.0, latMax = 90.0;
+        double lonMin = -180.0, lonMax = 180.0;
+
+        for (int i = 0; i < BITS_PER_AXIS; i++) {
+            double lonMean = (lonMin + lonMax) / 2;
+            if (longitude < lonMean) {
+                bits <<= 1;
+                lonMax = lonMean;
+            } else {
+                bits = (bits << 1) | 1L;
+                lonMin = lonMean;
+            }
+
+            double latMean = (latMin + latMax) / 2;
+            if (latitude < latMean) {
+                bits <<= 1;
+                latMax = latMean;
+            } else {
+                bits = (bits << 1) | 1L;
+                latMin = latMean;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Writes the first {@code length} base-32 characters of {@code bits} into
+     * {@code dst} starting at {@code offset}.
+     *
+     * @param bits      50-bit value from {@link #encodeBits(double, double)}
+     * @param length    number of characters, at most {@link #MAX_ENCODE_LENGTH}
+     * @param dst       destination buffer
+     * @param offset    first index written
+     * @param upperCase whether to emit the upper-case alphabet used in block codes
+     */
+    public static void writeChars(long bits, int length, char[] dst, int offset, boolean upperCase) {
+        checkLength(length);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = charAt(bits, i, upperCase);
+        }
+    }
+
+    /**
+     * Returns the base-32 character at {@code index} (0-based) of the hash held in {@code bits}.
+     */
+    public static char charAt(long bits, int index, boolean upperCase) {
+        int shift = TOTAL_BITS - 5 * (index + 1);
+        return (upperCase ? BASE_32_UPPER : BASE_32)[(int) (bits >>> shift) & 0x1F];
+    }
+
+    /**
+     * Encodes a coordinate into a lower-case geohash of the given length.
+     */
+    public static String encode(double latitude, double longitude, int length) {
+        checkLength(length);
+        char[] chars = new char[length];
+        writeChars(encodeBits(latitude, longitude), length, chars, 0, false);
+        return new String(chars);
+    }
+
+    /**
+     * Decodes {@code length} characters of {@code hash} starting at
+     * {@code offset} into {@code out} ({@link #LAT_MIN}, {@link #LAT_MAX},
+     * {@link #LON_MIN}, {@link #LON_MAX}). Characters are case-insensitive.
+     *
+     * @return false if any character is outside the geohash alphabet
+     */
+    public static boolean decode(CharSequence hash, int offset, int length, double[] out) {
+        double latMin = -90.0, latMax = 90.0;
+        double lonMin = -180.0, lonMax = 180.0;
+        boolean lonBit = true;
+
+        for (int i = 0; i < length; i++) {
+            int value = valueOf(hash.charAt(offset + i));
+            if (value < 0) {
+                return false;
+            }
+            for (int mask = 0x10; mask != 0; mask >>= 1) {
+                boolean set = (value & mask) != 0;
+                if (lonBit) {
+                    double lonMean = (lonMin + lonMax) / 2;
+                    if (set) {
+                        lonMin = lonMean;
+                    } else {
+                        lonMax = lonMean;
+                    }
+                } else {
+                    double latMean = (latMin + latMax) / 2;
+                    if (set) {
+                        latMin = latMean;
+                    } else {
+                        latMax = latMean;
+                    }
+                }
+                lonBit = !lonBit;
+            }
+        }
+
+        out[LAT_MIN] = latMin;
+        out[LAT_MAX] = latMax;
+        out[LON_MIN] = lonMin;
+        out[LON_MAX] = lonMax;
+        return true;
+    }
+
+    /**
+     * Decodes the first {@code length} characters' worth of bits (as produced by
+     * {@link #encodeBits(double, double)}) into {@code out}. Same bisection as the
+     * character-based decode, without any {@link CharSequence}.
+     */
+    public static void decodeBits(long bits, int length, double[] out) {
+        checkLength(length);
+        double latMin = -90.0, latMax = 90.0;
+        double lonMin = -180.0, lonMax = 180.0;
+        int total = length * 5;
+        for (int i = 0; i < total; i++) {
+            boolean set = ((bits >>> (TOTAL_BITS - 1 - i)) & 1L) != 0;
+            if ((i & 1) == 0) {
+                double lonMean = (lonMin + lonMax) / 2;
+                if (set) {
+                    lonMin = lonMean;
+                } else {
+                    lonMax = lonMean;
+                }
+            } else {
+                double latMean = (latMin + latMax) / 2;
+                if (set) {
+                    latMin = latMean;
+                } else {
+                    latMax = latMean;
+                }
+            }
+        }
+        out[LAT_MIN] = latMin;
+        out[LAT_MAX] = latMax;
+        out[LON_MIN] = lonMin;
+        out[LON_MAX] = lonMax;
+    }
+
+    /**
+     * Decodes a whole geohash into {@code out}.
+     *
+     * @return false if the hash is null, empty or contains invalid characters
+     */
+    public static boolean decode(CharSequence hash, double[] out) {
+        if (hash == null || hash.length() == 0) {
+            return false;
+        }
+        return decode(hash, 0, hash.length(), out);
+    }
+
+    /**
+     * Decodes a whole geohash into a {@link Bounds} record.
+     *
+     * @return the decoded bounds, or null for an empty or invalid hash
+     */
+    public static Bounds decode(CharSequence hash) {
+        double[] out = new double[4];
+        if (!decode(hash, out)) {
+            return null;
+        }
+        return new Bounds(out[LAT_MIN], out[LAT_MAX], out[LON_MIN], out[LON_MAX]);
+    }
+
+    /**
+     * Returns the 5-bit value of a geohash character, or -1 if it is not part of the alphabet.
+     */
+    public static int valueOf(char c) {
+        return c < 128 ? DECODE_TABLE[c] : -1;
+    }
+
+    private static void checkLength(int length) {
+        if (length < 0 || length > MAX_ENCODE_LENGTH) {
+            throw new IllegalArgumentException("Geohash length must be between 0 and " + MAX_ENCODE_LENGTH);
+        }
+    }
+}
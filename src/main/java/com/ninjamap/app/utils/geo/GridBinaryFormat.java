@@ -0,0 +1,315 @@
+package com.ninjamap.app.utils.geo;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.payload.response.GridCell;
+
+/**
+ * Compact binary encoding of a generated grid
+ * ({@value #MEDIA_TYPE}).
+ * <p>
+ * Cell corners are fully determined by the grid origin, the cell size and the
+ * row/column index, so only those are sent. Layout, all integers being
+ * unsigned LEB128 varints and all doubles big-endian IEEE 754:
+ *
+ * <pre>
+ * header: "NMGB" version:u8 flags:u8 minLat minLon latDelta lonDelta rows:varint cols:varint
+ * cell:   tag:varint col:varint [prefix:varint [len:varint utf8] geohash:7 bytes]
+ * end:    tag = 0
+ * </pre>
+ *
+ * Cells come in row-major order. {@code tag} is the row delta to the previous
+ * cell plus one (the first cell counts from row 0); {@code col} is absolute on
+ * a new row and the gap minus one within the same row. When
+ * {@link #FLAG_BLOCK_CODES} is set, each cell carries the block code prefix
+ * ({@code stateCode+lgaCode-}) as a dictionary reference - 0 for none,
+ * {@code 1..n} for an already defined entry and {@code n+1} to define a new
+ * entry inline - followed by the 50 geohash bits in 7 bytes.
+ */
+public final class GridBinaryFormat {
+
+    public static final String MEDIA_TYPE = "application/vnd.ninjamap.grid+binary";
+
+    public static final int VERSION = 1;
+
+    /** Cells carry block codes (prefix reference and geohash bits). */
+    public static final int FLAG_BLOCK_CODES = 1;
+
+    private static final byte[] MAGIC = { 'N', 'M', 'G', 'B' };
+
+    // Length of the geohash part of a block code: XXX-XXXX-XXX
+    private static final int SUFFIX_LENGTH = 12;
+
+    private GridBinaryFormat() {
+    }
+
+    /**
+     * Streams a grid in the binary format. Not thread-safe; call
+     * {@link #writeHeader} once, then {@link #writeCell} in row-major order and
+     * finally {@link #finish}. The target stream is flushed but never closed.
+     */
+    public static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private final Map<String, Integer> prefixes = new HashMap<>();
+        private int position;
+        private boolean blockCodes;
+        private int previousRow;
+        private int previousCol = -1;
+
+        public Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        public void writeHeader(double minLat, double minLon, double latDelta, double lonDelta,
+                                int rows, int cols, boolean blockCodes) throws IOException {
+            this.blockCodes = blockCodes;
+            for (byte b : MAGIC) {
+                writeByte(b);
+            }
+            writeByte(VERSION);
+            writeByte(blockCodes ? FLAG_BLOCK_CODES : 0);
+            writeDouble(minLat);
+            writeDouble(minLon);
+            writeDouble(latDelta);
+            writeDouble(lonDelta);
+            writeVarint(rows);
+            writeVarint(cols);
+        }
+
+        /**
+         * @param blockCode code of the cell, ignored when the header was written without block codes
+         * @throws IllegalArgumentException if cells are out of order or the block code is malformed
+         */
+        public void writeCell(int row, int col, String blockCode) throws IOException {
+            if (row < previousRow || (row == previousRow && col <= previousCol)) {
+                throw new IllegalArgumentException("Cells must be written in row-major order");
+            }
+            writeVarint(row - previousRow + 1);
+            writeVarint(row == previousRow ? col - previousCol - 1 : col);
+            previousRow = row;
+            previousCol = col;
+
+            if (blockCodes) {
+                writeBlockCode(blockCode);
+            }
+        }
+
+        /**
+         * Writes the end marker and flushes.
+         */
+        public void finish() throws IOException {
+            writeVarint(0);
+            flush();
+        }
+
+        public void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private void writeBlockCode(String blockCode) throws IOException {
+            if (blockCode == null || blockCode.length() < SUFFIX_LENGTH) {
+                throw new IllegalArgumentException("Invalid block code: " + blockCode);
+            }
+            int suffixStart = blockCode.length() - SUFFIX_LENGTH;
+            long bits = parseGeohashBits(blockCode, suffixStart);
+
+            if (suffixStart == 0) {
+                writeVarint(0);
+            } else {
+                String prefix = blockCode.substring(0, suffixStart);
+                Integer ref = prefixes.get(prefix);
+                if (ref != null) {
+                    writeVarint(ref);
+                } else {
+                    ref = prefixes.size() + 1;
+                    prefixes.put(prefix, ref);
+                    byte[] utf8 = prefix.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(ref);
+                    writeVarint(utf8.length);
+                    for (byte b : utf8) {
+                        writeByte(b);
+                    }
+                }
+            }
+            for (int shift = 48; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+
+        private void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = (byte) value;
+        }
+    }
+
+    /**
+     * Reference decoder: reads a whole grid back into memory.
+     *
+     * @throws IOException on a truncated stream or malformed data
+     */
+    public static DecodedGrid read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        for (byte expected : MAGIC) {
+            if (in.readByte() != expected) {
+                throw new IOException("Not a grid binary stream");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported grid binary version " + version);
+        }
+        boolean blockCodes = (in.readUnsignedByte() & FLAG_BLOCK_CODES) != 0;
+        double minLat = in.readDouble();
+        double minLon = in.readDouble();
+        double latDelta = in.readDouble();
+        double lonDelta = in.readDouble();
+        int rows = readVarint(in);
+        int cols = readVarint(in);
+
+        List<String> prefixes = new ArrayList<>();
+        List<DecodedCell> cells = new ArrayList<>();
+        char[] suffix = new char[SUFFIX_LENGTH];
+        int row = 0;
+        int col = -1;
+        int tag;
+        while ((tag = readVarint(in)) != 0) {
+            int colValue = readVarint(in);
+            if (tag == 1) {
+                col += colValue + 1;
+            } else {
+                row += tag - 1;
+                col = colValue;
+            }
+
+            String blockCode = null;
+            if (blockCodes) {
+                int ref = readVarint(in);
+                String prefix = "";
+                if (ref == prefixes.size() + 1) {
+                    byte[] utf8 = new byte[readVarint(in)];
+                    in.readFully(utf8);
+                    prefixes.add(new String(utf8, StandardCharsets.UTF_8));
+                }
+                if (ref > 0) {
+                    if (ref > prefixes.size()) {
+                        throw new IOException("Undefined block code prefix " + ref);
+                    }
+                    prefix = prefixes.get(ref - 1);
+                }
+                long bits = 0L;
+                for (int i = 0; i < 7; i++) {
+                    bits = (bits << 8) | in.readUnsignedByte();
+                }
+                blockCode = prefix + formatSuffix(bits, suffix);
+            }
+            cells.add(new DecodedCell(row, col, blockCode));
+        }
+        return new DecodedGrid(minLat, minLon, latDelta, lonDelta, rows, cols, blockCodes, cells);
+    }
+
+    /**
+     * Grid read by {@link #read(InputStream)}.
+     */
+    public record DecodedGrid(double minLat, double minLon, double latDelta, double lonDelta,
+                              int rows, int cols, boolean hasBlockCodes, List<DecodedCell> cells) {
+
+        /**
+         * Rebuilds the cell geometry exactly as {@code GridGenerator} computes it.
+         */
+        public GridCell toGridCell(DecodedCell cell) {
+            double cellMinLat = minLat + (cell.row() * latDelta);
+            double cellMaxLat = cellMinLat + latDelta;
+            double cellMinLon = minLon + (cell.col() * lonDelta);
+            double cellMaxLon = cellMinLon + lonDelta;
+            return new GridCell(cell.row(), cell.col(),
+                    new Coordinates(cellMinLat, cellMinLon),
+                    new Coordinates(cellMinLat, cellMaxLon),
+                    new Coordinates(cellMaxLat, cellMaxLon),
+                    new Coordinates(cellMaxLat, cellMinLon),
+                    new Coordinates((cellMinLat + cellMaxLat) / 2, (cellMinLon + cellMaxLon) / 2));
+        }
+    }
+
+    /**
+     * Single cell read by {@link #read(InputStream)}; {@code blockCode} is null
+     * when the grid was written without block codes.
+     */
+    public record DecodedCell(int row, int col, String blockCode) {
+    }
+
+    private static long parseGeohashBits(String blockCode, int start) {
+        long bits = 0L;
+        for (int i = 0; i < SUFFIX_LENGTH; i++) {
+            char c = blockCode.charAt(start + i);
+            if (i == 3 || i == 8) {
+                if (c != '-') {
+                    throw new IllegalArgumentException("Invalid block code: " + blockCode);
+                }
+                continue;
+            }
+            int value = GeohashCodec.valueOf(c);
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid block code: " + blockCode);
+            }
+            bits = (bits << 5) | value;
+        }
+        return bits;
+    }
+
+    private static String formatSuffix(long bits, char[] chars) {
+        int pos = 0;
+        for (int i = 0; i < GeohashCodec.MAX_ENCODE_LENGTH; i++) {
+            if (i == 3 || i == 7) {
+                chars[pos++] = '-';
+            }
+            chars[pos++] = GeohashCodec.charAt(bits, i, true);
+        }
+        return new String(chars);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated grid binary stream");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
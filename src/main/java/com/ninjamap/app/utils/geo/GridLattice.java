@@ -0,0 +1,132 @@
+package com.ninjamap.app.utils.geo;
+
+/**
+ * Global fixed 3 m lattice.
+ * <p>
+ * Row 0 starts at latitude -90 and column 0 at longitude -180. The latitude
+ * step is the usual 3 m, while the longitude step is fixed once at a reference
+ * latitude instead of per request, so any two viewports snap to the same cells
+ * and a cell is identified by its global row/column alone. Cells are grouped
+ * into {@link #TILE_SIZE} x {@link #TILE_SIZE} tiles for caching.
+ * <p>
+ * {@link #atResolution} gives the coarser lattices of {@link CellResolution}:
+ * their cells are blocks of 3 m cells and rows/columns are derived from the
+ * 3 m ones, so a coarse cell's edges coincide exactly with its children's.
+ */
+public final class GridLattice {
+
+    public static final double ORIGIN_LAT = -90.0;
+    public static final double ORIGIN_LON = -180.0;
+
+    /** Cell size in meters. */
+    public static final double CELL_SIZE_METERS = 3.0;
+
+    /** 1 degree of latitude is about 111,320 meters. */
+    public static final double LAT_DELTA = CELL_SIZE_METERS / 111320.0;
+
+    /** log2 of the tile edge length in cells. */
+    public static final int TILE_SHIFT = 8;
+
+    /** Tile edge length in cells. */
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    private final double referenceLatitude;
+    private final double lonDelta;
+    private final int factor;
+
+    /**
+     * @param referenceLatitude latitude at which a cell is 3 m wide
+     */
+    public GridLattice(double referenceLatitude) {
+        this(referenceLatitude, 1);
+    }
+
+    private GridLattice(double referenceLatitude, int factor) {
+        if (!(Math.abs(referenceLatitude) < 85)) {
+            throw new IllegalArgumentException("Reference latitude must be between -85 and 85");
+        }
+        this.referenceLatitude = referenceLatitude;
+        this.lonDelta = CELL_SIZE_METERS / (111320.0 * Math.cos(Math.toRadians(referenceLatitude)));
+        this.factor = factor;
+    }
+
+    /**
+     * The lattice of a resolution level sharing this lattice's reference latitude
+     */
+    public GridLattice atResolution(CellResolution resolution) {
+        return resolution.getFactor() == factor ? this : new GridLattice(referenceLatitude, resolution.getFactor());
+    }
+
+    public double getReferenceLatitude() {
+        return referenceLatitude;
+    }
+
+    /**
+     * Cell edge length in 3 m cells, 1 for the base lattice
+     */
+    public int getFactor() {
+        return factor;
+    }
+
+    public double getLatDelta() {
+        return factor == 1 ? LAT_DELTA : LAT_DELTA * factor;
+    }
+
+    public double getLonDelta() {
+        return factor == 1 ? lonDelta : lonDelta * factor;
+    }
+
+    /**
+     * Global row of the cell containing the latitude.
+     */
+    public int row(double latitude) {
+        int row = (int) Math.floor((latitude - ORIGIN_LAT) / LAT_DELTA);
+        return factor == 1 ? row : Math.floorDiv(row, factor);
+    }
+
+    /**
+     * Global column of the cell containing the longitude.
+     */
+    public int col(double longitude) {
+        int col = (int) Math.floor((longitude - ORIGIN_LON) / lonDelta);
+        return factor == 1 ? col : Math.floorDiv(col, factor);
+    }
+
+    public double minLat(int row) {
+        return ORIGIN_LAT + ((double) row * factor) * LAT_DELTA;
+    }
+
+    public double minLon(int col) {
+        return ORIGIN_LON + ((double) col * factor) * lonDelta;
+    }
+
+    public double centerLat(int row) {
+        return ORIGIN_LAT + ((double) row * factor + factor * 0.5) * LAT_DELTA;
+    }
+
+    public double centerLon(int col) {
+        return ORIGIN_LON + ((double) col * factor + factor * 0.5) * lonDelta;
+    }
+
+    /**
+     * Stable 64-bit cell ID: global row in the high 32 bits, column in the low 32 bits.
+     */
+    public static long cellId(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    public static int rowOf(long cellId) {
+        return (int) (cellId >> 32);
+    }
+
+    public static int colOf(long cellId) {
+        return (int) cellId;
+    }
+
+    /**
+     * Key of the tile holding a cell, built like {@link #cellId} from tile row/column.
+     */
+    public static long tileKey(int row, int col) {
+        return cellId(row >> TILE_SHIFT, col >> TILE_SHIFT);
+    }
+}
@@ -0,0 +1,473 @@
+package com.ninjamap.app.utils.geo;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memory-mapped open-addressing table from {@link GridLattice} cell id to the
+ * geohash bits of the cell centre and the LGA index of its geohash cell
+ * ({@link LgaSpatialIndex#findCellIndexes}), precomputed for a few hot
+ * bounding boxes and persisted to a local file. Alongside it, the LGA index of
+ * every LGA lookup key ({@link #LGA_KEY_SCALE}) covering the boxes, which
+ * point lookups use so they answer exactly like the decoder's LGA cache.
+ * <p>
+ * The table lives in the mapping, outside the heap, so it is neither bounded
+ * nor shrunk like the heap caches and is ready from the first request after a
+ * restart. A file is only reused for the same lattice reference latitude, LGA
+ * data ({@link LgaSpatialIndex#getFingerprint()}) and boxes; otherwise it is
+ * rebuilt. All values are little-endian:
+ * <pre>
+ * header   "NMHC", version, boxCount, slotCount, entryCount, 0 (ints),
+ *          lgaFingerprint (long), referenceLatitude (double)      40 bytes
+ * boxes    per box: minRow, maxRow, minCol, maxCol,
+ *          minKeyLat, maxKeyLat, minKeyLon, maxKeyLon (inclusive ints)
+ * slots    8-byte aligned, slotCount (a power of two) x
+ *          cellId, value (longs), cellId -1 = empty, linear probing
+ * keys     per box, row-major over its key ranges: LGA index + 1 (unsigned
+ *          shorts, 0 = no LGA)
+ * </pre>
+ * A value holds the LGA index + 1 in its top 14 bits (0 = no LGA) and the 50
+ * geohash bits below.
+ */
+public final class HotCellIndex {
+
+    public static final int VERSION = 3;
+
+    /** Returned by lookups of cells that are not in the table. */
+    public static final long MISS = -1;
+
+    /** Returned by {@link #lgaIndexOfKey} for keys outside the boxes. */
+    public static final int KEY_MISS = -2;
+
+    /**
+     * LGA lookup keys are latitude and longitude rounded to multiples of
+     * 1 / LGA_KEY_SCALE degrees (~11 m), and an LGA is looked up at the key itself
+     */
+    public static final double LGA_KEY_SCALE = 1e4;
+
+    private static final int MAGIC = 0x43484D4E; // "NMHC" read little-endian
+    private static final int HEADER_SIZE = 40;
+    private static final int BOX_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY = -1;
+    private static final int GEOHASH_BITS = 50;
+    private static final long GEOHASH_MASK = (1L << GEOHASH_BITS) - 1;
+    /** The largest table that fits one mapping at a load factor of at most 1/2. */
+    private static final int MAX_SLOTS = 1 << 26;
+
+    private final ByteBuffer buffer;
+    private final GridLattice lattice;
+    private final long lgaFingerprint;
+    private final int[][] boxes;
+    private final int slotCount;
+    private final int entryCount;
+    private final int slotsOffset;
+    private final int[] keyOffsets;
+    private final long size;
+    private final LongAdder hits = new LongAdder();
+
+    private HotCellIndex(ByteBuffer buffer, GridLattice lattice, long lgaFingerprint, int[][] boxes,
+                         int slotCount, int entryCount, int slotsOffset, int[] keyOffsets, long size) {
+        this.buffer = buffer;
+        this.lattice = lattice;
+        this.lgaFingerprint = lgaFingerprint;
+        this.boxes = boxes;
+        this.slotCount = slotCount;
+        this.entryCount = entryCount;
+        this.slotsOffset = slotsOffset;
+        this.keyOffsets = keyOffsets;
+        this.size = size;
+    }
+
+    /**
+     * Cell ranges {@code {minRow, maxRow, minCol, maxCol}} of the lattice
+     * covering a bounding box
+     */
+    public static int[] box(GridLattice lattice, double minLat, double minLon, double maxLat, double maxLon) {
+        if (!(minLat >= -90 && minLat <= maxLat && maxLat <= 90
+                && minLon >= -180 && minLon <= maxLon && maxLon <= 180)) {
+            throw new IllegalArgumentException("Invalid hot box " + minLat + "," + minLon + "," + maxLat + "," + maxLon);
+        }
+        return new int[] { lattice.row(minLat), lattice.row(maxLat), lattice.col(minLon), lattice.col(maxLon) };
+    }
+
+    /**
+     * LGA lookup key of a latitude or longitude
+     */
+    public static int lgaKey(double degrees) {
+        return (int) Math.round(degrees * LGA_KEY_SCALE);
+    }
+
+    /**
+     * Latitude or longitude an LGA lookup key stands for
+     */
+    public static double lgaKeyDegrees(int key) {
+        return key / LGA_KEY_SCALE;
+    }
+
+    /**
+     * LGA lookup keys of a geohash cell's centre, latitude in the high 32 bits
+     * and longitude in the low 32. Every block code takes the LGA at these
+     * keys, so a code depends on its geohash bits alone.
+     */
+    public static long lgaKeysOf(long geohashBits) {
+        double[] bounds = new double[4];
+        GeohashCodec.decodeBits(geohashBits, GeohashCodec.MAX_ENCODE_LENGTH, bounds);
+        int keyLat = lgaKey((bounds[GeohashCodec.LAT_MIN] + bounds[GeohashCodec.LAT_MAX]) / 2);
+        int keyLon = lgaKey((bounds[GeohashCodec.LON_MIN] + bounds[GeohashCodec.LON_MAX]) / 2);
+        return ((long) keyLat << 32) | (keyLon & 0xFFFFFFFFL);
+    }
+
+    // Key ranges {minKeyLat, maxKeyLat, minKeyLon, maxKeyLon} of every point in a box's cells
+    private static int[] keyBox(GridLattice lattice, int[] box) {
+        return new int[] { lgaKey(lattice.minLat(box[0])), lgaKey(lattice.minLat(box[1] + 1)),
+                lgaKey(lattice.minLon(box[2])), lgaKey(lattice.minLon(box[3] + 1)) };
+    }
+
+    // Keys in the ranges {minKeyLat, maxKeyLat, minKeyLon, maxKeyLon} starting at ranges[first]
+    private static long keyCount(int[] ranges, int first) {
+        return ((long) ranges[first + 1] - ranges[first] + 1) * ((long) ranges[first + 3] - ranges[first + 2] + 1);
+    }
+
+    /**
+     * Number of cells in the boxes, counting overlaps twice
+     */
+    public static long cellCount(List<int[]> boxes) {
+        long cells = 0;
+        for (int[] box : boxes) {
+            cells += (long) (box[1] - box[0] + 1) * (box[3] - box[2] + 1);
+        }
+        return cells;
+    }
+
+    /**
+     * Computes the table for the boxes and writes it atomically: a temporary
+     * file next to {@code target} is filled through a mapping and moved into
+     * place once complete. The result is mapped from {@code target}.
+     *
+     * @throws IllegalArgumentException if the boxes have too many cells for one table
+     *                                  or there are too many LGAs for the value format
+     */
+    public static HotCellIndex build(Path target, GridLattice lattice, LgaSpatialIndex index, List<int[]> boxes)
+            throws IOException {
+        if (lattice.getFactor() != 1) {
+            throw new IllegalArgumentException("Hot cells are 3 m lattice cells");
+        }
+        if (index.size() >= (1 << (Long.SIZE - GEOHASH_BITS)) - 1) {
+            throw new IllegalArgumentException("Too many LGAs for a hot cell index: " + index.size());
+        }
+        long cells = cellCount(boxes);
+        if (cells > MAX_SLOTS / 2) {
+            throw new IllegalArgumentException("Hot boxes hold " + cells + " cells, at most " + MAX_SLOTS / 2 + " fit");
+        }
+        int slotCount = Math.max(2, Integer.highestOneBit((int) Math.max(1, cells * 2 - 1)) << 1);
+        int slotsOffset = align8(HEADER_SIZE + boxes.size() * BOX_SIZE);
+        List<int[]> keyBoxes = new ArrayList<>();
+        long size = slotsOffset + (long) slotCount * SLOT_SIZE;
+        for (int[] box : boxes) {
+            int[] keyBox = keyBox(lattice, box);
+            keyBoxes.add(keyBox);
+            size += keyCount(keyBox, 0) * Short.BYTES;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Hot boxes need " + size + " bytes, more than one mapping holds");
+        }
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                ByteBuffer out = mapped.order(ByteOrder.LITTLE_ENDIAN);
+                for (int slot = 0; slot < slotCount; slot++) {
+                    out.putLong(slotsOffset + slot * SLOT_SIZE, EMPTY);
+                }
+                int entries = fill(out, slotsOffset, slotCount, lattice, index, boxes);
+                fillKeys(out, slotsOffset + slotCount * SLOT_SIZE, index, keyBoxes);
+
+                out.putInt(0, MAGIC);
+                out.putInt(4, VERSION);
+                out.putInt(8, boxes.size());
+                out.putInt(12, slotCount);
+                out.putInt(16, entries);
+                out.putInt(20, 0);
+                out.putLong(24, index.getFingerprint());
+                out.putDouble(32, lattice.getReferenceLatitude());
+                for (int b = 0; b < boxes.size(); b++) {
+                    for (int i = 0; i < 4; i++) {
+                        out.putInt(HEADER_SIZE + b * BOX_SIZE + i * 4, boxes.get(b)[i]);
+                        out.putInt(HEADER_SIZE + b * BOX_SIZE + 16 + i * 4, keyBoxes.get(b)[i]);
+                    }
+                }
+                mapped.force();
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return map(target);
+    }
+
+    // One batch LGA lookup per row of at most a tile's width
+    private static int fill(ByteBuffer out, int slotsOffset, int slotCount, GridLattice lattice,
+                            LgaSpatialIndex index, List<int[]> boxes) {
+        long[] geohashBits = new long[GridLattice.TILE_SIZE];
+        int[] lgaIndexes = new int[GridLattice.TILE_SIZE];
+        int entries = 0;
+        for (int[] box : boxes) {
+            for (int row = box[0]; row <= box[1]; row++) {
+                double latitude = lattice.centerLat(row);
+                for (int firstCol = box[2]; firstCol <= box[3]; firstCol += GridLattice.TILE_SIZE) {
+                    int count = (int) Math.min(GridLattice.TILE_SIZE, (long) box[3] - firstCol + 1);
+                    for (int c = 0; c < count; c++) {
+                        geohashBits[c] = GeohashCodec.encodeBits(latitude, lattice.centerLon(firstCol + c));
+                    }
+                    index.findCellIndexes(geohashBits, count, lgaIndexes);
+                    for (int c = 0; c < count; c++) {
+                        long value = ((long) (lgaIndexes[c] + 1) << GEOHASH_BITS) | geohashBits[c];
+                        if (insert(out, slotsOffset, slotCount, GridLattice.cellId(row, firstCol + c), value)) {
+                            entries++;
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    // LGA of every key, looked up at the key itself like BlockCodeDecoder's LGA cache, one batch per key row
+    private static void fillKeys(ByteBuffer out, int offset, LgaSpatialIndex index, List<int[]> keyBoxes) {
+        int position = offset;
+        for (int[] keyBox : keyBoxes) {
+            int width = keyBox[3] - keyBox[2] + 1;
+            double[] latitudes = new double[width];
+            double[] longitudes = new double[width];
+            int[] lgaIndexes = new int[width];
+            for (int c = 0; c < width; c++) {
+                longitudes[c] = lgaKeyDegrees(keyBox[2] + c);
+            }
+            for (int keyLat = keyBox[0]; keyLat <= keyBox[1]; keyLat++) {
+                Arrays.fill(latitudes, lgaKeyDegrees(keyLat));
+                index.findIndexes(latitudes, longitudes, width, lgaIndexes);
+                for (int c = 0; c < width; c++) {
+                    out.putShort(position, (short) (lgaIndexes[c] + 1));
+                    position += Short.BYTES;
+                }
+            }
+        }
+    }
+
+    // False if the cell was already there (boxes may overlap)
+    private static boolean insert(ByteBuffer out, int slotsOffset, int slotCount, long cellId, long value) {
+        int slot = slotOf(cellId, slotCount);
+        while (true) {
+            int position = slotsOffset + slot * SLOT_SIZE;
+            long key = out.getLong(position);
+            if (key == cellId) {
+                return false;
+            }
+            if (key == EMPTY) {
+                out.putLong(position, cellId);
+                out.putLong(position + 8, value);
+                return true;
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+    }
+
+    /**
+     * Maps a table file read-only
+     *
+     * @throws IOException if the file cannot be read, is not a hot cell index, has another version or is truncated
+     */
+    public static HotCellIndex map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return read(buffer, file);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt hot cell index " + file + ": " + e, e);
+        }
+    }
+
+    private static HotCellIndex read(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a hot cell index: " + file);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported hot cell index version " + version + " in " + file
+                    + " (expected " + VERSION + ")");
+        }
+        int boxCount = buffer.getInt(8);
+        int slotCount = buffer.getInt(12);
+        int entryCount = buffer.getInt(16);
+        if (boxCount < 0 || slotCount < 2 || slotCount > MAX_SLOTS || Integer.bitCount(slotCount) != 1
+                || entryCount < 0 || entryCount > slotCount / 2) {
+            throw new IOException("Corrupt hot cell index header: " + file);
+        }
+        int slotsOffset = align8(HEADER_SIZE + boxCount * BOX_SIZE);
+        int[][] boxes = new int[boxCount][8];
+        int[] keyOffsets = new int[boxCount];
+        long size = slotsOffset + (long) slotCount * SLOT_SIZE;
+        for (int b = 0; b < boxCount; b++) {
+            for (int i = 0; i < 8; i++) {
+                boxes[b][i] = buffer.getInt(HEADER_SIZE + b * BOX_SIZE + i * 4);
+            }
+            if (boxes[b][4] > boxes[b][5] || boxes[b][6] > boxes[b][7]) {
+                throw new IOException("Corrupt hot cell index key ranges: " + file);
+            }
+            keyOffsets[b] = (int) Math.min(size, Integer.MAX_VALUE);
+            size += keyCount(boxes[b], 4) * Short.BYTES;
+        }
+        if (size > buffer.limit()) {
+            throw new IOException("Truncated hot cell index: " + file);
+        }
+        return new HotCellIndex(buffer, new GridLattice(buffer.getDouble(32)), buffer.getLong(24), boxes,
+                slotCount, entryCount, slotsOffset, keyOffsets, size);
+    }
+
+    /**
+     * Whether this table was built for the lattice, LGA data and boxes, in that box order
+     */
+    public boolean matches(GridLattice lattice, LgaSpatialIndex index, List<int[]> boxes) {
+        if (lattice.getFactor() != 1 || lattice.getReferenceLatitude() != this.lattice.getReferenceLatitude()
+                || index.getFingerprint() != lgaFingerprint || boxes.size() != this.boxes.length) {
+            return false;
+        }
+        for (int b = 0; b < boxes.size(); b++) {
+            if (!Arrays.equals(boxes.get(b), 0, 4, this.boxes[b], 0, 4)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Value of the cell containing the point, or {@link #MISS}
+     */
+    public long lookup(double latitude, double longitude) {
+        return get(lattice.row(latitude), lattice.col(longitude));
+    }
+
+    /**
+     * Value of the cell at the given global row/column, or {@link #MISS}
+     */
+    public long get(int row, int col) {
+        if (covers(row, col)) {
+            long cellId = GridLattice.cellId(row, col);
+            int slot = slotOf(cellId, slotCount);
+            // Bounded even if a damaged file has no empty slot left
+            for (int probe = 0; probe < slotCount; probe++) {
+                int position = slotsOffset + slot * SLOT_SIZE;
+                long key = buffer.getLong(position);
+                if (key == cellId) {
+                    hits.increment();
+                    return buffer.getLong(position + 8);
+                }
+                if (key == EMPTY) {
+                    break;
+                }
+                slot = (slot + 1) & (slotCount - 1);
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * LGA of an LGA lookup key, the same LGA {@link LgaSpatialIndex#findIndex}
+     * gives at the key's latitude and longitude
+     *
+     * @return Index into the LGA list, -1 if the key is not inside any LGA, or
+     *         {@link #KEY_MISS} if it is outside the boxes
+     */
+    public int lgaIndexOfKey(int keyLat, int keyLon) {
+        for (int b = 0; b < boxes.length; b++) {
+            int[] box = boxes[b];
+            if (keyLat >= box[4] && keyLat <= box[5] && keyLon >= box[6] && keyLon <= box[7]) {
+                long position = keyOffsets[b]
+                        + ((long) (keyLat - box[4]) * (box[7] - box[6] + 1) + (keyLon - box[6])) * Short.BYTES;
+                hits.increment();
+                return Short.toUnsignedInt(buffer.getShort((int) position)) - 1;
+            }
+        }
+        return KEY_MISS;
+    }
+
+    /**
+     * Index into the LGA list of a value's cell, or -1 if it is not inside any LGA
+     */
+    public static int lgaIndex(long value) {
+        return (int) (value >>> GEOHASH_BITS) - 1;
+    }
+
+    /**
+     * Geohash bits of a value's cell centre
+     */
+    public static long geohashBits(long value) {
+        return value & GEOHASH_MASK;
+    }
+
+    public GridLattice getLattice() {
+        return lattice;
+    }
+
+    /**
+     * {@link LgaSpatialIndex#getFingerprint()} of the LGA data the LGA indexes refer to
+     */
+    public long getLgaFingerprint() {
+        return lgaFingerprint;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Entries, size of the mapping and hit count. Lookups outside the boxes
+     * are not counted, they are the normal case for most cells.
+     */
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "cells", entryCount,
+            "mappedBytes", size,
+            "hitCount", hits.sum()
+        );
+    }
+
+    private boolean covers(int row, int col) {
+        for (int[] box : boxes) {
+            if (row >= box[0] && row <= box[1] && col >= box[2] && col <= box[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Fibonacci hashing of the cell id, with the row folded into the low bits first
+    private static int slotOf(long cellId, int slotCount) {
+        long mixed = (cellId ^ (cellId >>> 29)) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> (Long.SIZE - Integer.numberOfTrailingZeros(slotCount)));
+    }
+
+    private static int align8(int offset) {
+        return (offset + 7) & ~7;
+    }
+}
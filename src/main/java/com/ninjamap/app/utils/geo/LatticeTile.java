@@ -0,0 +1,128 @@
+package com.ninjamap.app.utils.geo;
+
+/**
+ * Precomputed block code data for one {@link GridLattice} tile: the geohash
+ * bits of every cell centre and the index of that geohash cell's LGA
+ * ({@link LgaSpatialIndex#findCellIndexes}), stored as
+ * primitive arrays (10 bytes per cell) in row-major order. LGA indexes refer
+ * to the LGA list of the {@link LgaSnapshot} generation the tile records.
+ */
+public final class LatticeTile {
+
+    /** LGA index of cells that are not inside any LGA. */
+    public static final short NO_LGA = -1;
+
+    private static final int CELLS = GridLattice.TILE_SIZE * GridLattice.TILE_SIZE;
+
+    private final int tileRow;
+    private final int tileCol;
+    private final long generation;
+    private final long[] geohashBits;
+    private final short[] lgaIndexes;
+
+    private LatticeTile(int tileRow, int tileCol, long generation, long[] geohashBits, short[] lgaIndexes) {
+        this.tileRow = tileRow;
+        this.tileCol = tileCol;
+        this.generation = generation;
+        this.geohashBits = geohashBits;
+        this.lgaIndexes = lgaIndexes;
+    }
+
+    /**
+     * Computes the tile at the given tile coordinates from a snapshot's LGAs.
+     */
+    public static LatticeTile compute(GridLattice lattice, LgaSnapshot snapshot, int tileRow, int tileCol) {
+        return compute(lattice, snapshot.getSpatialIndex(), snapshot.getGeneration(), tileRow, tileCol);
+    }
+
+    /**
+     * Computes the tile at the given tile coordinates, with generation 0.
+     */
+    public static LatticeTile compute(GridLattice lattice, LgaSpatialIndex index, int tileRow, int tileCol) {
+        return compute(lattice, index, 0, tileRow, tileCol);
+    }
+
+    private static LatticeTile compute(GridLattice lattice, LgaSpatialIndex index, long generation,
+                                       int tileRow, int tileCol) {
+        if (index.size() > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many LGAs for a tile index: " + index.size());
+        }
+        long[] geohashBits = new long[CELLS];
+        short[] lgaIndexes = new short[CELLS];
+
+        int firstRow = tileRow << GridLattice.TILE_SHIFT;
+        int firstCol = tileCol << GridLattice.TILE_SHIFT;
+        // One batch LGA lookup per tile row
+        long[] rowBits = new long[GridLattice.TILE_SIZE];
+        int[] rowIndexes = new int[GridLattice.TILE_SIZE];
+        int i = 0;
+        for (int r = 0; r < GridLattice.TILE_SIZE; r++) {
+            double latitude = lattice.centerLat(firstRow + r);
+            for (int c = 0; c < GridLattice.TILE_SIZE; c++) {
+                rowBits[c] = GeohashCodec.encodeBits(latitude, lattice.centerLon(firstCol + c));
+            }
+            index.findCellIndexes(rowBits, GridLattice.TILE_SIZE, rowIndexes);
+            for (int c = 0; c < GridLattice.TILE_SIZE; c++, i++) {
+                geohashBits[i] = rowBits[c];
+                lgaIndexes[i] = (short) rowIndexes[c];
+            }
+        }
+        return new LatticeTile(tileRow, tileCol, generation, geohashBits, lgaIndexes);
+    }
+
+    /**
+     * This tile for the next generation of LGA data, with its LGA indexes
+     * remapped; the caller checks that no LGA of the tile's area changed.
+     */
+    public LatticeTile nextGeneration(LgaChanges changes) {
+        short[] remapped = lgaIndexes;
+        if (!changes.isPositionsKept()) {
+            remapped = new short[lgaIndexes.length];
+            for (int i = 0; i < lgaIndexes.length; i++) {
+                remapped[i] = (short) changes.remap(lgaIndexes[i]);
+            }
+        }
+        return new LatticeTile(tileRow, tileCol, generation + 1, geohashBits, remapped);
+    }
+
+    public int getTileRow() {
+        return tileRow;
+    }
+
+    public int getTileCol() {
+        return tileCol;
+    }
+
+    /**
+     * {@link LgaSnapshot#getGeneration()} of the LGA data the tile was computed from
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Geohash bits of the cell at the given global row/column, which must lie in this tile.
+     */
+    public long geohashBits(int row, int col) {
+        return geohashBits[offset(row, col)];
+    }
+
+    /**
+     * Index into the LGA list of the cell at the given global row/column, or {@link #NO_LGA}.
+     */
+    public int lgaIndex(int row, int col) {
+        return lgaIndexes[offset(row, col)];
+    }
+
+    /**
+     * Approximate heap size in bytes, used as the cache weight.
+     */
+    public long sizeInBytes() {
+        return 64L + geohashBits.length * 8L + lgaIndexes.length * 2L;
+    }
+
+    private static int offset(int row, int col) {
+        int mask = GridLattice.TILE_SIZE - 1;
+        return ((row & mask) << GridLattice.TILE_SHIFT) | (col & mask);
+    }
+}
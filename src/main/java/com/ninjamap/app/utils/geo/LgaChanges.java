@@ -0,0 +1,165 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * What changed for block codes between two LGA lists: which LGAs kept their
+ * code prefix and boundary, where they moved to, and the bounding boxes of
+ * every LGA that was added, removed or altered.
+ * <p>
+ * A point outside all changed boxes is only contained by unchanged LGAs, so
+ * while their relative order is kept ({@link #isOrderKept()}) its LGA is the
+ * same LGA before and after, found at {@link #remap} of its old index.
+ * Everything cached for such points stays valid. Names and other fields that
+ * do not appear in codes are not compared.
+ */
+public final class LgaChanges {
+
+    private final int[] remap;
+    private final boolean orderKept;
+    private final boolean positionsKept;
+    private final int changedCount;
+    // minLat, maxLat, minLon, maxLon per changed LGA, old and new boundary
+    private final double[][] boxes;
+
+    private LgaChanges(int[] remap, boolean orderKept, boolean positionsKept, int changedCount, double[][] boxes) {
+        this.remap = remap;
+        this.orderKept = orderKept;
+        this.positionsKept = positionsKept;
+        this.changedCount = changedCount;
+        this.boxes = boxes;
+    }
+
+    /**
+     * Matches every old LGA with the first unmatched new LGA of the same code
+     * prefix and identical boundary.
+     */
+    public static LgaChanges between(List<LGA> before, List<LGA> after) {
+        Map<String, List<Integer>> candidates = new HashMap<>();
+        for (int i = 0; i < after.size(); i++) {
+            candidates.computeIfAbsent(prefixOf(after.get(i)), key -> new ArrayList<>(1)).add(i);
+        }
+        boolean[] matched = new boolean[after.size()];
+        int[] remap = new int[before.size()];
+        List<double[]> boxes = new ArrayList<>();
+        boolean orderKept = true;
+        int last = -1;
+        for (int i = 0; i < before.size(); i++) {
+            remap[i] = -1;
+            for (int candidate : candidates.getOrDefault(prefixOf(before.get(i)), List.of())) {
+                if (!matched[candidate] && sameBoundary(before.get(i).getPackedBoundary(),
+                        after.get(candidate).getPackedBoundary())) {
+                    matched[candidate] = true;
+                    remap[i] = candidate;
+                    break;
+                }
+            }
+            if (remap[i] < 0) {
+                addBox(boxes, before.get(i));
+            } else {
+                orderKept &= remap[i] > last;
+                last = remap[i];
+            }
+        }
+        int added = 0;
+        for (int i = 0; i < after.size(); i++) {
+            if (!matched[i]) {
+                addBox(boxes, after.get(i));
+                added++;
+            }
+        }
+        boolean positionsKept = before.size() == after.size();
+        for (int i = 0; i < remap.length && positionsKept; i++) {
+            positionsKept = remap[i] < 0 || remap[i] == i;
+        }
+        int removed = (int) Arrays.stream(remap).filter(index -> index < 0).count();
+        return new LgaChanges(remap, orderKept, positionsKept, Math.max(removed, added),
+                boxes.toArray(new double[0][]));
+    }
+
+    /**
+     * Index in the new list of the old LGA at {@code index}, or -1 if it was
+     * removed or changed
+     */
+    public int remap(int index) {
+        return index < 0 || index >= remap.length ? -1 : remap[index];
+    }
+
+    /**
+     * Whether the unchanged LGAs are still in the same relative order; if
+     * not, any lookup may differ and nothing derived can be kept
+     */
+    public boolean isOrderKept() {
+        return orderKept;
+    }
+
+    /**
+     * Whether every unchanged LGA kept its index and the list its length, so
+     * indexes stored before remain valid as they are
+     */
+    public boolean isPositionsKept() {
+        return positionsKept;
+    }
+
+    /**
+     * Number of LGAs altered, counting an added or removed LGA as one
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Whether the LGA containing a point may have changed
+     */
+    public boolean affects(double latitude, double longitude) {
+        return affects(latitude, longitude, latitude, longitude);
+    }
+
+    /**
+     * Whether the LGA of any point inside the box may have changed
+     */
+    public boolean affects(double minLat, double minLon, double maxLat, double maxLon) {
+        if (!orderKept) {
+            return true;
+        }
+        for (double[] box : boxes) {
+            if (minLat <= box[1] && maxLat >= box[0] && minLon <= box[3] && maxLon >= box[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addBox(List<double[]> boxes, LGA lga) {
+        PackedPolygon polygon = lga.getPackedBoundary();
+        if (!polygon.isEmpty()) {
+            boxes.add(new double[] { polygon.getMinLat(), polygon.getMaxLat(), polygon.getMinLon(), polygon.getMaxLon() });
+        }
+    }
+
+    // What block codes are made of; String concatenation renders null as "null", as in the codes
+    private static String prefixOf(LGA lga) {
+        return lga.getStateCode() + "|" + lga.getLgaCode();
+    }
+
+    private static boolean sameBoundary(PackedPolygon a, PackedPolygon b) {
+        if (a.getPointCount() != b.getPointCount() || a.getMinLat() != b.getMinLat() || a.getMaxLat() != b.getMaxLat()
+                || a.getMinLon() != b.getMinLon() || a.getMaxLon() != b.getMaxLon()
+                || !Arrays.equals(a.getRingStarts(), b.getRingStarts())) {
+            return false;
+        }
+        return Arrays.equals(a.getCoords(), b.getCoords());
+    }
+
+    @Override
+    public String toString() {
+        return "LgaChanges[changed=" + changedCount + ", orderKept=" + orderKept + ", positionsKept="
+                + positionsKept + "]";
+    }
+}
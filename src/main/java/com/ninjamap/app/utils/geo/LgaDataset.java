@@ -0,0 +1,292 @@
+package com.ninjamap.app.utils.geo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * Versioned binary LGA dataset, compiled offline from {@code nigeria_lga.json}
+ * and memory-mapped at startup.
+ * <p>
+ * All values are little-endian:
+ * <pre>
+ * header   "NMLG", version, lgaCount, ringStartCount (ints),
+ *          pointCount, stringsOffset, coordsOffset (longs)         40 bytes
+ * table    per LGA: id, firstRingStart, ringCount, firstPoint (ints),
+ *          minLat, maxLat, minLon, maxLon (doubles)                 48 bytes each
+ * rings    per LGA: ringCount + 1 point indexes relative to firstPoint
+ * strings  per LGA: stateName, stateCode, lgaName, lgaCode as
+ *          int byte length (-1 = null) + UTF-8
+ * coords   8-byte aligned interleaved lon/lat doubles of every ring
+ * </pre>
+ * Mapped polygons read their coordinates straight from the mapping, so the
+ * boundary data never enters the heap; only the small per-LGA objects do.
+ * Zone fields are not stored.
+ */
+public final class LgaDataset {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x474C4D4E; // "NMLG" read little-endian
+    private static final int HEADER_SIZE = 40;
+    private static final int TABLE_ENTRY_SIZE = 48;
+
+    private LgaDataset() {
+    }
+
+    /**
+     * Writes the LGAs atomically: a temporary file next to {@code target} is
+     * moved into place once complete.
+     */
+    public static void write(List<LGA> lgas, Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                write(lgas, out);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public static void write(List<LGA> lgas, OutputStream target) throws IOException {
+        int ringStartCount = 0;
+        long pointCount = 0;
+        List<byte[][]> strings = new ArrayList<>(lgas.size());
+        long stringBytes = 0;
+        for (LGA lga : lgas) {
+            PackedPolygon polygon = lga.getPackedBoundary();
+            ringStartCount += polygon.getRingStarts().length;
+            pointCount += polygon.getPointCount();
+            byte[][] fields = {
+                utf8(lga.getStateName()), utf8(lga.getStateCode()), utf8(lga.getLgaName()), utf8(lga.getLgaCode())
+            };
+            for (byte[] field : fields) {
+                stringBytes += 4 + (field == null ? 0 : field.length);
+            }
+            strings.add(fields);
+        }
+        if (pointCount > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Too many points for the dataset format: " + pointCount);
+        }
+        long stringsOffset = HEADER_SIZE + (long) lgas.size() * TABLE_ENTRY_SIZE + ringStartCount * 4L;
+        long coordsOffset = align8(stringsOffset + stringBytes);
+
+        LittleEndianOutput out = new LittleEndianOutput(target);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(lgas.size());
+        out.writeInt(ringStartCount);
+        out.writeLong(pointCount);
+        out.writeLong(stringsOffset);
+        out.writeLong(coordsOffset);
+
+        int ringStart = 0;
+        int point = 0;
+        for (LGA lga : lgas) {
+            PackedPolygon polygon = lga.getPackedBoundary();
+            out.writeInt(lga.getId());
+            out.writeInt(ringStart);
+            out.writeInt(polygon.getRingCount());
+            out.writeInt(point);
+            out.writeDouble(polygon.getMinLat());
+            out.writeDouble(polygon.getMaxLat());
+            out.writeDouble(polygon.getMinLon());
+            out.writeDouble(polygon.getMaxLon());
+            ringStart += polygon.getRingStarts().length;
+            point += polygon.getPointCount();
+        }
+        for (LGA lga : lgas) {
+            for (int start : lga.getPackedBoundary().getRingStarts()) {
+                out.writeInt(start);
+            }
+        }
+        for (byte[][] fields : strings) {
+            for (byte[] field : fields) {
+                out.writeInt(field == null ? -1 : field.length);
+                if (field != null) {
+                    out.write(field);
+                }
+            }
+        }
+        out.pad(coordsOffset - (stringsOffset + stringBytes));
+        for (LGA lga : lgas) {
+            PackedPolygon polygon = lga.getPackedBoundary();
+            double[] coords = polygon.getCoords();
+            for (int i = 0; i < polygon.getPointCount() * 2; i++) {
+                out.writeDouble(coords[i]);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Maps a dataset file read-only. The LGAs come back in file (source)
+     * order, already compact, with boundaries backed by the mapping.
+     *
+     * @throws IOException if the file cannot be read, is not a dataset, has another version or is truncated
+     */
+    public static List<LGA> map(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return read(buffer, file.toString());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt LGA dataset " + file + ": " + e, e);
+        }
+    }
+
+    /**
+     * Reads a dataset held in memory, e.g. an uploaded file. The boundaries
+     * are backed by {@code content}, which must not be modified afterwards.
+     *
+     * @throws IOException if the content is not a dataset, has another version or is truncated
+     */
+    public static List<LGA> read(byte[] content) throws IOException {
+        try {
+            return read(ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN), "LGA data in memory");
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt LGA dataset: " + e, e);
+        }
+    }
+
+    /**
+     * Whether the content starts like a dataset rather than the JSON format
+     */
+    public static boolean isDataset(byte[] content) {
+        return content.length >= 4 && ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+    }
+
+    private static List<LGA> read(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an LGA dataset: " + source);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported LGA dataset version " + version + " in " + source
+                    + " (expected " + VERSION + ")");
+        }
+        int lgaCount = buffer.getInt(8);
+        int ringStartCount = buffer.getInt(12);
+        long pointCount = buffer.getLong(16);
+        long stringsOffset = buffer.getLong(24);
+        long coordsOffset = buffer.getLong(32);
+        if (lgaCount < 0 || ringStartCount < 0 || pointCount < 0
+                || HEADER_SIZE + (long) lgaCount * TABLE_ENTRY_SIZE + ringStartCount * 4L > stringsOffset
+                || stringsOffset > coordsOffset || coordsOffset + pointCount * 16 > buffer.limit()) {
+            throw new IOException("Corrupt LGA dataset header: " + source);
+        }
+
+        DoubleBuffer coords = buffer.position((int) coordsOffset).slice()
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        ByteBuffer strings = buffer.position((int) stringsOffset).slice().order(ByteOrder.LITTLE_ENDIAN);
+        int ringsOffset = HEADER_SIZE + lgaCount * TABLE_ENTRY_SIZE;
+
+        List<LGA> lgas = new ArrayList<>(lgaCount);
+        for (int i = 0; i < lgaCount; i++) {
+            int entry = HEADER_SIZE + i * TABLE_ENTRY_SIZE;
+            int firstRingStart = buffer.getInt(entry + 4);
+            int ringCount = buffer.getInt(entry + 8);
+            int firstPoint = buffer.getInt(entry + 12);
+
+            int[] ringStarts = new int[ringCount + 1];
+            for (int r = 0; r <= ringCount; r++) {
+                ringStarts[r] = buffer.getInt(ringsOffset + (firstRingStart + r) * 4);
+                // Rings must be in order, so lookups can never index outside the coordinates
+                if (ringStarts[r] < (r == 0 ? 0 : ringStarts[r - 1]) || (r == 0 && ringStarts[r] != 0)) {
+                    throw new IOException("Corrupt ring table for LGA " + i + " in " + source);
+                }
+            }
+            int points = ringStarts[ringCount];
+
+            LGA lga = new LGA();
+            lga.setId(buffer.getInt(entry));
+            lga.setStateName(readString(strings));
+            lga.setStateCode(readString(strings));
+            lga.setLgaName(readString(strings));
+            lga.setLgaCode(readString(strings));
+            lga.setPackedBoundary(PackedPolygon.mapped(coords.slice(firstPoint * 2, points * 2), ringStarts,
+                    buffer.getDouble(entry + 16), buffer.getDouble(entry + 24),
+                    buffer.getDouble(entry + 32), buffer.getDouble(entry + 40)));
+            lgas.add(lga);
+        }
+        return lgas;
+    }
+
+    private static String readString(ByteBuffer strings) {
+        int length = strings.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        strings.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     * {@link DataOutputStream} is big-endian only, so values are reversed on the way out.
+     */
+    private static final class LittleEndianOutput {
+        private final DataOutputStream out;
+
+        LittleEndianOutput(OutputStream target) {
+            this.out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(Integer.reverseBytes(value));
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(Long.reverseBytes(value));
+        }
+
+        void writeDouble(double value) throws IOException {
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+        }
+
+        void pad(long count) throws IOException {
+            for (long i = 0; i < count; i++) {
+                out.write(0);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
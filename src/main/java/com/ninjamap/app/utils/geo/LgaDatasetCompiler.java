@@ -0,0 +1,83 @@
+package com.ninjamap.app.utils.geo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+/**
+ * Offline converter from the LGA JSON to the binary {@link LgaDataset}.
+ * <p>
+ * Usage: {@code LgaDatasetCompiler <input.json | classpath:nigeria_lga.json> <output.bin>},
+ * or {@code mvn -Plga-dataset compile exec:java} with {@code -Dlga.json} and
+ * {@code -Dlga.dataset}. The output is checked by mapping it back and
+ * comparing every LGA before the tool reports success.
+ */
+public final class LgaDatasetCompiler {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private LgaDatasetCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LgaDatasetCompiler <input.json | classpath:resource.json> <output.bin>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        List<LGA> lgas;
+        try (Reader reader = new InputStreamReader(open(args[0]), StandardCharsets.UTF_8)) {
+            lgas = BlockCodeDecoder.parseLGAs(reader);
+        }
+        lgas.forEach(LGA::compact);
+
+        Path output = Path.of(args[1]);
+        LgaDataset.write(lgas, output);
+        verify(lgas, LgaDataset.map(output));
+
+        long points = lgas.stream().mapToLong(lga -> lga.getPackedBoundary().getPointCount()).sum();
+        System.out.printf("Wrote %d LGAs (%d points, %d bytes) to %s in %d ms%n",
+                lgas.size(), points, Files.size(output), output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static InputStream open(String input) throws IOException {
+        if (input.startsWith(CLASSPATH_PREFIX)) {
+            String resource = input.substring(CLASSPATH_PREFIX.length());
+            InputStream in = LgaDatasetCompiler.class.getClassLoader().getResourceAsStream(resource);
+            if (in == null) {
+                throw new IOException("Classpath resource not found: " + resource);
+            }
+            return in;
+        }
+        return Files.newInputStream(Path.of(input));
+    }
+
+    private static void verify(List<LGA> expected, List<LGA> actual) throws IOException {
+        if (expected.size() != actual.size()) {
+            throw new IOException("Dataset has " + actual.size() + " LGAs, expected " + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            LGA source = expected.get(i);
+            LGA mapped = actual.get(i);
+            PackedPolygon sourcePolygon = source.getPackedBoundary();
+            PackedPolygon mappedPolygon = mapped.getPackedBoundary();
+            boolean same = source.getId() == mapped.getId()
+                    && String.valueOf(source.getStateCode()).equals(String.valueOf(mapped.getStateCode()))
+                    && String.valueOf(source.getLgaCode()).equals(String.valueOf(mapped.getLgaCode()))
+                    && Arrays.equals(sourcePolygon.getRingStarts(), mappedPolygon.getRingStarts())
+                    && Arrays.equals(sourcePolygon.getCoords(), mappedPolygon.getCoords());
+            if (!same) {
+                throw new IOException("Dataset differs from the JSON at LGA " + i + " (" + source.getLgaName() + ")");
+            }
+        }
+    }
+}
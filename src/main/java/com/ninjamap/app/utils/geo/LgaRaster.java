@@ -0,0 +1,334 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * Precomputed point-to-LGA lookup table over the bounding box of all LGAs.
+ * <p>
+ * The box is divided into square cells of {@code cellDegrees}; each cell holds
+ * the index of the LGA covering it, {@link #NO_LGA}, or {@link #BOUNDARY} when
+ * any polygon edge touches the cell. A cell no edge touches lies entirely on
+ * one side of every ring, so every point in it resolves exactly like its
+ * centre; only boundary cells need the exact polygon test. Cells are grouped in
+ * tiles of {@value #TILE_SIZE} x {@value #TILE_SIZE}, and a tile that lies
+ * wholly inside one LGA (most of them) is stored as a single value.
+ * <p>
+ * Built band by band: each band of tile rows is scanline-filled with the
+ * even-odd rule (lower source index wins where polygons overlap, as in
+ * {@link LgaSpatialIndex}), then every edge marks the cells it passes through
+ * as boundary, conservatively widened by a small epsilon.
+ */
+public final class LgaRaster {
+
+    /** No LGA covers the cell. */
+    public static final int NO_LGA = -1;
+
+    /** An LGA edge touches the cell: resolve with the exact polygon test. */
+    public static final int BOUNDARY = -2;
+
+    private static final int TILE_SHIFT = 4;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    // Widening applied when marking edge cells, in cells
+    private static final double EDGE_EPSILON = 1e-6;
+
+    private final double minLat;
+    private final double minLon;
+    private final double cellDegrees;
+    private final double inverseCell;
+    private final int rows;
+    private final int cols;
+    private final int tilesAcross;
+    // Per tile: the cells, or null when every cell holds uniformValues[tile]
+    private final short[][] tileCells;
+    private final short[] uniformValues;
+    private long boundaryCells;
+
+    private LgaRaster(double minLat, double minLon, double cellDegrees, int rows, int cols) {
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.cellDegrees = cellDegrees;
+        this.inverseCell = 1.0 / cellDegrees;
+        this.rows = rows;
+        this.cols = cols;
+        this.tilesAcross = (cols + TILE_MASK) >> TILE_SHIFT;
+        int tilesDown = (rows + TILE_MASK) >> TILE_SHIFT;
+        this.tileCells = new short[tilesAcross * tilesDown][];
+        this.uniformValues = new short[tilesAcross * tilesDown];
+    }
+
+    /**
+     * Rasterises the LGAs of an index.
+     *
+     * @param cellDegrees cell edge in degrees (0.001 is ~111 m)
+     * @return the raster, or null if there is nothing to rasterise
+     * @throws IllegalArgumentException if the cell size is not positive or there are too many LGAs for a short index
+     */
+    public static LgaRaster build(LgaSpatialIndex index, double cellDegrees) {
+        if (!(cellDegrees > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        List<LGA> lgas = index.getLgas();
+        if (lgas.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many LGAs for the raster: " + lgas.size());
+        }
+
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (LGA lga : lgas) {
+            PackedPolygon polygon = lga.getPackedBoundary();
+            if (!polygon.isEmpty()) {
+                minLat = Math.min(minLat, polygon.getMinLat());
+                maxLat = Math.max(maxLat, polygon.getMaxLat());
+                minLon = Math.min(minLon, polygon.getMinLon());
+                maxLon = Math.max(maxLon, polygon.getMaxLon());
+            }
+        }
+        if (minLat > maxLat) {
+            return null;
+        }
+        // Snap the origin to the cell size so rasters of the same data line up
+        minLat = Math.floor(minLat / cellDegrees) * cellDegrees;
+        minLon = Math.floor(minLon / cellDegrees) * cellDegrees;
+        // Same arithmetic as lookup(), plus a margin, so points on the far edges stay inside
+        double inverseCell = 1.0 / cellDegrees;
+        long rows = (long) Math.floor((maxLat - minLat) * inverseCell) + 2;
+        long cols = (long) Math.floor((maxLon - minLon) * inverseCell) + 2;
+        if (rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Raster too large for cell size " + cellDegrees);
+        }
+
+        LgaRaster raster = new LgaRaster(minLat, minLon, cellDegrees, (int) rows, (int) cols);
+        Builder builder = raster.new Builder(index);
+        for (int bandRow = 0; bandRow < raster.rows; bandRow += TILE_SIZE) {
+            builder.buildBand(bandRow);
+        }
+        raster.boundaryCells = builder.boundaryCells;
+        return raster;
+    }
+
+    /**
+     * Index of the LGA covering the point, {@link #NO_LGA}, or {@link #BOUNDARY}
+     * when the caller has to run the exact polygon test.
+     */
+    public int lookup(double latitude, double longitude) {
+        double y = (latitude - minLat) * inverseCell;
+        double x = (longitude - minLon) * inverseCell;
+        // Also rejects NaN
+        if (!(y >= 0 && y < rows && x >= 0 && x < cols)) {
+            return NO_LGA;
+        }
+        int row = (int) y;
+        int col = (int) x;
+        int tile = (row >> TILE_SHIFT) * tilesAcross + (col >> TILE_SHIFT);
+        short[] cells = tileCells[tile];
+        if (cells == null) {
+            return uniformValues[tile];
+        }
+        return cells[((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK)];
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Share of cells that fall back to the exact polygon test.
+     */
+    public double getBoundaryFraction() {
+        return (double) boundaryCells / ((long) rows * cols);
+    }
+
+    /**
+     * Approximate heap footprint of the table.
+     */
+    public long sizeInBytes() {
+        long bytes = 16L + tileCells.length * 8L + uniformValues.length * 2L;
+        for (short[] cells : tileCells) {
+            if (cells != null) {
+                bytes += 16L + cells.length * 2L;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Rasterises one band of {@value #TILE_SIZE} cell rows at a time into a
+     * scratch buffer, then compresses the band into tiles.
+     */
+    private final class Builder {
+        private final LgaSpatialIndex index;
+        private final short[] band;
+        // Coordinates fetched once per LGA: buffer-backed polygons copy on every getCoords()
+        private final double[][] coordsByLga;
+        private double[] crossings = new double[64];
+        private long boundaryCells;
+
+        Builder(LgaSpatialIndex index) {
+            this.index = index;
+            this.band = new short[TILE_SIZE * cols];
+            this.coordsByLga = new double[index.size()][];
+        }
+
+        void buildBand(int bandRow) {
+            int bandRows = Math.min(TILE_SIZE, rows - bandRow);
+            Arrays.fill(band, (short) NO_LGA);
+
+            double bandMinLat = minLat + bandRow * cellDegrees;
+            double bandMaxLat = minLat + (bandRow + bandRows) * cellDegrees;
+            List<Integer> candidates = index.findIntersecting(bandMinLat, bandMaxLat,
+                    minLon, minLon + cols * cellDegrees);
+            for (int candidate : candidates) {
+                fill(index.getLgas().get(candidate).getPackedBoundary(), coords(candidate), candidate, bandRow, bandRows);
+            }
+            for (int candidate : candidates) {
+                markEdges(index.getLgas().get(candidate).getPackedBoundary(), coords(candidate), bandRow, bandRows);
+            }
+            compress(bandRow, bandRows);
+        }
+
+        private double[] coords(int lgaIndex) {
+            double[] coords = coordsByLga[lgaIndex];
+            if (coords == null) {
+                coords = index.getLgas().get(lgaIndex).getPackedBoundary().getCoords();
+                coordsByLga[lgaIndex] = coords;
+            }
+            return coords;
+        }
+
+        /**
+         * Even-odd scanline fill through the cell centres of each row.
+         */
+        private void fill(PackedPolygon polygon, double[] c, int lgaIndex, int bandRow, int bandRows) {
+            int[] ringStarts = polygon.getRingStarts();
+            int firstRow = Math.max(bandRow, (int) Math.floor((polygon.getMinLat() - minLat) * inverseCell));
+            int lastRow = Math.min(bandRow + bandRows - 1, (int) Math.floor((polygon.getMaxLat() - minLat) * inverseCell));
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                double latitude = minLat + (row + 0.5) * cellDegrees;
+                int count = 0;
+                for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+                    int start = ringStarts[ring] * 2;
+                    int end = ringStarts[ring + 1] * 2;
+                    int j = end - 2;
+                    for (int i = start; i < end; i += 2) {
+                        double yi = c[i + 1];
+                        double yj = c[j + 1];
+                        if ((yi > latitude) != (yj > latitude)) {
+                            if (count == crossings.length) {
+                                crossings = Arrays.copyOf(crossings, count * 2);
+                            }
+                            crossings[count++] = (c[j] - c[i]) * (latitude - yi) / (yj - yi) + c[i];
+                        }
+                        j = i;
+                    }
+                }
+                Arrays.sort(crossings, 0, count);
+
+                int offset = (row - bandRow) * cols;
+                for (int k = 0; k + 1 < count; k += 2) {
+                    // Cells whose centre lies strictly between an entering and a leaving crossing
+                    int fromCol = Math.max(0, (int) Math.ceil((crossings[k] - minLon) * inverseCell - 0.5));
+                    int toCol = Math.min(cols - 1, (int) Math.ceil((crossings[k + 1] - minLon) * inverseCell - 0.5) - 1);
+                    for (int col = fromCol; col <= toCol; col++) {
+                        short current = band[offset + col];
+                        if (current == NO_LGA || current > lgaIndex) {
+                            band[offset + col] = (short) lgaIndex;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks every cell of the band an edge passes through: for each cell row
+         * the segment crosses, the columns spanned by its part inside that row.
+         */
+        private void markEdges(PackedPolygon polygon, double[] c, int bandRow, int bandRows) {
+            int[] ringStarts = polygon.getRingStarts();
+            for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+                int start = ringStarts[ring] * 2;
+                int end = ringStarts[ring + 1] * 2;
+                int j = end - 2;
+                for (int i = start; i < end; i += 2) {
+                    markSegment((c[j] - minLon) * inverseCell, (c[j + 1] - minLat) * inverseCell,
+                            (c[i] - minLon) * inverseCell, (c[i + 1] - minLat) * inverseCell, bandRow, bandRows);
+                    j = i;
+                }
+            }
+        }
+
+        // Coordinates are in cell units relative to the raster origin
+        private void markSegment(double x0, double y0, double x1, double y1, int bandRow, int bandRows) {
+            double lowY = Math.min(y0, y1);
+            double highY = Math.max(y0, y1);
+            int firstRow = Math.max(bandRow, (int) Math.floor(lowY - EDGE_EPSILON));
+            int lastRow = Math.min(bandRow + bandRows - 1, (int) Math.floor(highY + EDGE_EPSILON));
+            for (int row = firstRow; row <= lastRow; row++) {
+                // Part of the segment within this row's latitude range
+                double spanLowY = Math.max(lowY, row);
+                double spanHighY = Math.min(highY, row + 1);
+                double xa;
+                double xb;
+                if (highY == lowY) {
+                    xa = x0;
+                    xb = x1;
+                } else {
+                    xa = x0 + (x1 - x0) * (spanLowY - y0) / (y1 - y0);
+                    xb = x0 + (x1 - x0) * (spanHighY - y0) / (y1 - y0);
+                }
+                int fromCol = Math.max(0, (int) Math.floor(Math.min(xa, xb) - EDGE_EPSILON));
+                int toCol = Math.min(cols - 1, (int) Math.floor(Math.max(xa, xb) + EDGE_EPSILON));
+                int offset = (row - bandRow) * cols;
+                for (int col = fromCol; col <= toCol; col++) {
+                    band[offset + col] = BOUNDARY;
+                }
+            }
+        }
+
+        private void compress(int bandRow, int bandRows) {
+            int tileRow = bandRow >> TILE_SHIFT;
+            for (int tileCol = 0; tileCol < tilesAcross; tileCol++) {
+                int firstCol = tileCol << TILE_SHIFT;
+                int tileCols = Math.min(TILE_SIZE, cols - firstCol);
+                short first = band[firstCol];
+                boolean uniform = true;
+                for (int r = 0; r < bandRows; r++) {
+                    int offset = r * cols + firstCol;
+                    for (int col = 0; col < tileCols; col++) {
+                        short value = band[offset + col];
+                        if (value == BOUNDARY) {
+                            boundaryCells++;
+                        }
+                        uniform &= value == first;
+                    }
+                }
+
+                int tile = tileRow * tilesAcross + tileCol;
+                if (uniform) {
+                    uniformValues[tile] = first;
+                    continue;
+                }
+                // Cells past the raster edge keep NO_LGA; lookups never reach them
+                short[] cells = new short[TILE_SIZE * TILE_SIZE];
+                Arrays.fill(cells, (short) NO_LGA);
+                for (int r = 0; r < bandRows; r++) {
+                    System.arraycopy(band, r * cols + firstCol, cells, r << TILE_SHIFT, tileCols);
+                }
+                tileCells[tile] = cells;
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * One generation of LGA data with everything derived from it: the spatial
+ * index, the block code prefix table, the decoder caches and the optional
+ * {@link HotCellIndex}.
+ * <p>
+ * Snapshots are published whole through a single volatile field, so a reader
+ * that takes one snapshot sees LGA indexes, LGA objects and cached values
+ * that belong together, and never waits for a reload. The caches are mutable
+ * but only ever filled with values computed from their own snapshot; a new
+ * generation gets new caches seeded with the entries that are still valid.
+ */
+public final class LgaSnapshot {
+
+    private final long generation;
+    private final LgaSpatialIndex spatialIndex;
+    private final Map<String, LGA> lgasByPrefix;
+    private final LongKeyedCache<LGA> lgaCache;
+    private final LongKeyedCache<String> blockCodeCache;
+    private final HotCellIndex hotCells;
+    private final LgaChanges changes;
+
+    /**
+     * @param changes what changed since generation - 1, null for the first generation
+     */
+    public LgaSnapshot(long generation, LgaSpatialIndex spatialIndex, LongKeyedCache<LGA> lgaCache,
+                       LongKeyedCache<String> blockCodeCache, HotCellIndex hotCells, LgaChanges changes) {
+        this(generation, spatialIndex, prefixesOf(spatialIndex.getLgas()), lgaCache, blockCodeCache, hotCells, changes);
+    }
+
+    private LgaSnapshot(long generation, LgaSpatialIndex spatialIndex, Map<String, LGA> lgasByPrefix,
+                        LongKeyedCache<LGA> lgaCache, LongKeyedCache<String> blockCodeCache, HotCellIndex hotCells,
+                        LgaChanges changes) {
+        this.generation = generation;
+        this.spatialIndex = spatialIndex;
+        this.lgasByPrefix = lgasByPrefix;
+        this.lgaCache = lgaCache;
+        this.blockCodeCache = blockCodeCache;
+        this.hotCells = hotCells;
+        this.changes = changes;
+    }
+
+    /**
+     * The same generation with other caches
+     */
+    public LgaSnapshot withCaches(LongKeyedCache<LGA> lgaCache, LongKeyedCache<String> blockCodeCache) {
+        return new LgaSnapshot(generation, spatialIndex, lgasByPrefix, lgaCache, blockCodeCache, hotCells, changes);
+    }
+
+    /**
+     * The same generation with another hot cell table, which must have been
+     * built from this snapshot's spatial index
+     */
+    public LgaSnapshot withHotCells(HotCellIndex hotCells) {
+        if (hotCells != null && hotCells.getLgaFingerprint() != spatialIndex.getFingerprint()) {
+            throw new IllegalArgumentException("Hot cell index was built from other LGA data");
+        }
+        return new LgaSnapshot(generation, spatialIndex, lgasByPrefix, lgaCache, blockCodeCache, hotCells, changes);
+    }
+
+    /**
+     * Starts at 1 and grows by one with every reload
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public LgaSpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * The LGAs in source order, the list LGA indexes of this generation refer to
+     */
+    public List<LGA> getLgas() {
+        return spatialIndex.getLgas();
+    }
+
+    /**
+     * The LGA at an index of {@link #getLgas()}, null for a negative index (no LGA)
+     */
+    public LGA lgaAt(int index) {
+        return index < 0 ? null : spatialIndex.getLgas().get(index);
+    }
+
+    /**
+     * LGA a block code prefix ({@code stateCode+lgaCode}) was generated from, or null
+     */
+    public LGA findByPrefix(String prefix) {
+        return lgasByPrefix.get(prefix);
+    }
+
+    public LongKeyedCache<LGA> getLgaCache() {
+        return lgaCache;
+    }
+
+    public LongKeyedCache<String> getBlockCodeCache() {
+        return blockCodeCache;
+    }
+
+    /**
+     * Off-heap table of hot lattice cells, or null
+     */
+    public HotCellIndex getHotCells() {
+        return hotCells;
+    }
+
+    /**
+     * What changed since the previous generation, null for the first one
+     */
+    public LgaChanges getChanges() {
+        return changes;
+    }
+
+    private static Map<String, LGA> prefixesOf(List<LGA> lgas) {
+        Map<String, LGA> prefixes = new HashMap<>();
+        for (LGA lga : lgas) {
+            // First one wins, matching findLGA's source-order tie break
+            prefixes.putIfAbsent(lga.getStateCode() + lga.getLgaCode(), lga);
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,283 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.ItemVisitor;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * Bounding-box index over the LGA polygons.
+ * <p>
+ * Built once from the loaded LGA list using a JTS {@link STRtree}; a lookup
+ * only runs the exact point-in-polygon test on LGAs whose bounding box
+ * contains the point. When boxes (or polygons) overlap, the LGA that comes
+ * first in the source list wins, which is what the linear scan always did.
+ * The tree is built eagerly so concurrent queries never trigger a lazy build.
+ * <p>
+ * An optional {@link LgaRaster} answers most point lookups with one array
+ * read; only points in cells crossed by a boundary go through the tree.
+ */
+public final class LgaSpatialIndex {
+
+    private final List<LGA> lgas;
+    private final STRtree tree;
+    private final long fingerprint;
+    private volatile LgaRaster raster;
+
+    public LgaSpatialIndex(List<LGA> lgas) {
+        this.lgas = List.copyOf(lgas);
+        this.tree = new STRtree();
+        for (int i = 0; i < this.lgas.size(); i++) {
+            Envelope envelope = envelopeOf(this.lgas.get(i));
+            if (envelope != null) {
+                tree.insert(envelope, i);
+            }
+        }
+        tree.build();
+        this.fingerprint = fingerprintOf(this.lgas);
+    }
+
+    /**
+     * Finds the LGA containing the given point, or null if none does.
+     */
+    public LGA find(double latitude, double longitude) {
+        int index = findIndex(latitude, longitude);
+        return index < 0 ? null : lgas.get(index);
+    }
+
+    /**
+     * Finds the position in {@link #getLgas()} of the LGA containing the point, or -1 if none does.
+     */
+    public int findIndex(double latitude, double longitude) {
+        LgaRaster lookupTable = raster;
+        if (lookupTable != null) {
+            int index = lookupTable.lookup(latitude, longitude);
+            if (index != LgaRaster.BOUNDARY) {
+                return index;
+            }
+        }
+        return findIndexExact(latitude, longitude);
+    }
+
+    /**
+     * Same as {@link #findIndex} using only the tree and exact polygon tests.
+     */
+    public int findIndexExact(double latitude, double longitude) {
+        MatchVisitor visitor = new MatchVisitor(lgas, latitude, longitude);
+        tree.query(new Envelope(longitude, longitude, latitude, latitude), visitor);
+        return visitor.bestIndex == Integer.MAX_VALUE ? -1 : visitor.bestIndex;
+    }
+
+    /**
+     * LGA positions of the first {@code count} geohash cells, each looked up at
+     * the LGA key of its centre ({@link HotCellIndex#lgaKeysOf}). This is the LGA
+     * of every block code, whichever endpoint or cache produces it.
+     *
+     * @param result receives the LGA position of each cell, or -1
+     */
+    public void findCellIndexes(long[] geohashBits, int count, int[] result) {
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            long keys = HotCellIndex.lgaKeysOf(geohashBits[i]);
+            latitudes[i] = HotCellIndex.lgaKeyDegrees((int) (keys >> 32));
+            longitudes[i] = HotCellIndex.lgaKeyDegrees((int) keys);
+        }
+        findIndexes(latitudes, longitudes, count, result);
+    }
+
+    /**
+     * Batch form of {@link #findIndex} for the first {@code count} points of
+     * the arrays. Points the raster cannot answer are grouped by candidate
+     * LGA, and each candidate polygon is tested once against all of its
+     * points with {@link PackedPolygon#containsAll}, in ascending LGA order so
+     * the first LGA in the source list still wins.
+     *
+     * @param result receives the LGA position of each point, or -1
+     */
+    public void findIndexes(double[] latitudes, double[] longitudes, int count, int[] result) {
+        LgaRaster lookupTable = raster;
+        int[] pending = new int[count];
+        int pendingCount = 0;
+        for (int i = 0; i < count; i++) {
+            int index = lookupTable != null ? lookupTable.lookup(latitudes[i], longitudes[i]) : LgaRaster.BOUNDARY;
+            if (index == LgaRaster.BOUNDARY) {
+                pending[pendingCount++] = i;
+                result[i] = -1;
+            } else {
+                result[i] = index;
+            }
+        }
+        if (pendingCount == 0) {
+            return;
+        }
+
+        // (candidate << 32 | point) for every bounding box hit, sorted so points group by candidate
+        CandidateVisitor visitor = new CandidateVisitor(pendingCount);
+        for (int k = 0; k < pendingCount; k++) {
+            int point = pending[k];
+            visitor.point = point;
+            tree.query(new Envelope(longitudes[point], longitudes[point], latitudes[point], latitudes[point]), visitor);
+        }
+        long[] pairs = visitor.pairs;
+        Arrays.sort(pairs, 0, visitor.count);
+
+        double[] batchLatitudes = new double[pendingCount];
+        double[] batchLongitudes = new double[pendingCount];
+        int[] batchPoints = new int[pendingCount];
+        boolean[] inside = new boolean[pendingCount];
+        int from = 0;
+        while (from < visitor.count) {
+            int candidate = (int) (pairs[from] >>> 32);
+            int batch = 0;
+            int to = from;
+            for (; to < visitor.count && (int) (pairs[to] >>> 32) == candidate; to++) {
+                int point = (int) pairs[to];
+                // Already matched by a lower candidate
+                if (result[point] < 0) {
+                    batchPoints[batch] = point;
+                    batchLatitudes[batch] = latitudes[point];
+                    batchLongitudes[batch] = longitudes[point];
+                    batch++;
+                }
+            }
+            if (batch > 0) {
+                lgas.get(candidate).getPackedBoundary().containsAll(batchLatitudes, batchLongitudes, batch, inside);
+                for (int k = 0; k < batch; k++) {
+                    if (inside[k]) {
+                        result[batchPoints[k]] = candidate;
+                    }
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Positions in {@link #getLgas()} of the LGAs whose bounding box intersects the given box, ascending.
+     */
+    public List<Integer> findIntersecting(double minLat, double maxLat, double minLon, double maxLon) {
+        List<Integer> indexes = new ArrayList<>();
+        tree.query(new Envelope(minLon, maxLon, minLat, maxLat), item -> indexes.add((Integer) item));
+        indexes.sort(null);
+        return indexes;
+    }
+
+    /**
+     * Builds the lookup raster with the given cell size and uses it from now on;
+     * 0 drops the raster so every lookup takes the exact path.
+     */
+    public void rasterize(double cellDegrees) {
+        raster = cellDegrees > 0 ? LgaRaster.build(this, cellDegrees) : null;
+    }
+
+    /**
+     * The lookup raster, or null if lookups are exact only.
+     */
+    public LgaRaster getRaster() {
+        return raster;
+    }
+
+    /**
+     * 64-bit hash of the codes and boundaries of every indexed LGA. Anything
+     * derived from the LGA data (cached tiles, ETags) can be keyed on it.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the indexed LGAs in source order.
+     */
+    public List<LGA> getLgas() {
+        return lgas;
+    }
+
+    public int size() {
+        return lgas.size();
+    }
+
+    // FNV-1a over the prefix strings and the raw coordinate bits
+    private static long fingerprintOf(List<LGA> lgas) {
+        long hash = 0xcbf29ce484222325L;
+        for (LGA lga : lgas) {
+            hash = mix(hash, String.valueOf(lga.getStateCode()).hashCode());
+            hash = mix(hash, String.valueOf(lga.getLgaCode()).hashCode());
+            PackedPolygon polygon = lga.getPackedBoundary();
+            for (int start : polygon.getRingStarts()) {
+                hash = mix(hash, start);
+            }
+            for (double value : polygon.getCoords()) {
+                hash = mix(hash, Double.doubleToLongBits(value));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash ^= (value >>> shift) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static Envelope envelopeOf(LGA lga) {
+        PackedPolygon polygon = lga.getPackedBoundary();
+        if (polygon.isEmpty()) {
+            return null;
+        }
+        return new Envelope(polygon.getMinLon(), polygon.getMaxLon(), polygon.getMinLat(), polygon.getMaxLat());
+    }
+
+    /**
+     * Collects (candidate, point) pairs of the batch lookup
+     */
+    private static final class CandidateVisitor implements ItemVisitor {
+        private long[] pairs;
+        private int count;
+        private int point;
+
+        CandidateVisitor(int expected) {
+            this.pairs = new long[Math.max(16, expected * 2)];
+        }
+
+        @Override
+        public void visitItem(Object item) {
+            if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, count * 2);
+            }
+            pairs[count++] = ((long) (Integer) item << 32) | point;
+        }
+    }
+
+    /**
+     * Keeps the lowest-indexed candidate that contains the point; candidates
+     * after the current best are skipped without a polygon test.
+     */
+    private static final class MatchVisitor implements ItemVisitor {
+        private final List<LGA> lgas;
+        private final double latitude;
+        private final double longitude;
+        private int bestIndex = Integer.MAX_VALUE;
+
+        MatchVisitor(List<LGA> lgas, double latitude, double longitude) {
+            this.lgas = lgas;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        @Override
+        public void visitItem(Object item) {
+            int index = (Integer) item;
+            if (index < bestIndex && lgas.get(index).isPointInside(latitude, longitude)) {
+                bestIndex = index;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache keyed by a primitive {@code long}.
+ * <p>
+ * Entries live in flat arrays organised as 8-way sets: a key hashes to one set
+ * and, when the set is full, the least recently used entry of that set is
+ * evicted. Sets are guarded by a fixed pool of striped monitors. Lookups and
+ * updates box nothing and allocate nothing, which is the point compared to a
+ * map with formatted String or boxed Long keys. Values must be non-null;
+ * callers that need to cache "no result" store a sentinel of their own.
+ * <p>
+ * Under memory pressure the cache can be shrunk in place with
+ * {@link #setCapacityShift(int)}: each set keeps only its most recently used
+ * entries, and the freed ways are reused once the shift is lowered again.
+ */
+public final class LongKeyedCache<V> {
+
+    private static final int WAYS = 8;
+    private static final int STRIPES = 64;
+
+    /** Largest useful shift: one way per set is left. */
+    public static final int MAX_CAPACITY_SHIFT = 3;
+
+    private final int capacity;
+    private final int setMask;
+    // Ways in use per stripe, only changed under the stripe's monitor
+    private final int[] activeWays = new int[STRIPES];
+    private volatile int capacityShift;
+    private final long[] keys;
+    private final Object[] values;
+    // Last access tick of each slot; 0 marks an empty slot
+    private final long[] stamps;
+    // Access clock per stripe, only advanced under the stripe's monitor
+    private final long[] clocks = new long[STRIPES];
+    private final Object[] locks = new Object[STRIPES];
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries upper bound on the number of entries; 0 or less disables caching
+     */
+    public LongKeyedCache(int maxEntries) {
+        int sets = 0;
+        if (maxEntries > 0) {
+            sets = Integer.highestOneBit(Math.max(1, maxEntries / WAYS));
+        }
+        this.capacity = sets * WAYS;
+        this.setMask = sets - 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.stamps = new long[capacity];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+            activeWays[i] = WAYS;
+        }
+    }
+
+    /**
+     * Number of slots currently in use, a power of two no larger than the
+     * requested maximum (but at least one set) divided by 2^shift.
+     */
+    public int capacity() {
+        return capacity >> capacityShift;
+    }
+
+    /**
+     * Number of slots when not shrunk.
+     */
+    public int maxCapacity() {
+        return capacity;
+    }
+
+    public int getCapacityShift() {
+        return capacityShift;
+    }
+
+    /**
+     * Limits the cache to 1/2^shift of its slots (shift 0 restores the full
+     * size). Shrinking keeps the most recently used entries of every set and
+     * evicts the rest; growing only makes room, so it is free.
+     *
+     * @param shift 0 to {@link #MAX_CAPACITY_SHIFT}; larger values are clamped
+     */
+    public void setCapacityShift(int shift) {
+        int clamped = Math.max(0, Math.min(shift, MAX_CAPACITY_SHIFT));
+        int ways = WAYS >> clamped;
+        capacityShift = clamped;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int removed = 0;
+            synchronized (locks[stripe]) {
+                if (ways < activeWays[stripe]) {
+                    for (int set = stripe; set <= setMask; set += STRIPES) {
+                        removed += compact(set * WAYS, activeWays[stripe], ways);
+                    }
+                }
+                activeWays[stripe] = ways;
+            }
+            size.addAndGet(-removed);
+            evictions.add(removed);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Cached value for {@code key}, or null on a miss. A hit marks the entry as
+     * most recently used.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (capacity == 0) {
+            misses.increment();
+            return null;
+        }
+        int set = setOf(key);
+        int stripe = set & (STRIPES - 1);
+        int base = set * WAYS;
+        synchronized (locks[stripe]) {
+            for (int i = base; i < base + activeWays[stripe]; i++) {
+                if (stamps[i] != 0 && keys[i] == key) {
+                    stamps[i] = ++clocks[stripe];
+                    hits.increment();
+                    return (V) values[i];
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores {@code value}, evicting the least recently used entry of the
+     * key's set if it is full.
+     */
+    public void put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (capacity == 0) {
+            return;
+        }
+        int set = setOf(key);
+        int stripe = set & (STRIPES - 1);
+        int base = set * WAYS;
+        synchronized (locks[stripe]) {
+            int victim = base;
+            for (int i = base; i < base + activeWays[stripe]; i++) {
+                if (stamps[i] == 0) {
+                    if (stamps[victim] != 0) {
+                        victim = i;
+                    }
+                } else if (keys[i] == key) {
+                    victim = i;
+                    break;
+                } else if (stamps[victim] != 0 && stamps[i] < stamps[victim]) {
+                    victim = i;
+                }
+            }
+            if (stamps[victim] == 0) {
+                size.incrementAndGet();
+            } else if (keys[victim] != key) {
+                evictions.increment();
+            }
+            keys[victim] = key;
+            values[victim] = value;
+            stamps[victim] = ++clocks[stripe];
+        }
+    }
+
+    /**
+     * Removes all entries; counters are kept.
+     */
+    public void clear() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int removed = 0;
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                        if (stamps[i] != 0) {
+                            stamps[i] = 0;
+                            values[i] = null;
+                            removed++;
+                        }
+                    }
+                }
+            }
+            size.addAndGet(-removed);
+        }
+    }
+
+    /**
+     * Calls {@code action} with every entry, one stripe at a time under its
+     * monitor, so the action must not use this cache.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                        if (stamps[i] != 0) {
+                            action.accept(keys[i], (V) values[i]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return Map.of(
+            "size", size(),
+            "capacity", capacity(),
+            "maxCapacity", capacity,
+            "hitCount", hitCount,
+            "missCount", requests - hitCount,
+            "evictionCount", evictions.sum(),
+            "hitRate", requests == 0 ? 1.0 : (double) hitCount / requests
+        );
+    }
+
+    /**
+     * Moves the {@code keep} most recently used of the first {@code ways}
+     * slots at {@code base} to the front and empties the others.
+     *
+     * @return the number of entries dropped
+     */
+    private int compact(int base, int ways, int keep) {
+        // Selection sort by stamp, newest first; sets are only eight wide
+        for (int i = base; i < base + keep; i++) {
+            int newest = i;
+            for (int j = i + 1; j < base + ways; j++) {
+                if (stamps[j] > stamps[newest]) {
+                    newest = j;
+                }
+            }
+            if (newest != i) {
+                swap(i, newest);
+            }
+        }
+        int removed = 0;
+        for (int i = base + keep; i < base + ways; i++) {
+            if (stamps[i] != 0) {
+                stamps[i] = 0;
+                values[i] = null;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        long stamp = stamps[i];
+        stamps[i] = stamps[j];
+        stamps[j] = stamp;
+    }
+
+    private int setOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & setMask;
+    }
+
+    /**
+     * Receives the entries of {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
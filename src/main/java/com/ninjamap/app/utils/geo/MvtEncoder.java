@@ -0,0 +1,367 @@
+package com.ninjamap.app.utils.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Minimal Mapbox Vector Tile (spec 2.1) encoder for polygon layers.
+ * <p>
+ * Geometries are JTS polygons or multipolygons already projected into tile
+ * pixel space ({@code 0..extent}, y pointing down); the encoder rounds them to
+ * integers, drops repeated and degenerate points, fixes the winding order
+ * (exterior rings clockwise, holes counter-clockwise on screen) and writes the
+ * protobuf by hand, so no protobuf runtime is needed. Attribute keys and values
+ * are de-duplicated per layer as the spec requires.
+ */
+public final class MvtEncoder {
+
+    public static final String MEDIA_TYPE = "application/vnd.mapbox-vector-tile";
+
+    public static final int DEFAULT_EXTENT = 4096;
+
+    // Tile / layer / feature field numbers and wire types
+    private static final int TILE_LAYERS = 3;
+    private static final int LAYER_NAME = 1;
+    private static final int LAYER_FEATURES = 2;
+    private static final int LAYER_KEYS = 3;
+    private static final int LAYER_VALUES = 4;
+    private static final int LAYER_EXTENT = 5;
+    private static final int LAYER_VERSION = 15;
+    private static final int FEATURE_ID = 1;
+    private static final int FEATURE_TAGS = 2;
+    private static final int FEATURE_TYPE = 3;
+    private static final int FEATURE_GEOMETRY = 4;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_DOUBLE = 3;
+    private static final int VALUE_SINT = 6;
+    private static final int VALUE_BOOL = 7;
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_BYTES = 2;
+
+    private static final int GEOM_TYPE_POLYGON = 3;
+    private static final int CMD_MOVE_TO = 1;
+    private static final int CMD_LINE_TO = 2;
+    private static final int CMD_CLOSE_PATH = 7;
+
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    /**
+     * Returns the layer with the given name, creating it on first use.
+     */
+    public Layer layer(String name, int extent) {
+        return layers.computeIfAbsent(name, key -> new Layer(key, extent));
+    }
+
+    /**
+     * Serialises all non-empty layers.
+     */
+    public byte[] encode() {
+        ProtoWriter tile = new ProtoWriter();
+        for (Layer layer : layers.values()) {
+            if (!layer.features.isEmpty()) {
+                tile.writeBytes(TILE_LAYERS, layer.encode());
+            }
+        }
+        return tile.toByteArray();
+    }
+
+    /**
+     * Features of one layer, with their shared key and value tables.
+     */
+    public static final class Layer {
+        private final String name;
+        private final int extent;
+        private final List<byte[]> features = new ArrayList<>();
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        private final Map<Object, Integer> values = new HashMap<>();
+        private final List<Object> valueOrder = new ArrayList<>();
+
+        private Layer(String name, int extent) {
+            this.name = name;
+            this.extent = extent;
+        }
+
+        public int size() {
+            return features.size();
+        }
+
+        /**
+         * Adds a polygon feature.
+         *
+         * @param id         feature ID, or null for none
+         * @param geometry   {@link Polygon} or multipolygon in tile pixel coordinates
+         * @param attributes String, Number or Boolean values; nulls are skipped
+         * @return false if nothing was left of the geometry after rounding
+         * @throws IllegalArgumentException for non-polygonal geometries or unsupported values
+         */
+        public boolean addPolygonFeature(Long id, Geometry geometry, Map<String, ?> attributes) {
+            int[] commands = encodePolygonal(geometry);
+            if (commands.length == 0) {
+                return false;
+            }
+
+            ProtoWriter feature = new ProtoWriter();
+            if (id != null) {
+                feature.writeVarintField(FEATURE_ID, id);
+            }
+            if (!attributes.isEmpty()) {
+                List<Integer> tags = new ArrayList<>(attributes.size() * 2);
+                for (Map.Entry<String, ?> attribute : attributes.entrySet()) {
+                    if (attribute.getValue() == null) {
+                        continue;
+                    }
+                    tags.add(keys.computeIfAbsent(attribute.getKey(), key -> keys.size()));
+                    tags.add(valueIndex(attribute.getValue()));
+                }
+                feature.writePacked(FEATURE_TAGS, tags.stream().mapToInt(Integer::intValue).toArray());
+            }
+            feature.writeVarintField(FEATURE_TYPE, GEOM_TYPE_POLYGON);
+            feature.writePacked(FEATURE_GEOMETRY, commands);
+            features.add(feature.toByteArray());
+            return true;
+        }
+
+        private int valueIndex(Object value) {
+            Object key = normalise(value);
+            Integer index = values.get(key);
+            if (index == null) {
+                index = valueOrder.size();
+                values.put(key, index);
+                valueOrder.add(key);
+            }
+            return index;
+        }
+
+        private static Object normalise(Object value) {
+            if (value instanceof String || value instanceof Boolean) {
+                return value;
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return ((Number) value).longValue();
+            }
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            throw new IllegalArgumentException("Unsupported attribute value: " + value.getClass().getName());
+        }
+
+        private byte[] encode() {
+            ProtoWriter layer = new ProtoWriter();
+            layer.writeVarintField(LAYER_VERSION, 2);
+            layer.writeString(LAYER_NAME, name);
+            for (byte[] feature : features) {
+                layer.writeBytes(LAYER_FEATURES, feature);
+            }
+            for (String key : keys.keySet()) {
+                layer.writeString(LAYER_KEYS, key);
+            }
+            for (Object value : valueOrder) {
+                ProtoWriter encoded = new ProtoWriter();
+                if (value instanceof String text) {
+                    encoded.writeString(VALUE_STRING, text);
+                } else if (value instanceof Boolean flag) {
+                    encoded.writeVarintField(VALUE_BOOL, flag ? 1 : 0);
+                } else if (value instanceof Long number) {
+                    encoded.writeVarintField(VALUE_SINT, zigZag(number));
+                } else {
+                    encoded.writeDouble(VALUE_DOUBLE, (Double) value);
+                }
+                layer.writeBytes(LAYER_VALUES, encoded.toByteArray());
+            }
+            layer.writeVarintField(LAYER_EXTENT, extent);
+            return layer.toByteArray();
+        }
+    }
+
+    // ---- Geometry ----
+
+    private static int[] encodePolygonal(Geometry geometry) {
+        if (!(geometry instanceof Polygon) && !"MultiPolygon".equals(geometry.getGeometryType())) {
+            throw new IllegalArgumentException("Only polygonal geometries are supported: " + geometry.getGeometryType());
+        }
+        CommandBuffer buffer = new CommandBuffer();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Polygon polygon = (Polygon) geometry.getGeometryN(i);
+            if (polygon.isEmpty()) {
+                continue;
+            }
+            // A polygon whose exterior collapses is dropped together with its holes
+            int[] exterior = roundRing(polygon.getExteriorRing(), true);
+            if (exterior == null) {
+                continue;
+            }
+            buffer.ring(exterior);
+            for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                int[] hole = roundRing(polygon.getInteriorRingN(h), false);
+                if (hole != null) {
+                    buffer.ring(hole);
+                }
+            }
+        }
+        return buffer.toArray();
+    }
+
+    /**
+     * Rounds a closed ring to integer points without the closing point and with
+     * the winding required for its role, or null if it has no area left.
+     */
+    private static int[] roundRing(LineString ring, boolean exterior) {
+        Coordinate[] coordinates = ring.getCoordinates();
+        int[] points = new int[coordinates.length * 2];
+        int count = 0;
+        for (Coordinate coordinate : coordinates) {
+            int x = (int) Math.round(coordinate.x);
+            int y = (int) Math.round(coordinate.y);
+            if (count > 0 && points[count * 2 - 2] == x && points[count * 2 - 1] == y) {
+                continue;
+            }
+            points[count * 2] = x;
+            points[count * 2 + 1] = y;
+            count++;
+        }
+        // Drop the closing point
+        if (count > 1 && points[0] == points[count * 2 - 2] && points[1] == points[count * 2 - 1]) {
+            count--;
+        }
+        if (count < 3) {
+            return null;
+        }
+
+        long area2 = 0;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            area2 += (long) points[j * 2] * points[i * 2 + 1] - (long) points[i * 2] * points[j * 2 + 1];
+        }
+        if (area2 == 0) {
+            return null;
+        }
+        // With y pointing down a positive shoelace sum is clockwise on screen
+        if ((area2 > 0) != exterior) {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int x = points[i * 2];
+                int y = points[i * 2 + 1];
+                points[i * 2] = points[j * 2];
+                points[i * 2 + 1] = points[j * 2 + 1];
+                points[j * 2] = x;
+                points[j * 2 + 1] = y;
+            }
+        }
+        int[] result = new int[count * 2];
+        System.arraycopy(points, 0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Geometry command stream with the cursor carried across rings and parts.
+     */
+    private static final class CommandBuffer {
+        private int[] data = new int[64];
+        private int size;
+        private int cursorX;
+        private int cursorY;
+
+        void ring(int[] points) {
+            int count = points.length / 2;
+            add(command(CMD_MOVE_TO, 1));
+            moveCursor(points[0], points[1]);
+            add(command(CMD_LINE_TO, count - 1));
+            for (int i = 1; i < count; i++) {
+                moveCursor(points[i * 2], points[i * 2 + 1]);
+            }
+            add(command(CMD_CLOSE_PATH, 1));
+        }
+
+        private void moveCursor(int x, int y) {
+            add(zigZag(x - cursorX));
+            add(zigZag(y - cursorY));
+            cursorX = x;
+            cursorY = y;
+        }
+
+        private void add(int value) {
+            if (size == data.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(data, 0, grown, 0, size);
+                data = grown;
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            System.arraycopy(data, 0, result, 0, size);
+            return result;
+        }
+
+        private static int command(int id, int count) {
+            return (id & 0x7) | (count << 3);
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // ---- Protobuf ----
+
+    private static final class ProtoWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeVarintField(int field, long value) {
+            writeVarint(((long) field << 3) | WIRE_VARINT);
+            writeVarint(value);
+        }
+
+        void writeDouble(int field, double value) {
+            writeVarint(((long) field << 3) | WIRE_FIXED64);
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 0; shift < 64; shift += 8) {
+                out.write((int) (bits >>> shift));
+            }
+        }
+
+        void writeString(int field, String value) {
+            writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBytes(int field, byte[] value) {
+            writeVarint(((long) field << 3) | WIRE_BYTES);
+            writeVarint(value.length);
+            out.write(value, 0, value.length);
+        }
+
+        void writePacked(int field, int[] values) {
+            ProtoWriter packed = new ProtoWriter();
+            for (int value : values) {
+                packed.writeVarint(value & 0xFFFFFFFFL);
+            }
+            writeBytes(field, packed.toByteArray());
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.ninjamap.app.utils.geo;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+
+/**
+ * Polygon boundary packed into a flat primitive array.
+ * <p>
+ * All rings (outer rings, holes and the parts of a multipolygon) are stored
+ * back to back as interleaved {@code [lon, lat, lon, lat, ...]} values, with
+ * {@code ringStarts} holding the first point index of each ring plus a final
+ * end sentinel. Containment uses the even-odd ray-casting rule over every
+ * ring, so holes and disjoint parts need no special casing, and a bounding
+ * box check rejects far-away points before any edge is touched.
+ * <p>
+ * The coordinates are either a heap array or a read-only buffer view, e.g.
+ * into a memory-mapped {@link LgaDataset}, in which case they stay off-heap.
+ */
+public final class PackedPolygon {
+
+    private static final PackedPolygon EMPTY = new PackedPolygon(new double[0], new int[] { 0 });
+
+    // Exactly one of coords and mappedCoords is set
+    private final double[] coords;
+    private final DoubleBuffer mappedCoords;
+    private final int[] ringStarts;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+
+    private PackedPolygon(double[] coords, int[] ringStarts) {
+        this.coords = coords;
+        this.mappedCoords = null;
+        this.ringStarts = ringStarts;
+
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < coords.length; i += 2) {
+            minX = Math.min(minX, coords[i]);
+            maxX = Math.max(maxX, coords[i]);
+            minY = Math.min(minY, coords[i + 1]);
+            maxY = Math.max(maxY, coords[i + 1]);
+        }
+        this.minLon = minX;
+        this.maxLon = maxX;
+        this.minLat = minY;
+        this.maxLat = maxY;
+    }
+
+    /**
+     * Packs pre-flattened data.
+     *
+     * @param coords     interleaved lon/lat values of all rings
+     * @param ringStarts first point index of each ring followed by the total point count
+     */
+    public static PackedPolygon of(double[] coords, int[] ringStarts) {
+        return ringStarts.length < 2 ? EMPTY : new PackedPolygon(coords, ringStarts);
+    }
+
+    private PackedPolygon(DoubleBuffer mappedCoords, int[] ringStarts,
+                          double minLat, double maxLat, double minLon, double maxLon) {
+        this.coords = null;
+        this.mappedCoords = mappedCoords;
+        this.ringStarts = ringStarts;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+    }
+
+    /**
+     * Wraps coordinates that live in a buffer (interleaved lon/lat values from
+     * index 0) with a precomputed bounding box; the buffer is not copied.
+     */
+    public static PackedPolygon mapped(DoubleBuffer coords, int[] ringStarts,
+                                       double minLat, double maxLat, double minLon, double maxLon) {
+        if (ringStarts.length < 2) {
+            return EMPTY;
+        }
+        return new PackedPolygon(coords, ringStarts, minLat, maxLat, minLon, maxLon);
+    }
+
+    /**
+     * Packs a single ring of {@code [longitude, latitude]} pairs.
+     */
+    public static PackedPolygon fromRing(List<List<Double>> ring) {
+        return fromRings(ring == null ? List.of() : List.of(ring));
+    }
+
+    /**
+     * Packs any number of rings; rings with fewer than three points are dropped.
+     */
+    public static PackedPolygon fromRings(List<List<List<Double>>> rings) {
+        int rawPoints = 0;
+        int usableRings = 0;
+        for (List<List<Double>> ring : rings) {
+            if (ring != null && ring.size() >= 3) {
+                rawPoints += ring.size();
+                usableRings++;
+            }
+        }
+        if (usableRings == 0) {
+            return EMPTY;
+        }
+
+        double[] coords = new double[rawPoints * 2];
+        int[] ringStarts = new int[usableRings + 1];
+        int point = 0;
+        int ringIndex = 0;
+        for (List<List<Double>> ring : rings) {
+            if (ring == null || ring.size() < 3) {
+                continue;
+            }
+            ringStarts[ringIndex++] = point;
+            for (List<Double> vertex : ring) {
+                coords[point * 2] = vertex.get(0);     // longitude
+                coords[point * 2 + 1] = vertex.get(1); // latitude
+                point++;
+            }
+        }
+        ringStarts[ringIndex] = point;
+        return new PackedPolygon(coords, ringStarts);
+    }
+
+    /**
+     * Packs GeoJSON MultiPolygon coordinates: polygons, each an outer ring followed by its holes.
+     */
+    public static PackedPolygon fromMultiPolygon(List<List<List<List<Double>>>> polygons) {
+        if (polygons == null) {
+            return EMPTY;
+        }
+        return fromRings(polygons.stream()
+                .filter(polygon -> polygon != null)
+                .flatMap(List::stream)
+                .toList());
+    }
+
+    /**
+     * Even-odd ray-casting test with a bounding box early reject.
+     */
+    public boolean contains(double latitude, double longitude) {
+        if (latitude < minLat || latitude > maxLat || longitude < minLon || longitude > maxLon) {
+            return false;
+        }
+
+        if (coords == null) {
+            return containsMapped(latitude, longitude);
+        }
+
+        final double[] c = coords;
+        boolean inside = false;
+        for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+            int start = ringStarts[ring] * 2;
+            int end = ringStarts[ring + 1] * 2;
+            int j = end - 2;
+            for (int i = start; i < end; i += 2) {
+                double xi = c[i];
+                double yi = c[i + 1];
+                double xj = c[j];
+                double yj = c[j + 1];
+
+                if (((yi > latitude) != (yj > latitude)) &&
+                    (longitude < (xj - xi) * (latitude - yi) / (yj - yi) + xi)) {
+                    inside = !inside;
+                }
+                j = i;
+            }
+        }
+        return inside;
+    }
+
+    // Same loop as contains() over the buffer view
+    private boolean containsMapped(double latitude, double longitude) {
+        final DoubleBuffer c = mappedCoords;
+        boolean inside = false;
+        for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+            int start = ringStarts[ring] * 2;
+            int end = ringStarts[ring + 1] * 2;
+            int j = end - 2;
+            for (int i = start; i < end; i += 2) {
+                double xi = c.get(i);
+                double yi = c.get(i + 1);
+                double xj = c.get(j);
+                double yj = c.get(j + 1);
+
+                if (((yi > latitude) != (yj > latitude)) &&
+                    (longitude < (xj - xi) * (latitude - yi) / (yj - yi) + xi)) {
+                    inside = !inside;
+                }
+                j = i;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Batch form of {@link #contains} for the first {@code count} points of
+     * the arrays, using the SIMD kernel when the JVM provides the Vector API
+     * (see {@link #isBatchVectorized()}). Buffer-backed polygons are tested
+     * point by point.
+     *
+     * @param inside receives whether each point is inside
+     */
+    public void containsAll(double[] latitudes, double[] longitudes, int count, boolean[] inside) {
+        if (coords == null) {
+            PolygonBatchKernel.SCALAR.containsAll(this, latitudes, longitudes, count, inside);
+        } else {
+            PolygonBatchKernel.SELECTED.containsAll(this, latitudes, longitudes, count, inside);
+        }
+    }
+
+    /**
+     * Whether {@link #containsAll} runs on the Vector API, i.e. the build
+     * included the vector kernel and the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}
+     */
+    public static boolean isBatchVectorized() {
+        return PolygonBatchKernel.SELECTED != PolygonBatchKernel.SCALAR;
+    }
+
+    public boolean isEmpty() {
+        return ringStarts.length < 2;
+    }
+
+    public int getRingCount() {
+        return ringStarts.length - 1;
+    }
+
+    public int getPointCount() {
+        return ringStarts[ringStarts.length - 1];
+    }
+
+    /**
+     * Interleaved lon/lat values; shared, must not be modified. A polygon
+     * backed by a buffer returns a fresh heap copy on every call.
+     */
+    public double[] getCoords() {
+        if (coords != null) {
+            return coords;
+        }
+        double[] copy = new double[getPointCount() * 2];
+        mappedCoords.get(0, copy);
+        return copy;
+    }
+
+    /**
+     * Whether the coordinates live in a buffer instead of a heap array.
+     */
+    public boolean isMapped() {
+        return mappedCoords != null;
+    }
+
+    /**
+     * First point index of each ring plus the end sentinel; shared, must not be modified.
+     */
+    public int[] getRingStarts() {
+        return ringStarts;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+}
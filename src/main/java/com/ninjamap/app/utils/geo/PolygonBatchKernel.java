@@ -0,0 +1,43 @@
+package com.ninjamap.app.utils.geo;
+
+/**
+ * Even-odd containment of a batch of points in one heap-backed
+ * {@link PackedPolygon}, with exactly the answers {@link PackedPolygon#contains}
+ * gives point by point.
+ * <p>
+ * {@link #SELECTED} is chosen once: the {@code jdk.incubator.vector} kernel
+ * when it was compiled in (the {@code vector} Maven profile, from
+ * {@code src/vector/java}), the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} and has vectors of at least two
+ * doubles, otherwise {@link #SCALAR}. The vector kernel is loaded
+ * reflectively, so nothing links against the incubator module when it is
+ * absent.
+ */
+interface PolygonBatchKernel {
+
+    PolygonBatchKernel SCALAR = (polygon, latitudes, longitudes, count, inside) -> {
+        for (int i = 0; i < count; i++) {
+            inside[i] = polygon.contains(latitudes[i], longitudes[i]);
+        }
+    };
+
+    PolygonBatchKernel SELECTED = select();
+
+    /**
+     * @param polygon    a polygon with heap coordinates
+     * @param count      points to test, from index 0 of both arrays
+     * @param inside     receives whether each point is inside
+     */
+    void containsAll(PackedPolygon polygon, double[] latitudes, double[] longitudes, int count, boolean[] inside);
+
+    private static PolygonBatchKernel select() {
+        try {
+            return (PolygonBatchKernel) Class.forName(PolygonBatchKernel.class.getPackageName() + ".VectorPolygonKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Kernel not compiled in, module not added, or no usable vector shape on this CPU
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.Arrays;
+
+/**
+ * Polygon prepared for scanline filling.
+ * <p>
+ * Rings are given like {@link PackedPolygon}: interleaved {@code [lon, lat]}
+ * values of all rings back to back plus their start indexes, under the
+ * even-odd rule, so holes and multipolygon parts need no special casing.
+ * Every edge is filed into the latitude bands it spans; a horizontal scanline
+ * then only looks at the edges of its own band, computes where they cross it
+ * and sorts those longitudes. Consecutive pairs of crossings bound the covered
+ * spans, so a grid row costs one pass over nearby edges instead of a ray cast
+ * over all edges per cell.
+ * <p>
+ * The crossing longitude is computed with the same expression as the classic
+ * ray cast, so a point is covered by a span exactly when the ray cast says it
+ * is inside.
+ */
+public final class ScanlinePolygon {
+
+    private static final int MAX_BANDS = 4096;
+
+    // Per edge: lon and lat of its vertex, then of the previous vertex in ring order
+    private final double[] edges;
+    private final int edgeCount;
+    private final int vertexCount;
+    private final int ringCount;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+
+    private final double inverseBandHeight;
+    private final int bandCount;
+    private final int[] bandStarts;
+    private final int[] bandEdges;
+
+    private ScanlinePolygon(double[] coords, int[] ringStarts) {
+        int points = ringStarts[ringStarts.length - 1];
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points * 2; i += 2) {
+            minX = Math.min(minX, coords[i]);
+            maxX = Math.max(maxX, coords[i]);
+            minY = Math.min(minY, coords[i + 1]);
+            maxY = Math.max(maxY, coords[i + 1]);
+        }
+        this.minLon = minX;
+        this.maxLon = maxX;
+        this.minLat = minY;
+        this.maxLat = maxY;
+        this.vertexCount = points;
+        this.ringCount = ringStarts.length - 1;
+
+        // Horizontal edges never cross a scanline and are left out
+        double[] collected = new double[points * 4];
+        int count = 0;
+        for (int r = 0; r < ringCount; r++) {
+            int start = ringStarts[r];
+            int end = ringStarts[r + 1];
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                if (coords[i * 2 + 1] != coords[j * 2 + 1]) {
+                    collected[count * 4] = coords[i * 2];
+                    collected[count * 4 + 1] = coords[i * 2 + 1];
+                    collected[count * 4 + 2] = coords[j * 2];
+                    collected[count * 4 + 3] = coords[j * 2 + 1];
+                    count++;
+                }
+            }
+        }
+        this.edges = Arrays.copyOf(collected, count * 4);
+        this.edgeCount = count;
+
+        // About four edges per band when the boundary is evenly spread
+        this.bandCount = Math.max(1, Math.min(MAX_BANDS, count / 4));
+        this.inverseBandHeight = maxY > minY ? bandCount / (maxY - minY) : 0;
+        int[] counts = new int[bandCount + 1];
+        for (int e = 0; e < count; e++) {
+            for (int band = firstBand(e), last = lastBand(e); band <= last; band++) {
+                counts[band + 1]++;
+            }
+        }
+        for (int band = 0; band < bandCount; band++) {
+            counts[band + 1] += counts[band];
+        }
+        this.bandStarts = counts.clone();
+        this.bandEdges = new int[counts[bandCount]];
+        for (int e = 0; e < count; e++) {
+            for (int band = firstBand(e), last = lastBand(e); band <= last; band++) {
+                bandEdges[counts[band]++] = e;
+            }
+        }
+    }
+
+    /**
+     * @param coords     interleaved lon/lat values of all rings
+     * @param ringStarts first point index of each ring followed by the total point count
+     * @throws IllegalArgumentException if there is no ring or a ring has fewer than three points
+     */
+    public static ScanlinePolygon of(double[] coords, int[] ringStarts) {
+        if (ringStarts.length < 2) {
+            throw new IllegalArgumentException("Polygon has no rings");
+        }
+        for (int r = 0; r + 1 < ringStarts.length; r++) {
+            if (ringStarts[r + 1] - ringStarts[r] < 3) {
+                throw new IllegalArgumentException("Polygon ring " + r + " has fewer than 3 points");
+            }
+        }
+        if (coords.length < ringStarts[ringStarts.length - 1] * 2) {
+            throw new IllegalArgumentException("Ring starts point past the coordinates");
+        }
+        return new ScanlinePolygon(coords, ringStarts);
+    }
+
+    public static ScanlinePolygon of(PackedPolygon polygon) {
+        return of(polygon.getCoords(), polygon.getRingStarts());
+    }
+
+    /**
+     * The four-corner boundary of a grid request, in the order the corners
+     * have always been tested in.
+     */
+    public static ScanlinePolygon quad(double leftBottomLat, double leftBottomLon,
+                                       double leftTopLat, double leftTopLon,
+                                       double rightTopLat, double rightTopLon,
+                                       double rightBottomLat, double rightBottomLon) {
+        return of(new double[] {
+            leftBottomLon, leftBottomLat, leftTopLon, leftTopLat,
+            rightTopLon, rightTopLat, rightBottomLon, rightBottomLat
+        }, new int[] { 0, 4 });
+    }
+
+    public double getMinLat() { return minLat; }
+    public double getMaxLat() { return maxLat; }
+    public double getMinLon() { return minLon; }
+    public double getMaxLon() { return maxLon; }
+    public int getRingCount() { return ringCount; }
+    public int getVertexCount() { return vertexCount; }
+
+    /**
+     * Longitudes where the boundary crosses the parallel at {@code lat}, in
+     * ascending order and always an even number of them. A longitude
+     * {@code lon} is inside exactly when {@code get(2k) <= lon < get(2k + 1)}
+     * for some k.
+     *
+     * @param buffer reused if given, may be null
+     * @return {@code buffer} or a new instance holding the crossings
+     */
+    public Crossings crossings(double lat, Crossings buffer) {
+        Crossings result = buffer != null ? buffer : new Crossings();
+        result.count = 0;
+        if (!(lat >= minLat && lat < maxLat)) {
+            return result;
+        }
+        int band = bandOf(lat);
+        for (int k = bandStarts[band]; k < bandStarts[band + 1]; k++) {
+            int e = bandEdges[k] * 4;
+            double xi = edges[e];
+            double yi = edges[e + 1];
+            double xj = edges[e + 2];
+            double yj = edges[e + 3];
+            if ((yi > lat) != (yj > lat)) {
+                result.add((xj - xi) * (lat - yi) / (yj - yi) + xi);
+            }
+        }
+        Arrays.sort(result.values, 0, result.count);
+        return result;
+    }
+
+    /**
+     * Even-odd point in polygon test over the edges of the point's band
+     */
+    public boolean contains(double lat, double lon) {
+        if (!(lat >= minLat && lat < maxLat) || lon < minLon || lon > maxLon) {
+            return false;
+        }
+        boolean inside = false;
+        int band = bandOf(lat);
+        for (int k = bandStarts[band]; k < bandStarts[band + 1]; k++) {
+            int e = bandEdges[k] * 4;
+            double xi = edges[e];
+            double yi = edges[e + 1];
+            double xj = edges[e + 2];
+            double yj = edges[e + 3];
+            if (((yi > lat) != (yj > lat)) && (lon < (xj - xi) * (lat - yi) / (yj - yi) + xi)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private int bandOf(double lat) {
+        int band = (int) ((lat - minLat) * inverseBandHeight);
+        return Math.max(0, Math.min(band, bandCount - 1));
+    }
+
+    private int firstBand(int edge) {
+        return bandOf(Math.min(edges[edge * 4 + 1], edges[edge * 4 + 3]));
+    }
+
+    private int lastBand(int edge) {
+        return bandOf(Math.max(edges[edge * 4 + 1], edges[edge * 4 + 3]));
+    }
+
+    /**
+     * Growable, reusable list of crossing longitudes
+     */
+    public static final class Crossings {
+        private double[] values = new double[8];
+        private int count;
+
+        public int count() {
+            return count;
+        }
+
+        public double get(int index) {
+            return values[index];
+        }
+
+        private void add(double value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+    }
+}
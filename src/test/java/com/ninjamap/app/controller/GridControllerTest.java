@@ -0,0 +1,347 @@
+package com.ninjamap.app.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninjamap.app.service.MemoryMonitoringService;
+import com.ninjamap.app.service.impl.GridAdmissionService;
+import com.ninjamap.app.service.impl.GridDensityService;
+import com.ninjamap.app.service.impl.GridGenerator;
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.service.impl.GridWarmupService;
+import com.ninjamap.app.service.impl.GridVectorTileService;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+class GridControllerTest {
+
+	// ~0.001 degrees square in Lagos: about 37 x 37 cells, 37 per streamed row
+	private static final String SMALL_AREA = corners(6.5244, 3.3792, 6.5254, 3.3802);
+	// ~0.005 degrees square: about 185 x 185 cells when buffered
+	private static final String LARGE_AREA = corners(6.5200, 3.3790, 6.5250, 3.3840);
+	// SMALL_AREA panned north-east by about a third of its side, and then once more
+	private static final String PANNED_AREA = corners(6.5247, 3.3795, 6.5257, 3.3805);
+	private static final String PANNED_TWICE_AREA = corners(6.5250, 3.3798, 6.5260, 3.3808);
+
+	private static final int BUDGET_CELLS = 10_000;
+	private static final long RETRY_AFTER_SECONDS = 7;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final GridTileCache tileCache = new GridTileCache(new GridLattice(9.0), blockCodeDecoder, 64);
+	private final GridVectorTileService vectorTileService = new GridVectorTileService(tileCache, blockCodeDecoder, 18, 16);
+	private final GridAdmissionService admissionService =
+			new GridAdmissionService(BUDGET_CELLS, 0.5, 400, 0, RETRY_AFTER_SECONDS);
+	private final ApplicationAvailabilityBean availability = new ApplicationAvailabilityBean();
+	private final ApplicationEventPublisher availabilityEvents =
+			event -> availability.onApplicationEvent((AvailabilityChangeEvent<?>) event);
+
+	// Fails an NDJSON stream after this many cells when set, as a dropped connection would
+	private final AtomicInteger failStreamAfterCells = new AtomicInteger(-1);
+
+	private GridController controller;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool()) {
+			@Override
+			public void streamGridWithBlockCodes(ScanlinePolygon boundary, BlockCodeDecoder decoder, GridCellSink sink)
+					throws IOException {
+				super.streamGridWithBlockCodes(boundary, decoder, failingAfter(sink, failStreamAfterCells.get()));
+			}
+		};
+		controller = new GridController();
+		ReflectionTestUtils.setField(controller, "gridGenerator", gridGenerator);
+		ReflectionTestUtils.setField(controller, "blockCodeDecoder", blockCodeDecoder);
+		ReflectionTestUtils.setField(controller, "gridTileCache", tileCache);
+		ReflectionTestUtils.setField(controller, "gridVectorTileService", vectorTileService);
+		ReflectionTestUtils.setField(controller, "gridAdmissionService", admissionService);
+		ReflectionTestUtils.setField(controller, "gridDensityService", mock(GridDensityService.class));
+		ReflectionTestUtils.setField(controller, "memoryMonitoringService", new MemoryMonitoringService(
+				blockCodeDecoder, tileCache, vectorTileService, 0.80, 0.90, 0.60, false));
+		ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(controller, "applicationAvailability", availability);
+		ReflectionTestUtils.setField(controller, "gridWarmupService", new GridWarmupService(gridGenerator, tileCache,
+				blockCodeDecoder, availabilityEvents, true,
+				"6.45,3.38,6.46,3.39", 1, 0.002, 1, 100, 60_000));
+		ReflectionTestUtils.setField(controller, "maxLatRange", 0.1);
+		ReflectionTestUtils.setField(controller, "maxLonRange", 0.1);
+		ReflectionTestUtils.setField(controller, "maxStreamLatRange", 0.5);
+		ReflectionTestUtils.setField(controller, "maxStreamLonRange", 0.5);
+		ReflectionTestUtils.setField(controller, "maxGeometryVertices", 100_000);
+		ReflectionTestUtils.setField(controller, "minCellPixels", 4.0);
+		ReflectionTestUtils.setField(controller, "targetCells", 20_000L);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@Test
+	void testPolylinesWithCodes_WithinBudget_AcceptedAndReleased() throws Exception {
+		mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+				.content(SMALL_AREA))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalCells").value(greaterThan(1000)));
+
+		String ndjson = stream(SMALL_AREA, MediaType.APPLICATION_NDJSON_VALUE);
+		assertTrue(ndjson.lines().count() > 1000);
+		assertTrue(ndjson.lines().allMatch(line -> line.startsWith("{") && line.contains("blockCode")));
+
+		assertEquals(0, admissionService.getInFlightCells());
+		assertEquals(2L, admissionService.getStats().get("admittedRequests"));
+	}
+
+	@Test
+	void testPolylinesWithCodes_LargerThanBudget_413() throws Exception {
+		mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+				.content(LARGE_AREA))
+				.andExpect(status().isPayloadTooLarge())
+				.andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+				.andExpect(jsonPath("$.maxCells").value(BUDGET_CELLS));
+
+		// The same area streamed holds one row at a time and fits
+		assertTrue(stream(LARGE_AREA, MediaType.APPLICATION_NDJSON_VALUE).lines().count() > BUDGET_CELLS);
+		assertEquals(0, admissionService.getInFlightCells());
+	}
+
+	@Test
+	void testPolylinesWithCodes_BudgetExhausted_503WithRetryAfter() throws Exception {
+		try (GridAdmissionService.Permit held = admissionService.tryAcquire(BUDGET_CELLS)) {
+			assertNotNull(held);
+			mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+					.content(SMALL_AREA))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS)));
+			for (String accept : new String[] { MediaType.APPLICATION_NDJSON_VALUE, "application/vnd.ninjamap.grid+binary" }) {
+				mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+						.accept(accept).content(SMALL_AREA))
+						.andExpect(status().isServiceUnavailable())
+						.andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS)));
+			}
+		}
+		assertEquals(0, admissionService.getInFlightCells());
+		assertEquals(3L, admissionService.getStats().get("rejectedRequests"));
+	}
+
+	@Test
+	void testPolylinesWithCodes_StreamFailsPartway_PermitReleased() throws Exception {
+		failStreamAfterCells.set(100);
+		MvcResult result = mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_NDJSON).content(SMALL_AREA))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		assertInstanceOf(IOException.class, result.getAsyncResult(10_000));
+		assertTrue(result.getResponse().getContentAsString().lines().count() >= 1);
+		assertEquals(0, admissionService.getInFlightCells());
+
+		// The released cells are available to the next request
+		failStreamAfterCells.set(-1);
+		assertTrue(stream(SMALL_AREA, MediaType.APPLICATION_NDJSON_VALUE).lines().count() > 1000);
+	}
+
+	@Test
+	void testPolylinesWithCodes_StreamTimesOutBeforeItRuns_PermitReleased() throws Exception {
+		// Bodies wait in the queue and never run, as behind a saturated executor
+		List<Runnable> queued = new ArrayList<>();
+		AsyncTaskExecutor executor = queued::add;
+		mockMvc.getDispatcherServlet().getWebApplicationContext().getBean(RequestMappingHandlerAdapter.class)
+				.setTaskExecutor(executor);
+
+		for (String accept : new String[] { MediaType.APPLICATION_NDJSON_VALUE, "application/vnd.ninjamap.grid+binary" }) {
+			MvcResult result = mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+					.accept(accept).content(SMALL_AREA))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			assertTrue(admissionService.getInFlightCells() > 0);
+
+			MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+			for (AsyncListener listener : new ArrayList<>(asyncContext.getListeners())) {
+				listener.onTimeout(new AsyncEvent(asyncContext));
+			}
+			asyncContext.complete();
+			assertEquals(0, admissionService.getInFlightCells());
+		}
+
+		// The timed-out bodies were cancelled and write nothing if the executor gets to them
+		assertEquals(2, queued.size());
+		queued.forEach(Runnable::run);
+		assertEquals(0, admissionService.getInFlightCells());
+		assertEquals(2L, admissionService.getStats().get("admittedRequests"));
+	}
+
+	@Test
+	void testMemoryStats_ReportsGridBudget() throws Exception {
+		try (GridAdmissionService.Permit held = admissionService.tryAcquire(1234)) {
+			mockMvc.perform(get("/api/grid/memory-stats"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.gridBudget.maxInFlightCells").value(BUDGET_CELLS))
+					.andExpect(jsonPath("$.gridBudget.inFlightCells").value(held.getCells()))
+					.andExpect(jsonPath("$.gridBudget.admittedRequests").value(1));
+		}
+	}
+
+	@Test
+	void testViewportDiff_TokenRoundTrip_SameDiffAsExplicitViewport() throws Exception {
+		JsonNode first = viewportDiff("{\"previous\":" + SMALL_AREA + ",\"current\":" + PANNED_AREA + "}");
+		String token = first.get("viewportToken").asText();
+		assertTrue(first.get("enteringCells").asInt() > 0);
+
+		JsonNode byToken = viewportDiff("{\"previousToken\":\"" + token + "\",\"current\":" + PANNED_TWICE_AREA + "}");
+		JsonNode byViewport = viewportDiff("{\"previous\":" + PANNED_AREA + ",\"current\":" + PANNED_TWICE_AREA + "}");
+		assertTrue(byToken.get("enteringCells").asInt() > 0);
+		assertEquals(byViewport.get("enteringCells"), byToken.get("enteringCells"));
+		assertEquals(byViewport.get("leavingRanges"), byToken.get("leavingRanges"));
+		assertEquals(byViewport.get("cellsWithCodes"), byToken.get("cellsWithCodes"));
+		assertEquals(byViewport.get("viewportToken"), byToken.get("viewportToken"));
+	}
+
+	@Test
+	void testViewportDiff_BadTokens_400() throws Exception {
+		String token = viewportDiff("{\"previous\":" + SMALL_AREA + ",\"current\":" + PANNED_AREA + "}")
+				.get("viewportToken").asText();
+		byte[] bytes = Base64.getUrlDecoder().decode(token);
+
+		byte[] tampered = bytes.clone();
+		tampered[5] ^= 0x01; // a corner value edited, checksum left alone
+		byte[] otherVersion = bytes.clone();
+		otherVersion[0] = 3;
+		ByteBuffer.wrap(otherVersion).putInt(otherVersion.length - Integer.BYTES, checksum(otherVersion));
+		// The unchecked version 1 format: a version byte and the corner values only
+		byte[] versionOne = new byte[bytes.length - Integer.BYTES];
+		System.arraycopy(bytes, 0, versionOne, 0, versionOne.length);
+		versionOne[0] = 1;
+
+		String[] badTokens = { "not a token!", "", base64(tampered), base64(otherVersion), base64(versionOne),
+				token.substring(0, token.length() - 4) };
+		for (String bad : badTokens) {
+			mockMvc.perform(post("/api/grid/viewport-diff").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"previousToken\":\"" + bad + "\",\"current\":" + PANNED_TWICE_AREA + "}"))
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.error").exists());
+		}
+		// Only the request that issued the token got as far as the budget
+		assertEquals(1L, admissionService.getStats().get("admittedRequests"));
+	}
+
+	@Test
+	void testReadiness_503UntilWarmedUpAndAcceptingTraffic() throws Exception {
+		mockMvc.perform(get("/api/grid/readiness"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.warmup.state").value("PENDING"));
+
+		// Spring Boot raises readiness once all runners, the warm-up last, have returned
+		GridWarmupService warmup = (GridWarmupService) ReflectionTestUtils.getField(controller, "gridWarmupService");
+		warmup.run(null);
+		mockMvc.perform(get("/api/grid/readiness"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.readiness").value("REFUSING_TRAFFIC"))
+				.andExpect(jsonPath("$.warmup.state").value("COMPLETED"));
+
+		AvailabilityChangeEvent.publish(availabilityEvents, this, ReadinessState.ACCEPTING_TRAFFIC);
+		mockMvc.perform(get("/api/grid/readiness"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.readiness").value("ACCEPTING_TRAFFIC"))
+				.andExpect(jsonPath("$.warmup.lgasTouched").value(greaterThan(0)));
+	}
+
+	// Body of a streamed grid, once the streaming response has completed
+	private String stream(String area, String accept) throws Exception {
+		MvcResult result = mockMvc.perform(post("/api/grid/polylines-with-codes").contentType(MediaType.APPLICATION_JSON)
+				.accept(accept).content(area))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		return result.getResponse().getContentAsString();
+	}
+
+	private JsonNode viewportDiff(String body) throws Exception {
+		MvcResult result = mockMvc.perform(post("/api/grid/viewport-diff").contentType(MediaType.APPLICATION_JSON)
+				.content(body))
+				.andExpect(status().isOk())
+				.andReturn();
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+
+	private static int checksum(byte[] token) {
+		CRC32 crc = new CRC32();
+		crc.update(token, 0, token.length - Integer.BYTES);
+		return (int) crc.getValue();
+	}
+
+	private static String base64(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	private static GridGenerator.GridCellSink failingAfter(GridGenerator.GridCellSink sink, int cells) {
+		if (cells < 0) {
+			return sink;
+		}
+		AtomicInteger written = new AtomicInteger();
+		return new GridGenerator.GridCellSink() {
+			@Override
+			public void begin(GridGenerator.GridLayout layout) throws IOException {
+				sink.begin(layout);
+			}
+
+			@Override
+			public void accept(GridGenerator.GridCellWithCode cell) throws IOException {
+				if (written.incrementAndGet() > cells) {
+					throw new IOException("Broken pipe");
+				}
+				sink.accept(cell);
+			}
+
+			@Override
+			public void endRow(int row) throws IOException {
+				sink.endRow(row);
+			}
+		};
+	}
+
+	private static String corners(double minLat, double minLon, double maxLat, double maxLon) {
+		return "{\"leftBottomLat\":" + minLat + ",\"leftBottomLon\":" + minLon
+				+ ",\"leftTopLat\":" + maxLat + ",\"leftTopLon\":" + minLon
+				+ ",\"rightTopLat\":" + maxLat + ",\"rightTopLon\":" + maxLon
+				+ ",\"rightBottomLat\":" + minLat + ",\"rightBottomLon\":" + maxLon + "}";
+	}
+}
@@ -0,0 +1,61 @@
+package com.ninjamap.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.service.impl.GridTileCache;
+import com.ninjamap.app.service.impl.GridVectorTileService;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class MemoryMonitoringServiceTest {
+
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final GridTileCache tileCache = new GridTileCache(new GridLattice(9.0), blockCodeDecoder, 64);
+	private final GridVectorTileService tileService = new GridVectorTileService(tileCache, blockCodeDecoder, 18, 16);
+	private final MemoryMonitoringService service = new MemoryMonitoringService(blockCodeDecoder, tileCache,
+			tileService, 0.80, 0.90, 0.60, false);
+
+	@Test
+	void testOnPressure_ShrinksOneStepPerReportAndRecoversStepwise() {
+		service.onPressure(0.82);
+		assertEquals(1, service.getPressureLevel());
+		assertEquals(Integer.valueOf(4096), lgaCache().get("capacity"));
+		assertEquals(Long.valueOf(32 * 1024), tileCache.getStats().get("maxKilobytes"));
+
+		service.onPressure(0.85);
+		assertEquals(2, service.getPressureLevel());
+
+		service.onRelief(0.40);
+		assertEquals(1, service.getPressureLevel());
+		service.onRelief(0.40);
+		service.onRelief(0.40);
+		assertEquals(0, service.getPressureLevel());
+		assertEquals(Integer.valueOf(8192), lgaCache().get("capacity"));
+	}
+
+	@Test
+	void testOnPressure_Critical_ShrinksToSmallestAtOnce() {
+		service.onPressure(0.95);
+		assertEquals(MemoryMonitoringService.MAX_PRESSURE_LEVEL, service.getPressureLevel());
+		assertEquals(Integer.valueOf(1024), lgaCache().get("capacity"));
+		service.onPressure(0.85);
+		assertEquals(MemoryMonitoringService.MAX_PRESSURE_LEVEL, service.getPressureLevel());
+		assertEquals(MemoryMonitoringService.MAX_PRESSURE_LEVEL, service.getMemoryStats().getCachePressureLevel());
+	}
+
+	@Test
+	void testConstructor_RecoveryAboveWarning_Throws() {
+		assertThrows(IllegalArgumentException.class, () -> new MemoryMonitoringService(blockCodeDecoder, tileCache,
+				tileService, 0.80, 0.90, 0.85, false));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> lgaCache() {
+		return (Map<String, Object>) blockCodeDecoder.getCacheMetrics().get("lga");
+	}
+}
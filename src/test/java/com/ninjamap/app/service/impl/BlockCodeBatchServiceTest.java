@@ -0,0 +1,162 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.LgaSpatialIndex;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class BlockCodeBatchServiceTest {
+
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final BlockCodeBatchService batchService =
+			new BlockCodeBatchService(blockCodeDecoder, ForkJoinPool.commonPool(), 50_000, 256);
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	@Test
+	void testEvaluate_LargeBatch_KeepsInputOrderAndIsolatesErrors() {
+		Random random = new Random(5);
+		int points = 20_000;
+		double[] latLon = new double[points * 2];
+		for (int i = 0; i < points; i++) {
+			latLon[i * 2] = SyntheticLgaFixture.MIN_LAT + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+			latLon[i * 2 + 1] = SyntheticLgaFixture.MIN_LON + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+		}
+		latLon[10 * 2] = 91;
+		latLon[777 * 2 + 1] = Double.NaN;
+
+		BlockCodeBatchService.BatchResult result = batchService.evaluate(latLon);
+
+		assertEquals(points, result.size());
+		assertEquals(2, result.getFailed());
+		assertNull(result.getBlockCode(10));
+		assertTrue(result.getError(10).contains("latitude"));
+		assertTrue(result.getError(777).contains("longitude"));
+		for (int i = 0; i < points; i++) {
+			if (i != 10 && i != 777) {
+				assertNull(result.getError(i));
+				assertEquals(blockCodeDecoder.generateBlockCode(latLon[i * 2], latLon[i * 2 + 1]), result.getBlockCode(i));
+			}
+		}
+	}
+
+	@Test
+	void testEvaluate_PointsAcrossLgaEdge_SameCodesAsSinglePoint() {
+		// Walk north from the middle of the first LGA to its edge
+		LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+		PackedPolygon first = spatialIndex.getLgas().get(0).getPackedBoundary();
+		double lon = (first.getMinLon() + first.getMaxLon()) / 2;
+		double edge = (first.getMinLat() + first.getMaxLat()) / 2;
+		while (spatialIndex.findIndex(edge, lon) == 0) {
+			edge += 0.0005;
+		}
+		Random random = new Random(29);
+		int points = 10_000;
+		double[] latLon = new double[points * 2];
+		for (int i = 0; i < points; i++) {
+			latLon[i * 2] = edge - 0.0006 + random.nextDouble() * 0.0012;
+			latLon[i * 2 + 1] = lon - 0.002 + random.nextDouble() * 0.004;
+		}
+
+		BlockCodeBatchService.BatchResult result = batchService.evaluate(latLon);
+
+		Set<String> prefixes = new HashSet<>();
+		int exactLgaDiffers = 0;
+		for (int i = 0; i < points; i++) {
+			Coordinates point = new Coordinates(latLon[i * 2], latLon[i * 2 + 1]);
+			String code = result.getBlockCode(i);
+			assertEquals(blockCodeDecoder.generateUniqueCodeForBlock(point), code);
+			String prefix = code.substring(0, code.indexOf('-'));
+			prefixes.add(prefix);
+			LGA exact = spatialIndex.find(point.getLatitude(), point.getLongitude());
+			if (exact == null || !prefix.equals(exact.getStateCode() + exact.getLgaCode())) {
+				exactLgaDiffers++;
+			}
+		}
+		assertTrue(prefixes.size() >= 2, "points should cross an LGA boundary");
+		// Points this close to the edge are where an exact lookup at the point gives another LGA
+		assertTrue(exactLgaDiffers > 0);
+	}
+
+	@Test
+	void testReadJson_PackedAndPairs_ProduceSameValues() throws IOException {
+		double[] packed = batchService.readJson(json("[6.5249, 3.3797, 6.6018, 3.3515, null, 3]"), jsonFactory);
+		double[] pairs = batchService.readJson(json("[[6.5249, 3.3797], [6.6018, 3.3515], [null, 3]]"), jsonFactory);
+
+		assertArrayEquals(packed, pairs);
+		assertEquals(6, packed.length);
+		assertTrue(Double.isNaN(packed[4]));
+		assertEquals(1, batchService.evaluate(packed).getFailed());
+	}
+
+	@Test
+	void testReadJson_MalformedBodies_Throw() {
+		assertThrows(IllegalArgumentException.class, () -> batchService.readJson(json("{\"a\": 1}"), jsonFactory));
+		assertThrows(IllegalArgumentException.class, () -> batchService.readJson(json("[1, 2, 3]"), jsonFactory));
+		assertThrows(IllegalArgumentException.class, () -> batchService.readJson(json("[[1, 2, 3]]"), jsonFactory));
+		assertThrows(IllegalArgumentException.class, () -> batchService.readJson(json("[\"6.5\", 3]"), jsonFactory));
+		assertThrows(IOException.class, () -> batchService.readJson(json("[1, 2"), jsonFactory));
+	}
+
+	@Test
+	void testReadJson_TooManyPoints_Throws() {
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i <= 50_000; i++) {
+			body.append(i == 0 ? "" : ",").append("6.5,3.3");
+		}
+		body.append(']');
+		assertThrows(IllegalArgumentException.class, () -> batchService.readJson(json(body.toString()), jsonFactory));
+	}
+
+	@Test
+	void testReadBinary_DoublePairs() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeDouble(6.5249);
+		out.writeDouble(3.3797);
+		out.writeDouble(9.05);
+		out.writeDouble(7.49);
+
+		double[] latLon = batchService.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+		assertArrayEquals(new double[] { 6.5249, 3.3797, 9.05, 7.49 }, latLon);
+
+		out.writeDouble(1.0);
+		assertThrows(IllegalArgumentException.class,
+				() -> batchService.readBinary(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	@Test
+	void testReadBinary_TruncatedPair_Rejected() throws IOException {
+		// One whole pair and 4 bytes of the next latitude, as from a cut-off upload
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeDouble(6.5249);
+		out.writeDouble(3.3797);
+		out.writeInt(0x40180000);
+		assertEquals(20, bytes.size());
+
+		assertThrows(IllegalArgumentException.class,
+				() -> batchService.readBinary(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(0, batchService.readBinary(new ByteArrayInputStream(new byte[0])).length);
+	}
+
+	private static ByteArrayInputStream json(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
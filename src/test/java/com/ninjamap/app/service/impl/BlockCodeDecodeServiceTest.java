@@ -0,0 +1,123 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class BlockCodeDecodeServiceTest {
+
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final BlockCodeDecodeService decodeService = new BlockCodeDecodeService(blockCodeDecoder);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void testDecodeLines_GeneratedCodes_RoundTripWithPrefixLga() throws IOException {
+		Random random = new Random(3);
+		List<double[]> points = new ArrayList<>();
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 5_000; i++) {
+			double lat = SyntheticLgaFixture.MIN_LAT + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+			double lon = SyntheticLgaFixture.MIN_LON + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+			points.add(new double[] { lat, lon });
+			body.append(blockCodeDecoder.generateBlockCode(lat, lon)).append(i % 2 == 0 ? "\r\n" : "\n");
+		}
+
+		List<JsonNode> records = decodeLines(body.toString());
+
+		assertEquals(points.size(), records.size());
+		for (int i = 0; i < records.size(); i++) {
+			JsonNode record = records.get(i);
+			double lat = points.get(i)[0];
+			double lon = points.get(i)[1];
+			JsonNode bounds = record.get("bounds");
+			assertTrue(bounds.get("latitudeMin").asDouble() <= lat && lat <= bounds.get("latitudeMax").asDouble());
+			assertTrue(bounds.get("longitudeMin").asDouble() <= lon && lon <= bounds.get("longitudeMax").asDouble());
+			assertEquals(lat, record.get("coordinates").get("latitude").asDouble(), 1e-4);
+
+			LGA expected = blockCodeDecoder.findLGAOfCell(GeohashCodec.encodeBits(lat, lon));
+			if (expected == null) {
+				assertFalse(record.has("lga"));
+			} else {
+				assertEquals(expected.getLgaCode(), record.get("lga").get("lgaCode").asText());
+				assertEquals(expected.getStateCode(), record.get("lga").get("stateCode").asText());
+			}
+		}
+	}
+
+	@Test
+	void testDecodeLines_MalformedAndBlankLines_FailOnlyTheirOwnRecord() throws IOException {
+		String longLine = "A".repeat(20_000);
+		List<JsonNode> records = decodeLines("S14-MHGS-XMQ\n\n  \nnot-a-code\n" + longLine + "\nZZ999-S14-MHGS-XMQ");
+
+		assertEquals(4, records.size());
+		assertTrue(records.get(0).has("coordinates"));
+		assertFalse(records.get(0).has("lga"));
+		assertEquals("not-a-code", records.get(1).get("blockCode").asText());
+		assertEquals(BlockCodeDecodeService.INVALID_CODE, records.get(1).get("error").asText());
+		assertEquals(BlockCodeDecodeService.INVALID_CODE, records.get(2).get("error").asText());
+		assertTrue(records.get(3).has("coordinates"));
+		assertTrue(records.get(3).get("lga").isNull());
+	}
+
+	@Test
+	void testDecodeJson_ArrayOfStrings_DecodesInOrder() throws IOException {
+		String code = blockCodeDecoder.generateBlockCode(6.52, 3.38);
+		String body = "[\"" + code + "\", 42, \" S14-MHGS-XMQ \", \"bad\"]";
+
+		StringWriter out = new StringWriter();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.setRootValueSeparator(null);
+			assertEquals(4, decodeService.decodeJson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+					objectMapper.getFactory(), generator));
+		}
+		List<JsonNode> records = parse(out.toString());
+
+		assertEquals(code, records.get(0).get("blockCode").asText());
+		assertEquals(6.52, records.get(0).get("coordinates").get("latitude").asDouble(), 1e-4);
+		assertEquals("Block codes must be strings", records.get(1).get("error").asText());
+		assertEquals("S14-MHGS-XMQ", records.get(2).get("blockCode").asText());
+		assertTrue(records.get(3).has("error"));
+	}
+
+	@Test
+	void testDecodeJson_NotAnArray_Throws() {
+		assertThrows(IllegalArgumentException.class, () -> decodeService.decodeJson(
+				new ByteArrayInputStream("{\"blockCode\": \"S14-MHGS-XMQ\"}".getBytes(StandardCharsets.UTF_8)),
+				objectMapper.getFactory(), objectMapper.getFactory().createGenerator(new StringWriter())));
+	}
+
+	private List<JsonNode> decodeLines(String body) throws IOException {
+		StringWriter out = new StringWriter();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.setRootValueSeparator(null);
+			decodeService.decodeLines(new StringReader(body), generator);
+		}
+		return parse(out.toString());
+	}
+
+	private List<JsonNode> parse(String ndjson) throws IOException {
+		List<JsonNode> records = new ArrayList<>();
+		for (String line : ndjson.split("\n")) {
+			assertFalse(line.startsWith(" "));
+			records.add(objectMapper.readTree(line));
+		}
+		return records;
+	}
+}
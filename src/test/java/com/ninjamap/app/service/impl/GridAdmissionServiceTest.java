@@ -0,0 +1,63 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+
+class GridAdmissionServiceTest {
+
+	@Test
+	void testEstimateCells_BufferedCountsBoxAndStreamedOneRow() {
+		// 0.01 degree square at the equator: ~371 rows by ~372 columns of 3 m cells
+		GridLayout layout = GridLayout.of(0, 3, 0.01, 3, 0.01, 3.01, 0, 3.01);
+		long buffered = GridAdmissionService.estimateCells(layout, false);
+		assertEquals((long) layout.getRows() * layout.getCols(), buffered);
+		assertTrue(buffered > 130_000 && buffered < 140_000);
+		assertEquals(layout.getCols(), GridAdmissionService.estimateCells(layout, true));
+
+		// Longitude cells widen towards the poles, so the same box holds fewer cells
+		GridLayout north = GridLayout.of(60, 3, 60.01, 3, 60.01, 3.01, 60, 3.01);
+		assertTrue(GridAdmissionService.estimateCells(north, false) < buffered * 0.6);
+	}
+
+	@Test
+	void testTryAcquire_BudgetExhausted_RejectsUntilReleased() throws InterruptedException {
+		GridAdmissionService admission = new GridAdmissionService(1000, 0.5, 400, 0, 5);
+
+		GridAdmissionService.Permit first = admission.tryAcquire(600);
+		assertNotNull(first);
+		assertEquals(600, admission.getInFlightCells());
+		assertNull(admission.tryAcquire(500));
+
+		first.close();
+		first.close();
+		assertEquals(0, admission.getInFlightCells());
+		try (GridAdmissionService.Permit second = admission.tryAcquire(500)) {
+			assertNotNull(second);
+			assertEquals(500, admission.getInFlightCells());
+		}
+		assertEquals(0, admission.getInFlightCells());
+		assertEquals(Long.valueOf(2), admission.getStats().get("admittedRequests"));
+		assertEquals(Long.valueOf(1), admission.getStats().get("rejectedRequests"));
+	}
+
+	@Test
+	void testTryAcquire_LargerThanBudget_NeverFits() throws InterruptedException {
+		GridAdmissionService admission = new GridAdmissionService(1000, 0.5, 400, 1000, 5);
+		assertFalse(admission.fits(1001));
+		long start = System.nanoTime();
+		assertNull(admission.tryAcquire(1001));
+		// Rejected without waiting for budget that can never be free
+		assertTrue(System.nanoTime() - start < 500_000_000L);
+	}
+
+	@Test
+	void testConstructor_NoExplicitBudget_DerivesFromHeap() {
+		GridAdmissionService admission = new GridAdmissionService(0, 0.5, 400, 0, 0);
+		long expected = (long) (Runtime.getRuntime().maxMemory() * 0.5 / 400);
+		assertEquals(Math.min(expected, Integer.MAX_VALUE), admission.getMaxInFlightCells());
+		assertEquals(1, admission.getRetryAfterSeconds());
+	}
+}
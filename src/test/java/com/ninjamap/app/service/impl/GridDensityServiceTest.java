@@ -0,0 +1,70 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.service.impl.GridDensityService.DensityOverlay;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridDensityServiceTest {
+
+	private final GridLattice lattice = new GridLattice(9.0);
+	private final GridTileCache tileCache = new GridTileCache(lattice,
+			new BlockCodeDecoder(SyntheticLgaFixture.nigeria()), 64);
+	private final GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool());
+
+	@Test
+	void testAnnotate_CountsMatchPositionsInEachLatticeCell() {
+		ScanlinePolygon area = ScanlinePolygon.quad(6.5200, 3.3790, 6.5230, 3.3795, 6.5228, 3.3822, 6.5202, 3.3818);
+		GridLayout layout = GridLayout.aligned(area, lattice);
+
+		Random random = new Random(29);
+		List<Object[]> reports = new ArrayList<>();
+		List<Object[]> businesses = new ArrayList<>();
+		Map<Long, int[]> expected = new HashMap<>();
+		for (int i = 0; i < 3_000; i++) {
+			// Clustered into a few cells, some outside the area
+			double lat = 6.5195 + random.nextInt(40) * 0.0001 + random.nextDouble() * 0.00001;
+			double lon = 3.3785 + random.nextInt(40) * 0.0001 + random.nextDouble() * 0.00001;
+			boolean report = random.nextBoolean();
+			(report ? reports : businesses).add(new Object[] { lat, lon });
+			expected.computeIfAbsent(GridLattice.cellId(lattice.row(lat), lattice.col(lon)), id -> new int[2])[report ? 0 : 1]++;
+		}
+
+		DensityOverlay overlay = DensityOverlay.bin(layout, reports, businesses, 10_000);
+		List<GridCellWithCode> cells = gridGenerator.generateAlignedGridWithBlockCodes(area, tileCache);
+		int reportTotal = 0;
+		for (GridCellWithCode cell : cells) {
+			GridCellWithCode annotated = overlay.annotate(cell);
+			int[] counts = expected.getOrDefault(cell.getLatticeCellId(), new int[2]);
+			assertEquals(Integer.valueOf(counts[0]), annotated.getReportCount());
+			assertEquals(Integer.valueOf(counts[1]), annotated.getBusinessCount());
+			assertEquals(cell.getBlockCode(), annotated.getBlockCode());
+			reportTotal += counts[0];
+		}
+		assertTrue(reportTotal > 0 && reportTotal < reports.size());
+		assertFalse(overlay.isTruncated());
+		assertNull(cells.get(0).getReportCount());
+	}
+
+	@Test
+	void testBin_QueryLimitReached_IsTruncated() {
+		GridLayout layout = GridLayout.aligned(ScanlinePolygon.quad(6.52, 3.37, 6.53, 3.37, 6.53, 3.38, 6.52, 3.38), lattice);
+		List<Object[]> positions = List.of(new Object[] { 6.525, 3.375 }, new Object[] { null, 3.375 });
+		assertTrue(DensityOverlay.bin(layout, positions, List.of(), 2).isTruncated());
+		assertFalse(DensityOverlay.bin(layout, positions, List.of(), 3).isTruncated());
+	}
+}
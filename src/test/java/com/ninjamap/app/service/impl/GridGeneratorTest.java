@@ -0,0 +1,275 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.payload.response.GridCell;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.service.impl.GridGenerator.GridLayout;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridGeneratorTest {
+
+	private final GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool());
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(List.of());
+	private final GridTileCache tileCache = new GridTileCache(new GridLattice(9.0), blockCodeDecoder, 16);
+
+	@Test
+	void testStreamGridWithBlockCodes_LargeArea_MatchesMaterializedGrid() throws IOException {
+		// Rotated quadrilateral large enough to take the parallel branch of generateGrid
+		double[] corners = { 6.5244, 3.3792, 6.5274, 3.3782, 6.5284, 3.3822, 6.5250, 3.3830 };
+
+		List<GridCellWithCode> expected = gridGenerator.generateGridWithBlockCodes(
+				corners[0], corners[1], corners[2], corners[3],
+				corners[4], corners[5], corners[6], corners[7], blockCodeDecoder);
+
+		List<GridCellWithCode> streamed = new ArrayList<>();
+		List<Integer> finishedRows = new ArrayList<>();
+		gridGenerator.streamGridWithBlockCodes(
+				corners[0], corners[1], corners[2], corners[3],
+				corners[4], corners[5], corners[6], corners[7], blockCodeDecoder,
+				new GridGenerator.GridCellSink() {
+					@Override
+					public void accept(GridCellWithCode cell) {
+						streamed.add(cell);
+					}
+
+					@Override
+					public void endRow(int row) {
+						finishedRows.add(row);
+					}
+				});
+
+		assertTrue(expected.size() > 1000);
+		assertEquals(expected.size(), streamed.size());
+		assertEquals(keys(expected), keys(streamed));
+
+		// Every row is closed exactly once, in order
+		for (int i = 0; i < finishedRows.size(); i++) {
+			assertEquals(i, (int) finishedRows.get(i));
+		}
+	}
+
+	@Test
+	void testGenerateGrid_ParallelBranch_IsRowMajorAndDeterministic() {
+		double[] corners = { 6.5244, 3.3792, 6.5274, 3.3782, 6.5284, 3.3822, 6.5250, 3.3830 };
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			GridGenerator parallel = new GridGenerator(pool);
+			List<GridCell> first = parallel.generateGrid(corners[0], corners[1], corners[2], corners[3],
+					corners[4], corners[5], corners[6], corners[7]);
+			List<GridCell> second = parallel.generateGrid(corners[0], corners[1], corners[2], corners[3],
+					corners[4], corners[5], corners[6], corners[7]);
+
+			assertTrue(first.size() > 1000);
+			assertEquals(first, second);
+			for (int i = 1; i < first.size(); i++) {
+				GridCell previous = first.get(i - 1);
+				GridCell current = first.get(i);
+				assertTrue(current.getRowIndex() > previous.getRowIndex()
+						|| (current.getRowIndex() == previous.getRowIndex() && current.getColIndex() > previous.getColIndex()));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testGenerateGrid_Quad_MatchesPerCellRayCast() {
+		// Concave ("arrow") quadrilateral, so some rows have two spans
+		double[] corners = { 6.5244, 3.3792, 6.5262, 3.3804, 6.5284, 3.3792, 6.5262, 3.3830 };
+		ScanlinePolygon boundary = ScanlinePolygon.quad(corners[0], corners[1], corners[2], corners[3],
+				corners[4], corners[5], corners[6], corners[7]);
+
+		List<GridCell> cells = gridGenerator.generateGrid(corners[0], corners[1], corners[2], corners[3],
+				corners[4], corners[5], corners[6], corners[7]);
+		assertEquals(rayCastCells(GridLayout.of(boundary),
+				new double[][] { { corners[1], corners[0], corners[3], corners[2], corners[5], corners[4], corners[7], corners[6] } }),
+				cellKeys(cells));
+	}
+
+	@Test
+	void testGenerateGrid_PolygonWithHoleAndSecondPart_MatchesPerCellRayCast() {
+		double[] outer = { 3.3790, 6.5240, 3.3830, 6.5240, 3.3830, 6.5280, 3.3790, 6.5280 };
+		double[] hole = { 3.3800, 6.5250, 3.3810, 6.5265, 3.3820, 6.5250 };
+		double[] part = { 3.3840, 6.5240, 3.3850, 6.5240, 3.3845, 6.5250 };
+		ScanlinePolygon boundary = polygon(outer, hole, part);
+
+		List<GridCell> cells = gridGenerator.generateGrid(boundary);
+		List<String> expected = rayCastCells(GridLayout.of(boundary), new double[][] { outer, hole, part });
+		assertTrue(expected.size() > 10_000);
+		assertEquals(expected, cellKeys(cells));
+
+		// Nothing inside the hole
+		double holeLat = 6.5255;
+		double holeLon = 3.3810;
+		for (GridCell cell : cells) {
+			assertFalse(Math.abs(cell.getCenter().getLatitude() - holeLat) < 0.0002
+					&& Math.abs(cell.getCenter().getLongitude() - holeLon) < 0.0002);
+		}
+	}
+
+	@Test
+	void testStreamGridWithBlockCodes_LgaBoundary_MatchesPerCellRayCast() throws IOException {
+		// Centre LGA of a 3x3 synthetic state: all four edges jagged, hundreds of vertices each
+		PackedPolygon lga = SyntheticLgaFixture.generate(3, 3, 400, 3).get(4).getPackedBoundary();
+		double[] coords = lga.getCoords();
+		double[] scaled = new double[lga.getPointCount() * 2];
+		for (int i = 0; i < scaled.length; i += 2) {
+			// Shrink to a few hundred metres so the grid stays small
+			scaled[i] = 3.38 + (coords[i] - lga.getMinLon()) * 0.004 / (lga.getMaxLon() - lga.getMinLon());
+			scaled[i + 1] = 6.52 + (coords[i + 1] - lga.getMinLat()) * 0.004 / (lga.getMaxLat() - lga.getMinLat());
+		}
+		ScanlinePolygon boundary = polygon(scaled);
+		assertTrue(boundary.getVertexCount() > 1000);
+
+		List<String> streamed = new ArrayList<>();
+		gridGenerator.streamGridWithBlockCodes(boundary, null,
+				cell -> streamed.add(cell.getGridCell().getRowIndex() + "_" + cell.getGridCell().getColIndex()));
+		assertEquals(rayCastCells(GridLayout.of(boundary), new double[][] { scaled }), streamed);
+	}
+
+	/**
+	 * Reference: every cell of the bounding box, tested one by one with an even-odd ray cast
+	 */
+	private static List<String> rayCastCells(GridLayout layout, double[][] rings) {
+		List<String> keys = new ArrayList<>();
+		for (int row = 0; row < layout.getRows(); row++) {
+			for (int col = 0; col < layout.getCols(); col++) {
+				double cellMinLat = layout.getMinLat() + (row * layout.getLatDelta());
+				double cellMinLon = layout.getMinLon() + (col * layout.getLonDelta());
+				double lat = (cellMinLat + (cellMinLat + layout.getLatDelta())) / 2;
+				double lon = (cellMinLon + (cellMinLon + layout.getLonDelta())) / 2;
+				boolean inside = false;
+				for (double[] ring : rings) {
+					int n = ring.length / 2;
+					for (int i = 0, j = n - 1; i < n; j = i++) {
+						double xi = ring[i * 2], yi = ring[i * 2 + 1];
+						double xj = ring[j * 2], yj = ring[j * 2 + 1];
+						if (((yi > lat) != (yj > lat)) && (lon < (xj - xi) * (lat - yi) / (yj - yi) + xi)) {
+							inside = !inside;
+						}
+					}
+				}
+				if (inside) {
+					keys.add(row + "_" + col);
+				}
+			}
+		}
+		return keys;
+	}
+
+	private static ScanlinePolygon polygon(double[]... rings) {
+		int points = 0;
+		int[] ringStarts = new int[rings.length + 1];
+		for (int r = 0; r < rings.length; r++) {
+			points += rings[r].length / 2;
+			ringStarts[r + 1] = points;
+		}
+		double[] coords = new double[points * 2];
+		for (int r = 0; r < rings.length; r++) {
+			System.arraycopy(rings[r], 0, coords, ringStarts[r] * 2, rings[r].length);
+		}
+		return ScanlinePolygon.of(coords, ringStarts);
+	}
+
+	private static List<String> cellKeys(List<GridCell> cells) {
+		return cells.stream().map(cell -> cell.getRowIndex() + "_" + cell.getColIndex()).collect(Collectors.toList());
+	}
+
+	private static List<String> keys(List<GridCellWithCode> cells) {
+		return cells.stream()
+				.map(cell -> cell.getGridCell().getRowIndex() + "_" + cell.getGridCell().getColIndex() + "_" + cell.getBlockCode())
+				.collect(Collectors.toList());
+	}
+	@Test
+	void testDiffAlignedViewports_AppliedToPreviousGrid_GivesCurrentGrid() {
+		Random random = new Random(3);
+		for (int i = 0; i < 40; i++) {
+			// A rotated viewport panned and slightly zoomed
+			double lat = 6.5 + random.nextDouble() * 0.01;
+			double lon = 3.3 + random.nextDouble() * 0.01;
+			ScanlinePolygon previous = viewport(lat, lon, 0.0008, random.nextDouble() * 0.3);
+			ScanlinePolygon current = viewport(lat + (random.nextDouble() - 0.5) * 0.0004,
+					lon + (random.nextDouble() - 0.5) * 0.0004, 0.0008 * (0.9 + random.nextDouble() * 0.2),
+					random.nextDouble() * 0.3);
+
+			Map<Long, GridCellWithCode> view = new HashMap<>();
+			for (GridCellWithCode cell : gridGenerator.generateAlignedGridWithBlockCodes(previous, tileCache)) {
+				view.put(cell.getLatticeCellId(), cell);
+			}
+			GridGenerator.ViewportDiff diff = gridGenerator.diffAlignedViewports(previous, current, tileCache.getLattice());
+			long removed = 0;
+			for (long[] range : diff.getLeavingRanges()) {
+				assertEquals(GridLattice.rowOf(range[0]), GridLattice.rowOf(range[1]));
+				for (long id = range[0]; id <= range[1]; id++) {
+					assertNotNull(view.remove(id), "leaving cell was not in the view");
+					removed++;
+				}
+			}
+			List<GridCellWithCode> entering = gridGenerator.enteringCells(diff, tileCache);
+			for (GridCellWithCode cell : entering) {
+				assertNull(view.put(cell.getLatticeCellId(), cell), "entering cell was already in the view");
+			}
+
+			List<GridCellWithCode> expected = gridGenerator.generateAlignedGridWithBlockCodes(current, tileCache);
+			assertEquals(diff.getLeavingCells(), removed);
+			assertEquals(diff.getEnteringCells(), entering.size());
+			assertEquals(expected.size(), view.size());
+			for (GridCellWithCode cell : expected) {
+				GridCellWithCode actual = view.get(cell.getLatticeCellId());
+				assertNotNull(actual);
+				assertEquals(cell.getBlockCode(), actual.getBlockCode());
+				// Cells kept from the previous view were placed from its origin, a few ulps apart
+				assertEquals(cell.getCenter().getLatitude(), actual.getCenter().getLatitude(), 1e-12);
+				assertEquals(cell.getCenter().getLongitude(), actual.getCenter().getLongitude(), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	void testDiffAlignedViewports_SameViewport_IsEmpty() {
+		ScanlinePolygon viewport = viewport(6.52, 3.38, 0.001, 0.2);
+		GridGenerator.ViewportDiff diff = gridGenerator.diffAlignedViewports(viewport, viewport, tileCache.getLattice());
+		assertEquals(0, diff.getEnteringCells());
+		assertEquals(0, diff.getLeavingCells());
+		assertTrue(diff.getLeavingRanges().isEmpty());
+	}
+
+	@Test
+	void testSubtractSpans_SplitsAndTrims() {
+		assertArrayEquals(new int[] { 0, 2, 5, 6, 9, 10 },
+				GridGenerator.subtractSpans(new int[] { 0, 6, 8, 10 }, new int[] { 2, 5, 6, 9 }));
+		assertArrayEquals(new int[] {}, GridGenerator.subtractSpans(new int[] { 3, 7 }, new int[] { 0, 10 }));
+		assertArrayEquals(new int[] { 3, 7 }, GridGenerator.subtractSpans(new int[] { 3, 7 }, new int[] {}));
+	}
+
+	/**
+	 * Square viewport of the given half size around a centre, rotated by {@code angle} radians
+	 */
+	private static ScanlinePolygon viewport(double lat, double lon, double halfSize, double angle) {
+		double[] coords = new double[8];
+		double[][] corners = { { -1, -1 }, { -1, 1 }, { 1, 1 }, { 1, -1 } };
+		for (int i = 0; i < 4; i++) {
+			double x = corners[i][1] * halfSize;
+			double y = corners[i][0] * halfSize;
+			coords[i * 2] = lon + x * Math.cos(angle) - y * Math.sin(angle);
+			coords[i * 2 + 1] = lat + x * Math.sin(angle) + y * Math.cos(angle);
+		}
+		return ScanlinePolygon.of(coords, new int[] { 0, 4 });
+	}
+}
@@ -0,0 +1,184 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridNeighbourhoodServiceTest {
+
+	private final GridLattice lattice = new GridLattice(9.0);
+	private final GridTileCache tileCache = new GridTileCache(lattice,
+			new BlockCodeDecoder(SyntheticLgaFixture.nigeria()), 64);
+	private final GridNeighbourhoodService service = new GridNeighbourhoodService(tileCache, 10_000);
+
+	@Test
+	void testLocate_BlockCodeOfLatticeCell_ResolvesToSameCell() {
+		Random random = new Random(5);
+		for (int i = 0; i < 500; i++) {
+			int row = lattice.row(6.4 + random.nextDouble() * 0.05);
+			int col = lattice.col(3.3 + random.nextDouble() * 0.05);
+			assertEquals(GridLattice.cellId(row, col), service.locate(tileCache.blockCode(row, col)));
+		}
+	}
+
+	@Test
+	void testLocate_MalformedBlockCode_Throws() {
+		assertThrows(IllegalArgumentException.class, () -> service.locate("LA001-S14-MHGS"));
+		assertThrows(IllegalArgumentException.class, () -> service.locate((String) null));
+	}
+
+	@Test
+	void testNeighbours_EightAdjacentCellsClockwiseFromNorthWest() {
+		long origin = service.locate(6.5249, 3.3797);
+		int row = GridLattice.rowOf(origin);
+		int col = GridLattice.colOf(origin);
+
+		List<GridCellWithCode> neighbours = service.neighbours(origin);
+
+		int[][] expected = { { 1, -1 }, { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 } };
+		assertEquals(8, neighbours.size());
+		for (int i = 0; i < expected.length; i++) {
+			GridCellWithCode cell = neighbours.get(i);
+			assertEquals(row + expected[i][0], cell.getGridCell().getRowIndex());
+			assertEquals(col + expected[i][1], cell.getGridCell().getColIndex());
+			assertEquals(tileCache.blockCode(row + expected[i][0], col + expected[i][1]), cell.getBlockCode());
+		}
+	}
+
+	@Test
+	void testKRing_CoversSquareSortedByDistance() {
+		long origin = service.locate(6.5249, 3.3797);
+		int row = GridLattice.rowOf(origin);
+		int col = GridLattice.colOf(origin);
+
+		List<GridCellWithCode> cells = service.kRing(origin, 4);
+
+		assertEquals(81, cells.size());
+		assertEquals(Long.valueOf(origin), cells.get(0).getLatticeCellId());
+		Set<Long> ids = new HashSet<>();
+		int previous = 0;
+		for (GridCellWithCode cell : cells) {
+			int distance = Math.max(Math.abs(cell.getGridCell().getRowIndex() - row),
+					Math.abs(cell.getGridCell().getColIndex() - col));
+			assertTrue(distance <= 4);
+			assertTrue(distance >= previous, "rings out of order");
+			previous = distance;
+			ids.add(cell.getLatticeCellId());
+		}
+		assertEquals(81, ids.size());
+		assertEquals(32, service.ring(origin, 4).size());
+	}
+
+	@Test
+	void testKRing_NegativeOrTooLarge_Throws() {
+		long origin = service.locate(6.5249, 3.3797);
+		assertThrows(IllegalArgumentException.class, () -> service.kRing(origin, -1));
+		assertThrows(IllegalArgumentException.class, () -> service.kRing(origin, 50));
+	}
+
+	@Test
+	void testWithinRadius_MatchesBruteForce() {
+		Random random = new Random(17);
+		for (int i = 0; i < 50; i++) {
+			double lat = 6.4 + random.nextDouble() * 0.1;
+			double lon = 3.3 + random.nextDouble() * 0.1;
+			double radius = random.nextDouble() * 100;
+
+			Set<Long> expected = new HashSet<>();
+			double metersPerLon = 111320.0 * Math.cos(Math.toRadians(lat));
+			for (int row = lattice.row(lat) - 40; row <= lattice.row(lat) + 40; row++) {
+				for (int col = lattice.col(lon) - 40; col <= lattice.col(lon) + 40; col++) {
+					double north = (lattice.centerLat(row) - lat) * 111320.0;
+					double east = (lattice.centerLon(col) - lon) * metersPerLon;
+					if (north * north + east * east <= radius * radius) {
+						expected.add(GridLattice.cellId(row, col));
+					}
+				}
+			}
+
+			List<GridCellWithCode> cells = service.withinRadius(lat, lon, radius);
+			Set<Long> actual = new HashSet<>();
+			for (GridCellWithCode cell : cells) {
+				actual.add(cell.getLatticeCellId());
+			}
+			assertEquals(expected.size(), cells.size());
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	void testWithinRadius_TooLarge_Throws() {
+		assertThrows(IllegalArgumentException.class, () -> service.withinRadius(6.5, 3.3, 5_000));
+		assertThrows(IllegalArgumentException.class, () -> service.withinRadius(6.5, 3.3, -1));
+	}
+
+	@Test
+	void testAlongLine_ContiguousCellsCrossedBySegment() {
+		Random random = new Random(23);
+		for (int i = 0; i < 200; i++) {
+			double fromLat = 6.5 + random.nextDouble() * 0.002;
+			double fromLon = 3.3 + random.nextDouble() * 0.002;
+			double toLat = 6.5 + random.nextDouble() * 0.002;
+			double toLon = 3.3 + random.nextDouble() * 0.002;
+
+			List<GridCellWithCode> cells = service.alongLine(fromLat, fromLon, toLat, toLon);
+
+			assertEquals(Long.valueOf(service.locate(fromLat, fromLon)), cells.get(0).getLatticeCellId());
+			assertEquals(Long.valueOf(service.locate(toLat, toLon)), cells.get(cells.size() - 1).getLatticeCellId());
+			for (int k = 0; k < cells.size(); k++) {
+				int row = cells.get(k).getGridCell().getRowIndex();
+				int col = cells.get(k).getGridCell().getColIndex();
+				assertTrue(crosses(fromLat, fromLon, toLat, toLon, row, col), "cell not on the segment");
+				if (k > 0) {
+					int previousRow = cells.get(k - 1).getGridCell().getRowIndex();
+					int previousCol = cells.get(k - 1).getGridCell().getColIndex();
+					assertTrue(Math.max(Math.abs(row - previousRow), Math.abs(col - previousCol)) == 1);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testAlongLine_SameCell_ReturnsOneCell() {
+		long cell = service.locate(6.5249, 3.3797);
+		double lat = lattice.centerLat(GridLattice.rowOf(cell));
+		double lon = lattice.centerLon(GridLattice.colOf(cell));
+		assertEquals(1, service.alongLine(lat, lon, lat, lon).size());
+	}
+
+	/**
+	 * Whether the segment meets the cell, slightly enlarged against rounding (Liang-Barsky clipping)
+	 */
+	private boolean crosses(double fromLat, double fromLon, double toLat, double toLon, int row, int col) {
+		double epsilon = 1e-9;
+		double[] p = { -(toLon - fromLon), toLon - fromLon, -(toLat - fromLat), toLat - fromLat };
+		double[] q = {
+			fromLon - (lattice.minLon(col) - epsilon), lattice.minLon(col) + lattice.getLonDelta() + epsilon - fromLon,
+			fromLat - (lattice.minLat(row) - epsilon), lattice.minLat(row) + lattice.getLatDelta() + epsilon - fromLat
+		};
+		double enter = 0;
+		double exit = 1;
+		for (int i = 0; i < 4; i++) {
+			if (p[i] == 0) {
+				if (q[i] < 0) {
+					return false;
+				}
+			} else if (p[i] < 0) {
+				enter = Math.max(enter, q[i] / p[i]);
+			} else {
+				exit = Math.min(exit, q[i] / p[i]);
+			}
+		}
+		return enter <= exit;
+	}
+}
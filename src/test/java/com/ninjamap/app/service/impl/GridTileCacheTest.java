@@ -0,0 +1,210 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.CellResolution;
+import com.ninjamap.app.utils.geo.GeohashCodec;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.HotCellIndex;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.ScanlinePolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridTileCacheTest {
+
+	private final GridLattice lattice = new GridLattice(9.0);
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final GridTileCache tileCache = new GridTileCache(lattice, blockCodeDecoder, 64);
+	private final GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool());
+
+	@Test
+	void testCellId_RoundTrip() {
+		int[] values = { 0, 1, 255, 256, 3_500_000, 6_700_000, Integer.MAX_VALUE };
+		for (int row : values) {
+			for (int col : values) {
+				long id = GridLattice.cellId(row, col);
+				assertEquals(row, GridLattice.rowOf(id));
+				assertEquals(col, GridLattice.colOf(id));
+			}
+		}
+	}
+
+	@Test
+	void testBlockCode_MatchesSinglePointCodeAtCellCentre() {
+		// Across the northern edge of the first LGA, where the LGA of a code depends on the lookup rule
+		PackedPolygon first = blockCodeDecoder.getSnapshot().lgaAt(0).getPackedBoundary();
+		double edgeLon = (first.getMinLon() + first.getMaxLon()) / 2;
+		double edgeLat = (first.getMinLat() + first.getMaxLat()) / 2;
+		while (blockCodeDecoder.getSpatialIndex().findIndex(edgeLat, edgeLon) == 0) {
+			edgeLat += 0.0005;
+		}
+		Random random = new Random(11);
+		for (int i = 0; i < 5_000; i++) {
+			int row = lattice.row(edgeLat - 0.001 + random.nextDouble() * 0.002);
+			int col = lattice.col(edgeLon - 0.001 + random.nextDouble() * 0.002);
+			Coordinates centre = new Coordinates(lattice.centerLat(row), lattice.centerLon(col));
+
+			assertEquals(blockCodeDecoder.generateUniqueCodeForBlock(centre), tileCache.blockCode(row, col));
+		}
+	}
+
+	@Test
+	void testAlignedGrid_OverlappingViewports_ShareCells() {
+		List<GridCellWithCode> first = gridGenerator.generateAlignedGridWithBlockCodes(
+				6.5200, 3.3790, 6.5230, 3.3790, 6.5230, 3.3820, 6.5200, 3.3820, tileCache);
+		long missesAfterFirst = (long) tileCache.getStats().get("missCount");
+		List<GridCellWithCode> second = gridGenerator.generateAlignedGridWithBlockCodes(
+				6.5215, 3.3805, 6.5245, 3.3805, 6.5245, 3.3835, 6.5215, 3.3835, tileCache);
+
+		Map<Long, String> codes = new HashMap<>();
+		for (GridCellWithCode cell : first) {
+			assertNotNull(cell.getLatticeCellId());
+			codes.put(cell.getLatticeCellId(), cell.getBlockCode());
+		}
+
+		int shared = 0;
+		for (GridCellWithCode cell : second) {
+			String code = codes.get(cell.getLatticeCellId());
+			if (code != null) {
+				assertEquals(code, cell.getBlockCode());
+				shared++;
+			}
+			// Cell geometry sits on the lattice
+			int row = GridLattice.rowOf(cell.getLatticeCellId());
+			assertEquals(lattice.centerLat(row), cell.getCenter().getLatitude(), 1e-9);
+		}
+		assertTrue(shared > 1000);
+
+		// Panning back only touches tiles that are already cached
+		long missesAfterSecond = (long) tileCache.getStats().get("missCount");
+		gridGenerator.generateAlignedGridWithBlockCodes(
+				6.5200, 3.3790, 6.5230, 3.3790, 6.5230, 3.3820, 6.5200, 3.3820, tileCache);
+		assertTrue(missesAfterFirst > 0);
+		assertEquals(missesAfterSecond, (long) tileCache.getStats().get("missCount"));
+	}
+
+	@Test
+	void testBlockCode_HotCells_SameCodesWithoutComputingTiles(@TempDir Path directory) throws IOException {
+		int[] box = HotCellIndex.box(lattice, 6.5200, 3.3790, 6.5230, 3.3820);
+		Map<Long, String> expected = new HashMap<>();
+		GridTileCache reference = new GridTileCache(lattice, new BlockCodeDecoder(SyntheticLgaFixture.nigeria()), 64);
+		for (int row = box[0]; row <= box[1]; row++) {
+			for (int col = box[2]; col <= box[3]; col++) {
+				expected.put(GridLattice.cellId(row, col), reference.blockCode(row, col));
+			}
+		}
+
+		blockCodeDecoder.setHotCellIndex(HotCellIndex.build(directory.resolve("hot.idx"), lattice,
+				blockCodeDecoder.getSpatialIndex(), List.of(box)));
+		for (Map.Entry<Long, String> cell : expected.entrySet()) {
+			assertEquals(cell.getValue(),
+					tileCache.blockCode(GridLattice.rowOf(cell.getKey()), GridLattice.colOf(cell.getKey())));
+		}
+		assertEquals(0L, tileCache.getStats().get("missCount"));
+	}
+
+	@Test
+	void testBlockCode_CoarseResolution_DecodesInsideItsCell() {
+		Random random = new Random(13);
+		for (CellResolution resolution = CellResolution.METERS_30; resolution != null; resolution = resolution.coarser()) {
+			GridLattice coarse = tileCache.getLattice(resolution);
+			for (int i = 0; i < 500; i++) {
+				int row = coarse.row(6.0 + random.nextDouble() * 2);
+				int col = coarse.col(3.5 + random.nextDouble() * 2);
+
+				String code = tileCache.blockCode(resolution, row, col);
+				String geohash = code.substring(code.indexOf('-') + 1).replace("-", "");
+				assertEquals(resolution.getGeohashLength(), geohash.length());
+
+				double[] bounds = new double[4];
+				assertTrue(GeohashCodec.decode(geohash, bounds));
+				double lat = (bounds[GeohashCodec.LAT_MIN] + bounds[GeohashCodec.LAT_MAX]) / 2;
+				double lon = (bounds[GeohashCodec.LON_MIN] + bounds[GeohashCodec.LON_MAX]) / 2;
+				assertEquals(row, coarse.row(lat));
+				assertEquals(col, coarse.col(lon));
+				// Same LGA as the single-point code of the cell centre
+				String single = blockCodeDecoder.generateUniqueCodeForBlock(
+						new Coordinates(coarse.centerLat(row), coarse.centerLon(col)));
+				assertTrue(single.startsWith(code.substring(0, code.indexOf('-') + 1)), code + " " + single);
+			}
+		}
+		assertEquals(tileCache.blockCode(100, 200), tileCache.blockCode(CellResolution.METERS_3, 100, 200));
+	}
+
+	@Test
+	void testAlignedGrid_CoarseResolution_HasFactorSquaredFewerCells() {
+		// 0.3 x 0.3 degrees: far too many 3 m cells, about 111 x 111 300 m cells
+		ScanlinePolygon area = ScanlinePolygon.quad(6.2, 3.3, 6.5, 3.3, 6.5, 3.6, 6.2, 3.6);
+		List<GridCellWithCode> cells = gridGenerator.generateAlignedGridWithBlockCodes(area, tileCache,
+				CellResolution.METERS_300);
+
+		GridLattice coarse = tileCache.getLattice(CellResolution.METERS_300);
+		assertTrue(cells.size() > 10_000 && cells.size() < 13_000, "cells: " + cells.size());
+		for (GridCellWithCode cell : cells) {
+			int row = GridLattice.rowOf(cell.getLatticeCellId());
+			assertEquals(coarse.centerLat(row), cell.getCenter().getLatitude(), 1e-9);
+			assertTrue(cell.getBlockCode().matches(".*-[0-9A-Z]{3}-[0-9A-Z]{4}"), cell.getBlockCode());
+		}
+	}
+
+	@Test
+	void testOnReload_KeepsTilesAwayFromChangedLgas() {
+		int changed = 300;
+		int[] away = centreBox(100);
+		int[] inside = centreBox(changed);
+		for (int[] box : List.of(away, inside)) {
+			for (int row = box[0]; row <= box[1]; row++) {
+				for (int col = box[2]; col <= box[3]; col++) {
+					tileCache.blockCode(row, col);
+				}
+			}
+		}
+
+		List<LGA> moved = SyntheticLgaFixture.nigeria();
+		moved.get(changed).setStateCode("ZZ");
+		// Same change again as a fresh reference
+		List<LGA> fresh = SyntheticLgaFixture.nigeria();
+		fresh.get(changed).setStateCode("ZZ");
+		GridTileCache reference = new GridTileCache(lattice, new BlockCodeDecoder(fresh), 64);
+
+		LgaSnapshot snapshot = blockCodeDecoder.reload(moved);
+		assertTrue(tileCache.onReload(snapshot) > 0);
+		long missesBefore = (long) tileCache.getStats().get("missCount");
+		assertSameCodes(away, reference);
+		assertEquals(missesBefore, (long) tileCache.getStats().get("missCount"));
+		assertSameCodes(inside, reference);
+		assertTrue((long) tileCache.getStats().get("missCount") > missesBefore);
+	}
+
+	// A 0.003 degree box of cells in the middle of an LGA
+	private int[] centreBox(int lga) {
+		PackedPolygon boundary = blockCodeDecoder.getSnapshot().lgaAt(lga).getPackedBoundary();
+		double lat = (boundary.getMinLat() + boundary.getMaxLat()) / 2;
+		double lon = (boundary.getMinLon() + boundary.getMaxLon()) / 2;
+		return HotCellIndex.box(lattice, lat, lon, lat + 0.003, lon + 0.003);
+	}
+
+	private void assertSameCodes(int[] box, GridTileCache reference) {
+		for (int row = box[0]; row <= box[1]; row++) {
+			for (int col = box[2]; col <= box[3]; col++) {
+				assertEquals(reference.blockCode(row, col), tileCache.blockCode(row, col));
+			}
+		}
+	}
+}
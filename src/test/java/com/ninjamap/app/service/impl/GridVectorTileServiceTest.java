@@ -0,0 +1,90 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.MvtReader;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridVectorTileServiceTest {
+
+	private final GridLattice lattice = new GridLattice(9.0);
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final GridTileCache tileCache = new GridTileCache(lattice, blockCodeDecoder, 64);
+	private final GridVectorTileService tileService = new GridVectorTileService(tileCache, blockCodeDecoder, 18, 16);
+
+	@Test
+	void testGetTile_CellZoom_HasOneFeaturePerLatticeCell() {
+		int[] xy = tileAt(18, 6.52, 3.38);
+		Map<String, MvtReader.Layer> layers = MvtReader.read(tileService.getTile(18, xy[0], xy[1]));
+
+		assertEquals(1, layers.size());
+		MvtReader.Layer cells = layers.get(GridVectorTileService.CELLS_LAYER);
+		assertTrue(cells.features().size() > 1000);
+
+		for (MvtReader.Feature feature : cells.features()) {
+			int row = GridLattice.rowOf(feature.id());
+			int col = GridLattice.colOf(feature.id());
+			assertEquals(tileCache.blockCode(row, col), feature.attributes().get("code"));
+			assertEquals(3, feature.type());
+			assertEquals(1, feature.rings().size());
+			assertEquals(8, feature.rings().get(0).length);
+			assertTrue(MvtReader.area2(feature.rings().get(0)) > 0);
+
+			// Every cell overlaps the tile (plus at most one cell of bleed)
+			int[] ring = feature.rings().get(0);
+			assertTrue(ring[0] < 4096 + 64 && ring[4] > -64);
+		}
+	}
+
+	@Test
+	void testGetTile_LowZoom_HasAggregatedLgaLayer() {
+		int[] xy = tileAt(8, 6.52, 3.38);
+		Map<String, MvtReader.Layer> layers = MvtReader.read(tileService.getTile(8, xy[0], xy[1]));
+
+		assertNull(layers.get(GridVectorTileService.CELLS_LAYER));
+		MvtReader.Layer lgas = layers.get(GridVectorTileService.LGA_LAYER);
+		assertFalse(lgas.features().isEmpty());
+		for (MvtReader.Feature feature : lgas.features()) {
+			String prefix = (String) feature.attributes().get("prefix");
+			assertEquals(feature.attributes().get("stateCode") + "" + feature.attributes().get("lgaCode"), prefix);
+			assertFalse(feature.rings().isEmpty());
+		}
+	}
+
+	@Test
+	void testGetTile_OutsideData_IsEmpty() {
+		// Mid Pacific: no LGA and no cells below the cell zoom
+		assertEquals(0, tileService.getTile(6, 0, 31).length);
+	}
+
+	@Test
+	void testEtag_StablePerTileAndDistinctAcrossTiles() {
+		assertEquals(tileService.etag(18, 100, 200), tileService.etag(18, 100, 200));
+		assertNotEquals(tileService.etag(18, 100, 200), tileService.etag(18, 100, 201));
+		assertNotEquals(tileService.etag(18, 100, 200), tileService.etag(17, 100, 200));
+		assertTrue(tileService.etag(0, 0, 0).startsWith("\""));
+	}
+
+	@Test
+	void testIsValidTile_RejectsOutOfRangeCoordinates() {
+		assertTrue(GridVectorTileService.isValidTile(0, 0, 0));
+		assertFalse(GridVectorTileService.isValidTile(0, 1, 0));
+		assertFalse(GridVectorTileService.isValidTile(-1, 0, 0));
+		assertFalse(GridVectorTileService.isValidTile(25, 0, 0));
+		assertFalse(GridVectorTileService.isValidTile(10, 0, 1024));
+	}
+
+	private static int[] tileAt(int z, double lat, double lon) {
+		double n = Math.pow(2, z);
+		int x = (int) Math.floor((lon + 180) / 360 * n);
+		double latRad = Math.toRadians(lat);
+		int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+		return new int[] { x, y };
+	}
+}
@@ -0,0 +1,66 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.GridLattice;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class GridWarmupServiceTest {
+
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+	private final GridTileCache tileCache = new GridTileCache(new GridLattice(9.0), blockCodeDecoder, 64);
+	private final GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool());
+	private final List<Object> events = new ArrayList<>();
+
+	@Test
+	void testRun_FillsCachesAndHoldsReadinessUntilDone() {
+		GridWarmupService warmup = warmup("6.45,3.38,6.47,3.40;9.05,7.48,9.06,7.50", 60_000);
+		assertEquals("PENDING", warmup.getReport().get("state"));
+
+		warmup.run(null);
+		Map<String, Object> report = warmup.getReport();
+		assertEquals("COMPLETED", report.get("state"));
+		assertEquals(2, report.get("rounds"));
+		assertEquals(784, report.get("lgasTouched"));
+		assertEquals(blockCodeDecoder.getSnapshot().getLgas().stream()
+				.mapToLong(lga -> lga.getPackedBoundary().getPointCount()).sum(), report.get("boundaryPointsRead"));
+		assertEquals(2L * 2 * 1000, report.get("points"));
+		assertTrue((long) report.get("cells") > 0);
+		assertTrue((double) report.get("blockCodeCacheFill") > 0);
+		assertTrue(blockCodeDecoder.getCacheStats().get("blockCodeCacheSize") > 0);
+		assertTrue((long) tileCache.getStats().get("tiles") > 0);
+		// Readiness is only ever lowered here; Spring Boot raises it after the runners
+		assertEquals(1, events.size());
+		assertEquals(ReadinessState.REFUSING_TRAFFIC, ((AvailabilityChangeEvent<?>) events.get(0)).getState());
+	}
+
+	@Test
+	void testRun_TimeBudgetSpent_StopsEarly() {
+		GridWarmupService warmup = warmup("6.45,3.38,6.47,3.40", 1);
+		warmup.run(null);
+		assertEquals("TIMED_OUT", warmup.getReport().get("state"));
+	}
+
+	@Test
+	void testParseAreas_MalformedOrEmpty_Throws() {
+		assertEquals(2, GridWarmupService.parseAreas(" 6.4,3.3,6.5,3.4 ; 9,7,9.1,7.1;").size());
+		assertTrue(GridWarmupService.parseAreas("").isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> GridWarmupService.parseAreas("6.4,3.3,6.5"));
+		assertThrows(IllegalArgumentException.class, () -> GridWarmupService.parseAreas("6.5,3.3,6.4,3.4"));
+	}
+
+	private GridWarmupService warmup(String areas, long maxDurationMs) {
+		return new GridWarmupService(gridGenerator, tileCache, blockCodeDecoder, events::add, true, areas, 2,
+				0.002, 3, 1000, maxDurationMs);
+	}
+}
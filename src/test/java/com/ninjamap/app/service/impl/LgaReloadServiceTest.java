@@ -0,0 +1,81 @@
+package com.ninjamap.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class LgaReloadServiceTest {
+
+	private static final String ONE_LGA = "[{\"id\":1,\"stateName\":\"Lagos\",\"stateCode\":\"LA\",\"lgaName\":\"Test\","
+			+ "\"lgaCode\":\"001\",\"boundary\":[[3.3,6.4],[3.4,6.4],[3.4,6.5],[3.3,6.5],[3.3,6.4]]}]";
+
+	@TempDir
+	Path root;
+
+	private Path dataDirectory;
+	private ExecutorService executor;
+	private BlockCodeDecoder blockCodeDecoder;
+	private LgaReloadService reloadService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		dataDirectory = Files.createDirectory(root.resolve("lga-data"));
+		executor = Executors.newSingleThreadExecutor();
+		blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+		reloadService = new LgaReloadService(blockCodeDecoder, mock(GridTileCache.class),
+				mock(GridVectorTileService.class), mock(HotCellIndexService.class), executor, "",
+				dataDirectory.toString());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testReload_FileInDataDirectory_Loaded() throws Exception {
+		Files.createDirectory(dataDirectory.resolve("2026"));
+		Files.writeString(dataDirectory.resolve("2026/lgas.json"), ONE_LGA);
+
+		Map<String, Object> result = reloadService.reload("2026/lgas.json").get();
+		assertEquals(1, result.get("lgaCount"));
+		assertEquals(2L, blockCodeDecoder.getSnapshot().getGeneration());
+	}
+
+	@Test
+	void testReload_PathsOutsideDataDirectory_RejectedWithoutEchoingServerPaths() throws IOException {
+		Path outside = Files.writeString(root.resolve("secret.json"), ONE_LGA);
+		Files.createSymbolicLink(dataDirectory.resolve("link.json"), outside);
+
+		for (String path : new String[] { "../secret.json", outside.toString(), "link.json", "missing.json" }) {
+			ExecutionException error = assertThrows(ExecutionException.class, () -> reloadService.reload(path).get());
+			assertInstanceOf(IllegalArgumentException.class, error.getCause());
+			assertFalse(error.getCause().getMessage().contains(root.toString()), error.getCause().getMessage());
+		}
+		assertEquals(1L, blockCodeDecoder.getSnapshot().getGeneration());
+	}
+
+	@Test
+	void testReload_NoDataDirectory_NamedFilesDisabled() {
+		LgaReloadService disabled = new LgaReloadService(blockCodeDecoder, mock(GridTileCache.class),
+				mock(GridVectorTileService.class), mock(HotCellIndexService.class), executor, "", "");
+
+		ExecutionException error = assertThrows(ExecutionException.class, () -> disabled.reload("lgas.json").get());
+		assertInstanceOf(IllegalArgumentException.class, error.getCause());
+	}
+}
@@ -0,0 +1,97 @@
+package com.ninjamap.app.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.geo.LgaSnapshot;
+import com.ninjamap.app.utils.geo.PackedPolygon;
+import com.ninjamap.app.utils.geo.SyntheticLgaFixture;
+
+class BlockCodeDecoderTest {
+
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+
+	@Test
+	void testGenerateUniqueCodeForBlock_CachedPath_MatchesUncachedCode() {
+		Random random = new Random(17);
+		for (int i = 0; i < 20_000; i++) {
+			double lat = SyntheticLgaFixture.MIN_LAT + random.nextDouble() * (SyntheticLgaFixture.MAX_LAT - SyntheticLgaFixture.MIN_LAT);
+			double lon = SyntheticLgaFixture.MIN_LON + random.nextDouble() * (SyntheticLgaFixture.MAX_LON - SyntheticLgaFixture.MIN_LON);
+			Coordinates point = new Coordinates(lat, lon);
+			String cached = blockCodeDecoder.generateUniqueCodeForBlock(point);
+			assertEquals(cached, blockCodeDecoder.generateUniqueCodeForBlock(point));
+
+			assertEquals(blockCodeDecoder.generateBlockCode(lat, lon), cached);
+		}
+		assertTrue(blockCodeDecoder.getCacheStats().get("blockCodeCacheSize") > 0);
+	}
+
+	@Test
+	void testFindLGAOptimized_PointOutsideEveryLga_IsCachedAsNull() {
+		Coordinates ocean = new Coordinates(0.5, -20.0);
+		assertNull(blockCodeDecoder.findLGAOptimized(ocean));
+		assertNull(blockCodeDecoder.findLGAOptimized(ocean));
+		assertEquals(Integer.valueOf(1), blockCodeDecoder.getCacheStats().get("lgaCacheSize"));
+	}
+
+	@Test
+	void testCacheSize_BoundedByConfiguredMaximum() {
+		blockCodeDecoder.setMaxBlockCodeCacheSize(64);
+		blockCodeDecoder.setMaxLgaCacheSize(64);
+		for (int i = 0; i < 10_000; i++) {
+			blockCodeDecoder.generateUniqueCodeForBlock(new Coordinates(6.5 + i * 1e-3, 3.3));
+		}
+		assertTrue(blockCodeDecoder.getCacheStats().get("blockCodeCacheSize") <= 64);
+		assertTrue(blockCodeDecoder.getCacheStats().get("lgaCacheSize") <= 64);
+	}
+
+	@Test
+	void testReload_OneLgaRecoded_NewCodesThereCachedCodesKeptElsewhere() {
+		int changed = 300;
+		List<Coordinates> points = new ArrayList<>();
+		List<Integer> lgaOfPoint = new ArrayList<>();
+		for (int lga : new int[] { 0, 299, 300, 301, 783 }) {
+			// Around the middle of the LGA, well away from its boundary
+			PackedPolygon boundary = blockCodeDecoder.getSnapshot().lgaAt(lga).getPackedBoundary();
+			double lat = (boundary.getMinLat() + boundary.getMaxLat()) / 2;
+			double lon = (boundary.getMinLon() + boundary.getMaxLon()) / 2;
+			for (int i = 0; i < 25; i++) {
+				points.add(new Coordinates(lat + (i / 5 - 2) * 0.02, lon + (i % 5 - 2) * 0.02));
+				lgaOfPoint.add(lga);
+			}
+		}
+		List<String> before = new ArrayList<>();
+		points.forEach(point -> before.add(blockCodeDecoder.generateUniqueCodeForBlock(point)));
+		int cachedBefore = blockCodeDecoder.getCacheStats().get("blockCodeCacheSize");
+
+		List<LGA> recoded = SyntheticLgaFixture.nigeria();
+		recoded.get(changed).setLgaCode("999");
+		LgaSnapshot snapshot = blockCodeDecoder.reload(recoded);
+		assertEquals(2, snapshot.getGeneration());
+		assertEquals(1, snapshot.getChanges().getChangedCount());
+		assertTrue(snapshot.getChanges().isPositionsKept());
+		int kept = blockCodeDecoder.getCacheStats().get("blockCodeCacheSize");
+		assertTrue(kept > 0 && kept < cachedBefore, kept + " of " + cachedBefore);
+
+		List<LGA> fresh = SyntheticLgaFixture.nigeria();
+		fresh.get(changed).setLgaCode("999");
+		BlockCodeDecoder reference = new BlockCodeDecoder(fresh);
+		for (int i = 0; i < points.size(); i++) {
+			Coordinates point = points.get(i);
+			String code = blockCodeDecoder.generateUniqueCodeForBlock(point);
+			assertEquals(reference.generateBlockCode(point.getLatitude(), point.getLongitude()), code);
+			if (lgaOfPoint.get(i) == changed) {
+				assertNotEquals(before.get(i), code);
+			} else {
+				assertEquals(before.get(i), code);
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+class BlockCodeParserTest {
+
+	@Test
+	void testParse_FormattedCodes_MatchGeohashDecode() {
+		Random random = new Random(11);
+		double[] parsed = new double[4];
+		double[] expected = new double[4];
+		for (int i = 0; i < 10_000; i++) {
+			double lat = random.nextDouble() * 180 - 90;
+			double lon = random.nextDouble() * 360 - 180;
+			long bits = GeohashCodec.encodeBits(lat, lon);
+			String code = BlockCodeDecoder.formatBlockCode(null, bits);
+			String geohash = GeohashCodec.encode(lat, lon, GeohashCodec.MAX_ENCODE_LENGTH);
+
+			assertEquals(0, BlockCodeParser.parse(code.toCharArray(), 0, code.length(), parsed));
+			assertTrue(GeohashCodec.decode(geohash, expected));
+			assertArrayEquals(expected, parsed);
+			assertTrue(parsed[GeohashCodec.LAT_MIN] <= lat && lat <= parsed[GeohashCodec.LAT_MAX]);
+			assertTrue(parsed[GeohashCodec.LON_MIN] <= lon && lon <= parsed[GeohashCodec.LON_MAX]);
+		}
+	}
+
+	@Test
+	void testParse_Prefix_ReturnsPrefixLengthWithinBuffer() {
+		char[] chars = "  LA001-s14-mhgs-xmq  ".toCharArray();
+		double[] bounds = new double[4];
+		assertEquals(5, BlockCodeParser.parse(chars, 2, 18, bounds));
+
+		double[] upper = new double[4];
+		assertEquals(5, BlockCodeParser.parse("LA001-S14-MHGS-XMQ".toCharArray(), 0, 18, upper));
+		assertArrayEquals(upper, bounds);
+	}
+
+	@Test
+	void testParse_MalformedCodes_AreInvalid() {
+		String[] malformed = {
+			"", "S14-MHGS-XM", "S14MHGSXMQ12", "S14-MHGS-XMA", "S14-MHGSX-MQ", "-S14-MHGS-XMQ",
+			"LA001S14-MHGS-XMQ", "LA 01-S14-MHGS-XMQ", "LA001-S14-MHGS-XMQ-", "LA001--S14-MHGS-XMQ",
+			"X".repeat(60) + "-S14-MHGS-XMQ"
+		};
+		for (String code : malformed) {
+			assertEquals(BlockCodeParser.INVALID,
+					BlockCodeParser.parse(code.toCharArray(), 0, code.length(), new double[4]), code);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CellResolutionTest {
+
+	private final GridLattice lattice = new GridLattice(9.0);
+
+	@Test
+	void testAtResolution_CoarseCellsNestExactlyOverBaseCells() {
+		Random random = new Random(3);
+		for (CellResolution resolution : CellResolution.values()) {
+			GridLattice coarse = lattice.atResolution(resolution);
+			int factor = resolution.getFactor();
+			assertEquals(lattice.getLatDelta() * factor, coarse.getLatDelta(), 1e-15);
+			for (int i = 0; i < 1_000; i++) {
+				double lat = 4 + random.nextDouble() * 9;
+				double lon = 3 + random.nextDouble() * 11;
+				int row = lattice.row(lat);
+				int col = lattice.col(lon);
+
+				assertEquals(Math.floorDiv(row, factor), coarse.row(lat));
+				assertEquals(Math.floorDiv(col, factor), coarse.col(lon));
+				long parent = resolution.parentOf(GridLattice.cellId(row, col));
+				assertEquals(GridLattice.cellId(coarse.row(lat), coarse.col(lon)), parent);
+				// The parent's south-west corner is exactly its first child's
+				assertEquals(lattice.minLat(GridLattice.rowOf(parent) * factor), coarse.minLat(GridLattice.rowOf(parent)));
+				assertEquals(lattice.minLon(GridLattice.colOf(parent) * factor), coarse.minLon(GridLattice.colOf(parent)));
+			}
+		}
+		assertSame(lattice, lattice.atResolution(CellResolution.METERS_3));
+	}
+
+	@Test
+	void testForZoom_CoarserAsZoomDrops() {
+		assertEquals(CellResolution.METERS_3, CellResolution.forZoom(20, 9.0, 4));
+		assertEquals(CellResolution.METERS_30, CellResolution.forZoom(17, 9.0, 4));
+		assertEquals(CellResolution.METERS_300, CellResolution.forZoom(14, 9.0, 4));
+		assertEquals(CellResolution.KILOMETERS_3, CellResolution.forZoom(10, 9.0, 4));
+		assertEquals(CellResolution.KILOMETERS_3, CellResolution.forZoom(0, 9.0, 4));
+		assertThrows(IllegalArgumentException.class, () -> CellResolution.forZoom(31, 9.0, 4));
+		assertThrows(IllegalArgumentException.class, () -> CellResolution.forZoom(-1, 9.0, 4));
+	}
+
+	@Test
+	void testParse_LabelsOnly() {
+		assertEquals(CellResolution.METERS_300, CellResolution.parse(" 300M "));
+		assertEquals(CellResolution.KILOMETERS_3, CellResolution.parse("3km"));
+		assertThrows(IllegalArgumentException.class, () -> CellResolution.parse("10m"));
+		assertThrows(IllegalArgumentException.class, () -> CellResolution.parse(null));
+	}
+}
@@ -0,0 +1,62 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class GeoJsonPolygonsTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void testParse_PolygonWithHole_DropsClosingPositions() throws Exception {
+		ScanlinePolygon polygon = GeoJsonPolygons.parse(json("""
+				{"type": "Polygon", "coordinates": [
+				  [[3.0, 6.0], [3.1, 6.0], [3.1, 6.1], [3.0, 6.1], [3.0, 6.0]],
+				  [[3.04, 6.04], [3.06, 6.04], [3.06, 6.06], [3.04, 6.06], [3.04, 6.04]]
+				]}"""), 100);
+
+		assertEquals(2, polygon.getRingCount());
+		assertEquals(8, polygon.getVertexCount());
+		assertEquals(6.0, polygon.getMinLat());
+		assertEquals(3.1, polygon.getMaxLon());
+		assertTrue(polygon.contains(6.02, 3.02));
+		assertFalse(polygon.contains(6.05, 3.05));
+	}
+
+	@Test
+	void testParse_MultiPolygonFeature_CoversAllParts() throws Exception {
+		ScanlinePolygon polygon = GeoJsonPolygons.parse(json("""
+				{"type": "Feature", "properties": {}, "geometry": {"type": "MultiPolygon", "coordinates": [
+				  [[[3.0, 6.0], [3.1, 6.0], [3.05, 6.1]]],
+				  [[[4.0, 7.0], [4.1, 7.0], [4.05, 7.1]]]
+				]}}"""), 100);
+
+		assertEquals(2, polygon.getRingCount());
+		assertTrue(polygon.contains(6.02, 3.05));
+		assertTrue(polygon.contains(7.02, 4.05));
+		assertFalse(polygon.contains(6.5, 3.5));
+	}
+
+	@Test
+	void testParse_InvalidInput_Throws() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("""
+				{"type": "LineString", "coordinates": [[3.0, 6.0], [3.1, 6.0]]}"""), 100));
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("""
+				{"type": "Polygon", "coordinates": [[[3.0, 6.0], [3.1, 6.0], [3.0, 6.0]]]}"""), 100));
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("""
+				{"type": "Polygon", "coordinates": [[[3.0, 96.0], [3.1, 6.0], [3.05, 6.1]]]}"""), 100));
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("""
+				{"type": "Polygon", "coordinates": [[["3.0", 6.0], [3.1, 6.0], [3.05, 6.1]]]}"""), 100));
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("""
+				{"type": "Polygon", "coordinates": [[[3.0, 6.0], [3.1, 6.0], [3.05, 6.1], [3.0, 6.05]]]}"""), 3));
+		assertThrows(IllegalArgumentException.class, () -> GeoJsonPolygons.parse(json("[]"), 100));
+	}
+
+	private JsonNode json(String text) throws Exception {
+		return objectMapper.readTree(text);
+	}
+}
@@ -0,0 +1,166 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+import com.ninjamap.app.utils.BlockCodeHashGenerator;
+
+class GeohashCodecTest {
+
+	private static final String BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+	@Test
+	void testEncode_RandomPoints_MatchesLegacyStringEncoder() {
+		Random random = new Random(42);
+		for (int i = 0; i < 20_000; i++) {
+			double lat = -90 + random.nextDouble() * 180;
+			double lon = -180 + random.nextDouble() * 360;
+			String expected = legacyEncode(lat, lon);
+			for (int length = 0; length <= GeohashCodec.MAX_ENCODE_LENGTH; length++) {
+				assertEquals(expected.substring(0, length), GeohashCodec.encode(lat, lon, length));
+			}
+			assertEquals(expected, BlockCodeHashGenerator.encode(lat, lon, 10));
+		}
+	}
+
+	@Test
+	void testEncode_LatticeBoundaries_MatchesLegacyStringEncoder() {
+		double[] edges = { -90, -45, 0, 45, 90, -180, 180, 6.5244, 3.3792, 1e-12, -1e-12 };
+		for (double lat : edges) {
+			for (double lon : edges) {
+				if (Math.abs(lat) <= 90) {
+					assertEquals(legacyEncode(lat, lon), GeohashCodec.encode(lat, lon, 10));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testDecode_RandomHashes_MatchesLegacyDecoder() {
+		Random random = new Random(7);
+		double[] out = new double[4];
+		for (int i = 0; i < 20_000; i++) {
+			int length = 1 + random.nextInt(12);
+			StringBuilder hash = new StringBuilder();
+			for (int c = 0; c < length; c++) {
+				char ch = BASE_32.charAt(random.nextInt(32));
+				hash.append(random.nextBoolean() ? Character.toUpperCase(ch) : ch);
+			}
+			Map<String, Double> expected = legacyDecode(hash.toString());
+			assertEquals(expected, BlockCodeHashGenerator.decode(hash.toString()));
+
+			assertTrue(GeohashCodec.decode(hash, out));
+			assertEquals((double) expected.get("latitudeMin"), out[GeohashCodec.LAT_MIN]);
+			assertEquals((double) expected.get("latitudeMax"), out[GeohashCodec.LAT_MAX]);
+			assertEquals((double) expected.get("longitudeMin"), out[GeohashCodec.LON_MIN]);
+			assertEquals((double) expected.get("longitudeMax"), out[GeohashCodec.LON_MAX]);
+		}
+	}
+
+	@Test
+	void testDecode_InvalidInput_ReturnsNull() {
+		assertNull(BlockCodeHashGenerator.decode(null));
+		assertNull(BlockCodeHashGenerator.decode(""));
+		assertNull(BlockCodeHashGenerator.decode("abci"));
+		assertNull(GeohashCodec.decode("s0a"));
+		assertFalse(GeohashCodec.decode("s0é", new double[4]));
+	}
+
+	@Test
+	void testFormatBlockCode_MatchesLegacyConcatenation() {
+		Random random = new Random(3);
+		LGA lga = new LGA();
+		lga.setStateCode("LA");
+		lga.setLgaCode("001");
+		for (int i = 0; i < 5_000; i++) {
+			double lat = 4 + random.nextDouble() * 10;
+			double lon = 2.5 + random.nextDouble() * 12;
+			String code = legacyEncode(lat, lon).toUpperCase();
+			String suffix = code.substring(0, 3) + "-" + code.substring(3, 7) + "-" + code.substring(7, 10);
+			long bits = GeohashCodec.encodeBits(lat, lon);
+
+			assertEquals(suffix, BlockCodeDecoder.formatBlockCode(null, bits));
+			assertEquals("LA001-" + suffix, BlockCodeDecoder.formatBlockCode(lga, bits));
+		}
+	}
+
+	// ---- Reference copy of the original String-based Android implementation ----
+
+	private static String legacyEncode(double latitude, double longitude) {
+		String binaryLatitude = legacyBinary(latitude, -90.0, 90.0);
+		String binaryLongitude = legacyBinary(longitude, -180.0, 180.0);
+
+		String combinedBits = "";
+		for (int i = 0; i < binaryLatitude.length(); i++) {
+			combinedBits += "" + binaryLongitude.charAt(i) + binaryLatitude.charAt(i);
+		}
+
+		String encodedHash = "";
+		for (int i = 0; i < combinedBits.length(); i += 5) {
+			encodedHash += BASE_32.charAt(Integer.parseInt(combinedBits.substring(i, i + 5), 2));
+		}
+		return encodedHash;
+	}
+
+	private static String legacyBinary(double value, double min, double max) {
+		String binary = "";
+		for (int i = 0; i < 25; i++) {
+			double mean = (min + max) / 2;
+			if (value < mean) {
+				binary += "0";
+				max = mean;
+			} else {
+				binary += "1";
+				min = mean;
+			}
+		}
+		return binary;
+	}
+
+	private static Map<String, Double> legacyDecode(String hash) {
+		StringBuilder latBits = new StringBuilder();
+		StringBuilder lonBits = new StringBuilder();
+		int bitIndex = 0;
+		for (char c : hash.toLowerCase().toCharArray()) {
+			String binary = String.format("%5s", Integer.toBinaryString(BASE_32.indexOf(c))).replace(' ', '0');
+			for (char bit : binary.toCharArray()) {
+				(bitIndex++ % 2 == 0 ? lonBits : latBits).append(bit);
+			}
+		}
+
+		double latMin = -90.0, latMax = 90.0;
+		for (int i = 0; i < latBits.length(); i++) {
+			double latMean = (latMin + latMax) / 2;
+			if (latBits.charAt(i) == '1') {
+				latMin = latMean;
+			} else {
+				latMax = latMean;
+			}
+		}
+		double lonMin = -180.0, lonMax = 180.0;
+		for (int i = 0; i < lonBits.length(); i++) {
+			double lonMean = (lonMin + lonMax) / 2;
+			if (lonBits.charAt(i) == '1') {
+				lonMin = lonMean;
+			} else {
+				lonMax = lonMean;
+			}
+		}
+
+		Map<String, Double> result = new HashMap<>();
+		result.put("latitude", (latMin + latMax) / 2);
+		result.put("longitude", (lonMin + lonMax) / 2);
+		result.put("latitudeMin", latMin);
+		result.put("latitudeMax", latMax);
+		result.put("longitudeMin", lonMin);
+		result.put("longitudeMax", lonMax);
+		return result;
+	}
+}
@@ -0,0 +1,109 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninjamap.app.service.impl.GridGenerator;
+import com.ninjamap.app.service.impl.GridGenerator.GridCellWithCode;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+class GridBinaryFormatTest {
+
+	// Roughly 330 m x 330 m around Lagos, rotated so edge rows are partial
+	private static final double[] CORNERS = { 6.5200, 3.3790, 6.5227, 3.3780, 6.5232, 3.3812, 6.5206, 3.3820 };
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final GridGenerator gridGenerator = new GridGenerator(ForkJoinPool.commonPool());
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+
+	@Test
+	void testRoundTrip_WithBlockCodes_MatchesJsonOutput() throws IOException {
+		List<GridCellWithCode> expected = new ArrayList<>(gridGenerator.generateGridWithBlockCodes(
+				CORNERS[0], CORNERS[1], CORNERS[2], CORNERS[3],
+				CORNERS[4], CORNERS[5], CORNERS[6], CORNERS[7], blockCodeDecoder));
+		expected.sort(Comparator.comparingInt((GridCellWithCode c) -> c.getGridCell().getRowIndex())
+				.thenComparingInt(c -> c.getGridCell().getColIndex()));
+
+		byte[] binary = writeBinary(blockCodeDecoder);
+		GridBinaryFormat.DecodedGrid grid = GridBinaryFormat.read(new ByteArrayInputStream(binary));
+
+		assertTrue(grid.hasBlockCodes());
+		List<GridCellWithCode> decoded = new ArrayList<>();
+		for (GridBinaryFormat.DecodedCell cell : grid.cells()) {
+			decoded.add(new GridCellWithCode(grid.toGridCell(cell), cell.blockCode()));
+		}
+
+		JsonNode expectedJson = objectMapper.valueToTree(expected);
+		JsonNode decodedJson = objectMapper.valueToTree(decoded);
+		assertEquals(expectedJson, decodedJson);
+
+		// Codes carry LGA prefixes and the payload is an order of magnitude smaller
+		assertTrue(expected.stream().map(GridCellWithCode::getBlockCode).anyMatch(code -> code.length() > 12));
+		int jsonSize = objectMapper.writeValueAsBytes(expected).length;
+		assertTrue(binary.length * 10 < jsonSize, "binary " + binary.length + " vs json " + jsonSize);
+	}
+
+	@Test
+	void testRoundTrip_WithoutBlockCodes_KeepsGeometry() throws IOException {
+		byte[] binary = writeBinary(null);
+		GridBinaryFormat.DecodedGrid grid = GridBinaryFormat.read(new ByteArrayInputStream(binary));
+
+		assertFalse(grid.hasBlockCodes());
+		assertEquals(gridGenerator.generateGrid(
+				CORNERS[0], CORNERS[1], CORNERS[2], CORNERS[3],
+				CORNERS[4], CORNERS[5], CORNERS[6], CORNERS[7]).size(), grid.cells().size());
+		assertNull(grid.cells().get(0).blockCode());
+	}
+
+	@Test
+	void testWriteCell_OutOfOrder_Throws() throws IOException {
+		GridBinaryFormat.Writer writer = new GridBinaryFormat.Writer(new ByteArrayOutputStream());
+		writer.writeHeader(0, 0, 1, 1, 10, 10, false);
+		writer.writeCell(2, 5, null);
+		assertThrows(IllegalArgumentException.class, () -> writer.writeCell(2, 5, null));
+		assertThrows(IllegalArgumentException.class, () -> writer.writeCell(1, 9, null));
+	}
+
+	@Test
+	void testRead_TruncatedStream_Throws() throws IOException {
+		byte[] binary = writeBinary(blockCodeDecoder);
+		byte[] truncated = Arrays.copyOf(binary, binary.length - 5);
+		assertThrows(IOException.class, () -> GridBinaryFormat.read(new ByteArrayInputStream(truncated)));
+		assertThrows(IOException.class, () -> GridBinaryFormat.read(new ByteArrayInputStream(new byte[] { 'N', 'O' })));
+	}
+
+	private byte[] writeBinary(BlockCodeDecoder decoder) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GridBinaryFormat.Writer writer = new GridBinaryFormat.Writer(out);
+		gridGenerator.streamGridWithBlockCodes(
+				CORNERS[0], CORNERS[1], CORNERS[2], CORNERS[3],
+				CORNERS[4], CORNERS[5], CORNERS[6], CORNERS[7], decoder,
+				new GridGenerator.GridCellSink() {
+					@Override
+					public void begin(GridGenerator.GridLayout layout) throws IOException {
+						writer.writeHeader(layout.getMinLat(), layout.getMinLon(), layout.getLatDelta(),
+								layout.getLonDelta(), layout.getRows(), layout.getCols(), decoder != null);
+					}
+
+					@Override
+					public void accept(GridCellWithCode cell) throws IOException {
+						writer.writeCell(cell.getGridCell().getRowIndex(), cell.getGridCell().getColIndex(),
+								cell.getBlockCode());
+					}
+				});
+		writer.finish();
+		return out.toByteArray();
+	}
+}
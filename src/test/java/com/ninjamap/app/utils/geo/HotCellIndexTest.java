@@ -0,0 +1,119 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ninjamap.app.model.Coordinates;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+class HotCellIndexTest {
+
+	@TempDir
+	Path directory;
+
+	private final GridLattice lattice = new GridLattice(9.0);
+	private final BlockCodeDecoder blockCodeDecoder = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+
+	@Test
+	void testBuild_SameCellsAsLatticeTiles() throws IOException {
+		LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+		// Around the northern edge of the first LGA, so the boxes span a boundary
+		PackedPolygon first = spatialIndex.getLgas().get(0).getPackedBoundary();
+		double lon = (first.getMinLon() + first.getMaxLon()) / 2;
+		double edge = (first.getMinLat() + first.getMaxLat()) / 2;
+		while (spatialIndex.findIndex(edge, lon) == 0) {
+			edge += 0.0005;
+		}
+		int[] box = HotCellIndex.box(lattice, edge - 0.002, lon - 0.002, edge + 0.002, lon);
+		int[] overlapping = HotCellIndex.box(lattice, edge - 0.001, lon - 0.001, edge, lon + 0.001);
+		HotCellIndex index = HotCellIndex.build(directory.resolve("hot.idx"), lattice, spatialIndex,
+				List.of(box, overlapping));
+
+		Map<Long, LatticeTile> tiles = new HashMap<>();
+		Set<Integer> lgas = new HashSet<>();
+		int cells = 0;
+		for (int row = box[0] - 2; row <= box[1] + 2; row++) {
+			for (int col = box[2] - 2; col <= overlapping[3] + 2; col++) {
+				long value = index.get(row, col);
+				boolean inside = row >= box[0] && row <= box[1] && col >= box[2] && col <= box[3]
+						|| row >= overlapping[0] && row <= overlapping[1] && col >= overlapping[2] && col <= overlapping[3];
+				if (!inside) {
+					assertEquals(HotCellIndex.MISS, value);
+					continue;
+				}
+				LatticeTile tile = tiles.computeIfAbsent(GridLattice.tileKey(row, col), key -> LatticeTile.compute(
+						lattice, spatialIndex, GridLattice.rowOf(key), GridLattice.colOf(key)));
+				assertEquals(tile.lgaIndex(row, col), HotCellIndex.lgaIndex(value));
+				assertEquals(tile.geohashBits(row, col), HotCellIndex.geohashBits(value));
+				lgas.add(HotCellIndex.lgaIndex(value));
+				cells++;
+			}
+		}
+		assertEquals(cells, index.size());
+		assertTrue(lgas.size() >= 2, "box should cross an LGA boundary");
+	}
+
+	@Test
+	void testGenerateUniqueCode_HotAndColdCodesEqual() throws IOException {
+		LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+		PackedPolygon first = spatialIndex.getLgas().get(0).getPackedBoundary();
+		double lon = (first.getMinLon() + first.getMaxLon()) / 2;
+		double edge = (first.getMinLat() + first.getMaxLat()) / 2;
+		while (spatialIndex.findIndex(edge, lon) == 0) {
+			edge += 0.0005;
+		}
+		int[] box = HotCellIndex.box(lattice, edge - 0.002, lon - 0.002, edge + 0.002, lon + 0.002);
+		blockCodeDecoder.setHotCellIndex(HotCellIndex.build(directory.resolve("hot.idx"), lattice, spatialIndex,
+				List.of(box)));
+		BlockCodeDecoder cold = new BlockCodeDecoder(SyntheticLgaFixture.nigeria());
+
+		// Points in an order that fills the cold caches from varying positions within their cells
+		Random random = new Random(23);
+		Set<String> prefixes = new HashSet<>();
+		for (int i = 0; i < 20_000; i++) {
+			Coordinates point = new Coordinates(edge - 0.002 + random.nextDouble() * 0.004,
+					lon - 0.002 + random.nextDouble() * 0.004);
+			String hot = blockCodeDecoder.generateUniqueCodeForBlockOptimized(point);
+			assertEquals(cold.generateUniqueCodeForBlockOptimized(point), hot);
+			prefixes.add(hot.substring(0, hot.indexOf('-')));
+		}
+		assertTrue(prefixes.size() >= 2, "points should cross an LGA boundary");
+		assertEquals(Integer.valueOf(0), blockCodeDecoder.getCacheStats().get("blockCodeCacheSize"));
+		assertTrue(cold.getCacheStats().get("blockCodeCacheSize") > 0);
+	}
+
+	@Test
+	void testMap_OnlyMatchesTheInputsItWasBuiltFrom() throws IOException {
+		LgaSpatialIndex spatialIndex = blockCodeDecoder.getSpatialIndex();
+		List<int[]> boxes = List.of(HotCellIndex.box(lattice, 6.45, 3.39, 6.451, 3.391));
+		Path file = directory.resolve("hot.idx");
+		HotCellIndex built = HotCellIndex.build(file, lattice, spatialIndex, boxes);
+
+		HotCellIndex mapped = HotCellIndex.map(file);
+		assertTrue(mapped.matches(lattice, spatialIndex, boxes));
+		assertEquals(built.size(), mapped.size());
+		assertEquals(built.get(boxes.get(0)[0], boxes.get(0)[2]), mapped.get(boxes.get(0)[0], boxes.get(0)[2]));
+		assertFalse(mapped.matches(new GridLattice(6.5), spatialIndex, boxes));
+		assertFalse(mapped.matches(lattice, spatialIndex, List.of(HotCellIndex.box(lattice, 6.45, 3.39, 6.452, 3.391))));
+		assertFalse(mapped.matches(lattice, new LgaSpatialIndex(spatialIndex.getLgas().subList(1, 10)), boxes));
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() / 2);
+		}
+		assertThrows(IOException.class, () -> HotCellIndex.map(file));
+		assertThrows(IllegalArgumentException.class, () -> HotCellIndex.box(lattice, 6.5, 3.4, 6.4, 3.5));
+	}
+}
@@ -0,0 +1,103 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+class LgaDatasetTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testCompiledDataset_SameLookupsAsJson() throws IOException {
+		Path json = directory.resolve("lga.json");
+		Path dataset = directory.resolve("lga.bin");
+		Files.writeString(json, new Gson().toJson(SyntheticLgaFixture.nigeria()), StandardCharsets.UTF_8);
+		LgaDatasetCompiler.main(new String[] { json.toString(), dataset.toString() });
+
+		BlockCodeDecoder fromJson = new BlockCodeDecoder(
+				BlockCodeDecoder.parseLGAs(new StringReader(Files.readString(json, StandardCharsets.UTF_8))));
+		BlockCodeDecoder fromBinary = new BlockCodeDecoder(dataset.toString());
+		assertEquals(fromJson.getSpatialIndex().size(), fromBinary.getSpatialIndex().size());
+		assertTrue(fromBinary.getSpatialIndex().getLgas().get(0).getPackedBoundary().isMapped());
+		assertEquals(fromJson.getSpatialIndex().getFingerprint(), fromBinary.getSpatialIndex().getFingerprint());
+
+		Random random = new Random(2024);
+		for (int i = 0; i < 50_000; i++) {
+			double lat = SyntheticLgaFixture.MIN_LAT - 0.2 + random.nextDouble() * 10.1;
+			double lon = SyntheticLgaFixture.MIN_LON - 0.2 + random.nextDouble() * 12.5;
+			assertEquals(fromJson.getSpatialIndex().findIndexExact(lat, lon),
+					fromBinary.getSpatialIndex().findIndexExact(lat, lon));
+			assertEquals(fromJson.generateBlockCode(lat, lon), fromBinary.generateBlockCode(lat, lon));
+		}
+		LGA lga = fromBinary.getSpatialIndex().getLgas().get(7);
+		assertEquals(SyntheticLgaFixture.nigeria().get(7).getLgaName(), lga.getLgaName());
+		assertSame(lga, fromBinary.findLGAByPrefix(lga.getStateCode() + lga.getLgaCode()));
+	}
+
+	@Test
+	void testMap_HolesAndNullFields_RoundTrip() throws IOException {
+		LGA withHole = new LGA();
+		withHole.setId(3);
+		withHole.setLgaCode("007");
+		withHole.setPolygons(List.of(List.of(
+				List.of(List.of(3.0, 6.0), List.of(4.0, 6.0), List.of(4.0, 7.0), List.of(3.0, 7.0)),
+				List.of(List.of(3.25, 6.25), List.of(3.75, 6.25), List.of(3.75, 6.75), List.of(3.25, 6.75)))));
+		LGA empty = new LGA();
+		empty.setId(4);
+		empty.setStateName("Ẹ̀kìtì");
+		Path dataset = directory.resolve("small.bin");
+		LgaDataset.write(List.of(withHole, empty), dataset);
+
+		List<LGA> mapped = LgaDataset.map(dataset);
+		assertEquals(2, mapped.size());
+		assertNull(mapped.get(0).getStateCode());
+		assertEquals("007", mapped.get(0).getLgaCode());
+		assertEquals("Ẹ̀kìtì", mapped.get(1).getStateName());
+		assertTrue(mapped.get(0).isPointInside(6.1, 3.1));
+		assertFalse(mapped.get(0).isPointInside(6.5, 3.5));
+		assertTrue(mapped.get(1).getPackedBoundary().isEmpty());
+	}
+
+	@Test
+	void testMap_WrongVersionOrTruncatedFile_Throws() throws IOException {
+		Path dataset = directory.resolve("broken.bin");
+		LgaDataset.write(SyntheticLgaFixture.generate(3, 3, 4, 1L), dataset);
+		byte[] bytes = Files.readAllBytes(dataset);
+
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, LgaDataset.VERSION + 1);
+		Files.write(dataset, bytes);
+		IOException version = assertThrows(IOException.class, () -> LgaDataset.map(dataset));
+		assertTrue(version.getMessage().contains("version"));
+
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, LgaDataset.VERSION);
+		Files.write(dataset, Arrays.copyOf(bytes, bytes.length - 100));
+		assertThrows(IOException.class, () -> LgaDataset.map(dataset));
+
+		Files.writeString(dataset, "[]");
+		assertThrows(IOException.class, () -> LgaDataset.map(dataset));
+	}
+
+	@Test
+	void testDecoder_MissingDataset_FallsBackToJson() {
+		BlockCodeDecoder decoder = new BlockCodeDecoder(directory.resolve("missing.bin").toString());
+		assertNotNull(decoder.getSpatialIndex());
+	}
+}
@@ -0,0 +1,91 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.model.LGA;
+
+class LgaRasterTest {
+
+	@Test
+	void testFindIndex_WithRaster_MatchesExactLookup() {
+		List<LGA> lgas = SyntheticLgaFixture.generate(20, 20, 16, 11L);
+		LgaSpatialIndex index = new LgaSpatialIndex(lgas);
+		index.rasterize(0.01);
+		LgaRaster raster = index.getRaster();
+		assertTrue(raster.getBoundaryFraction() > 0 && raster.getBoundaryFraction() < 0.2);
+
+		Random random = new Random(21);
+		int rasterHits = 0;
+		for (int i = 0; i < 200_000; i++) {
+			double lat = SyntheticLgaFixture.MIN_LAT - 0.5 + random.nextDouble() * 10.7;
+			double lon = SyntheticLgaFixture.MIN_LON - 0.5 + random.nextDouble() * 13.1;
+			assertEquals(index.findIndexExact(lat, lon), index.findIndex(lat, lon));
+			if (raster.lookup(lat, lon) != LgaRaster.BOUNDARY) {
+				rasterHits++;
+			}
+		}
+		assertTrue(rasterHits > 160_000);
+	}
+
+	@Test
+	void testLookup_PointsOnCellCornersAndVertices_MatchExactLookup() {
+		List<LGA> lgas = SyntheticLgaFixture.generate(6, 6, 8, 3L);
+		LgaSpatialIndex index = new LgaSpatialIndex(lgas);
+		index.rasterize(0.05);
+		for (LGA lga : lgas) {
+			double[] coords = lga.getPackedBoundary().getCoords();
+			for (int i = 0; i < coords.length; i += 2) {
+				assertEquals(LgaRaster.BOUNDARY, index.getRaster().lookup(coords[i + 1], coords[i]));
+			}
+		}
+		for (double lat = 4.0; lat < 14.0; lat += 0.05) {
+			for (double lon = 2.5; lon < 15.0; lon += 0.05) {
+				assertEquals(index.findIndexExact(lat, lon), index.findIndex(lat, lon));
+			}
+		}
+	}
+
+	@Test
+	void testLookup_HoleAndOverlap_FollowEvenOddAndSourceOrder() {
+		LGA withHole = new LGA();
+		withHole.setId(1);
+		withHole.setPolygons(List.of(List.of(
+				square(6.0, 3.0, 1.0),
+				square(6.25, 3.25, 0.5))));
+		LGA overlapping = new LGA();
+		overlapping.setId(2);
+		overlapping.setBoundary(square(6.8, 3.8, 1.0));
+		LgaSpatialIndex index = new LgaSpatialIndex(List.of(withHole, overlapping));
+		index.rasterize(0.01);
+		LgaRaster raster = index.getRaster();
+
+		assertEquals(0, raster.lookup(6.1, 3.1));
+		assertEquals(LgaRaster.NO_LGA, raster.lookup(6.5, 3.5));
+		assertEquals(0, raster.lookup(6.9, 3.9));
+		assertEquals(1, raster.lookup(7.5, 4.5));
+		assertEquals(LgaRaster.NO_LGA, raster.lookup(5.0, 3.0));
+		assertEquals(LgaRaster.NO_LGA, raster.lookup(Double.NaN, 3.5));
+	}
+
+	@Test
+	void testBuild_InvalidCellSize_Throws() {
+		LgaSpatialIndex index = new LgaSpatialIndex(SyntheticLgaFixture.generate(2, 2, 4, 1L));
+		assertThrows(IllegalArgumentException.class, () -> LgaRaster.build(index, 0));
+		assertThrows(IllegalArgumentException.class, () -> LgaRaster.build(index, Double.NaN));
+		index.rasterize(0);
+		assertNull(index.getRaster());
+	}
+
+	private static List<List<Double>> square(double minLat, double minLon, double size) {
+		return List.of(
+				List.of(minLon, minLat),
+				List.of(minLon + size, minLat),
+				List.of(minLon + size, minLat + size),
+				List.of(minLon, minLat + size));
+	}
+}
@@ -0,0 +1,90 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.model.LGA;
+import com.ninjamap.app.utils.BlockCodeDecoder;
+
+class LgaSpatialIndexTest {
+
+	private final List<LGA> lgas = SyntheticLgaFixture.generate(20, 20, 16, 11L);
+	private final BlockCodeDecoder decoder = new BlockCodeDecoder(lgas);
+
+	@Test
+	void testFindLGA_RandomPoints_MatchesLinearScan() {
+		Random random = new Random(5);
+		for (int i = 0; i < 20_000; i++) {
+			// Sample slightly beyond the dataset so misses are covered too
+			double lat = SyntheticLgaFixture.MIN_LAT - 0.5 + random.nextDouble() * 10.7;
+			double lon = SyntheticLgaFixture.MIN_LON - 0.5 + random.nextDouble() * 13.1;
+			assertSame(decoder.findLGALinear(lat, lon), decoder.findLGA(lat, lon));
+		}
+	}
+
+	@Test
+	void testFindLGA_PointsInsideDataset_AlwaysResolve() {
+		Random random = new Random(9);
+		for (int i = 0; i < 10_000; i++) {
+			double lat = SyntheticLgaFixture.MIN_LAT + 0.01 + random.nextDouble() * 9.6;
+			double lon = SyntheticLgaFixture.MIN_LON + 0.01 + random.nextDouble() * 12.0;
+			assertNotNull(decoder.findLGA(lat, lon));
+		}
+	}
+
+	@Test
+	void testFind_OverlappingPolygons_FirstInSourceOrderWins() {
+		LGA first = square(1, 6.0, 3.0, 1.0);
+		LGA second = square(2, 6.5, 3.5, 1.0);
+		LgaSpatialIndex index = new LgaSpatialIndex(List.of(first, second));
+
+		assertSame(first, index.find(6.75, 3.75));
+		assertSame(second, index.find(7.25, 4.25));
+		assertNull(index.find(5.5, 2.5));
+	}
+
+	@Test
+	void testFindIndexes_WithAndWithoutRaster_MatchesFindIndex() {
+		LgaSpatialIndex index = new LgaSpatialIndex(lgas);
+		Random random = new Random(13);
+		int count = 5_003;
+		double[] latitudes = new double[count];
+		double[] longitudes = new double[count];
+		for (int i = 0; i < count; i++) {
+			latitudes[i] = SyntheticLgaFixture.MIN_LAT - 0.5 + random.nextDouble() * 10.7;
+			longitudes[i] = SyntheticLgaFixture.MIN_LON - 0.5 + random.nextDouble() * 13.1;
+		}
+
+		for (double cellDegrees : new double[] { 0, 0.05 }) {
+			index.rasterize(cellDegrees);
+			int[] result = new int[count];
+			index.findIndexes(latitudes, longitudes, count, result);
+			for (int i = 0; i < count; i++) {
+				assertEquals(index.findIndex(latitudes[i], longitudes[i]), result[i]);
+			}
+		}
+	}
+
+	@Test
+	void testFindIndexes_OverlappingPolygons_FirstInSourceOrderWins() {
+		LgaSpatialIndex index = new LgaSpatialIndex(List.of(square(1, 6.0, 3.0, 1.0), square(2, 6.5, 3.5, 1.0)));
+		int[] result = new int[3];
+		index.findIndexes(new double[] { 6.75, 7.25, 5.5 }, new double[] { 3.75, 4.25, 2.5 }, 3, result);
+		assertArrayEquals(new int[] { 0, 1, -1 }, result);
+	}
+
+	private static LGA square(int id, double minLat, double minLon, double size) {
+		LGA lga = new LGA();
+		lga.setId(id);
+		lga.setBoundary(List.of(
+				List.of(minLon, minLat),
+				List.of(minLon + size, minLat),
+				List.of(minLon + size, minLat + size),
+				List.of(minLon, minLat + size)));
+		return lga;
+	}
+}
@@ -0,0 +1,150 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class LongKeyedCacheTest {
+
+	@Test
+	void testGetAndPut_RoundTripAndCountHitsAndMisses() {
+		LongKeyedCache<String> cache = new LongKeyedCache<>(1024);
+		assertNull(cache.get(42L));
+		cache.put(42L, "a");
+		cache.put(-42L, "b");
+		cache.put(42L, "c");
+
+		assertEquals("c", cache.get(42L));
+		assertEquals("b", cache.get(-42L));
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	void testPut_BeyondCapacity_EvictsLeastRecentlyUsedAndStaysBounded() {
+		LongKeyedCache<Long> cache = new LongKeyedCache<>(8);
+		assertEquals(8, cache.capacity());
+		for (long key = 0; key < 8; key++) {
+			cache.put(key, key);
+		}
+		// Touch everything except key 3, which becomes the eviction victim
+		for (long key = 0; key < 8; key++) {
+			if (key != 3) {
+				assertEquals(Long.valueOf(key), cache.get(key));
+			}
+		}
+		cache.put(100L, 100L);
+
+		assertNull(cache.get(3L));
+		assertEquals(Long.valueOf(100L), cache.get(100L));
+		assertEquals(8, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		for (long key = 1000; key < 100_000; key++) {
+			cache.put(key, key);
+		}
+		assertEquals(8, cache.size());
+	}
+
+	@Test
+	void testCapacity_RoundedDownToPowerOfTwoSets() {
+		assertEquals(8192, new LongKeyedCache<>(10_000).capacity());
+		assertEquals(0, new LongKeyedCache<>(0).capacity());
+
+		LongKeyedCache<String> disabled = new LongKeyedCache<>(0);
+		disabled.put(1L, "a");
+		assertNull(disabled.get(1L));
+		assertEquals(0, disabled.size());
+	}
+
+	@Test
+	void testClear_RemovesEntriesButKeepsCounters() {
+		LongKeyedCache<String> cache = new LongKeyedCache<>(4096);
+		for (long key = 0; key < 1000; key++) {
+			cache.put(key << 20, "v" + key);
+		}
+		assertEquals("v7", cache.get(7L << 20));
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertNull(cache.get(7L << 20));
+		assertEquals(1, cache.getHitCount());
+		cache.put(1L, "again");
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testSetCapacityShift_KeepsMostRecentlyUsedAndGrowsBack() {
+		LongKeyedCache<Long> cache = new LongKeyedCache<>(8);
+		for (long key = 0; key < 8; key++) {
+			cache.put(key, key);
+		}
+		// Keys 5 and 2 become the two most recently used of the single set
+		cache.get(5L);
+		cache.get(2L);
+
+		cache.setCapacityShift(2);
+		assertEquals(2, cache.capacity());
+		assertEquals(8, cache.maxCapacity());
+		assertEquals(2, cache.size());
+		assertEquals(6, cache.getEvictionCount());
+		assertEquals(Long.valueOf(5), cache.get(5L));
+		assertEquals(Long.valueOf(2), cache.get(2L));
+		assertNull(cache.get(0L));
+		cache.put(9L, 9L);
+		assertEquals(2, cache.size());
+
+		cache.setCapacityShift(0);
+		assertEquals(8, cache.capacity());
+		for (long key = 10; key < 16; key++) {
+			cache.put(key, key);
+		}
+		assertEquals(8, cache.size());
+		assertEquals(Long.valueOf(9), cache.get(9L));
+	}
+
+	@Test
+	void testSetCapacityShift_OutOfRange_IsClamped() {
+		LongKeyedCache<Long> cache = new LongKeyedCache<>(1024);
+		cache.setCapacityShift(10);
+		assertEquals(LongKeyedCache.MAX_CAPACITY_SHIFT, cache.getCapacityShift());
+		assertEquals(128, cache.capacity());
+		cache.setCapacityShift(-1);
+		assertEquals(1024, cache.capacity());
+	}
+
+	@Test
+	void testConcurrentAccess_ValuesAlwaysMatchTheirKey() throws InterruptedException {
+		LongKeyedCache<Long> cache = new LongKeyedCache<>(2048);
+		AtomicBoolean mismatch = new AtomicBoolean();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			long seed = t;
+			threads.add(new Thread(() -> {
+				for (long i = 0; i < 200_000; i++) {
+					long key = (i * 31 + seed) % 5000;
+					Long value = cache.get(key);
+					if (value == null) {
+						cache.put(key, key * 3);
+					} else if (value != key * 3) {
+						mismatch.set(true);
+					}
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertFalse(mismatch.get());
+		assertTrue(cache.size() <= cache.capacity());
+		assertEquals(800_000, cache.getHitCount() + cache.getMissCount());
+	}
+}
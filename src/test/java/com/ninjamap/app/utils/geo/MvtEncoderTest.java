@@ -0,0 +1,110 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+class MvtEncoderTest {
+
+	private final GeometryFactory geometryFactory = new GeometryFactory();
+
+	@Test
+	void testEncode_PolygonWithHole_FixesWindingAndDecodes() {
+		// Exterior counter-clockwise on screen and hole clockwise: both must be flipped
+		LinearRing shell = ring(0, 0, 0, 100, 100, 100, 100, 0, 0, 0);
+		LinearRing hole = ring(25, 25, 75, 25, 75, 75, 25, 75, 25, 25);
+		Polygon polygon = geometryFactory.createPolygon(shell, new LinearRing[] { hole });
+		assertTrue(MvtReader.area2(flatten(shell)) < 0);
+
+		MvtEncoder encoder = new MvtEncoder();
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		attributes.put("code", "LA001-S14-MHGS-XMQ");
+		attributes.put("count", 42);
+		attributes.put("ratio", 0.5);
+		attributes.put("valid", true);
+		attributes.put("missing", null);
+		assertTrue(encoder.layer("cells", 4096).addPolygonFeature(7L, polygon, attributes));
+
+		MvtReader.Layer layer = MvtReader.read(encoder.encode()).get("cells");
+		assertEquals(2, layer.version());
+		assertEquals(4096, layer.extent());
+		assertEquals(1, layer.features().size());
+
+		MvtReader.Feature feature = layer.features().get(0);
+		assertEquals(7L, (long) feature.id());
+		assertEquals(3, feature.type());
+		assertEquals("LA001-S14-MHGS-XMQ", feature.attributes().get("code"));
+		assertEquals(42L, feature.attributes().get("count"));
+		assertEquals(0.5, feature.attributes().get("ratio"));
+		assertEquals(true, feature.attributes().get("valid"));
+		assertFalse(feature.attributes().containsKey("missing"));
+
+		assertEquals(2, feature.rings().size());
+		assertEquals(8, feature.rings().get(0).length);
+		assertTrue(MvtReader.area2(feature.rings().get(0)) > 0);
+		assertTrue(MvtReader.area2(feature.rings().get(1)) < 0);
+	}
+
+	@Test
+	void testEncode_SharedValues_AreDeduplicated() {
+		MvtEncoder encoder = new MvtEncoder();
+		MvtEncoder.Layer layer = encoder.layer("lga", 4096);
+		for (int i = 0; i < 10; i++) {
+			layer.addPolygonFeature((long) i, geometryFactory.createPolygon(ring(i, 0, i + 1, 0, i + 1, 1, i, 1, i, 0)),
+					Map.of("prefix", "LA001"));
+		}
+		byte[] tile = encoder.encode();
+
+		MvtReader.Layer decoded = MvtReader.read(tile).get("lga");
+		assertEquals(10, decoded.features().size());
+		int occurrences = 0;
+		String text = new String(tile, StandardCharsets.ISO_8859_1);
+		for (int i = text.indexOf("LA001"); i >= 0; i = text.indexOf("LA001", i + 1)) {
+			occurrences++;
+		}
+		assertEquals(1, occurrences);
+	}
+
+	@Test
+	void testAddPolygonFeature_CollapsedGeometry_IsSkipped() {
+		MvtEncoder encoder = new MvtEncoder();
+		Polygon sliver = geometryFactory.createPolygon(new Coordinate[] {
+				new Coordinate(0, 0), new Coordinate(0.2, 0), new Coordinate(0.2, 0.2), new Coordinate(0, 0) });
+		assertFalse(encoder.layer("cells", 4096).addPolygonFeature(null, sliver, Map.of()));
+		assertEquals(0, encoder.encode().length);
+	}
+
+	@Test
+	void testAddPolygonFeature_LineString_Throws() {
+		MvtEncoder encoder = new MvtEncoder();
+		assertThrows(IllegalArgumentException.class, () -> encoder.layer("cells", 4096).addPolygonFeature(null,
+				geometryFactory.createLineString(new Coordinate[] { new Coordinate(0, 0), new Coordinate(5, 5) }),
+				Map.of()));
+	}
+
+	private LinearRing ring(double... xy) {
+		Coordinate[] coordinates = new Coordinate[xy.length / 2];
+		for (int i = 0; i < coordinates.length; i++) {
+			coordinates[i] = new Coordinate(xy[i * 2], xy[i * 2 + 1]);
+		}
+		return geometryFactory.createLinearRing(coordinates);
+	}
+
+	private static int[] flatten(LinearRing ring) {
+		Coordinate[] coordinates = ring.getCoordinates();
+		int[] points = new int[(coordinates.length - 1) * 2];
+		for (int i = 0; i < coordinates.length - 1; i++) {
+			points[i * 2] = (int) coordinates[i].x;
+			points[i * 2 + 1] = (int) coordinates[i].y;
+		}
+		return points;
+	}
+}
@@ -0,0 +1,184 @@
+package com.ninjamap.app.utils.geo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test-only decoder for the subset of the vector tile format written by
+ * {@link MvtEncoder}. Geometries are decoded into rings of absolute integer
+ * points (without the implicit closing point).
+ */
+public final class MvtReader {
+
+	public record Feature(Long id, Map<String, Object> attributes, int type, List<int[]> rings) {
+	}
+
+	public record Layer(int version, String name, int extent, List<Feature> features) {
+	}
+
+	private final byte[] data;
+	private int pos;
+	private final int limit;
+
+	private MvtReader(byte[] data, int pos, int limit) {
+		this.data = data;
+		this.pos = pos;
+		this.limit = limit;
+	}
+
+	public static Map<String, Layer> read(byte[] tile) {
+		Map<String, Layer> layers = new LinkedHashMap<>();
+		MvtReader reader = new MvtReader(tile, 0, tile.length);
+		while (reader.pos < reader.limit) {
+			long tag = reader.varint();
+			if ((tag >>> 3) != 3) {
+				throw new IllegalStateException("Unexpected tile field " + (tag >>> 3));
+			}
+			Layer layer = reader.nested().readLayer();
+			layers.put(layer.name(), layer);
+		}
+		return layers;
+	}
+
+	/**
+	 * Signed area of a ring in tile coordinates (positive = clockwise on screen = exterior).
+	 */
+	public static long area2(int[] ring) {
+		long area = 0;
+		int count = ring.length / 2;
+		for (int i = 0, j = count - 1; i < count; j = i++) {
+			area += (long) ring[j * 2] * ring[i * 2 + 1] - (long) ring[i * 2] * ring[j * 2 + 1];
+		}
+		return area;
+	}
+
+	private Layer readLayer() {
+		int version = 1;
+		String name = null;
+		int extent = 4096;
+		List<MvtReader> rawFeatures = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		while (pos < limit) {
+			long tag = varint();
+			switch ((int) (tag >>> 3)) {
+			case 15 -> version = (int) varint();
+			case 1 -> name = string();
+			case 2 -> rawFeatures.add(nested());
+			case 3 -> keys.add(string());
+			case 4 -> values.add(nested().readValue());
+			case 5 -> extent = (int) varint();
+			default -> throw new IllegalStateException("Unexpected layer field " + (tag >>> 3));
+			}
+		}
+		List<Feature> features = new ArrayList<>();
+		for (MvtReader feature : rawFeatures) {
+			features.add(feature.readFeature(keys, values));
+		}
+		return new Layer(version, name, extent, features);
+	}
+
+	private Object readValue() {
+		long tag = varint();
+		return switch ((int) (tag >>> 3)) {
+		case 1 -> string();
+		case 3 -> {
+			double value = ByteBuffer.wrap(data, pos, 8).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+			pos += 8;
+			yield value;
+		}
+		case 6 -> {
+			long raw = varint();
+			yield (raw >>> 1) ^ -(raw & 1);
+		}
+		case 7 -> varint() != 0;
+		default -> throw new IllegalStateException("Unexpected value field " + (tag >>> 3));
+		};
+	}
+
+	private Feature readFeature(List<String> keys, List<Object> values) {
+		Long id = null;
+		int type = 0;
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		List<int[]> rings = new ArrayList<>();
+		while (pos < limit) {
+			long tag = varint();
+			switch ((int) (tag >>> 3)) {
+			case 1 -> id = varint();
+			case 2 -> {
+				MvtReader packed = nested();
+				while (packed.pos < packed.limit) {
+					String key = keys.get((int) packed.varint());
+					attributes.put(key, values.get((int) packed.varint()));
+				}
+			}
+			case 3 -> type = (int) varint();
+			case 4 -> rings = nested().readGeometry();
+			default -> throw new IllegalStateException("Unexpected feature field " + (tag >>> 3));
+			}
+		}
+		return new Feature(id, attributes, type, rings);
+	}
+
+	private List<int[]> readGeometry() {
+		List<int[]> rings = new ArrayList<>();
+		List<Integer> current = null;
+		int x = 0;
+		int y = 0;
+		while (pos < limit) {
+			int command = (int) varint();
+			int id = command & 0x7;
+			int count = command >>> 3;
+			if (id == 7) {
+				rings.add(current.stream().mapToInt(Integer::intValue).toArray());
+				current = null;
+				continue;
+			}
+			if (id == 1) {
+				current = new ArrayList<>();
+			}
+			for (int i = 0; i < count; i++) {
+				x += zigZag((int) varint());
+				y += zigZag((int) varint());
+				current.add(x);
+				current.add(y);
+			}
+		}
+		return rings;
+	}
+
+	private MvtReader nested() {
+		int length = (int) varint();
+		MvtReader nested = new MvtReader(data, pos, pos + length);
+		pos += length;
+		return nested;
+	}
+
+	private String string() {
+		int length = (int) varint();
+		String value = new String(data, pos, length, StandardCharsets.UTF_8);
+		pos += length;
+		return value;
+	}
+
+	private long varint() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = data[pos++];
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Malformed varint");
+	}
+
+	private static int zigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
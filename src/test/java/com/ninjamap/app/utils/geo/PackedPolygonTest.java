@@ -0,0 +1,176 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninjamap.app.model.LGA;
+
+class PackedPolygonTest {
+
+	@Test
+	void testContains_SyntheticLgas_MatchesListRayCast() {
+		List<LGA> lgas = SyntheticLgaFixture.generate(6, 6, 24, 3L);
+		Random random = new Random(1);
+		for (LGA lga : lgas) {
+			List<List<Double>> boundary = lga.getBoundary();
+			PackedPolygon packed = PackedPolygon.fromRing(boundary);
+			for (int i = 0; i < 2_000; i++) {
+				double lat = SyntheticLgaFixture.MIN_LAT - 0.2 + random.nextDouble() * 10.1;
+				double lon = SyntheticLgaFixture.MIN_LON - 0.2 + random.nextDouble() * 12.5;
+				assertEquals(listRayCast(boundary, lat, lon), packed.contains(lat, lon));
+			}
+		}
+	}
+
+	@Test
+	void testContains_PolygonWithHole_ExcludesHole() {
+		PackedPolygon polygon = PackedPolygon.fromMultiPolygon(List.of(
+				List.of(ring(0, 0, 10), ring(4, 4, 2))));
+
+		assertTrue(polygon.contains(1, 1));
+		assertFalse(polygon.contains(5, 5));
+		assertTrue(polygon.contains(7, 7));
+		assertFalse(polygon.contains(11, 5));
+		assertEquals(2, polygon.getRingCount());
+	}
+
+	@Test
+	void testContains_MultiPolygon_CoversEveryPart() {
+		PackedPolygon polygon = PackedPolygon.fromMultiPolygon(List.of(
+				List.of(ring(0, 0, 1)),
+				List.of(ring(5, 5, 1))));
+
+		assertTrue(polygon.contains(0.5, 0.5));
+		assertTrue(polygon.contains(5.5, 5.5));
+		assertFalse(polygon.contains(3, 3));
+		assertEquals(0, polygon.getMinLat());
+		assertEquals(6, polygon.getMaxLon());
+	}
+
+	@Test
+	void testCompact_DropsListsAndKeepsLookups() {
+		LGA lga = new LGA();
+		lga.setBoundary(ring(6, 3, 1));
+		lga.compact();
+
+		assertNull(lga.getBoundary());
+		assertTrue(lga.isPointInside(6.5, 3.5));
+		assertFalse(lga.isPointInside(7.5, 3.5));
+	}
+
+	@Test
+	void testContains_DegenerateRings_NeverMatch() {
+		assertTrue(PackedPolygon.fromRing(null).isEmpty());
+		assertFalse(PackedPolygon.fromRing(List.of(List.of(0.0, 0.0), List.of(1.0, 1.0))).contains(0.5, 0.5));
+	}
+
+	@Test
+	void testContainsAll_RandomAndDegenerateInputs_MatchesContains() {
+		Random random = new Random(21);
+		for (int polygonIndex = 0; polygonIndex < 200; polygonIndex++) {
+			// Random, possibly self-intersecting rings with a few shared and repeated vertices
+			int rings = 1 + random.nextInt(3);
+			List<List<List<Double>>> ringList = new ArrayList<>();
+			List<double[]> vertices = new ArrayList<>();
+			for (int r = 0; r < rings; r++) {
+				List<List<Double>> ring = new ArrayList<>();
+				int points = 3 + random.nextInt(40);
+				for (int k = 0; k < points; k++) {
+					double lon = random.nextInt(4) == 0 && k > 0 ? ring.get(k - 1).get(0) : random.nextInt(20) * 0.5;
+					double lat = random.nextInt(4) == 0 && k > 0 ? ring.get(k - 1).get(1) : random.nextInt(20) * 0.5;
+					ring.add(List.of(lon, lat));
+					vertices.add(new double[] { lat, lon });
+				}
+				ringList.add(ring);
+			}
+			PackedPolygon polygon = PackedPolygon.fromRings(ringList);
+
+			int count = random.nextInt(70);
+			double[] latitudes = new double[count];
+			double[] longitudes = new double[count];
+			for (int i = 0; i < count; i++) {
+				switch (random.nextInt(5)) {
+					case 0 -> {
+						// On a vertex, or on the grid of vertex coordinates (horizontal/vertical edges)
+						double[] vertex = vertices.get(random.nextInt(vertices.size()));
+						latitudes[i] = vertex[0];
+						longitudes[i] = random.nextBoolean() ? vertex[1] : random.nextInt(20) * 0.5;
+					}
+					case 1 -> {
+						latitudes[i] = random.nextBoolean() ? Double.NaN : 5;
+						longitudes[i] = random.nextBoolean() ? Double.NaN : -1e300;
+					}
+					default -> {
+						latitudes[i] = -1 + random.nextDouble() * 12;
+						longitudes[i] = -1 + random.nextDouble() * 12;
+					}
+				}
+			}
+
+			boolean[] selected = new boolean[count];
+			boolean[] scalar = new boolean[count];
+			polygon.containsAll(latitudes, longitudes, count, selected);
+			PolygonBatchKernel.SCALAR.containsAll(polygon, latitudes, longitudes, count, scalar);
+			for (int i = 0; i < count; i++) {
+				boolean expected = polygon.contains(latitudes[i], longitudes[i]);
+				assertEquals(expected, selected[i], "point " + latitudes[i] + "," + longitudes[i]);
+				assertEquals(expected, scalar[i]);
+			}
+		}
+	}
+
+	@Test
+	void testContainsAll_MappedPolygon_MatchesContains() {
+		PackedPolygon heap = PackedPolygon.fromMultiPolygon(List.of(List.of(ring(0, 0, 10), ring(4, 4, 2))));
+		PackedPolygon mapped = PackedPolygon.mapped(DoubleBuffer.wrap(heap.getCoords()).asReadOnlyBuffer(),
+				heap.getRingStarts(), heap.getMinLat(), heap.getMaxLat(), heap.getMinLon(), heap.getMaxLon());
+		double[] latitudes = { 1, 5, 7, 11, 0, 10, 4.5 };
+		double[] longitudes = { 1, 5, 7, 5, 0, 10, 4 };
+		boolean[] inside = new boolean[latitudes.length];
+		mapped.containsAll(latitudes, longitudes, latitudes.length, inside);
+		for (int i = 0; i < latitudes.length; i++) {
+			assertEquals(heap.contains(latitudes[i], longitudes[i]), inside[i]);
+		}
+	}
+
+	@Test
+	void testBatchKernel_VectorSelectedWithIncubatorModule() {
+		// The vector profile compiles the kernel and adds the module for tests; otherwise the scalar kernel is used
+		boolean moduleAdded = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+		boolean kernelCompiled = PackedPolygonTest.class.getClassLoader()
+				.getResource("com/ninjamap/app/utils/geo/VectorPolygonKernel.class") != null;
+		assertEquals(moduleAdded && kernelCompiled, PackedPolygon.isBatchVectorized());
+	}
+
+	private static List<List<Double>> ring(double minLat, double minLon, double size) {
+		return List.of(
+				List.of(minLon, minLat),
+				List.of(minLon + size, minLat),
+				List.of(minLon + size, minLat + size),
+				List.of(minLon, minLat + size));
+	}
+
+	// The original List-based implementation of LGA.isPointInside
+	private static boolean listRayCast(List<List<Double>> boundary, double latitude, double longitude) {
+		boolean inside = false;
+		int j = boundary.size() - 1;
+		for (int i = 0; i < boundary.size(); i++) {
+			double xi = boundary.get(i).get(0);
+			double yi = boundary.get(i).get(1);
+			double xj = boundary.get(j).get(0);
+			double yj = boundary.get(j).get(1);
+			if (((yi > latitude) != (yj > latitude))
+					&& (longitude < (xj - xi) * (latitude - yi) / (yj - yi) + xi)) {
+				inside = !inside;
+			}
+			j = i;
+		}
+		return inside;
+	}
+}
@@ -0,0 +1,55 @@
+package com.ninjamap.app.utils.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ScanlinePolygonTest {
+
+	@Test
+	void testCrossings_SquareWithHole_GivesSortedSpans() {
+		ScanlinePolygon polygon = ScanlinePolygon.of(new double[] {
+				0, 0, 10, 0, 10, 10, 0, 10,
+				4, 4, 6, 4, 6, 6, 4, 6 }, new int[] { 0, 4, 8 });
+
+		ScanlinePolygon.Crossings crossings = polygon.crossings(5, null);
+		assertEquals(4, crossings.count());
+		assertEquals(0.0, crossings.get(0));
+		assertEquals(4.0, crossings.get(1));
+		assertEquals(6.0, crossings.get(2));
+		assertEquals(10.0, crossings.get(3));
+
+		assertEquals(2, polygon.crossings(2, crossings).count());
+		assertEquals(0, polygon.crossings(10, crossings).count());
+		assertEquals(0, polygon.crossings(-1, crossings).count());
+	}
+
+	@Test
+	void testContains_MatchesCrossingsAndRayCast() {
+		PackedPolygon lga = SyntheticLgaFixture.generate(3, 3, 200, 7).get(4).getPackedBoundary();
+		ScanlinePolygon polygon = ScanlinePolygon.of(lga);
+		assertEquals(lga.getPointCount(), polygon.getVertexCount());
+
+		Random random = new Random(11);
+		ScanlinePolygon.Crossings crossings = new ScanlinePolygon.Crossings();
+		for (int i = 0; i < 20_000; i++) {
+			double lat = lga.getMinLat() + random.nextDouble() * (lga.getMaxLat() - lga.getMinLat());
+			double lon = lga.getMinLon() + random.nextDouble() * (lga.getMaxLon() - lga.getMinLon());
+			boolean inSpan = false;
+			polygon.crossings(lat, crossings);
+			for (int k = 0; k < crossings.count(); k += 2) {
+				inSpan |= crossings.get(k) <= lon && lon < crossings.get(k + 1);
+			}
+			assertEquals(lga.contains(lat, lon), polygon.contains(lat, lon));
+			assertEquals(polygon.contains(lat, lon), inSpan);
+		}
+	}
+
+	@Test
+	void testOf_DegenerateRing_Throws() {
+		assertThrows(IllegalArgumentException.class, () -> ScanlinePolygon.of(new double[] { 0, 0, 1, 1 }, new int[] { 0, 2 }));
+		assertThrows(IllegalArgumentException.class, () -> ScanlinePolygon.of(new double[0], new int[] { 0 }));
+	}
+}
@@ -0,0 +1,110 @@
+package com.ninjamap.app.utils.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.ninjamap.app.model.LGA;
+
+/**
+ * Deterministic synthetic LGA dataset covering Nigeria's bounding box, so
+ * tests and benchmarks run without the real nigeria_lga.json.
+ * <p>
+ * The box is split into a jittered rows x cols lattice; every lattice edge is
+ * subdivided with seeded noise and shared by both neighbouring polygons, so
+ * the polygons tile the box without gaps or overlaps, like real LGAs.
+ */
+public final class SyntheticLgaFixture {
+
+	public static final double MIN_LAT = 4.2;
+	public static final double MAX_LAT = 13.9;
+	public static final double MIN_LON = 2.6;
+	public static final double MAX_LON = 14.7;
+
+	private SyntheticLgaFixture() {
+	}
+
+	/**
+	 * Roughly the size of the real dataset: 784 LGAs with ~200 vertices each.
+	 */
+	public static List<LGA> nigeria() {
+		return generate(28, 28, 48, 1L);
+	}
+
+	public static List<LGA> generate(int rows, int cols, int pointsPerEdge, long seed) {
+		double dLat = (MAX_LAT - MIN_LAT) / rows;
+		double dLon = (MAX_LON - MIN_LON) / cols;
+		Random random = new Random(seed);
+
+		// Jitter interior lattice corners; corners on the outer box stay fixed
+		double[][] cornerLat = new double[rows + 1][cols + 1];
+		double[][] cornerLon = new double[rows + 1][cols + 1];
+		for (int r = 0; r <= rows; r++) {
+			for (int c = 0; c <= cols; c++) {
+				boolean interiorRow = r > 0 && r < rows;
+				boolean interiorCol = c > 0 && c < cols;
+				cornerLat[r][c] = MIN_LAT + r * dLat + (interiorRow ? (random.nextDouble() - 0.5) * 0.3 * dLat : 0);
+				cornerLon[r][c] = MIN_LON + c * dLon + (interiorCol ? (random.nextDouble() - 0.5) * 0.3 * dLon : 0);
+			}
+		}
+
+		List<LGA> lgas = new ArrayList<>(rows * cols);
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				List<List<Double>> ring = new ArrayList<>();
+				// bottom (west -> east), right (south -> north), top (east -> west), left (north -> south)
+				appendEdge(ring, cornerLat, cornerLon, r, c, r, c + 1, r > 0, pointsPerEdge, seed, dLat, dLon, false);
+				appendEdge(ring, cornerLat, cornerLon, r, c + 1, r + 1, c + 1, c + 1 < cols, pointsPerEdge, seed, dLat, dLon, false);
+				appendEdge(ring, cornerLat, cornerLon, r + 1, c, r + 1, c + 1, r + 1 < rows, pointsPerEdge, seed, dLat, dLon, true);
+				appendEdge(ring, cornerLat, cornerLon, r, c, r + 1, c, c > 0, pointsPerEdge, seed, dLat, dLon, true);
+
+				int index = r * cols + c;
+				LGA lga = new LGA();
+				lga.setId(index + 1);
+				lga.setStateCode(stateCode(index / 20));
+				lga.setStateName("State " + (index / 20));
+				lga.setLgaCode(String.format("%03d", index % 20 + 1));
+				lga.setLgaName("LGA " + (index + 1));
+				lga.setBoundary(ring);
+				lgas.add(lga);
+			}
+		}
+		return lgas;
+	}
+
+	/**
+	 * Appends the points of the lattice edge (r0,c0) -> (r1,c1), excluding its
+	 * last point. The noise depends only on the edge, so both polygons sharing
+	 * it get identical vertices.
+	 */
+	private static void appendEdge(List<List<Double>> ring, double[][] cornerLat, double[][] cornerLon,
+			int r0, int c0, int r1, int c1, boolean noisy, int pointsPerEdge, long seed,
+			double dLat, double dLon, boolean reversed) {
+		int segments = pointsPerEdge + 1;
+		double[][] points = new double[segments + 1][];
+		Random random = new Random(seed * 31 + ((long) r0 * 7919 + c0) * 4 + (r1 - r0) * 2 + (c1 - c0));
+		boolean horizontal = r0 == r1;
+		for (int k = 0; k <= segments; k++) {
+			double t = (double) k / segments;
+			double lat = cornerLat[r0][c0] + t * (cornerLat[r1][c1] - cornerLat[r0][c0]);
+			double lon = cornerLon[r0][c0] + t * (cornerLon[r1][c1] - cornerLon[r0][c0]);
+			if (noisy && k > 0 && k < segments) {
+				double offset = (random.nextDouble() - 0.5) * 0.12;
+				if (horizontal) {
+					lat += offset * dLat;
+				} else {
+					lon += offset * dLon;
+				}
+			}
+			points[k] = new double[] { lon, lat };
+		}
+		for (int k = 0; k < segments; k++) {
+			double[] point = points[reversed ? segments - k : k];
+			ring.add(List.of(point[0], point[1]));
+		}
+	}
+
+	private static String stateCode(int state) {
+		return "" + (char) ('A' + state / 26 % 26) + (char) ('A' + state % 26);
+	}
+}
@@ -0,0 +1,77 @@
+package com.ninjamap.app.utils.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PolygonBatchKernel} on the Java Vector API: a lane-width batch of
+ * points is tested against each edge at once, the edge's coordinates
+ * broadcast to every lane. Each lane runs the same IEEE operations in the
+ * same order as the scalar loop, so results are identical; points past the
+ * last full batch go through {@link PackedPolygon#contains}.
+ * <p>
+ * Only instantiated reflectively by {@link PolygonBatchKernel}, since merely
+ * linking this class needs the incubator module.
+ */
+final class VectorPolygonKernel implements PolygonBatchKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorPolygonKernel() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("No vector shape holds more than one double");
+        }
+    }
+
+    @Override
+    public void containsAll(PackedPolygon polygon, double[] latitudes, double[] longitudes, int count,
+                            boolean[] inside) {
+        final double[] c = polygon.getCoords();
+        final int[] ringStarts = polygon.getRingStarts();
+        int batchEnd = SPECIES.loopBound(count);
+        int p = 0;
+        for (; p < batchEnd; p += SPECIES.length()) {
+            DoubleVector latitude = DoubleVector.fromArray(SPECIES, latitudes, p);
+            DoubleVector longitude = DoubleVector.fromArray(SPECIES, longitudes, p);
+
+            // Bounding box early reject, as in contains(); NaN fails every comparison
+            VectorMask<Double> inBox = latitude.compare(VectorOperators.GE, polygon.getMinLat())
+                    .and(latitude.compare(VectorOperators.LE, polygon.getMaxLat()))
+                    .and(longitude.compare(VectorOperators.GE, polygon.getMinLon()))
+                    .and(longitude.compare(VectorOperators.LE, polygon.getMaxLon()));
+            if (!inBox.anyTrue()) {
+                inBox.intoArray(inside, p);
+                continue;
+            }
+
+            VectorMask<Double> parity = SPECIES.maskAll(false);
+            for (int ring = 0; ring < ringStarts.length - 1; ring++) {
+                int start = ringStarts[ring] * 2;
+                int end = ringStarts[ring + 1] * 2;
+                int j = end - 2;
+                for (int i = start; i < end; i += 2) {
+                    double xi = c[i];
+                    double yi = c[i + 1];
+                    double xj = c[j];
+                    double yj = c[j + 1];
+
+                    // (yi > lat) != (yj > lat)
+                    VectorMask<Double> straddles = latitude.lt(yi).eq(latitude.lt(yj)).not();
+                    if (straddles.anyTrue()) {
+                        // (xj - xi) * (lat - yi) / (yj - yi) + xi, lanes that do not straddle are ignored
+                        DoubleVector crossing = latitude.sub(yi).mul(xj - xi).div(yj - yi).add(xi);
+                        // parity ^= straddles & lon < crossing
+                        parity = parity.eq(straddles.and(longitude.lt(crossing))).not();
+                    }
+                    j = i;
+                }
+            }
+            parity.and(inBox).intoArray(inside, p);
+        }
+        for (; p < count; p++) {
+            inside[p] = polygon.contains(latitudes[p], longitudes[p]);
+        }
+    }
+}